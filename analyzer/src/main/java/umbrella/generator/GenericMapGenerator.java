@@ -191,11 +191,10 @@ public class GenericMapGenerator extends AbstractMapGenerator {
 
 				// create a mapping
 				instruction = new GenericTypeNameInstruction (prefix + replacementName);
-			} while (this.map.mappingExists (instruction));
+			} while (!this.map.addInstructionIfUnused (new GenericTypeNameInstruction (name), instruction));
 
-			// add instruction
+			// log
 			getLogger ().trace ("Mapped \"" + name + "\" to \"" + instruction.getName () + "\".");
-			this.map.addInstruction (new GenericTypeNameInstruction (name), instruction);
 		}
 
 		/**
@@ -231,11 +230,10 @@ public class GenericMapGenerator extends AbstractMapGenerator {
 
 				// create a mapping
 				instruction = new GenericTypeNameInstruction (prefix + replacementName);
-			} while (this.map.mappingExists (instruction));
+			} while (!this.map.addInstructionIfUnused (new GenericTypeNameInstruction (name), instruction));
 
-			// add instruction
+			// log
 			getLogger ().trace ("Mapped \"" + name + "\" to \"" + instruction.getName () + "\".");
-			this.map.addInstruction (new GenericTypeNameInstruction (name), instruction);
 		}
 
 		/**
@@ -315,11 +313,10 @@ public class GenericMapGenerator extends AbstractMapGenerator {
 
 				// create a mapping
 				instruction = new GenericMethodNameInstruction (this.currentClass, replacementName, (isMethodReturnTypeOverloadingEnabled () ? desc : desc.substring (0, (desc.lastIndexOf (')') + 1))));
-			} while (this.map.mappingExists (instruction));
+			} while (!this.map.addInstructionIfUnused (new GenericMethodNameInstruction (this.currentClass, name, desc), instruction));
 
-			// add instruction
+			// log
 			getLogger ().trace ("Mapped method \"" + this.currentClass + "#" + name + ":" + desc + "\" to \"" + instruction.getName () + "\".");
-			this.map.addInstruction (new GenericMethodNameInstruction (this.currentClass, name, desc), instruction);
 
 			// call parent
 			return new GeneratorMethodVisitor (this.map, super.visitMethod (access, name, desc, signature, exceptions));
@@ -352,11 +349,10 @@ public class GenericMapGenerator extends AbstractMapGenerator {
 
 				// create a mapping
 				instruction = new GenericFieldNameInstruction (this.currentClass, replacementName, (isFieldTypeOverloadingEnabled () ? desc : null));
-			} while (this.map.mappingExists (instruction));
+			} while (!this.map.addInstructionIfUnused (new GenericFieldNameInstruction (this.currentClass, name, desc), instruction));
 
-			// add instruction
+			// log
 			getLogger ().trace ("Mapped field \"" + this.currentClass + "#" + name + ":" + desc + "\" to \"" + instruction.getName () + "\".");
-			this.map.addInstruction (new GenericFieldNameInstruction (this.currentClass, name, desc), instruction);
 
 			// call parent
 			return super.visitField (access, name, desc, signature, value);
@@ -411,11 +407,10 @@ public class GenericMapGenerator extends AbstractMapGenerator {
 
 				// create a mapping
 				instruction = new GenericInvokeDynamicMethodNameInstruction (replacementName, desc);
-			} while (this.map.mappingExists (instruction));
+			} while (!this.map.addInstructionIfUnused (new GenericInvokeDynamicMethodNameInstruction (name, desc), instruction));
 
-			// add instruction
+			// log
 			getLogger ().trace ("Mapped invoke dynamic \"" + name + ":" + desc + "\" to \"" + instruction.getName () + "\".");
-			this.map.addInstruction (new GenericInvokeDynamicMethodNameInstruction (name, desc), instruction);
 		}
 	}
 }
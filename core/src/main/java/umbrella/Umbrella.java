@@ -40,6 +40,11 @@ import umbrella.generator.name.MapNameGenerator;
 import umbrella.generator.name.UUIDNameGenerator;
 import umbrella.map.GenericMap;
 import umbrella.map.IMap;
+import umbrella.map.InstrumentedMap;
+import umbrella.map.MapPatch;
+import umbrella.map.MappedMap;
+import umbrella.map.PartitionedMap;
+import umbrella.map.io.MapFormat;
 import umbrella.utility.IOUtility;
 
 import java.io.*;
@@ -117,6 +122,7 @@ public class Umbrella {
 	public static void apply (@NonNull ClassReader classReader, @NonNull ClassWriter classWriter, @NonNull IMap map) {
 		// create mapper
 		UmbrellaRemapper remapper = new UmbrellaRemapper (map);
+		remapper.setOwner (classReader.getClassName ());
 
 		// create adapter
 		RemappingClassAdapter classAdapter = new RemappingClassAdapter (classWriter, remapper);
@@ -354,6 +360,10 @@ public class Umbrella {
 		// map options
 		options.addOption (OptionBuilder.withLongOpt ("map").withDescription ("Specifies an input map.").hasArg ().withArgName ("map file").create ('m'));
 		options.addOption (OptionBuilder.withLongOpt ("map-out").withDescription ("Specifies an output map.").hasArg ().withArgName ("map file").create ('w'));
+		options.addOption (OptionBuilder.withLongOpt ("map-patch").withDescription ("Applies a patch to the input map (the map has to match the base map of the patch).").hasArg ().withArgName ("patch file").create ());
+		options.addOption (OptionBuilder.withLongOpt ("map-format").withDescription ("Specifies the output map format (text, binary, indexed, compressed or partitioned).").hasArg ().withArgName ("format").create ());
+		options.addOption (OptionBuilder.withLongOpt ("map-statistics").withDescription ("Records map lookup statistics while applying the map and prints them afterwards.").create ());
+		options.addOption (OptionBuilder.withLongOpt ("map-latency").withDescription ("Records map lookup latencies in addition to the lookup statistics.").create ());
 
 		// map generation options
 		options.addOption (OptionBuilder.withLongOpt ("preserve-package-structure").withDescription ("Causes the map generator to preserve package structures.").create ());
@@ -445,8 +455,20 @@ public class Umbrella {
 		if (!commandLine.hasOption ("jar") && !commandLine.hasOption ("file")) throw new IllegalArgumentException ("No input input file has been specified");
 		if (commandLine.hasOption ("jar") && commandLine.hasOption ("file")) throw new IllegalArgumentException ("More than one input file has been specified");
 		if (!commandLine.hasOption ("map-out") && !commandLine.hasOption ("out")) throw new IllegalArgumentException ("No action specified - Aborting");
+		if (commandLine.hasOption ("map-patch") && !commandLine.hasOption ("map")) throw new IllegalArgumentException ("A patch can only be applied to an input map");
 		if (commandLine.hasOption ("use-unicode-name-generator") && commandLine.hasOption ("use-uuid-name-generator")) throw new IllegalArgumentException ("More than one name generator specified");
 
+		// parse map format
+		MapFormat mapFormat = MapFormat.TEXT;
+
+		if (commandLine.hasOption ("map-format")) {
+			try {
+				mapFormat = MapFormat.valueOf (commandLine.getOptionValue ("map-format").toUpperCase ());
+			} catch (IllegalArgumentException ex) {
+				throw new IllegalArgumentException ("Unknown map format \"" + commandLine.getOptionValue ("map-format") + "\"");
+			}
+		}
+
 		try {
 			// get input file
 			File input = null;
@@ -461,6 +483,7 @@ public class Umbrella {
 
 			// get map
 			IMap map = null;
+			InstrumentedMap instrumentedMap = null;
 
 			// generate map
 			if (!commandLine.hasOption ("map")) {
@@ -498,11 +521,38 @@ public class Umbrella {
 				// store time
 				long startTime = System.currentTimeMillis ();
 
-				// open map
-				map = new GenericMap (mapFile);
+				// open map (indexed maps are mapped into memory instead of being parsed, partitioned maps are loaded on demand)
+				switch (MapFormat.detect (mapFile)) {
+					case INDEXED:
+						map = new MappedMap (mapFile);
+						break;
+					case PARTITIONED:
+						map = new PartitionedMap (mapFile);
+						break;
+					default:
+						map = new GenericMap (mapFile);
+						break;
+				}
 
 				// log
 				getLogger ().info ("Finished - Map parsing took " + (System.currentTimeMillis () - startTime) + " ms.");
+
+				// apply patch
+				if (commandLine.hasOption ("map-patch")) {
+					// get file
+					File patchFile = new File (commandLine.getOptionValue ("map-patch"));
+
+					// log
+					getLogger ().info ("Applying patch \"" + patchFile.getName () + "\" ...");
+
+					// apply (mapped maps are read-only and need to be copied first)
+					MapPatch patch = MapPatch.load (patchFile, map.getInstructionRegistry ());
+					if (map instanceof MappedMap) map = new GenericMap (map.getInstructionRegistry (), map);
+					patch.apply (map);
+
+					// log
+					getLogger ().info ("Finished - Applied " + patch.size () + " changes.");
+				}
 			}
 
 			// write map
@@ -514,7 +564,7 @@ public class Umbrella {
 				getLogger ().info ("Saving map to file \"" + mapFile.getName () + "\" ...");
 
 				// write
-				map.save (mapFile);
+				map.save (mapFile, mapFormat);
 
 				// log
 				getLogger ().info ("Map was saved successfully.");
@@ -528,6 +578,12 @@ public class Umbrella {
 				// log
 				getLogger ().info ("Applying map ...");
 
+				// freeze map (mapped maps are already read-only and partitioned maps would be loaded completely)
+				if (!(map instanceof MappedMap) && !(map instanceof PartitionedMap)) map = map.freeze ();
+
+				// instrument map
+				if (commandLine.hasOption ("map-statistics") || commandLine.hasOption ("map-latency")) map = instrumentedMap = new InstrumentedMap (map, commandLine.hasOption ("map-latency"));
+
 				// apply map
 				if (inputJar != null)
 					apply (inputJar, output, map);
@@ -538,6 +594,12 @@ public class Umbrella {
 				getLogger ().info ("Finished patching.");
 			}
 
+			// print lookup statistics
+			if (instrumentedMap != null) {
+				getLogger ().info ("Map lookup statistics:");
+				for (String line : Splitter.on ('\n').split (instrumentedMap.getReport ())) getLogger ().info ("  " + line);
+			}
+
 			// log
 			getLogger ().info ("Processing has finished successfully.");
 			System.exit (1);
@@ -14,28 +14,65 @@
  */
 package umbrella.asm;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.Setter;
 import org.objectweb.asm.commons.Remapper;
 import umbrella.map.IMap;
+import umbrella.map.OwnerMap;
 
 /**
  * @author Johannes Donath <johannesd@evil-co.com>
  * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
  */
-@AllArgsConstructor
 public class UmbrellaRemapper extends Remapper {
 
 	/**
 	 * Stores the parent map.
 	 */
 	@Getter
-	@Setter
-	@NonNull
 	private IMap map;
 
+	/**
+	 * Stores the members of the class which is currently remapped (or null).
+	 */
+	@Getter
+	private OwnerMap ownerMap = null;
+
+	/**
+	 * Constructs a new UmbrellaRemapper instance.
+	 * @param map The parent map.
+	 */
+	public UmbrellaRemapper (@NonNull IMap map) {
+		this.map = map;
+	}
+
+	/**
+	 * Sets the parent map.
+	 * @param map The parent map.
+	 */
+	public void setMap (@NonNull IMap map) {
+		this.map = map;
+		this.ownerMap = null;
+	}
+
+	/**
+	 * Sets the class which is currently remapped.
+	 * Its members are resolved once and looked up in a local table afterwards.
+	 * @param owner The owner (or null).
+	 */
+	public void setOwner (String owner) {
+		this.ownerMap = (owner != null ? this.map.forOwner (owner) : null);
+	}
+
+	/**
+	 * Checks whether a member belongs to the class which is currently remapped.
+	 * @param owner The owner.
+	 * @return True if the local table may be used.
+	 */
+	private boolean isCurrentOwner (String owner) {
+		return (this.ownerMap != null && this.ownerMap.getOwner ().equals (owner));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -44,12 +81,37 @@ public class UmbrellaRemapper extends Remapper {
 		return this.map.mapTypeName (super.map (typeName));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapDesc (String desc) {
+		return this.map.mapDescription (desc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapMethodDesc (String desc) {
+		return this.map.mapDescription (desc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapSignature (String signature, boolean typeSignature) {
+		return this.map.mapSignature (signature);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public String mapFieldName (String owner, String name, String desc) {
-		return this.map.mapFieldName (owner, super.mapFieldName (owner, name, desc), desc);
+		name = super.mapFieldName (owner, name, desc);
+		return (this.isCurrentOwner (owner) ? this.ownerMap.mapFieldName (name, desc) : this.map.mapFieldName (owner, name, desc));
 	}
 
 	/**
@@ -57,7 +119,8 @@ public class UmbrellaRemapper extends Remapper {
 	 */
 	@Override
 	public String mapMethodName (String owner, String name, String desc) {
-		return this.map.mapMethodName (owner, super.mapMethodName (owner, name, desc), desc);
+		name = super.mapMethodName (owner, name, desc);
+		return (this.isCurrentOwner (owner) ? this.ownerMap.mapMethodName (name, desc) : this.map.mapMethodName (owner, name, desc));
 	}
 
 	/**
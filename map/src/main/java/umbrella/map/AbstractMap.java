@@ -0,0 +1,343 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.NonNull;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.instruction.utility.MapInstructionComparator;
+import umbrella.map.io.BinaryMapWriter;
+import umbrella.map.io.CompressedMapWriter;
+import umbrella.map.io.IndexedMapWriter;
+import umbrella.map.io.MapFormat;
+import umbrella.map.io.PartitionedMapWriter;
+import umbrella.map.io.TextMapWriter;
+import umbrella.utility.IOUtility;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Provides a base implementation for maps which derives convenience methods from a small set of lookups.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public abstract class AbstractMap implements IMap {
+
+	/**
+	 * Stores the description mapper (created on demand).
+	 */
+	private volatile DescriptionMapper descriptionMapper = null;
+
+	/**
+	 * Stores the inverse view (created on demand).
+	 */
+	private volatile InverseMap inverse = null;
+
+	/**
+	 * {@inheritDoc}
+	 * The check is not atomic; implementations which permit concurrent modifications override this method.
+	 */
+	@Override
+	public boolean addInstructionIfUnused (IMapInstruction original, IMapInstruction replacement) {
+		// check replacement
+		if (this.mappingExists (replacement)) return false;
+
+		// add instruction
+		this.addInstruction (original, replacement);
+		return true;
+	}
+
+	/**
+	 * Returns the description mapper which caches mapped descriptions and signatures.
+	 * @return The description mapper.
+	 * @since 1.0.0
+	 */
+	public DescriptionMapper getDescriptionMapper () {
+		DescriptionMapper mapper = this.descriptionMapper;
+
+		// create mapper
+		if (mapper == null) {
+			mapper = new DescriptionMapper (this);
+			this.descriptionMapper = mapper;
+		}
+
+		return mapper;
+	}
+
+	/**
+	 * Discards all cached descriptions and signatures.
+	 * Implementations call this method whenever a type name instruction changes.
+	 * @since 1.0.0
+	 */
+	protected void invalidateDescriptions () {
+		this.descriptionMapper = null;
+
+		// invalidate inverse view
+		InverseMap inverse = this.inverse;
+		if (inverse != null) inverse.invalidateDescriptions ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMap freeze () {
+		return new FrozenMap (this);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The default implementation passes all lookups to this map.
+	 */
+	@Override
+	public OwnerMap forOwner (@NonNull String owner) {
+		return new OwnerMap (this, owner);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMap inverse () {
+		InverseMap inverse = this.inverse;
+
+		// create view
+		if (inverse == null) {
+			inverse = new InverseMap (this);
+			this.inverse = inverse;
+		}
+
+		return inverse;
+	}
+
+	/**
+	 * Returns the original of a field instruction (or null).
+	 * @param owner The replacement owner.
+	 * @param name The replacement name.
+	 * @param description The replacement description.
+	 * @return The original instruction.
+	 */
+	protected abstract IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description);
+
+	/**
+	 * Returns the original of an invoke dynamic method instruction (or null).
+	 * @param name The replacement name.
+	 * @param description The replacement description.
+	 * @return The original instruction.
+	 */
+	protected abstract IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description);
+
+	/**
+	 * Returns the original of a method instruction (or null).
+	 * @param owner The replacement owner.
+	 * @param name The replacement name.
+	 * @param description The replacement description.
+	 * @return The original instruction.
+	 */
+	protected abstract IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description);
+
+	/**
+	 * Returns the original of a type instruction (or null).
+	 * @param name The replacement name.
+	 * @return The original instruction.
+	 */
+	protected abstract ITypeNameMapInstruction getOriginalTypeNameInstruction (String name);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap () {
+		return this.getInstructionMap (((MapInstructionCategory) null));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (Class<T> instructionType) {
+		return this.getInstructionMap (instructionType, false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapDescription (String description) {
+		return this.getDescriptionMapper ().mapDescription (description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapSignature (String signature) {
+		return this.getDescriptionMapper ().mapSignature (signature);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapFieldName (String owner, String name, String description) {
+		IFieldNameInstruction instruction = this.getFieldNameInstruction (owner, name, description);
+		return (instruction != null ? instruction.getName () : name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapInvokeDynamicMethodName (String name, String description) {
+		IInvokeDynamicMethodNameMapInstruction instruction = this.getInvokeDynamicMethodNameInstruction (name, description);
+		return (instruction != null ? instruction.getName () : name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapMethodName (String owner, String name, String description) {
+		IMethodNameInstruction instruction = this.getMethodNameInstruction (owner, name, description);
+		return (instruction != null ? instruction.getName () : name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String mapTypeName (String name) {
+		ITypeNameMapInstruction instruction = this.getTypeNameInstruction (name);
+		return (instruction != null ? instruction.getName () : name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void merge (IMap map) {
+		this.merge (map, null, MergePolicy.OVERWRITE);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void merge (IMap map, MapInstructionCategory category) {
+		this.merge (map, category, MergePolicy.OVERWRITE);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void merge (IMap map, MergePolicy policy) {
+		this.merge (map, null, policy);
+	}
+
+	/**
+	 * Verifies that merging a set of instructions does not replace any existing replacement.
+	 * @param target The existing instructions.
+	 * @param source The instructions to merge.
+	 * @throws IllegalArgumentException Occurs if a conflict is found.
+	 */
+	protected static void checkConflicts (Map<IMapInstruction, IMapInstruction> target, Map<IMapInstruction, IMapInstruction> source) {
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : source.entrySet ()) {
+			IMapInstruction existing = target.get (entry.getKey ());
+			if (existing != null && !MapInstructionComparator.isIdentical (existing, entry.getValue ())) throw new IllegalArgumentException ("Conflicting replacements for " + entry.getKey ().serialize () + ": " + existing.serialize () + " and " + entry.getValue ().serialize ());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset () {
+		this.reset (null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void save (OutputStream outputStream) throws IOException {
+		this.save (outputStream, MapFormat.TEXT);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void save (@NonNull OutputStream outputStream, @NonNull MapFormat format) throws IOException {
+		switch (format) {
+			case BINARY:
+				(new BinaryMapWriter ()).write (this, outputStream);
+				break;
+			case INDEXED:
+				(new IndexedMapWriter ()).write (this, outputStream);
+				break;
+			case COMPRESSED:
+				(new CompressedMapWriter ()).write (this, outputStream);
+				break;
+			case PARTITIONED:
+				(new PartitionedMapWriter ()).write (this, outputStream);
+				break;
+			default:
+				(new TextMapWriter ()).write (this, outputStream);
+				break;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void save (File file) throws IOException {
+		this.save (file, MapFormat.TEXT);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void save (@NonNull File file, @NonNull MapFormat format) throws IOException {
+		// define streams
+		FileOutputStream outputStream = null;
+
+		// save
+		try {
+			// open stream
+			outputStream = new FileOutputStream (file);
+
+			// write file
+			this.save (outputStream, format);
+		} finally {
+			IOUtility.closeQuietly (outputStream);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The default implementation captures the entries of {@link #getInstructionMap(MapInstructionCategory)}.
+	 */
+	@Override
+	public InstructionSpliterator spliterator (MapInstructionCategory category) {
+		return InstructionSpliterator.of (this.getInstructionMap (category));
+	}
+}
@@ -0,0 +1,595 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.util.concurrent.Striped;
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.index.ConcurrentMemberIndex;
+import umbrella.map.index.PackageTrie;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Provides a thread safe map which may be populated by several generator threads at once.
+ * All categories and indexes are backed by concurrent hash maps, thus lookups never block. Modifications of a single
+ * original are serialized through a striped lock, thus its instruction and all of its indexes are updated together.
+ * Instruction maps are unmodifiable live views with weakly consistent iterators which may be saved while other
+ * threads keep adding instructions.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class ConcurrentGenericMap extends AbstractMap {
+
+	/**
+	 * Stores all instructions (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, ConcurrentMap<IMapInstruction, IMapInstruction>> instructionMap = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores a type name index (original name -> replacement).
+	 */
+	private final ConcurrentMemberIndex<ITypeNameMapInstruction> typeNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores a field name index (owner -> name -> description -> replacement).
+	 */
+	private final ConcurrentMemberIndex<IFieldNameInstruction> fieldNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores a method name index (owner -> name -> description -> replacement).
+	 */
+	private final ConcurrentMemberIndex<IMethodNameInstruction> methodNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores an invoke dynamic method name index (null -> name -> description -> replacement).
+	 */
+	private final ConcurrentMemberIndex<IInvokeDynamicMethodNameMapInstruction> invokeDynamicMethodNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores an inverse type name index (null -> replacement name -> null -> original).
+	 */
+	private final ConcurrentMemberIndex<ITypeNameMapInstruction> originalTypeNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores an inverse field name index (replacement owner -> name -> description -> original).
+	 */
+	private final ConcurrentMemberIndex<IFieldNameInstruction> originalFieldNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores an inverse method name index (replacement owner -> name -> description -> original).
+	 */
+	private final ConcurrentMemberIndex<IMethodNameInstruction> originalMethodNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores an inverse invoke dynamic method name index (null -> replacement name -> description -> original).
+	 */
+	private final ConcurrentMemberIndex<IInvokeDynamicMethodNameMapInstruction> originalInvokeDynamicMethodNameIndex = new ConcurrentMemberIndex<> ();
+
+	/**
+	 * Stores a package name index (original package -> replacement package).
+	 * Package indexes are rebuilt and replaced as a whole whenever a package changes.
+	 */
+	private volatile PackageTrie packageNameIndex = new PackageTrie ();
+
+	/**
+	 * Stores an inverse package name index (replacement package -> original package).
+	 */
+	private volatile PackageTrie originalPackageNameIndex = new PackageTrie ();
+
+	/**
+	 * Stores the lock which guards the re-construction of package indexes.
+	 */
+	private final Object packageLock = new Object ();
+
+	/**
+	 * Stores a reverse index of all replacement instructions (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, ConcurrentHashMultiset<IMapInstruction>> replacementIndex = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores the locks which serialize modifications of a single original.
+	 */
+	private final Striped<Lock> originalLocks = Striped.lock (64);
+
+	/**
+	 * Stores the instruction registry.
+	 */
+	@Getter
+	private final IMapInstructionRegistry instructionRegistry;
+
+	/**
+	 * Stores the symbol table used to canonicalize instruction strings.
+	 */
+	@Getter
+	private final SymbolTable symbolTable;
+
+	/**
+	 * Constructs a new ConcurrentGenericMap instance.
+	 * @since 1.0.0
+	 */
+	public ConcurrentGenericMap () {
+		this (IMapInstructionRegistry.DEFAULT);
+	}
+
+	/**
+	 * Constructs a new ConcurrentGenericMap instance.
+	 * @param map The map to copy.
+	 * @since 1.0.0
+	 */
+	public ConcurrentGenericMap (@NonNull IMap map) {
+		this (map.getInstructionRegistry ());
+
+		// merge map
+		this.merge (map);
+	}
+
+	/**
+	 * Constructs a new ConcurrentGenericMap instance.
+	 * @param registry The instruction registry.
+	 * @since 1.0.0
+	 */
+	public ConcurrentGenericMap (@NonNull IMapInstructionRegistry registry) {
+		this (registry, new SymbolTable ());
+	}
+
+	/**
+	 * Constructs a new ConcurrentGenericMap instance.
+	 * @param registry The instruction registry.
+	 * @param symbolTable The (possibly shared) symbol table.
+	 * @since 1.0.0
+	 */
+	public ConcurrentGenericMap (@NonNull IMapInstructionRegistry registry, @NonNull SymbolTable symbolTable) {
+		this.instructionRegistry = registry;
+		this.symbolTable = symbolTable;
+
+		// create categories and reverse indexes (the enum maps are never modified afterwards)
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			this.instructionMap.put (category, new ConcurrentHashMap<IMapInstruction, IMapInstruction> ());
+			this.replacementIndex.put (category, ConcurrentHashMultiset.<IMapInstruction>create ());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addInstruction (@NonNull IMapInstruction original, @NonNull IMapInstruction replacement) {
+		// get category
+		MapInstructionCategory category = MapInstructionCategory.valueOf (original);
+
+		// verify category
+		Preconditions.checkArgument (category == MapInstructionCategory.valueOf (replacement), "Instruction categories do not match");
+
+		// canonicalize strings
+		original = this.symbolTable.intern (original);
+		replacement = this.symbolTable.intern (replacement);
+
+		// claim replacement
+		this.replacementIndex.get (category).add (replacement);
+
+		// store
+		this.store (category, original, replacement);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The check and the claim of the replacement are performed atomically, thus concurrent callers never receive the
+	 * same replacement. Replacements which only collide with an existing replacement through a wildcard or a package
+	 * are rejected as well (like {@link GenericMap}) although this check precedes the atomic claim.
+	 */
+	@Override
+	public boolean addInstructionIfUnused (@NonNull IMapInstruction original, @NonNull IMapInstruction replacement) {
+		// get category
+		MapInstructionCategory category = MapInstructionCategory.valueOf (original);
+
+		// verify category
+		Preconditions.checkArgument (category == MapInstructionCategory.valueOf (replacement), "Instruction categories do not match");
+
+		// canonicalize strings
+		original = this.symbolTable.intern (original);
+		replacement = this.symbolTable.intern (replacement);
+
+		// claim replacement
+		if (this.mappingExists (replacement)) return false;
+		if (!this.replacementIndex.get (category).setCount (replacement, 0, 1)) return false;
+
+		// store
+		this.store (category, original, replacement);
+		return true;
+	}
+
+	/**
+	 * Stores an instruction which has already been claimed within the reverse index.
+	 * @param category The category.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 */
+	private void store (MapInstructionCategory category, IMapInstruction original, IMapInstruction replacement) {
+		Lock lock = this.originalLocks.get (original);
+		lock.lock ();
+
+		try {
+			this.storeLocked (category, original, replacement);
+		} finally {
+			lock.unlock ();
+		}
+	}
+
+	/**
+	 * Stores an instruction while holding the lock of its original.
+	 * @param category The category.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 */
+	private void storeLocked (MapInstructionCategory category, IMapInstruction original, IMapInstruction replacement) {
+		// store
+		IMapInstruction previous = this.instructionMap.get (category).put (original, replacement);
+
+		// release previous replacement
+		if (previous != null) {
+			this.replacementIndex.get (category).remove (previous);
+			this.removeOriginal (category, original, previous);
+		}
+
+		// update typed indexes
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) original);
+				IFieldNameInstruction fieldReplacement = ((IFieldNameInstruction) replacement);
+
+				this.fieldNameIndex.put (field.getOwner (), field.getName (), field.getDescription (), fieldReplacement);
+				this.originalFieldNameIndex.put (fieldReplacement.getOwner (), fieldReplacement.getName (), fieldReplacement.getDescription (), field);
+				break;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) original);
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethodReplacement = ((IInvokeDynamicMethodNameMapInstruction) replacement);
+
+				this.invokeDynamicMethodNameIndex.put (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription (), invokeDynamicMethodReplacement);
+				this.originalInvokeDynamicMethodNameIndex.put (null, invokeDynamicMethodReplacement.getName (), invokeDynamicMethodReplacement.getDescription (), invokeDynamicMethod);
+				break;
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) original);
+				IMethodNameInstruction methodReplacement = ((IMethodNameInstruction) replacement);
+
+				this.methodNameIndex.put (method.getOwner (), method.getName (), method.getDescription (), methodReplacement);
+				this.originalMethodNameIndex.put (methodReplacement.getOwner (), methodReplacement.getName (), methodReplacement.getDescription (), method);
+				break;
+			case TYPE_NAME:
+				this.typeNameIndex.put (null, ((ITypeNameMapInstruction) original).getName (), null, ((ITypeNameMapInstruction) replacement));
+				this.originalTypeNameIndex.put (null, ((ITypeNameMapInstruction) replacement).getName (), null, ((ITypeNameMapInstruction) original));
+				this.invalidateDescriptions ();
+				break;
+			case PACKAGE_NAME:
+				this.indexPackages ();
+				break;
+		}
+	}
+
+	/**
+	 * Rebuilds the package indexes from the current package instructions.
+	 * Every modification rebuilds the indexes after it has been applied, thus the last rebuild always observes all
+	 * completed modifications.
+	 */
+	private void indexPackages () {
+		synchronized (this.packageLock) {
+			PackageTrie packageNameIndex = new PackageTrie ();
+			PackageTrie originalPackageNameIndex = new PackageTrie ();
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.instructionMap.get (MapInstructionCategory.PACKAGE_NAME).entrySet ()) {
+				String original = ((IPackageNameMapInstruction) entry.getKey ()).getName ();
+				String replacement = ((IPackageNameMapInstruction) entry.getValue ()).getName ();
+
+				packageNameIndex.put (original, replacement);
+				originalPackageNameIndex.put (replacement, original);
+			}
+
+			this.packageNameIndex = packageNameIndex;
+			this.originalPackageNameIndex = originalPackageNameIndex;
+		}
+
+		this.invalidateDescriptions ();
+	}
+
+	/**
+	 * Removes an original from the inverse indexes (unless its replacement has been re-assigned to another original).
+	 * @param category The category.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 */
+	private void removeOriginal (MapInstructionCategory category, IMapInstruction original, IMapInstruction replacement) {
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) replacement);
+				this.originalFieldNameIndex.remove (field.getOwner (), field.getName (), field.getDescription (), ((IFieldNameInstruction) original));
+				break;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) replacement);
+				this.originalInvokeDynamicMethodNameIndex.remove (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription (), ((IInvokeDynamicMethodNameMapInstruction) original));
+				break;
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) replacement);
+				this.originalMethodNameIndex.remove (method.getOwner (), method.getName (), method.getDescription (), ((IMethodNameInstruction) original));
+				break;
+			case TYPE_NAME:
+				this.originalTypeNameIndex.remove (null, ((ITypeNameMapInstruction) replacement).getName (), null, ((ITypeNameMapInstruction) original));
+				break;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		return this.fieldNameIndex.get (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		return this.invokeDynamicMethodNameIndex.get (null, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		return this.methodNameIndex.get (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = this.typeNameIndex.getExact (null, name, null);
+		if (instruction != null || name == null) return instruction;
+
+		// resolve packages
+		PackageTrie packageNameIndex = this.packageNameIndex;
+		String mapped = (!packageNameIndex.isEmpty () ? packageNameIndex.map (name) : null);
+		return (mapped != null ? new GenericTypeNameInstruction (mapped) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		return this.originalFieldNameIndex.get (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		return this.originalInvokeDynamicMethodNameIndex.get (null, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		return this.originalMethodNameIndex.get (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = this.originalTypeNameIndex.getExact (null, name, null);
+		if (instruction != null || name == null) return instruction;
+
+		// resolve packages
+		PackageTrie originalPackageNameIndex = this.originalPackageNameIndex;
+		String original = (!originalPackageNameIndex.isEmpty () ? originalPackageNameIndex.map (name) : null);
+		return (original != null ? new GenericTypeNameInstruction (original) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * All returned maps are unmodifiable live views which are weakly consistent while the map is modified concurrently.
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		if (category != null) return Collections.unmodifiableMap (this.instructionMap.get (category));
+		return InstructionView.create (IMapInstruction.class, this.instructionMap, true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is a live read-only view which is weakly consistent while the map is modified concurrently.
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		return InstructionView.create (instructionType, this.instructionMap, deep);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		MapInstructionCategory category = MapInstructionCategory.valueOf (instruction);
+		if (this.replacementIndex.get (category).contains (instruction)) return true;
+
+		// search replacements which only match through a wildcard (their hash codes differ)
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) instruction);
+				return (this.originalFieldNameIndex.get (field.getOwner (), field.getName (), field.getDescription ()) != null);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) instruction);
+				return (this.originalInvokeDynamicMethodNameIndex.get (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription ()) != null);
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) instruction);
+				return (this.originalMethodNameIndex.get (method.getOwner (), method.getName (), method.getDescription ()) != null);
+			case TYPE_NAME:
+				PackageTrie originalPackageNameIndex = this.originalPackageNameIndex;
+				return (!originalPackageNameIndex.isEmpty () && originalPackageNameIndex.map (((ITypeNameMapInstruction) instruction).getName ()) != null);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Conflicts are evaluated against a snapshot of the map, thus instructions which are added concurrently may still
+	 * be replaced.
+	 */
+	@Override
+	public void merge (@NonNull IMap map, MapInstructionCategory category, @NonNull MergePolicy policy) {
+		// merging a map into itself does not change anything
+		if (map == this) return;
+
+		// collect source categories
+		Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> sourceMap = new EnumMap<> (MapInstructionCategory.class);
+
+		for (MapInstructionCategory current : MapInstructionCategory.values ()) {
+			if (category == null || current == category) sourceMap.put (current, map.getInstructionMap (current));
+		}
+
+		// verify that no instruction is replaced before anything is changed
+		if (policy == MergePolicy.FAIL) {
+			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : sourceMap.entrySet ()) checkConflicts (this.instructionMap.get (entry.getKey ()), entry.getValue ());
+		}
+
+		// merge categories
+		for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : sourceMap.entrySet ()) {
+			Map<IMapInstruction, IMapInstruction> target = this.instructionMap.get (entry.getKey ());
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> instruction : entry.getValue ().entrySet ()) {
+				if (policy == MergePolicy.KEEP && target.containsKey (instruction.getKey ())) continue;
+				this.addInstruction (instruction.getKey (), instruction.getValue ());
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstruction removeInstruction (@NonNull IMapInstruction original) {
+		Lock lock = this.originalLocks.get (original);
+		lock.lock ();
+
+		try {
+			return this.removeLocked (MapInstructionCategory.valueOf (original), original);
+		} finally {
+			lock.unlock ();
+		}
+	}
+
+	/**
+	 * Removes an instruction while holding the lock of its original.
+	 * @param category The category.
+	 * @param original The original.
+	 * @return The removed replacement (or null).
+	 */
+	private IMapInstruction removeLocked (MapInstructionCategory category, IMapInstruction original) {
+		// remove
+		IMapInstruction replacement = this.instructionMap.get (category).remove (original);
+		if (replacement == null) return null;
+
+		// release replacement
+		this.replacementIndex.get (category).remove (replacement);
+		this.removeOriginal (category, original, replacement);
+
+		// update typed indexes
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) original);
+				this.fieldNameIndex.remove (field.getOwner (), field.getName (), field.getDescription (), ((IFieldNameInstruction) replacement));
+				break;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) original);
+				this.invokeDynamicMethodNameIndex.remove (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription (), ((IInvokeDynamicMethodNameMapInstruction) replacement));
+				break;
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) original);
+				this.methodNameIndex.remove (method.getOwner (), method.getName (), method.getDescription (), ((IMethodNameInstruction) replacement));
+				break;
+			case TYPE_NAME:
+				this.typeNameIndex.remove (null, ((ITypeNameMapInstruction) original).getName (), null, ((ITypeNameMapInstruction) replacement));
+				this.invalidateDescriptions ();
+				break;
+			case PACKAGE_NAME:
+				this.indexPackages ();
+				break;
+		}
+
+		return replacement;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Resetting is not atomic; instructions which are added concurrently may survive.
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		for (MapInstructionCategory current : MapInstructionCategory.values ()) {
+			// filter categories
+			if (category != null && current != category) continue;
+
+			// reset category
+			this.instructionMap.get (current).clear ();
+			this.replacementIndex.get (current).clear ();
+
+			// reset indexes
+			switch (current) {
+				case FIELD_NAME:
+					this.fieldNameIndex.clear ();
+					this.originalFieldNameIndex.clear ();
+					break;
+				case INVOKE_DYNAMIC_METHOD_NAME:
+					this.invokeDynamicMethodNameIndex.clear ();
+					this.originalInvokeDynamicMethodNameIndex.clear ();
+					break;
+				case METHOD_NAME:
+					this.methodNameIndex.clear ();
+					this.originalMethodNameIndex.clear ();
+					break;
+				case TYPE_NAME:
+					this.typeNameIndex.clear ();
+					this.originalTypeNameIndex.clear ();
+					this.invalidateDescriptions ();
+					break;
+				case PACKAGE_NAME:
+					this.indexPackages ();
+					break;
+			}
+		}
+
+		// release symbols (shared tables merely lose their canonical instances)
+		if (category == null) this.symbolTable.clear ();
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Remaps the type names within descriptions (field and method descriptors) and generic signatures.
+ * Results are kept within a bounded cache, thus recurring descriptions are only parsed once. The cache does not
+ * observe changes to its map and has to be discarded once a type name instruction changes.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class DescriptionMapper {
+
+	/**
+	 * Defines the default maximum amount of cached descriptions.
+	 */
+	public static final long DEFAULT_CACHE_SIZE = 16384;
+
+	/**
+	 * Stores the parent map.
+	 */
+	@Getter
+	private final IMap map;
+
+	/**
+	 * Stores all remapped descriptions and signatures (original -> remapped).
+	 */
+	private final Cache<String, String> cache;
+
+	/**
+	 * Constructs a new DescriptionMapper instance.
+	 * @param map The map.
+	 * @since 1.0.0
+	 */
+	public DescriptionMapper (@NonNull IMap map) {
+		this (map, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructs a new DescriptionMapper instance.
+	 * @param map The map.
+	 * @param cacheSize The maximum amount of cached descriptions.
+	 * @since 1.0.0
+	 */
+	public DescriptionMapper (@NonNull IMap map, long cacheSize) {
+		this.map = map;
+		this.cache = CacheBuilder.newBuilder ().maximumSize (cacheSize).build ();
+	}
+
+	/**
+	 * Maps a field or method description.
+	 * @param description The description (may be null).
+	 * @return The mapped description.
+	 * @throws IllegalArgumentException Occurs if the description is malformed.
+	 * @since 1.0.0
+	 */
+	public String mapDescription (String description) {
+		return this.mapSignature (description);
+	}
+
+	/**
+	 * Maps a class, method or field signature.
+	 * Since descriptions are a subset of the signature grammar, descriptions may be passed as well.
+	 * @param signature The signature (may be null).
+	 * @return The mapped signature.
+	 * @throws IllegalArgumentException Occurs if the signature is malformed.
+	 * @since 1.0.0
+	 */
+	public String mapSignature (String signature) {
+		// skip null values
+		if (signature == null) return null;
+
+		// search cache
+		String mapped = this.cache.getIfPresent (signature);
+		if (mapped != null) return mapped;
+
+		// map signature
+		try {
+			StringBuilder builder = new StringBuilder (signature.length ());
+			Parser parser = new Parser (signature, builder);
+			parser.parse ();
+
+			// re-use unchanged signatures
+			mapped = (builder.length () == signature.length () && builder.toString ().equals (signature) ? signature : builder.toString ());
+		} catch (IndexOutOfBoundsException ex) {
+			throw new IllegalArgumentException ("Malformed signature \"" + signature + "\"", ex);
+		}
+
+		// store result
+		this.cache.put (signature, mapped);
+		return mapped;
+	}
+
+	/**
+	 * Discards all cached descriptions.
+	 * @since 1.0.0
+	 */
+	public void invalidate () {
+		this.cache.invalidateAll ();
+	}
+
+	/**
+	 * Parses and rewrites a single signature.
+	 */
+	private class Parser {
+
+		/**
+		 * Stores the signature.
+		 */
+		private final String signature;
+
+		/**
+		 * Stores the output.
+		 */
+		private final StringBuilder builder;
+
+		/**
+		 * Stores the current position.
+		 */
+		private int position = 0;
+
+		/**
+		 * Constructs a new Parser instance.
+		 * @param signature The signature.
+		 * @param builder The output.
+		 */
+		public Parser (String signature, StringBuilder builder) {
+			this.signature = signature;
+			this.builder = builder;
+		}
+
+		/**
+		 * Parses the complete signature.
+		 */
+		public void parse () {
+			// formal type parameters
+			if (this.signature.charAt (0) == '<') this.parseFormalTypeParameters ();
+
+			while (this.position < this.signature.length ()) {
+				char current = this.signature.charAt (this.position);
+
+				switch (current) {
+					case '(':
+					case ')':
+					case '^':
+						this.builder.append (current);
+						this.position++;
+						break;
+					default:
+						this.parseType ();
+						break;
+				}
+			}
+		}
+
+		/**
+		 * Parses a list of formal type parameters.
+		 */
+		private void parseFormalTypeParameters () {
+			this.builder.append ('<');
+			this.position++;
+
+			while (this.signature.charAt (this.position) != '>') {
+				// copy identifier
+				int end = this.signature.indexOf (':', this.position);
+				if (end == -1) throw new IndexOutOfBoundsException ();
+
+				this.builder.append (this.signature, this.position, end);
+				this.position = end;
+
+				// copy bounds (class bounds may be omitted)
+				while (this.signature.charAt (this.position) == ':') {
+					this.builder.append (':');
+					this.position++;
+
+					char current = this.signature.charAt (this.position);
+					if (current == 'L' || current == 'T' || current == '[') this.parseType ();
+				}
+			}
+
+			this.builder.append ('>');
+			this.position++;
+		}
+
+		/**
+		 * Parses a single type.
+		 */
+		private void parseType () {
+			char current = this.signature.charAt (this.position);
+
+			switch (current) {
+				case '[':
+					this.builder.append (current);
+					this.position++;
+					this.parseType ();
+					break;
+				case 'T':
+					int end = (this.signature.indexOf (';', this.position) + 1);
+					if (end == 0) throw new IndexOutOfBoundsException ();
+
+					this.builder.append (this.signature, this.position, end);
+					this.position = end;
+					break;
+				case 'L':
+					this.parseClassType ();
+					break;
+				case 'B':
+				case 'C':
+				case 'D':
+				case 'F':
+				case 'I':
+				case 'J':
+				case 'S':
+				case 'V':
+				case 'Z':
+					this.builder.append (current);
+					this.position++;
+					break;
+				default:
+					throw new IllegalArgumentException ("Malformed signature \"" + this.signature + "\": Unexpected character '" + current + "' at position " + this.position);
+			}
+		}
+
+		/**
+		 * Parses a class type (including its type arguments and inner classes).
+		 */
+		private void parseClassType () {
+			this.position++;
+
+			// map outer class
+			String className = this.readIdentifier ();
+			String mappedName = map.mapTypeName (className);
+
+			this.builder.append ('L').append (mappedName);
+
+			while (true) {
+				char current = this.signature.charAt (this.position);
+
+				switch (current) {
+					case '<':
+						this.parseTypeArguments ();
+						break;
+					case '.':
+						this.position++;
+
+						// map inner class (the mapped outer name is stripped off if possible)
+						String outerPrefix = mappedName + '$';
+						className = className + '$' + this.readIdentifier ();
+						mappedName = map.mapTypeName (className);
+
+						this.builder.append ('.').append (mappedName, (mappedName.startsWith (outerPrefix) ? outerPrefix.length () : (mappedName.lastIndexOf ('$') + 1)), mappedName.length ());
+						break;
+					case ';':
+						this.builder.append (';');
+						this.position++;
+						return;
+					default:
+						throw new IllegalArgumentException ("Malformed signature \"" + this.signature + "\": Unexpected character '" + current + "' at position " + this.position);
+				}
+			}
+		}
+
+		/**
+		 * Parses a list of type arguments.
+		 */
+		private void parseTypeArguments () {
+			this.builder.append ('<');
+			this.position++;
+
+			while (true) {
+				char current = this.signature.charAt (this.position);
+
+				switch (current) {
+					case '>':
+						this.builder.append ('>');
+						this.position++;
+						return;
+					case '*':
+						this.builder.append ('*');
+						this.position++;
+						break;
+					case '+':
+					case '-':
+						this.builder.append (current);
+						this.position++;
+						this.parseType ();
+						break;
+					default:
+						this.parseType ();
+						break;
+				}
+			}
+		}
+
+		/**
+		 * Reads a class name or inner class identifier.
+		 * @return The identifier.
+		 */
+		private String readIdentifier () {
+			int start = this.position;
+
+			while (true) {
+				char current = this.signature.charAt (this.position);
+				if (current == ';' || current == '<' || current == '.') break;
+
+				this.position++;
+			}
+
+			return this.signature.substring (start, this.position);
+		}
+	}
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.index.FrozenMemberIndex;
+import umbrella.map.index.PackageTrie;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.io.IndexedMapSection;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides an immutable snapshot of a map.
+ * Every category is stored within a compact open addressing table which is probed with the raw instruction
+ * components. Since snapshots cannot be modified, they may be shared between threads without synchronization.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class FrozenMap extends AbstractMap {
+
+	/**
+	 * Stores the instruction registry.
+	 */
+	@Getter
+	private final IMapInstructionRegistry instructionRegistry;
+
+	/**
+	 * Stores all sections.
+	 */
+	private final Map<MapInstructionCategory, Section> sections = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores the field name section.
+	 */
+	private final Section fieldNameSection;
+
+	/**
+	 * Stores the invoke dynamic method name section.
+	 */
+	private final Section invokeDynamicMethodNameSection;
+
+	/**
+	 * Stores the method name section.
+	 */
+	private final Section methodNameSection;
+
+	/**
+	 * Stores the type name section.
+	 */
+	private final Section typeNameSection;
+
+	/**
+	 * Stores a package name index (original package -> replacement package).
+	 */
+	private final PackageTrie packageNameIndex = new PackageTrie ();
+
+	/**
+	 * Stores an inverse package name index (replacement package -> original package).
+	 */
+	private final PackageTrie originalPackageNameIndex = new PackageTrie ();
+
+	/**
+	 * Constructs a new FrozenMap instance.
+	 * @param map The map to copy.
+	 * @since 1.0.0
+	 */
+	public FrozenMap (@NonNull IMap map) {
+		this.instructionRegistry = map.getInstructionRegistry ();
+
+		// copy categories
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) this.sections.put (category, new Section (category, map.getInstructionMap (category)));
+
+		// cache typed sections
+		this.fieldNameSection = this.sections.get (MapInstructionCategory.FIELD_NAME);
+		this.invokeDynamicMethodNameSection = this.sections.get (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME);
+		this.methodNameSection = this.sections.get (MapInstructionCategory.METHOD_NAME);
+		this.typeNameSection = this.sections.get (MapInstructionCategory.TYPE_NAME);
+
+		// build package indexes
+		Section packageNameSection = this.sections.get (MapInstructionCategory.PACKAGE_NAME);
+
+		for (int i = 0; i < packageNameSection.originals.length; i++) {
+			String original = ((IPackageNameMapInstruction) packageNameSection.originals[i]).getName ();
+			String replacement = ((IPackageNameMapInstruction) packageNameSection.replacements[i]).getName ();
+
+			this.packageNameIndex.put (original, replacement);
+			this.originalPackageNameIndex.put (replacement, original);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Frozen maps are read-only.
+	 */
+	@Override
+	public void addInstruction (IMapInstruction original, IMapInstruction replacement) {
+		throw new UnsupportedOperationException ("Frozen maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Frozen maps are returned as is.
+	 */
+	@Override
+	public IMap freeze () {
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * All members of the owner are copied into a local table.
+	 */
+	@Override
+	public OwnerMap forOwner (@NonNull String owner) {
+		return new OwnerMap (this, owner, this.fieldNameSection.copyOwner (owner, IFieldNameInstruction.class), this.fieldNameSection.hasWildcardOwners (), this.methodNameSection.copyOwner (owner, IMethodNameInstruction.class), this.methodNameSection.hasWildcardOwners ());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		return ((IFieldNameInstruction) this.fieldNameSection.find (owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		return ((IInvokeDynamicMethodNameMapInstruction) this.invokeDynamicMethodNameSection.find (null, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		return ((IMethodNameInstruction) this.methodNameSection.find (owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = ((ITypeNameMapInstruction) this.typeNameSection.find (null, name, null));
+		if (instruction != null || name == null || this.packageNameIndex.isEmpty ()) return instruction;
+
+		// resolve packages
+		String mapped = this.packageNameIndex.map (name);
+		return (mapped != null ? new GenericTypeNameInstruction (mapped) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		return ((IFieldNameInstruction) this.fieldNameSection.findOriginal (owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		return ((IInvokeDynamicMethodNameMapInstruction) this.invokeDynamicMethodNameSection.findOriginal (null, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		return ((IMethodNameInstruction) this.methodNameSection.findOriginal (owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = ((ITypeNameMapInstruction) this.typeNameSection.findOriginal (null, name, null));
+		if (instruction != null || name == null || this.originalPackageNameIndex.isEmpty ()) return instruction;
+
+		// resolve packages
+		String original = this.originalPackageNameIndex.map (name);
+		return (original != null ? new GenericTypeNameInstruction (original) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy.
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
+
+		for (Section section : this.sections.values ()) {
+			// filter categories
+			if (category != null && section.category != category) continue;
+
+			// copy entries
+			for (int i = 0; i < section.originals.length; i++) map.put (section.originals[i], section.replacements[i]);
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy.
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		Map<T, IMapInstruction> map = new HashMap<> ();
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap ((deep ? null : MapInstructionCategory.valueOf (instructionType))).entrySet ()) {
+			if (instructionType.isInstance (entry.getKey ())) map.put (instructionType.cast (entry.getKey ()), entry.getValue ());
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		MapInstructionCategory category = MapInstructionCategory.valueOf (instruction);
+		if (this.sections.get (category).replacementSet.contains (instruction)) return true;
+
+		// search replacements which only match through a wildcard (their hash codes differ)
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) instruction);
+				return (this.fieldNameSection.findOriginal (field.getOwner (), field.getName (), field.getDescription ()) != null);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) instruction);
+				return (this.invokeDynamicMethodNameSection.findOriginal (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription ()) != null);
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) instruction);
+				return (this.methodNameSection.findOriginal (method.getOwner (), method.getName (), method.getDescription ()) != null);
+			case TYPE_NAME:
+				return (!this.originalPackageNameIndex.isEmpty () && this.originalPackageNameIndex.map (((ITypeNameMapInstruction) instruction).getName ()) != null);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Exact type instructions take precedence over the most specific package instruction.
+	 */
+	@Override
+	public String mapTypeName (String name) {
+		ITypeNameMapInstruction instruction = ((ITypeNameMapInstruction) this.typeNameSection.find (null, name, null));
+		if (instruction != null) return instruction.getName ();
+
+		// resolve packages
+		String mapped = (name != null && !this.packageNameIndex.isEmpty () ? this.packageNameIndex.map (name) : null);
+		return (mapped != null ? mapped : name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Frozen maps are read-only.
+	 */
+	@Override
+	public void merge (IMap map, MapInstructionCategory category, MergePolicy policy) {
+		throw new UnsupportedOperationException ("Frozen maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Frozen maps are read-only.
+	 */
+	@Override
+	public IMapInstruction removeInstruction (IMapInstruction original) {
+		throw new UnsupportedOperationException ("Frozen maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Frozen maps are read-only.
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		throw new UnsupportedOperationException ("Frozen maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Spliterators of a single category share the arrays of the snapshot.
+	 */
+	@Override
+	public InstructionSpliterator spliterator (MapInstructionCategory category) {
+		if (category == null) return super.spliterator (null);
+
+		Section section = this.sections.get (category);
+		return new InstructionSpliterator (section.originals, section.replacements);
+	}
+
+	/**
+	 * Stores all instructions of a single category.
+	 */
+	private static final class Section {
+
+		/**
+		 * Stores the category.
+		 */
+		private final MapInstructionCategory category;
+
+		/**
+		 * Stores all original instructions.
+		 */
+		private final IMapInstruction[] originals;
+
+		/**
+		 * Stores all replacement instructions (in the order of their originals).
+		 */
+		private final IMapInstruction[] replacements;
+
+		/**
+		 * Stores a set of all replacement instructions.
+		 */
+		private final ImmutableSet<IMapInstruction> replacementSet;
+
+		/**
+		 * Stores the lookup index (or null if the category cannot be searched).
+		 */
+		private final FrozenMemberIndex index;
+
+		/**
+		 * Stores the inverse lookup index (or null if the category cannot be searched).
+		 */
+		private final FrozenMemberIndex inverseIndex;
+
+		/**
+		 * Stores all entries grouped by their owner (or null if the category does not contain owners).
+		 */
+		private final Map<String, int[]> ownerEntries;
+
+		/**
+		 * Indicates whether any original contains a wildcard owner or description.
+		 */
+		private final boolean wildcards;
+
+		/**
+		 * Indicates whether any replacement contains a wildcard owner or description.
+		 */
+		private final boolean inverseWildcards;
+
+		/**
+		 * Constructs a new Section instance.
+		 * @param category The category.
+		 * @param instructionMap The instruction map.
+		 */
+		public Section (MapInstructionCategory category, Map<IMapInstruction, IMapInstruction> instructionMap) {
+			this.category = category;
+
+			// copy instructions
+			this.originals = new IMapInstruction[instructionMap.size ()];
+			this.replacements = new IMapInstruction[instructionMap.size ()];
+
+			int position = 0;
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : instructionMap.entrySet ()) {
+				this.originals[position] = entry.getKey ();
+				this.replacements[position++] = entry.getValue ();
+			}
+
+			this.replacementSet = ImmutableSet.copyOf (this.replacements);
+
+			// unknown instructions cannot be searched
+			if (category == MapInstructionCategory.UNKNOWN) {
+				this.index = null;
+				this.inverseIndex = null;
+				this.wildcards = false;
+				this.inverseWildcards = false;
+				this.ownerEntries = null;
+				return;
+			}
+
+			// build indexes
+			this.index = createIndex (category, this.originals);
+			this.inverseIndex = createIndex (category, this.replacements);
+			this.wildcards = hasWildcards (category, this.originals);
+			this.inverseWildcards = hasWildcards (category, this.replacements);
+			this.ownerEntries = (category == MapInstructionCategory.FIELD_NAME || category == MapInstructionCategory.METHOD_NAME ? groupOwners (category, this.originals) : null);
+		}
+
+		/**
+		 * Groups the entries of a set of instructions by their owner.
+		 * @param category The category.
+		 * @param instructions The instructions.
+		 * @return The entries (owner -> entries).
+		 */
+		private static Map<String, int[]> groupOwners (MapInstructionCategory category, IMapInstruction[] instructions) {
+			// count entries per owner
+			Map<String, int[]> counts = new HashMap<> ();
+			String[] owners = new String[instructions.length];
+
+			for (int i = 0; i < instructions.length; i++) {
+				owners[i] = IndexedMapSection.getComponents (category, instructions[i])[0];
+
+				int[] count = counts.get (owners[i]);
+				if (count == null) counts.put (owners[i], (count = new int[1]));
+				count[0]++;
+			}
+
+			// distribute entries
+			Map<String, int[]> ownerEntries = new HashMap<> (counts.size ());
+
+			for (int i = 0; i < instructions.length; i++) {
+				int[] entries = ownerEntries.get (owners[i]);
+				int[] count = counts.get (owners[i]);
+
+				if (entries == null) ownerEntries.put (owners[i], (entries = new int[count[0]]));
+				entries[(entries.length - count[0]--)] = i;
+			}
+
+			return ownerEntries;
+		}
+
+		/**
+		 * Copies all replacements of an owner into a local table.
+		 * @param owner The owner.
+		 * @param type The replacement type.
+		 * @param <V> The replacement type.
+		 * @return The table (name -> description -> replacement).
+		 */
+		public <V extends IMapInstruction> Map<String, Map<String, V>> copyOwner (String owner, Class<V> type) {
+			Map<String, Map<String, V>> table = new HashMap<> ();
+
+			// find entries
+			int[] entries = this.ownerEntries.get (owner);
+			if (entries == null) return table;
+
+			// copy entries
+			for (int entry : entries) {
+				String[] components = IndexedMapSection.getComponents (this.category, this.originals[entry]);
+
+				Map<String, V> descriptionMap = table.get (components[1]);
+				if (descriptionMap == null) table.put (components[1], (descriptionMap = new HashMap<> (2)));
+				descriptionMap.put (components[2], type.cast (this.replacements[entry]));
+			}
+
+			return table;
+		}
+
+		/**
+		 * Checks whether any original contains a wildcard owner.
+		 * @return True if wildcard owners are present.
+		 */
+		public boolean hasWildcardOwners () {
+			return (this.ownerEntries != null && this.ownerEntries.containsKey (null));
+		}
+
+		/**
+		 * Checks whether any instruction contains a wildcard owner or description.
+		 * @param category The category.
+		 * @param instructions The instructions.
+		 * @return True if wildcards are present.
+		 */
+		private static boolean hasWildcards (MapInstructionCategory category, IMapInstruction[] instructions) {
+			if (category == MapInstructionCategory.TYPE_NAME) return false;
+
+			for (IMapInstruction instruction : instructions) {
+				String[] components = IndexedMapSection.getComponents (category, instruction);
+				if (components[0] == null || components[(components.length - 1)] == null) return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Searches an entry (falling back to stored wildcards).
+		 * @param index The index.
+		 * @param wildcards True if the index contains wildcards.
+		 * @param owner The owner.
+		 * @param name The name.
+		 * @param description The description.
+		 * @return The entry (or -1).
+		 */
+		private static int find (FrozenMemberIndex index, boolean wildcards, String owner, String name, String description) {
+			int entry = index.find (owner, name, description);
+			if (entry != -1 || !wildcards) return entry;
+
+			// search stored wildcards
+			if (description != null && (entry = index.find (owner, name, null)) != -1) return entry;
+			if (owner != null && (entry = index.find (null, name, description)) != -1) return entry;
+			return (owner != null && description != null ? index.find (null, name, null) : -1);
+		}
+
+		/**
+		 * Creates an index over the components of a set of instructions.
+		 * @param category The category.
+		 * @param instructions The instructions.
+		 * @return The index.
+		 */
+		private static FrozenMemberIndex createIndex (MapInstructionCategory category, IMapInstruction[] instructions) {
+			// split keys into their components
+			String[] owners = new String[instructions.length];
+			String[] names = new String[instructions.length];
+			String[] descriptions = new String[instructions.length];
+
+			for (int i = 0; i < instructions.length; i++) {
+				String[] components = IndexedMapSection.getComponents (category, instructions[i]);
+
+				switch (category) {
+					case FIELD_NAME:
+					case METHOD_NAME:
+						owners[i] = components[0];
+						names[i] = components[1];
+						descriptions[i] = components[2];
+						break;
+					case INVOKE_DYNAMIC_METHOD_NAME:
+						names[i] = components[0];
+						descriptions[i] = components[1];
+						break;
+					default:
+						names[i] = components[0];
+						break;
+				}
+			}
+
+			// build index
+			return new FrozenMemberIndex (owners, names, descriptions);
+		}
+
+		/**
+		 * Searches a replacement.
+		 * @param owner The owner.
+		 * @param name The name.
+		 * @param description The description.
+		 * @return The replacement (or null).
+		 */
+		public IMapInstruction find (String owner, String name, String description) {
+			int entry = find (this.index, this.wildcards, owner, name, description);
+			return (entry != -1 ? this.replacements[entry] : null);
+		}
+
+		/**
+		 * Searches an original.
+		 * @param owner The replacement owner.
+		 * @param name The replacement name.
+		 * @param description The replacement description.
+		 * @return The original (or null).
+		 */
+		public IMapInstruction findOriginal (String owner, String name, String description) {
+			int entry = find (this.inverseIndex, this.inverseWildcards, owner, name, description);
+			return (entry != -1 ? this.originals[entry] : null);
+		}
+	}
+}
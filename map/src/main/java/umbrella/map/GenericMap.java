@@ -15,24 +15,36 @@
 package umbrella.map;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Splitter;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.io.ByteStreams;
 import lombok.*;
+import umbrella.map.index.PackageTrie;
+import umbrella.map.index.WildcardMemberIndex;
+import umbrella.map.io.BinaryMapReader;
+import umbrella.map.io.CompressedMapReader;
+import umbrella.map.io.MapFormat;
+import umbrella.map.io.ParallelTextMapReader;
+import umbrella.map.io.PartitionedMapReader;
+import umbrella.map.io.TextMapReader;
 import umbrella.map.instruction.*;
 import umbrella.map.instruction.utility.IMapInstructionRegistry;
 import umbrella.map.instruction.utility.MapInstructionCategory;
 import umbrella.utility.IOUtility;
 
 import java.io.*;
-import java.text.SimpleDateFormat;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Johannes Donath <johannesd@evil-co.com>
  * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
  */
-public class GenericMap implements IMap {
+public class GenericMap extends AbstractMap {
 
 	/**
 	 * Stores the library version.
@@ -40,9 +52,69 @@ public class GenericMap implements IMap {
 	public static final String VERSION;
 
 	/**
-	 * Stores all instructions.
+	 * Defines the amount of merged instructions from which on categories are merged in parallel.
 	 */
-	private final Table<MapInstructionCategory, IMapInstruction, IMapInstruction> instructionMap = HashBasedTable.create ();
+	public static final int PARALLEL_MERGE_THRESHOLD = 65536;
+
+	/**
+	 * Stores all instructions (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> instructionMap = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores a type name index (original name -> replacement).
+	 */
+	private final Map<String, ITypeNameMapInstruction> typeNameIndex = new HashMap<> ();
+
+	/**
+	 * Stores a package name index (original package -> replacement package).
+	 */
+	private final PackageTrie packageNameIndex = new PackageTrie ();
+
+	/**
+	 * Stores a field name index (owner -> name -> description -> replacement).
+	 */
+	private final WildcardMemberIndex<IFieldNameInstruction> fieldNameIndex = new WildcardMemberIndex<> ();
+
+	/**
+	 * Stores a method name index (owner -> name -> description -> replacement).
+	 */
+	private final WildcardMemberIndex<IMethodNameInstruction> methodNameIndex = new WildcardMemberIndex<> ();
+
+	/**
+	 * Stores an invoke dynamic method name index (null -> name -> description -> replacement).
+	 */
+	private final WildcardMemberIndex<IInvokeDynamicMethodNameMapInstruction> invokeDynamicMethodNameIndex = new WildcardMemberIndex<> ();
+
+	/**
+	 * Stores an inverse type name index (replacement name -> original).
+	 */
+	private final Map<String, ITypeNameMapInstruction> originalTypeNameIndex = new HashMap<> ();
+
+	/**
+	 * Stores an inverse field name index (replacement owner -> name -> description -> original).
+	 */
+	private final WildcardMemberIndex<IFieldNameInstruction> originalFieldNameIndex = new WildcardMemberIndex<> ();
+
+	/**
+	 * Stores an inverse method name index (replacement owner -> name -> description -> original).
+	 */
+	private final WildcardMemberIndex<IMethodNameInstruction> originalMethodNameIndex = new WildcardMemberIndex<> ();
+
+	/**
+	 * Stores an inverse invoke dynamic method name index (null -> replacement name -> description -> original).
+	 */
+	private final WildcardMemberIndex<IInvokeDynamicMethodNameMapInstruction> originalInvokeDynamicMethodNameIndex = new WildcardMemberIndex<> ();
+
+	/**
+	 * Stores an inverse package name index (replacement package -> original package).
+	 */
+	private final PackageTrie originalPackageNameIndex = new PackageTrie ();
+
+	/**
+	 * Stores a reverse index of all replacement instructions (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, Multiset<IMapInstruction>> replacementIndex = new EnumMap<> (MapInstructionCategory.class);
 
 	/**
 	 * Stores the instruction registry.
@@ -52,6 +124,12 @@ public class GenericMap implements IMap {
 	@NonNull
 	private IMapInstructionRegistry instructionRegistry;
 
+	/**
+	 * Stores the symbol table used to canonicalize instruction strings.
+	 */
+	@Getter
+	private final SymbolTable symbolTable;
+
 	/**
 	 * Static Initializer
 	 */
@@ -88,7 +166,24 @@ public class GenericMap implements IMap {
 	 * @since 1.0.0
 	 */
 	public GenericMap (@NonNull IMapInstructionRegistry registry) {
+		this (registry, new SymbolTable ());
+	}
+
+	/**
+	 * Constructs a new GenericMap instance.
+	 * @param registry The instruction registry.
+	 * @param symbolTable The (possibly shared) symbol table.
+	 * @since 1.0.0
+	 */
+	public GenericMap (@NonNull IMapInstructionRegistry registry, @NonNull SymbolTable symbolTable) {
 		this.instructionRegistry = registry;
+		this.symbolTable = symbolTable;
+
+		// create categories and reverse indexes
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			this.instructionMap.put (category, new HashMap<IMapInstruction, IMapInstruction> ());
+			this.replacementIndex.put (category, HashMultiset.<IMapInstruction>create ());
+		}
 
 		// reset
 		this.reset ();
@@ -111,61 +206,18 @@ public class GenericMap implements IMap {
 	 * Constructs a new GenericMap instance.
 	 * @param registry The instruction registry.
 	 * @param inputStream The input stream.
-	 * @param close Indicates whether the stream shall be closed.
 	 */
-	protected GenericMap (@NonNull IMapInstructionRegistry registry, @NonNull InputStream inputStream, boolean close) {
+	public GenericMap (@NonNull IMapInstructionRegistry registry, @NonNull InputStream inputStream) {
 		this (registry);
 
-		// define variables
-		Scanner scanner = null;
-
 		// load data
 		try {
-			// open scanner
-			scanner = new Scanner (inputStream);
-
-			// initialize line number
-			int lineNumber = 0;
-
-			// load all lines
-			while (scanner.hasNextLine ()) {
-				// update line number
-				lineNumber++;
-
-				// extract line
-				String line = scanner.nextLine ();
-
-				// check line
-				if (line.isEmpty () || line.startsWith ("//")) continue;
-
-				// split mapping
-				List<String> elements = Splitter.on (' ').limit (4).splitToList (line);
-
-				// verify count
-				Preconditions.checkArgument (elements.size () == 4, "Mapping on line " + lineNumber + " does not contain exactly 4 elements");
-
-				// parse types
-				IMapInstruction original = this.getInstructionRegistry ().getElement (elements.get (0), elements.get (1));
-				IMapInstruction replacement = this.getInstructionRegistry ().getElement (elements.get (2), elements.get (3));
-
-				// add instruction
-				this.addInstruction (original, replacement);
-			}
-		} finally {
-			IOUtility.closeQuietly (scanner);
-			if (close) IOUtility.closeQuietly (inputStream);
+			this.load (inputStream);
+		} catch (IOException ex) {
+			throw new IllegalArgumentException ("Could not read map: " + ex.getMessage (), ex);
 		}
 	}
 
-	/**
-	 * Constructs a new GenericMap instance.
-	 * @param registry The instruction registry.
-	 * @param inputStream The input stream.
-	 */
-	public GenericMap (@NonNull IMapInstructionRegistry registry, @NonNull InputStream inputStream) {
-		this (registry, inputStream, false);
-	}
-
 	/**
 	 * Constructs a new GenericMap instance.
 	 * @param inputStream The input stream.
@@ -181,7 +233,10 @@ public class GenericMap implements IMap {
 	 * @throws IOException Occurs if reading from the file is not possible.
 	 */
 	public GenericMap (@NonNull IMapInstructionRegistry registry, @NonNull File file) throws IOException {
-		this (registry, (new FileInputStream (file)), true);
+		this (registry);
+
+		// load data
+		this.load (file);
 	}
 
 	/**
@@ -204,295 +259,439 @@ public class GenericMap implements IMap {
 		// verify category
 		Preconditions.checkArgument (originalCategory == MapInstructionCategory.valueOf (replacement), "Instruction categories do not match");
 
+		// canonicalize strings
+		original = this.symbolTable.intern (original);
+		replacement = this.symbolTable.intern (replacement);
+
 		// store
-		this.instructionMap.put (MapInstructionCategory.valueOf (original), original, replacement);
+		IMapInstruction previous = this.instructionMap.get (originalCategory).put (original, replacement);
+
+		// update reverse index
+		Multiset<IMapInstruction> replacements = this.replacementIndex.get (originalCategory);
+		if (previous != null) replacements.remove (previous);
+		replacements.add (replacement);
+
+		// update typed indexes
+		if (previous != null) this.removeOriginal (originalCategory, original, previous);
+		this.index (originalCategory, original, replacement);
+		if (originalCategory == MapInstructionCategory.TYPE_NAME || originalCategory == MapInstructionCategory.PACKAGE_NAME) this.invalidateDescriptions ();
+	}
+
+	/**
+	 * Stores an instruction within the typed indexes of its category.
+	 * @param category The category.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 */
+	private void index (MapInstructionCategory category, IMapInstruction original, IMapInstruction replacement) {
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) original);
+				IFieldNameInstruction fieldReplacement = ((IFieldNameInstruction) replacement);
+
+				this.fieldNameIndex.put (field.getOwner (), field.getName (), field.getDescription (), fieldReplacement);
+				this.originalFieldNameIndex.put (fieldReplacement.getOwner (), fieldReplacement.getName (), fieldReplacement.getDescription (), field);
+				break;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) original);
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethodReplacement = ((IInvokeDynamicMethodNameMapInstruction) replacement);
+
+				this.invokeDynamicMethodNameIndex.put (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription (), invokeDynamicMethodReplacement);
+				this.originalInvokeDynamicMethodNameIndex.put (null, invokeDynamicMethodReplacement.getName (), invokeDynamicMethodReplacement.getDescription (), invokeDynamicMethod);
+				break;
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) original);
+				IMethodNameInstruction methodReplacement = ((IMethodNameInstruction) replacement);
+
+				this.methodNameIndex.put (method.getOwner (), method.getName (), method.getDescription (), methodReplacement);
+				this.originalMethodNameIndex.put (methodReplacement.getOwner (), methodReplacement.getName (), methodReplacement.getDescription (), method);
+				break;
+			case PACKAGE_NAME:
+				this.packageNameIndex.put (((IPackageNameMapInstruction) original).getName (), ((IPackageNameMapInstruction) replacement).getName ());
+				this.originalPackageNameIndex.put (((IPackageNameMapInstruction) replacement).getName (), ((IPackageNameMapInstruction) original).getName ());
+				break;
+			case TYPE_NAME:
+				this.typeNameIndex.put (((ITypeNameMapInstruction) original).getName (), ((ITypeNameMapInstruction) replacement));
+				this.originalTypeNameIndex.put (((ITypeNameMapInstruction) replacement).getName (), ((ITypeNameMapInstruction) original));
+				break;
+		}
 	}
 
 	/**
-	 * Adds a set of instructions.
-	 * @param instructionMap The instruction map.
-	 * @since 1.0.0
-	 */
-	public void addInstructions (@NonNull Map<IMapInstruction, IMapInstruction> instructionMap) {
-		for (Map.Entry<IMapInstruction, IMapInstruction> entry : instructionMap.entrySet ()) this.addInstruction (entry.getKey (), entry.getValue ());
+	 * Removes an original from the inverse indexes (unless its replacement has been re-assigned to another original).
+	 * @param category The category.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 */
+	private void removeOriginal (MapInstructionCategory category, IMapInstruction original, IMapInstruction replacement) {
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) replacement);
+				this.originalFieldNameIndex.remove (field.getOwner (), field.getName (), field.getDescription (), ((IFieldNameInstruction) original));
+				break;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) replacement);
+				this.originalInvokeDynamicMethodNameIndex.remove (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription (), ((IInvokeDynamicMethodNameMapInstruction) original));
+				break;
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) replacement);
+				this.originalMethodNameIndex.remove (method.getOwner (), method.getName (), method.getDescription (), ((IMethodNameInstruction) original));
+				break;
+			case PACKAGE_NAME:
+				this.originalPackageNameIndex.remove (((IPackageNameMapInstruction) replacement).getName (), ((IPackageNameMapInstruction) original).getName ());
+				break;
+			case TYPE_NAME:
+				String name = ((ITypeNameMapInstruction) replacement).getName ();
+				if (original.equals (this.originalTypeNameIndex.get (name))) this.originalTypeNameIndex.remove (name);
+				break;
+		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Loads all instructions from a stream (the map format is detected automatically).
+	 * @param inputStream The input stream.
+	 * @throws IOException Occurs if reading from the stream is not possible or the map is malformed.
+	 * @since 1.0.0
 	 */
-	@Override
-	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
-		return ((IFieldNameInstruction) this.instructionMap.get (MapInstructionCategory.FIELD_NAME, new GenericFieldNameInstruction (owner, name, description)));
+	public void load (@NonNull InputStream inputStream) throws IOException {
+		// ensure mark support
+		if (!inputStream.markSupported ()) inputStream = new BufferedInputStream (inputStream);
+
+		// detect format
+		switch (MapFormat.detect (inputStream)) {
+			case BINARY:
+				(new BinaryMapReader ()).read (inputStream, this);
+				break;
+			case INDEXED:
+				this.addInstructions ((new MappedMap (this.getInstructionRegistry (), ByteBuffer.wrap (ByteStreams.toByteArray (inputStream)))).getInstructionMap ());
+				break;
+			case PARTITIONED:
+				PartitionedMapReader.open (ByteBuffer.wrap (ByteStreams.toByteArray (inputStream))).read (this);
+				break;
+			case COMPRESSED:
+				InputStream decompressedStream = (new CompressedMapReader ()).open (inputStream);
+
+				try {
+					this.load (decompressedStream);
+				} finally {
+					IOUtility.closeQuietly (decompressedStream);
+				}
+				break;
+			default:
+				this.loadText (inputStream);
+				break;
+		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Loads all instructions from a file (the map format is detected automatically).
+	 * @param file The file.
+	 * @throws IOException Occurs if reading from the file is not possible or the map is malformed.
+	 * @since 1.0.0
 	 */
-	@Override
-	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
-		return ((IInvokeDynamicMethodNameMapInstruction) this.instructionMap.get (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, new GenericInvokeDynamicMethodNameInstruction (name, description)));
+	public void load (@NonNull File file) throws IOException {
+		// parse large text maps in parallel
+		if (file.length () >= ParallelTextMapReader.PARALLEL_THRESHOLD && MapFormat.detect (file) == MapFormat.TEXT) {
+			(new ParallelTextMapReader ()).read (file, this);
+			return;
+		}
+
+		// define streams
+		FileInputStream inputStream = null;
+
+		// load
+		try {
+			// open stream
+			inputStream = new FileInputStream (file);
+
+			// read file
+			this.load (inputStream);
+		} finally {
+			IOUtility.closeQuietly (inputStream);
+		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Loads all instructions from a text map.
+	 * @param inputStream The input stream.
+	 * @throws IOException Occurs if reading from the stream is not possible or the map is malformed.
 	 */
-	@Override
-	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
-		return ((IMethodNameInstruction) this.instructionMap.get (MapInstructionCategory.METHOD_NAME, new GenericMethodNameInstruction (owner, name, description)));
+	protected void loadText (@NonNull InputStream inputStream) throws IOException {
+		(new TextMapReader ()).read (inputStream, this);
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Adds a set of instructions.
+	 * @param instructionMap The instruction map.
+	 * @since 1.0.0
 	 */
-	@Override
-	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
-		return ((ITypeNameMapInstruction) this.instructionMap.get (MapInstructionCategory.TYPE_NAME, new GenericTypeNameInstruction (name)));
+	public void addInstructions (@NonNull Map<IMapInstruction, IMapInstruction> instructionMap) {
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : instructionMap.entrySet ()) this.addInstruction (entry.getKey (), entry.getValue ());
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * All members of the owner are copied into a local table.
 	 */
 	@Override
-	public Map<IMapInstruction, IMapInstruction> getInstructionMap () {
-		return this.getInstructionMap (((MapInstructionCategory) null));
+	public OwnerMap forOwner (@NonNull String owner) {
+		return new OwnerMap (this, owner, this.fieldNameIndex.copyOwner (owner), this.fieldNameIndex.containsOwner (null), this.methodNameIndex.copyOwner (owner), this.methodNameIndex.containsOwner (null));
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
-		// generate map
-		if (category == null) {
-			// create empty map
-			Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
-
-			// append all elements
-			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : this.instructionMap.rowMap ().entrySet ()) {
-				map.putAll (entry.getValue ());
-			}
-
-			// return finished map
-			return map;
-		}
-
-		return this.instructionMap.row (category);
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		return this.fieldNameIndex.get (owner, name, description);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (Class<T> instructionType, boolean deep) {
-		// construct an empty map
-		Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
-
-		// copy
-		if (deep) {
-			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : this.instructionMap.rowMap ().entrySet ()) {
-				map.putAll (entry.getValue ());
-			}
-		} else
-			map.putAll (this.instructionMap.row (MapInstructionCategory.valueOf (instructionType)));
-
-		// remove elements which do not match
-		for (Map.Entry<IMapInstruction, IMapInstruction> entry : map.entrySet ()) {
-			if (!entry.getKey ().getClass ().isAssignableFrom (instructionType)) map.remove (entry.getKey ());
-		}
-
-		// return finished map
-		return ((Map<T, IMapInstruction>) map);
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		return this.invokeDynamicMethodNameIndex.get (null, name, description);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (Class<T> instructionType) {
-		return this.getInstructionMap (instructionType, false);
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		return this.methodNameIndex.get (owner, name, description);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String mapDescription (String description) {
-		System.out.println (description);
-		return description;
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = this.typeNameIndex.get (name);
+		if (instruction != null || name == null || this.packageNameIndex.isEmpty ()) return instruction;
+
+		// resolve packages
+		String mapped = this.packageNameIndex.map (name);
+		return (mapped != null ? new GenericTypeNameInstruction (mapped) : null);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public boolean mappingExists (@NonNull IMapInstruction instruction) {
-		for (Table.Cell<MapInstructionCategory, IMapInstruction, IMapInstruction> entry : this.instructionMap.cellSet ()) {
-			if (entry.getValue ().equals (instruction)) return true;
-		}
-		return false;
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		return this.originalFieldNameIndex.get (owner, name, description);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String mapFieldName (String owner, String name, String description) {
-		IFieldNameInstruction instruction = this.getFieldNameInstruction (owner, name, description);
-		return (instruction != null ? instruction.getName () : name);
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		return this.originalInvokeDynamicMethodNameIndex.get (null, name, description);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String mapInvokeDynamicMethodName (String name, String description) {
-		IInvokeDynamicMethodNameMapInstruction instruction = this.getInvokeDynamicMethodNameInstruction (name, description);
-		return (instruction != null ? instruction.getName () : name);
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		return this.originalMethodNameIndex.get (owner, name, description);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public String mapMethodName (String owner, String name, String description) {
-		IMethodNameInstruction instruction = this.getMethodNameInstruction (owner, name, description);
-		return (instruction != null ? instruction.getName () : name);
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = this.originalTypeNameIndex.get (name);
+		if (instruction != null || name == null || this.originalPackageNameIndex.isEmpty ()) return instruction;
+
+		// resolve packages
+		String original = this.originalPackageNameIndex.map (name);
+		return (original != null ? new GenericTypeNameInstruction (original) : null);
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * Exact type instructions take precedence over the most specific package instruction.
 	 */
 	@Override
 	public String mapTypeName (String name) {
-		ITypeNameMapInstruction instruction = this.getTypeNameInstruction (name);
-		return (instruction != null ? instruction.getName () : name);
+		ITypeNameMapInstruction instruction = this.typeNameIndex.get (name);
+		if (instruction != null) return instruction.getName ();
+
+		// resolve packages
+		String mapped = (name != null && !this.packageNameIndex.isEmpty () ? this.packageNameIndex.map (name) : null);
+		return (mapped != null ? mapped : name);
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * The combined map of all categories is a live read-only view (the categories are not copied).
 	 */
 	@Override
-	public void merge (IMap map) {
-		this.merge (map, null);
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		if (category == null) return InstructionView.create (IMapInstruction.class, this.instructionMap, true);
+		return this.instructionMap.get (category);
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * The returned map is a live read-only view which is filtered on access.
 	 */
 	@Override
-	public void merge (IMap map, MapInstructionCategory category) {
-		this.addInstructions (this.getInstructionMap (category));
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		return InstructionView.create (instructionType, this.instructionMap, deep);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void reset () {
-		this.reset (null);
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		MapInstructionCategory category = MapInstructionCategory.valueOf (instruction);
+		if (this.replacementIndex.get (category).contains (instruction)) return true;
+
+		// search replacements which only match through a wildcard (their hash codes differ)
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) instruction);
+				return (this.originalFieldNameIndex.get (field.getOwner (), field.getName (), field.getDescription ()) != null);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) instruction);
+				return (this.originalInvokeDynamicMethodNameIndex.get (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription ()) != null);
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) instruction);
+				return (this.originalMethodNameIndex.get (method.getOwner (), method.getName (), method.getDescription ()) != null);
+			case TYPE_NAME:
+				return (!this.originalPackageNameIndex.isEmpty () && this.originalPackageNameIndex.map (((ITypeNameMapInstruction) instruction).getName ()) != null);
+			default:
+				return false;
+		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void reset (MapInstructionCategory category) {
-		// reset all categories at once
-		if (category == null) {
-			// reset map completely
-			this.instructionMap.clear ();
+	public void merge (@NonNull IMap map, MapInstructionCategory category, @NonNull MergePolicy policy) {
+		// merging a map into itself does not change anything
+		if (map == this) return;
 
-			// stop further execution
-			return;
+		// collect source categories
+		Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> sourceMap = new EnumMap<> (MapInstructionCategory.class);
+		int size = 0;
+
+		for (MapInstructionCategory current : MapInstructionCategory.values ()) {
+			if (category != null && current != category) continue;
+
+			Map<IMapInstruction, IMapInstruction> source = map.getInstructionMap (current);
+			if (source.isEmpty ()) continue;
+
+			sourceMap.put (current, source);
+			size += source.size ();
 		}
 
-		// reset a single category
-		this.instructionMap.row (category).clear ();
+		// verify that no instruction is replaced before anything is changed
+		if (policy == MergePolicy.FAIL) {
+			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : sourceMap.entrySet ()) checkConflicts (this.instructionMap.get (entry.getKey ()), entry.getValue ());
+		}
+
+		// merge categories
+		if (sourceMap.size () > 1 && size >= PARALLEL_MERGE_THRESHOLD)
+			this.mergeParallel (sourceMap, policy);
+		else {
+			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : sourceMap.entrySet ()) this.mergeCategory (entry.getKey (), entry.getValue (), policy);
+		}
+
+		// discard cached descriptions
+		if (sourceMap.containsKey (MapInstructionCategory.TYPE_NAME) || sourceMap.containsKey (MapInstructionCategory.PACKAGE_NAME)) this.invalidateDescriptions ();
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Merges a set of instructions into a single category.
+	 * Since every category is stored within separate indexes, different categories may be merged concurrently.
+	 * @param category The category.
+	 * @param source The instructions.
+	 * @param policy The conflict policy.
 	 */
-	@Override
-	public void save (OutputStream outputStream) throws IOException {
-		// create buffers
-		OutputStreamWriter streamWriter = null;
-		BufferedWriter writer = null;
+	private void mergeCategory (MapInstructionCategory category, Map<IMapInstruction, IMapInstruction> source, MergePolicy policy) {
+		Map<IMapInstruction, IMapInstruction> target = this.instructionMap.get (category);
+		Multiset<IMapInstruction> replacements = this.replacementIndex.get (category);
 
-		// write data
-		try {
-			// open writers
-			streamWriter = new OutputStreamWriter (outputStream);
-			writer = new BufferedWriter (streamWriter);
-
-			// get date format
-			SimpleDateFormat format = new SimpleDateFormat ("yyyy-MM-dd'T'HH:mm'Z'");
-			format.setTimeZone (TimeZone.getTimeZone ("UTC"));
-
-			// create list
-			List<String> elementList = new ArrayList<> ();
-
-			// append elements
-			elementList.add ("Umbrella Map");
-			elementList.add (null);
-			elementList.add ("Generated on:  " + format.format ((new Date ())));
-			elementList.add ("Generator: " + (this.getClass ().getCanonicalName ().length () % 2 > 1 ? " " : "") + this.getClass ().getCanonicalName ());
-			elementList.add ("Map Version: " + (VERSION != null && VERSION.length () % 2 > 1 ? " " : "") + (VERSION != null ? VERSION : " Development Snapshot"));
-			elementList.add (null);
-
-			// get maximum length
-			int length = 0;
-			for (String element : elementList) length = Math.max (length, (element != null ? element.length () : 0));
-
-			// write header
-			for (String element : elementList) {
-				writer.write ("// ");
-
-				if (element != null) {
-					// calculate spacer
-					int spacerWidth = ((length / 2) - (element.length () / 2));
-
-					// write spacer
-					for (int i = 0; i < spacerWidth; i++) writer.write (" ");
-
-					// write element
-					writer.write (element);
-
-					// write spacer
-					for (int i = 0; i < spacerWidth; i++) writer.write (" ");
-				} else
-					for (int i = 0; i < length; i++) writer.write ("-");
-
-				// write end
-				writer.write (" \\\\\n");
+		// filter and canonicalize instructions
+		Map<IMapInstruction, IMapInstruction> accepted = new HashMap<> (((int) (source.size () / 0.75f) + 1));
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : source.entrySet ()) {
+			Preconditions.checkArgument (category == MapInstructionCategory.valueOf (entry.getValue ()), "Instruction categories do not match");
+
+			// handle conflicts
+			IMapInstruction previous = target.get (entry.getKey ());
+
+			if (previous != null) {
+				if (policy == MergePolicy.KEEP) continue;
+
+				replacements.remove (previous);
+				this.removeOriginal (category, entry.getKey (), previous);
 			}
 
-			// write elements
-			for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap ().entrySet ()) {
-				// write key identifier
-				writer.write (this.getInstructionRegistry ().getName (entry.getKey ()));
-				writer.write (" ");
+			// store
+			IMapInstruction replacement = this.symbolTable.intern (entry.getValue ());
+			accepted.put (this.symbolTable.intern (entry.getKey ()), replacement);
+			replacements.add (replacement);
+		}
 
-				// write key
-				writer.write (entry.getKey ().serialize ());
-				writer.write (" ");
+		// store instructions (the table is resized at most once)
+		target.putAll (accepted);
 
-				// write value identifier
-				writer.write (this.getInstructionRegistry ().getName (entry.getValue ()));
-				writer.write (" ");
+		// update typed indexes
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : accepted.entrySet ()) this.index (category, entry.getKey (), entry.getValue ());
+	}
 
-				// write value
-				writer.write (entry.getValue ().serialize ());
+	/**
+	 * Merges multiple categories in parallel (one task per category).
+	 * @param sourceMap The instructions (grouped by category).
+	 * @param policy The conflict policy.
+	 */
+	private void mergeParallel (Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> sourceMap, final MergePolicy policy) {
+		ExecutorService executor = null;
 
-				// write new line
-				writer.write ("\n");
+		try {
+			executor = Executors.newFixedThreadPool (Math.min (Runtime.getRuntime ().availableProcessors (), sourceMap.size ()));
+			List<Future<?>> futures = new ArrayList<> ();
+
+			for (final Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : sourceMap.entrySet ()) {
+				futures.add (executor.submit (new Runnable () {
+
+					/**
+					 * {@inheritDoc}
+					 */
+					@Override
+					public void run () {
+						mergeCategory (entry.getKey (), entry.getValue (), policy);
+					}
+				}));
 			}
 
-			// write eof comment
-			writer.write ("// EOF");
+			// wait for all categories
+			for (Future<?> future : futures) {
+				try {
+					future.get ();
+				} catch (InterruptedException ex) {
+					Thread.currentThread ().interrupt ();
+					throw new IllegalStateException ("Interrupted while merging maps", ex);
+				} catch (ExecutionException ex) {
+					Throwable cause = ex.getCause ();
+
+					// rethrow
+					if (cause instanceof RuntimeException) throw ((RuntimeException) cause);
+					if (cause instanceof Error) throw ((Error) cause);
+					throw new IllegalStateException ("Could not merge maps: " + cause.getMessage (), cause);
+				}
+			}
 		} finally {
-			IOUtility.closeQuietly (writer);
-			IOUtility.closeQuietly (streamWriter);
+			if (executor != null) executor.shutdownNow ();
 		}
 	}
 
@@ -500,19 +699,105 @@ public class GenericMap implements IMap {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void save (File file) throws IOException {
-		// define streams
-		FileOutputStream outputStream = null;
+	public IMapInstruction removeInstruction (@NonNull IMapInstruction original) {
+		// get category
+		MapInstructionCategory category = MapInstructionCategory.valueOf (original);
+
+		// remove
+		IMapInstruction replacement = this.instructionMap.get (category).remove (original);
+		if (replacement == null) return null;
+
+		// update reverse index
+		this.replacementIndex.get (category).remove (replacement);
+
+		// update typed indexes
+		this.removeOriginal (category, original, replacement);
+
+		switch (category) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) original);
+				this.fieldNameIndex.remove (field.getOwner (), field.getName (), field.getDescription ());
+				break;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) original);
+				this.invokeDynamicMethodNameIndex.remove (null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription ());
+				break;
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) original);
+				this.methodNameIndex.remove (method.getOwner (), method.getName (), method.getDescription ());
+				break;
+			case PACKAGE_NAME:
+				this.packageNameIndex.remove (((IPackageNameMapInstruction) original).getName ());
+				this.invalidateDescriptions ();
+				break;
+			case TYPE_NAME:
+				this.typeNameIndex.remove (((ITypeNameMapInstruction) original).getName ());
+				this.invalidateDescriptions ();
+				break;
+		}
 
-		// save
-		try {
-			// open stream
-			outputStream = new FileOutputStream (file);
+		return replacement;
+	}
 
-			// write file
-			this.save (outputStream);
-		} finally {
-			IOUtility.closeQuietly (outputStream);
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		// reset all categories at once
+		if (category == null) {
+			// reset map completely
+			for (Map<IMapInstruction, IMapInstruction> categoryMap : this.instructionMap.values ()) categoryMap.clear ();
+
+			// reset indexes
+			for (Multiset<IMapInstruction> replacements : this.replacementIndex.values ()) replacements.clear ();
+			this.fieldNameIndex.clear ();
+			this.invokeDynamicMethodNameIndex.clear ();
+			this.methodNameIndex.clear ();
+			this.packageNameIndex.clear ();
+			this.typeNameIndex.clear ();
+			this.originalFieldNameIndex.clear ();
+			this.originalInvokeDynamicMethodNameIndex.clear ();
+			this.originalMethodNameIndex.clear ();
+			this.originalPackageNameIndex.clear ();
+			this.originalTypeNameIndex.clear ();
+			this.invalidateDescriptions ();
+
+			// release symbols (shared tables merely lose their canonical instances)
+			this.symbolTable.clear ();
+
+			// stop further execution
+			return;
+		}
+
+		// reset a single category
+		this.instructionMap.get (category).clear ();
+
+		// reset indexes
+		this.replacementIndex.get (category).clear ();
+		switch (category) {
+			case FIELD_NAME:
+				this.fieldNameIndex.clear ();
+				this.originalFieldNameIndex.clear ();
+				break;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				this.invokeDynamicMethodNameIndex.clear ();
+				this.originalInvokeDynamicMethodNameIndex.clear ();
+				break;
+			case METHOD_NAME:
+				this.methodNameIndex.clear ();
+				this.originalMethodNameIndex.clear ();
+				break;
+			case PACKAGE_NAME:
+				this.packageNameIndex.clear ();
+				this.originalPackageNameIndex.clear ();
+				this.invalidateDescriptions ();
+				break;
+			case TYPE_NAME:
+				this.typeNameIndex.clear ();
+				this.originalTypeNameIndex.clear ();
+				this.invalidateDescriptions ();
+				break;
 		}
 	}
 }
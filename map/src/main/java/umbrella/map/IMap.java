@@ -17,6 +17,7 @@ package umbrella.map;
 import umbrella.map.instruction.*;
 import umbrella.map.instruction.utility.IMapInstructionRegistry;
 import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.io.MapFormat;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,6 +40,48 @@ public interface IMap {
 	 */
 	public void addInstruction (IMapInstruction original, IMapInstruction replacement);
 
+	/**
+	 * Adds an instruction unless its replacement is already in use.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 * @return True if the instruction has been added.
+	 * @since 1.0.0
+	 */
+	public boolean addInstructionIfUnused (IMapInstruction original, IMapInstruction replacement);
+
+	/**
+	 * Removes an instruction.
+	 * @param original The original.
+	 * @return The removed replacement (or null).
+	 * @since 1.0.0
+	 */
+	public IMapInstruction removeInstruction (IMapInstruction original);
+
+	/**
+	 * Returns an immutable snapshot of the map which may be shared between threads.
+	 * @return The snapshot.
+	 * @since 1.0.0
+	 */
+	public IMap freeze ();
+
+	/**
+	 * Returns a read-only view which maps replacements back to their originals.
+	 * The view is backed by the map (changes are reflected immediately) and performs its lookups with the components
+	 * of the replacement instructions.
+	 * @return The inverse view.
+	 * @since 1.0.0
+	 */
+	public IMap inverse ();
+
+	/**
+	 * Returns a handle which resolves the members of a single owner.
+	 * The handle is meant to be obtained once per class and does not observe later changes to the map.
+	 * @param owner The owner type.
+	 * @return The handle.
+	 * @since 1.0.0
+	 */
+	public OwnerMap forOwner (String owner);
+
 	/**
 	 * Returns a field instruction (or null).
 	 * @param owner The owner type.
@@ -125,6 +168,14 @@ public interface IMap {
 	 */
 	public String mapDescription (String description);
 
+	/**
+	 * Maps a generic signature.
+	 * @param signature The signature.
+	 * @return The mapped signature.
+	 * @since 1.0.0
+	 */
+	public String mapSignature (String signature);
+
 	/**
 	 * Checks whether a specific mapping result exists.
 	 * @param instruction The instruction.
@@ -170,20 +221,39 @@ public interface IMap {
 	public String mapTypeName (String name);
 
 	/**
-	 * Merges all instruction of another map into the map.
+	 * Merges all instruction of another map into the map (conflicting instructions are replaced).
 	 * @param map The map.
 	 * @since 1.0.0
 	 */
 	public void merge (IMap map);
 
 	/**
-	 * Merges all instructions within a specific category into the map.
+	 * Merges all instructions within a specific category into the map (conflicting instructions are replaced).
 	 * @param map The map.
 	 * @param category The category.
 	 * @since 1.0.0
 	 */
 	public void merge (IMap map, MapInstructionCategory category);
 
+	/**
+	 * Merges all instructions of another map into the map.
+	 * @param map The map.
+	 * @param policy The conflict policy.
+	 * @throws IllegalArgumentException Occurs if the policy is {@link MergePolicy#FAIL} and a conflict is found.
+	 * @since 1.0.0
+	 */
+	public void merge (IMap map, MergePolicy policy);
+
+	/**
+	 * Merges all instructions within a specific category into the map.
+	 * @param map The map.
+	 * @param category The category (or null for all categories).
+	 * @param policy The conflict policy.
+	 * @throws IllegalArgumentException Occurs if the policy is {@link MergePolicy#FAIL} and a conflict is found.
+	 * @since 1.0.0
+	 */
+	public void merge (IMap map, MapInstructionCategory category, MergePolicy policy);
+
 	/**
 	 * Deletes all instructions.
 	 * @since 1.0.0
@@ -205,6 +275,15 @@ public interface IMap {
 	 */
 	public void save (OutputStream outputStream) throws IOException;
 
+	/**
+	 * Saves a map in a specific format.
+	 * @param outputStream The output stream.
+	 * @param format The map format.
+	 * @throws IOException Occurs if writing the map is not possible.
+	 * @since 1.0.0
+	 */
+	public void save (OutputStream outputStream, MapFormat format) throws IOException;
+
 	/**
 	 * Saves a map to a file.
 	 * @param file The output file.
@@ -212,4 +291,21 @@ public interface IMap {
 	 * @since 1.0.0
 	 */
 	public void save (File file) throws IOException;
+
+	/**
+	 * Saves a map to a file in a specific format.
+	 * @param file The output file.
+	 * @param format The map format.
+	 * @throws IOException Occurs if writing to the file is not possible.
+	 * @since 1.0.0
+	 */
+	public void save (File file, MapFormat format) throws IOException;
+
+	/**
+	 * Returns a splittable traversal over all instructions of a category.
+	 * @param category The category (or null to traverse all categories).
+	 * @return The spliterator.
+	 * @since 1.0.0
+	 */
+	public InstructionSpliterator spliterator (MapInstructionCategory category);
 }
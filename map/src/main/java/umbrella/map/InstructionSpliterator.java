@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
+import umbrella.map.instruction.IMapInstruction;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Traverses and partitions the instructions of a map.
+ * Spliterators cover a range of two parallel arrays (originals and their replacements) and may be split into halves
+ * without copying any elements, thus large maps may be processed in parallel without materializing per-task copies.
+ * Instances are not thread safe, however, split off instances may be traversed concurrently.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class InstructionSpliterator {
+
+	/**
+	 * Defines the default amount of instructions below which parallel traversals are not split any further.
+	 */
+	public static final int DEFAULT_SPLIT_THRESHOLD = 1024;
+
+	/**
+	 * Stores all originals.
+	 */
+	private final IMapInstruction[] originals;
+
+	/**
+	 * Stores all replacements (in the order of their originals).
+	 */
+	private final IMapInstruction[] replacements;
+
+	/**
+	 * Stores the current position.
+	 */
+	private int position;
+
+	/**
+	 * Stores the end of the range (exclusive).
+	 */
+	private final int end;
+
+	/**
+	 * Constructs a new InstructionSpliterator instance.
+	 * The arrays are not copied and thus may not be modified while the spliterator is in use.
+	 * @param originals The originals.
+	 * @param replacements The replacements (in the order of their originals).
+	 * @since 1.0.0
+	 */
+	public InstructionSpliterator (@NonNull IMapInstruction[] originals, @NonNull IMapInstruction[] replacements) {
+		this (originals, replacements, 0, originals.length);
+		Preconditions.checkArgument (originals.length == replacements.length, "Amount of originals and replacements differ");
+	}
+
+	/**
+	 * Constructs a new InstructionSpliterator instance.
+	 * @param originals The originals.
+	 * @param replacements The replacements.
+	 * @param position The start of the range.
+	 * @param end The end of the range (exclusive).
+	 */
+	private InstructionSpliterator (IMapInstruction[] originals, IMapInstruction[] replacements, int position, int end) {
+		this.originals = originals;
+		this.replacements = replacements;
+		this.position = position;
+		this.end = end;
+	}
+
+	/**
+	 * Creates a spliterator over an instruction map.
+	 * Only the entry references are captured, thus later modifications of the map are not reflected.
+	 * @param instructionMap The instruction map.
+	 * @return The spliterator.
+	 * @since 1.0.0
+	 */
+	public static InstructionSpliterator of (@NonNull Map<IMapInstruction, IMapInstruction> instructionMap) {
+		IMapInstruction[] originals = new IMapInstruction[instructionMap.size ()];
+		IMapInstruction[] replacements = new IMapInstruction[originals.length];
+		int position = 0;
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : instructionMap.entrySet ()) {
+			// skip concurrently added entries
+			if (position == originals.length) break;
+
+			originals[position] = entry.getKey ();
+			replacements[position++] = entry.getValue ();
+		}
+
+		return new InstructionSpliterator (originals, replacements, 0, position);
+	}
+
+	/**
+	 * Returns the amount of remaining instructions.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int estimateSize () {
+		return (this.end - this.position);
+	}
+
+	/**
+	 * Passes all remaining instructions to a visitor.
+	 * @param visitor The visitor.
+	 * @since 1.0.0
+	 */
+	public void forEachRemaining (@NonNull Visitor visitor) {
+		while (this.position < this.end) {
+			visitor.visit (this.originals[this.position], this.replacements[this.position]);
+			this.position++;
+		}
+	}
+
+	/**
+	 * Passes all remaining instructions to a visitor using a fork join pool.
+	 * @param pool The pool.
+	 * @param visitor The (thread safe) visitor.
+	 * @since 1.0.0
+	 */
+	public void forEachParallel (@NonNull ForkJoinPool pool, @NonNull Visitor visitor) {
+		this.forEachParallel (pool, visitor, DEFAULT_SPLIT_THRESHOLD);
+	}
+
+	/**
+	 * Passes all remaining instructions to a visitor using a fork join pool.
+	 * @param pool The pool.
+	 * @param visitor The (thread safe) visitor.
+	 * @param threshold The amount of instructions below which tasks are not split any further.
+	 * @since 1.0.0
+	 */
+	public void forEachParallel (@NonNull ForkJoinPool pool, @NonNull Visitor visitor, int threshold) {
+		Preconditions.checkArgument (threshold > 0, "Threshold needs to be positive");
+		pool.invoke (new VisitorTask (this, visitor, threshold));
+	}
+
+	/**
+	 * Passes the next instruction to a visitor.
+	 * @param visitor The visitor.
+	 * @return True if an instruction was visited.
+	 * @since 1.0.0
+	 */
+	public boolean tryAdvance (@NonNull Visitor visitor) {
+		if (this.position >= this.end) return false;
+
+		visitor.visit (this.originals[this.position], this.replacements[this.position]);
+		this.position++;
+		return true;
+	}
+
+	/**
+	 * Splits off the first half of the remaining instructions.
+	 * @return The split off spliterator (or null if less than two instructions remain).
+	 * @since 1.0.0
+	 */
+	public InstructionSpliterator trySplit () {
+		int middle = ((this.position + this.end) >>> 1);
+		if (middle <= this.position) return null;
+
+		InstructionSpliterator prefix = new InstructionSpliterator (this.originals, this.replacements, this.position, middle);
+		this.position = middle;
+		return prefix;
+	}
+
+	/**
+	 * Visits instructions.
+	 */
+	public static interface Visitor {
+
+		/**
+		 * Visits an instruction.
+		 * @param original The original.
+		 * @param replacement The replacement.
+		 * @since 1.0.0
+		 */
+		public void visit (IMapInstruction original, IMapInstruction replacement);
+	}
+
+	/**
+	 * Recursively splits a spliterator and visits its partitions.
+	 */
+	private static final class VisitorTask extends RecursiveAction {
+
+		/**
+		 * Stores the spliterator.
+		 */
+		private final InstructionSpliterator spliterator;
+
+		/**
+		 * Stores the visitor.
+		 */
+		private final Visitor visitor;
+
+		/**
+		 * Stores the split threshold.
+		 */
+		private final int threshold;
+
+		/**
+		 * Constructs a new VisitorTask instance.
+		 * @param spliterator The spliterator.
+		 * @param visitor The visitor.
+		 * @param threshold The split threshold.
+		 */
+		public VisitorTask (InstructionSpliterator spliterator, Visitor visitor, int threshold) {
+			this.spliterator = spliterator;
+			this.visitor = visitor;
+			this.threshold = threshold;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute () {
+			InstructionSpliterator prefix;
+
+			// split until the partitions are small enough
+			if (this.spliterator.estimateSize () > this.threshold && (prefix = this.spliterator.trySplit ()) != null) {
+				invokeAll (new VisitorTask (prefix, this.visitor, this.threshold), new VisitorTask (this.spliterator, this.visitor, this.threshold));
+				return;
+			}
+
+			this.spliterator.forEachRemaining (this.visitor);
+		}
+	}
+}
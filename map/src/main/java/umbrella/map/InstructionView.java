@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.*;
+
+/**
+ * Provides a live read-only view of all instructions of a specific type within one or more categories.
+ * Entries are filtered while iterating, thus the view never copies the backing maps. Sections whose base type is
+ * covered by the requested type are passed through as is (this also allows constant time size calculations).
+ * @param <T> The instruction type.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+final class InstructionView<T extends IMapInstruction> extends java.util.AbstractMap<T, IMapInstruction> {
+
+	/**
+	 * Stores the instruction type.
+	 */
+	private final Class<T> instructionType;
+
+	/**
+	 * Stores all backing sections (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, ? extends Map<IMapInstruction, IMapInstruction>> sections;
+
+	/**
+	 * Stores the entry set.
+	 */
+	private final EntrySet entrySet = new EntrySet ();
+
+	/**
+	 * Constructs a new InstructionView instance.
+	 * @param instructionType The instruction type.
+	 * @param sections The backing sections (grouped by category).
+	 */
+	public InstructionView (Class<T> instructionType, Map<MapInstructionCategory, ? extends Map<IMapInstruction, IMapInstruction>> sections) {
+		this.instructionType = instructionType;
+		this.sections = sections;
+	}
+
+	/**
+	 * Creates a view over all categories or the category of the instruction type.
+	 * @param instructionType The instruction type.
+	 * @param instructionMap All sections (grouped by category).
+	 * @param deep True if all categories shall be searched.
+	 * @param <T> The instruction type.
+	 * @return The view.
+	 */
+	public static <T extends IMapInstruction> InstructionView<T> create (Class<T> instructionType, Map<MapInstructionCategory, ? extends Map<IMapInstruction, IMapInstruction>> instructionMap, boolean deep) {
+		if (deep) return new InstructionView<> (instructionType, instructionMap);
+
+		MapInstructionCategory category = MapInstructionCategory.valueOf (instructionType);
+		return new InstructionView<> (instructionType, Collections.singletonMap (category, instructionMap.get (category)));
+	}
+
+	/**
+	 * Checks whether all instructions of a category match the instruction type.
+	 * @param category The category.
+	 * @return True if no filtering is required.
+	 */
+	private boolean covers (MapInstructionCategory category) {
+		return (category.getInstructionType () != null && this.instructionType.isAssignableFrom (category.getInstructionType ()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean containsKey (Object key) {
+		return (this.get (key) != null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Set<Map.Entry<T, IMapInstruction>> entrySet () {
+		return this.entrySet;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstruction get (Object key) {
+		// skip foreign keys
+		if (!this.instructionType.isInstance (key)) return null;
+
+		// search category
+		Map<IMapInstruction, IMapInstruction> section = this.sections.get (MapInstructionCategory.valueOf (((IMapInstruction) key)));
+		return (section != null ? section.get (key) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size () {
+		int size = 0;
+
+		for (Map.Entry<MapInstructionCategory, ? extends Map<IMapInstruction, IMapInstruction>> section : this.sections.entrySet ()) {
+			// count covered sections directly
+			if (this.covers (section.getKey ())) {
+				size += section.getValue ().size ();
+				continue;
+			}
+
+			// count matching instructions
+			for (IMapInstruction original : section.getValue ().keySet ()) {
+				if (this.instructionType.isInstance (original)) size++;
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Provides a live read-only entry set.
+	 */
+	private class EntrySet extends AbstractSet<Map.Entry<T, IMapInstruction>> {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean contains (Object object) {
+			if (!(object instanceof Map.Entry)) return false;
+
+			Map.Entry<?, ?> entry = ((Map.Entry<?, ?>) object);
+			IMapInstruction replacement = get (entry.getKey ());
+			return (replacement != null && replacement.equals (entry.getValue ()));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings ("unchecked")
+		public Iterator<Map.Entry<T, IMapInstruction>> iterator () {
+			List<Iterator<Map.Entry<IMapInstruction, IMapInstruction>>> iterators = new ArrayList<> (sections.size ());
+
+			for (Map.Entry<MapInstructionCategory, ? extends Map<IMapInstruction, IMapInstruction>> section : sections.entrySet ()) {
+				Iterator<Map.Entry<IMapInstruction, IMapInstruction>> iterator = section.getValue ().entrySet ().iterator ();
+
+				// filter foreign instructions
+				if (!covers (section.getKey ())) {
+					iterator = Iterators.filter (iterator, new Predicate<Map.Entry<IMapInstruction, IMapInstruction>> () {
+
+						/**
+						 * {@inheritDoc}
+						 */
+						@Override
+						public boolean apply (Map.Entry<IMapInstruction, IMapInstruction> input) {
+							return instructionType.isInstance (input.getKey ());
+						}
+					});
+				}
+
+				iterators.add (iterator);
+			}
+
+			// wrap entries (keys have been verified to match the instruction type)
+			return ((Iterator<Map.Entry<T, IMapInstruction>>) ((Iterator<?>) Iterators.unmodifiableIterator (Iterators.transform (Iterators.concat (iterators.iterator ()), new Function<Map.Entry<IMapInstruction, IMapInstruction>, Map.Entry<IMapInstruction, IMapInstruction>> () {
+
+				/**
+				 * {@inheritDoc}
+				 */
+				@Override
+				public Map.Entry<IMapInstruction, IMapInstruction> apply (Map.Entry<IMapInstruction, IMapInstruction> input) {
+					return Maps.immutableEntry (input.getKey (), input.getValue ());
+				}
+			}))));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int size () {
+			return InstructionView.this.size ();
+		}
+	}
+}
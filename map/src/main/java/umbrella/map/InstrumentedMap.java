@@ -0,0 +1,490 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wraps a map and records lookup statistics (hits, misses and optionally latencies) per category.
+ * Counters are striped by thread, thus concurrent lookups rarely contend for the same cache line. Descriptions and
+ * signatures are remapped by the wrapper itself (without a cache), thus every type name within them is recorded as a
+ * type name lookup.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class InstrumentedMap extends AbstractMap {
+
+	/**
+	 * Defines the amount of latency histogram buckets (bucket n counts lookups which took less than 2^n nanoseconds).
+	 */
+	public static final int LATENCY_BUCKETS = 64;
+
+	/**
+	 * Defines the prefixes of platform types.
+	 */
+	private static final String[] PLATFORM_PREFIXES = new String[] { "java/", "javax/", "jdk/", "sun/", "com/sun/" };
+
+	/**
+	 * Defines the counter slots of every category.
+	 */
+	private static final int HIT_SLOT = 0;
+	private static final int MISS_SLOT = 1;
+	private static final int PLATFORM_MISS_SLOT = 2;
+	private static final int SLOTS_PER_CATEGORY = 3;
+
+	/**
+	 * Stores the wrapped map.
+	 */
+	@Getter
+	private final IMap map;
+
+	/**
+	 * Indicates whether lookup latencies are recorded.
+	 */
+	@Getter
+	private final boolean latencyRecorded;
+
+	/**
+	 * Stores the hit and miss counters.
+	 */
+	private final StripedCounter counter = new StripedCounter ((MapInstructionCategory.values ().length * SLOTS_PER_CATEGORY));
+
+	/**
+	 * Stores the latency histograms (or null if latencies are not recorded).
+	 */
+	private final StripedCounter latencyCounter;
+
+	/**
+	 * Stores the description mapper (which resolves type names through this map).
+	 */
+	private final DescriptionMapper descriptionMapper = new DescriptionMapper (this, 0);
+
+	/**
+	 * Constructs a new InstrumentedMap instance.
+	 * @param map The map to wrap.
+	 * @since 1.0.0
+	 */
+	public InstrumentedMap (IMap map) {
+		this (map, false);
+	}
+
+	/**
+	 * Constructs a new InstrumentedMap instance.
+	 * @param map The map to wrap.
+	 * @param latencyRecorded True if lookup latencies shall be recorded.
+	 * @since 1.0.0
+	 */
+	public InstrumentedMap (@NonNull IMap map, boolean latencyRecorded) {
+		this.map = map;
+		this.latencyRecorded = latencyRecorded;
+		this.latencyCounter = (latencyRecorded ? new StripedCounter ((MapInstructionCategory.values ().length * LATENCY_BUCKETS)) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addInstruction (IMapInstruction original, IMapInstruction replacement) {
+		this.map.addInstruction (original, replacement);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean addInstructionIfUnused (IMapInstruction original, IMapInstruction replacement) {
+		return this.map.addInstructionIfUnused (original, replacement);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		long start = this.start ();
+		IFieldNameInstruction instruction = this.map.getFieldNameInstruction (owner, name, description);
+
+		this.record (MapInstructionCategory.FIELD_NAME, start, (instruction != null), owner);
+		return instruction;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		long start = this.start ();
+		IInvokeDynamicMethodNameMapInstruction instruction = this.map.getInvokeDynamicMethodNameInstruction (name, description);
+
+		this.record (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, start, (instruction != null), null);
+		return instruction;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		long start = this.start ();
+		IMethodNameInstruction instruction = this.map.getMethodNameInstruction (owner, name, description);
+
+		this.record (MapInstructionCategory.METHOD_NAME, start, (instruction != null), owner);
+		return instruction;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		long start = this.start ();
+		ITypeNameMapInstruction instruction = this.map.getTypeNameInstruction (name);
+
+		this.record (MapInstructionCategory.TYPE_NAME, start, (instruction != null), name);
+		return instruction;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		return this.map.inverse ().getFieldNameInstruction (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		return this.map.inverse ().getInvokeDynamicMethodNameInstruction (name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		return this.map.inverse ().getMethodNameInstruction (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		return this.map.inverse ().getTypeNameInstruction (name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		return this.map.getInstructionMap (category);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (Class<T> instructionType, boolean deep) {
+		return this.map.getInstructionMap (instructionType, deep);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Results are not cached since a cache would neither observe changes to the wrapped map nor record lookups.
+	 */
+	@Override
+	public DescriptionMapper getDescriptionMapper () {
+		return this.descriptionMapper;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstructionRegistry getInstructionRegistry () {
+		return this.map.getInstructionRegistry ();
+	}
+
+	/**
+	 * Returns the amount of successful lookups within a category.
+	 * @param category The category.
+	 * @return The amount of hits.
+	 * @since 1.0.0
+	 */
+	public long getHits (@NonNull MapInstructionCategory category) {
+		return this.counter.sum (((category.ordinal () * SLOTS_PER_CATEGORY) + HIT_SLOT));
+	}
+
+	/**
+	 * Returns the latency histogram of a category.
+	 * @param category The category.
+	 * @return The histogram (bucket n counts lookups which took less than 2^n nanoseconds).
+	 * @throws IllegalStateException Occurs if latencies are not recorded.
+	 * @since 1.0.0
+	 */
+	public long[] getLatencyHistogram (@NonNull MapInstructionCategory category) {
+		if (this.latencyCounter == null) throw new IllegalStateException ("Latencies are not recorded");
+
+		long[] histogram = new long[LATENCY_BUCKETS];
+		for (int i = 0; i < LATENCY_BUCKETS; i++) histogram[i] = this.latencyCounter.sum (((category.ordinal () * LATENCY_BUCKETS) + i));
+		return histogram;
+	}
+
+	/**
+	 * Returns the approximate latency percentile of a category.
+	 * @param category The category.
+	 * @param percentile The percentile (between 0 and 1).
+	 * @return The upper bound of the percentile (in nanoseconds) or 0 if no lookups have been recorded.
+	 * @throws IllegalStateException Occurs if latencies are not recorded.
+	 * @since 1.0.0
+	 */
+	public long getLatencyPercentile (@NonNull MapInstructionCategory category, double percentile) {
+		long[] histogram = this.getLatencyHistogram (category);
+
+		// count lookups
+		long total = 0;
+		for (long count : histogram) total += count;
+		if (total == 0) return 0;
+
+		// find bucket
+		long threshold = ((long) Math.ceil ((total * percentile)));
+		long current = 0;
+
+		for (int i = 0; i < LATENCY_BUCKETS; i++) {
+			current += histogram[i];
+			if (current >= threshold) return (i < 63 ? (1L << i) : Long.MAX_VALUE);
+		}
+
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the amount of failed lookups within a category.
+	 * @param category The category.
+	 * @return The amount of misses.
+	 * @since 1.0.0
+	 */
+	public long getMisses (@NonNull MapInstructionCategory category) {
+		return this.counter.sum (((category.ordinal () * SLOTS_PER_CATEGORY) + MISS_SLOT));
+	}
+
+	/**
+	 * Returns the amount of failed lookups of platform types (or members of platform types) within a category.
+	 * Platform types are never part of a map, thus these lookups are usually wasted.
+	 * @param category The category.
+	 * @return The amount of misses.
+	 * @since 1.0.0
+	 */
+	public long getPlatformMisses (@NonNull MapInstructionCategory category) {
+		return this.counter.sum (((category.ordinal () * SLOTS_PER_CATEGORY) + PLATFORM_MISS_SLOT));
+	}
+
+	/**
+	 * Returns a human readable report of all recorded statistics (one line per category).
+	 * @return The report.
+	 * @since 1.0.0
+	 */
+	public String getReport () {
+		StringBuilder builder = new StringBuilder ();
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			long hits = this.getHits (category);
+			long misses = this.getMisses (category);
+			if ((hits + misses) == 0) continue;
+
+			// append counters
+			if (builder.length () > 0) builder.append ('\n');
+			builder.append (category).append (": ").append ((hits + misses)).append (" lookups, ");
+			builder.append (hits).append (" hits (").append (String.format ("%.1f", ((hits * 100.0) / (hits + misses)))).append ("%), ");
+			builder.append (misses).append (" misses (").append (this.getPlatformMisses (category)).append (" on platform types)");
+
+			// append latencies
+			if (this.latencyCounter != null) builder.append (", p50 < ").append (this.getLatencyPercentile (category, 0.5)).append (" ns, p99 < ").append (this.getLatencyPercentile (category, 0.99)).append (" ns");
+		}
+
+		return (builder.length () > 0 ? builder.toString () : "No lookups recorded");
+	}
+
+	/**
+	 * Checks whether a type name refers to a platform type.
+	 * @param name The type name.
+	 * @return True if the type is part of the platform.
+	 */
+	private static boolean isPlatformType (String name) {
+		if (name == null) return false;
+
+		for (String prefix : PLATFORM_PREFIXES) {
+			if (name.startsWith (prefix)) return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean mappingExists (IMapInstruction instruction) {
+		return this.map.mappingExists (instruction);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void merge (IMap map, MapInstructionCategory category, MergePolicy policy) {
+		this.map.merge (map, category, policy);
+	}
+
+	/**
+	 * Records a lookup.
+	 * @param category The category.
+	 * @param start The start time (or 0 if latencies are not recorded).
+	 * @param hit True if the lookup was successful.
+	 * @param type The (owner) type name.
+	 */
+	private void record (MapInstructionCategory category, long start, boolean hit, String type) {
+		// record latency
+		if (this.latencyCounter != null) {
+			long duration = Math.max (0, (System.nanoTime () - start));
+			this.latencyCounter.increment (((category.ordinal () * LATENCY_BUCKETS) + Math.min ((LATENCY_BUCKETS - 1), (64 - Long.numberOfLeadingZeros (duration)))));
+		}
+
+		// record result
+		int offset = (category.ordinal () * SLOTS_PER_CATEGORY);
+
+		if (hit) {
+			this.counter.increment ((offset + HIT_SLOT));
+			return;
+		}
+
+		this.counter.increment ((offset + MISS_SLOT));
+		if (isPlatformType (type)) this.counter.increment ((offset + PLATFORM_MISS_SLOT));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstruction removeInstruction (IMapInstruction original) {
+		return this.map.removeInstruction (original);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		this.map.reset (category);
+	}
+
+	/**
+	 * Resets all recorded statistics.
+	 * @since 1.0.0
+	 */
+	public void resetStatistics () {
+		this.counter.reset ();
+		if (this.latencyCounter != null) this.latencyCounter.reset ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public InstructionSpliterator spliterator (MapInstructionCategory category) {
+		return this.map.spliterator (category);
+	}
+
+	/**
+	 * Returns the start time of a lookup.
+	 * @return The start time (or 0 if latencies are not recorded).
+	 */
+	private long start () {
+		return (this.latencyCounter != null ? System.nanoTime () : 0);
+	}
+
+	/**
+	 * Provides a set of counters which are striped by thread.
+	 * Every stripe is padded in order to keep stripes of different threads on separate cache lines.
+	 */
+	private static final class StripedCounter {
+
+		/**
+		 * Defines the amount of stripes.
+		 */
+		private static final int STRIPES = Math.min (64, Integer.highestOneBit (((Runtime.getRuntime ().availableProcessors () * 2) - 1)) * 2);
+
+		/**
+		 * Defines the padding between stripes (in counters).
+		 */
+		private static final int PADDING = 8;
+
+		/**
+		 * Stores all cells.
+		 */
+		private final AtomicLongArray cells;
+
+		/**
+		 * Stores the amount of cells per stripe.
+		 */
+		private final int stride;
+
+		/**
+		 * Constructs a new StripedCounter instance.
+		 * @param slots The amount of counters.
+		 */
+		public StripedCounter (int slots) {
+			this.stride = (slots + PADDING);
+			this.cells = new AtomicLongArray ((STRIPES * this.stride));
+		}
+
+		/**
+		 * Increments a counter.
+		 * @param slot The counter.
+		 */
+		public void increment (int slot) {
+			this.cells.incrementAndGet ((((((int) Thread.currentThread ().getId ()) & (STRIPES - 1)) * this.stride) + slot));
+		}
+
+		/**
+		 * Resets all counters.
+		 */
+		public void reset () {
+			for (int i = 0; i < this.cells.length (); i++) this.cells.set (i, 0);
+		}
+
+		/**
+		 * Sums up a counter.
+		 * @param slot The counter.
+		 * @return The sum.
+		 */
+		public long sum (int slot) {
+			long sum = 0;
+			for (int i = 0; i < STRIPES; i++) sum += this.cells.get (((i * this.stride) + slot));
+			return sum;
+		}
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides a read-only view which maps replacements back to their originals.
+ * Lookups are answered by the reverse indexes of the parent map, thus the view does not copy any instructions and
+ * reflects all changes to its parent. If multiple originals share a replacement, the most recently added original
+ * is returned.
+ * Generated replacements keep the owner and description of their original (or omit the description). Member lookups
+ * which do not match a replacement directly are thus repeated with their owner and description mapped back to their
+ * originals and finally without a description, since not every map resolves wildcard descriptions on its own.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class InverseMap extends AbstractMap {
+
+	/**
+	 * Stores the parent map.
+	 */
+	@Getter
+	private final AbstractMap map;
+
+	/**
+	 * Constructs a new InverseMap instance.
+	 * @param map The parent map.
+	 */
+	InverseMap (@NonNull AbstractMap map) {
+		this.map = map;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Inverse maps are read-only.
+	 */
+	@Override
+	public void addInstruction (IMapInstruction original, IMapInstruction replacement) {
+		throw new UnsupportedOperationException ("Inverse maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		IFieldNameInstruction instruction = this.map.getOriginalFieldNameInstruction (owner, name, description);
+		if (instruction != null) return instruction;
+
+		// search generated replacements
+		String originalOwner = this.mapOwner (owner);
+		String originalDescription = this.mapMemberDescription (description);
+
+		instruction = this.map.getOriginalFieldNameInstruction (originalOwner, name, originalDescription);
+		if (instruction != null || originalDescription == null) return instruction;
+
+		// search generated replacements without description
+		return this.map.getOriginalFieldNameInstruction (originalOwner, name, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		IInvokeDynamicMethodNameMapInstruction instruction = this.map.getOriginalInvokeDynamicMethodNameInstruction (name, description);
+		if (instruction != null) return instruction;
+
+		// search generated replacements
+		String originalDescription = this.mapMemberDescription (description);
+
+		instruction = this.map.getOriginalInvokeDynamicMethodNameInstruction (name, originalDescription);
+		if (instruction != null || originalDescription == null) return instruction;
+
+		// search generated replacements without description
+		return this.map.getOriginalInvokeDynamicMethodNameInstruction (name, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		IMethodNameInstruction instruction = this.map.getOriginalMethodNameInstruction (owner, name, description);
+		if (instruction != null) return instruction;
+
+		// search generated replacements
+		String originalOwner = this.mapOwner (owner);
+		String originalDescription = this.mapMemberDescription (description);
+
+		instruction = this.map.getOriginalMethodNameInstruction (originalOwner, name, originalDescription);
+		if (instruction != null || originalDescription == null) return instruction;
+
+		// search generated replacements without return type
+		int end = originalDescription.lastIndexOf (')');
+
+		if (end != -1 && end != (originalDescription.length () - 1)) {
+			instruction = this.map.getOriginalMethodNameInstruction (originalOwner, name, originalDescription.substring (0, (end + 1)));
+			if (instruction != null) return instruction;
+		}
+
+		// search generated replacements without description
+		return this.map.getOriginalMethodNameInstruction (originalOwner, name, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		return this.map.getOriginalTypeNameInstruction (name);
+	}
+
+	/**
+	 * Maps a replacement owner back to its original.
+	 * @param owner The owner (or null).
+	 * @return The original owner (or null).
+	 */
+	private String mapOwner (String owner) {
+		return (owner != null ? this.mapTypeName (owner) : null);
+	}
+
+	/**
+	 * Maps a replacement member description back to its original.
+	 * @param description The description (or null).
+	 * @return The original description (or null).
+	 */
+	private String mapMemberDescription (String description) {
+		return (description != null ? this.mapDescription (description) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		return this.map.getFieldNameInstruction (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		return this.map.getInvokeDynamicMethodNameInstruction (name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		return this.map.getMethodNameInstruction (owner, name, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		return this.map.getTypeNameInstruction (name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy (replacement -> original).
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.map.getInstructionMap (category).entrySet ()) map.put (entry.getValue (), entry.getKey ());
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy (replacement -> original).
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		Map<T, IMapInstruction> map = new HashMap<> ();
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap ((deep ? null : MapInstructionCategory.valueOf (instructionType))).entrySet ()) {
+			if (instructionType.isInstance (entry.getKey ())) map.put (instructionType.cast (entry.getKey ()), entry.getValue ());
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstructionRegistry getInstructionRegistry () {
+		return this.map.getInstructionRegistry ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The parent map is returned.
+	 */
+	@Override
+	public IMap inverse () {
+		return this.map;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The replacements of an inverse view are the originals of its parent.
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		switch (MapInstructionCategory.valueOf (instruction)) {
+			case FIELD_NAME:
+				IFieldNameInstruction field = ((IFieldNameInstruction) instruction);
+				return (this.map.getFieldNameInstruction (field.getOwner (), field.getName (), field.getDescription ()) != null);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) instruction);
+				return (this.map.getInvokeDynamicMethodNameInstruction (invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription ()) != null);
+			case METHOD_NAME:
+				IMethodNameInstruction method = ((IMethodNameInstruction) instruction);
+				return (this.map.getMethodNameInstruction (method.getOwner (), method.getName (), method.getDescription ()) != null);
+			case PACKAGE_NAME:
+				return this.map.getInstructionMap (MapInstructionCategory.PACKAGE_NAME).containsKey (instruction);
+			case TYPE_NAME:
+				return (this.map.getTypeNameInstruction (((ITypeNameMapInstruction) instruction).getName ()) != null);
+			default:
+				return this.map.getInstructionMap (MapInstructionCategory.UNKNOWN).containsKey (instruction);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Inverse maps are read-only.
+	 */
+	@Override
+	public void merge (IMap map, MapInstructionCategory category, MergePolicy policy) {
+		throw new UnsupportedOperationException ("Inverse maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Inverse maps are read-only.
+	 */
+	@Override
+	public IMapInstruction removeInstruction (IMapInstruction original) {
+		throw new UnsupportedOperationException ("Inverse maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Inverse maps are read-only.
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		throw new UnsupportedOperationException ("Inverse maps are read-only");
+	}
+}
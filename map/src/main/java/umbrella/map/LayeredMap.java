@@ -0,0 +1,452 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a read-only view which chains multiple maps (layers).
+ * Lookups are passed to every layer (starting with the top layer) and the first result wins, thus override maps may
+ * be stacked upon a shared base map without copying any instructions. Misses are remembered within a bounded cache
+ * per category. Since the cache does not observe changes to the layers, {@link #invalidate()} has to be called once
+ * a layer is modified.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class LayeredMap extends AbstractMap {
+
+	/**
+	 * Defines the default maximum amount of cached misses per category.
+	 */
+	public static final long DEFAULT_CACHE_SIZE = 16384;
+
+	/**
+	 * Stores the maximum amount of cached misses per category.
+	 */
+	@Getter
+	private final long cacheSize;
+
+	/**
+	 * Stores the current layers and their miss caches.
+	 */
+	private volatile State state;
+
+	/**
+	 * Constructs a new LayeredMap instance.
+	 * @param layers The layers (starting with the top layer).
+	 * @since 1.0.0
+	 */
+	public LayeredMap (@NonNull IMap... layers) {
+		this (DEFAULT_CACHE_SIZE, layers);
+	}
+
+	/**
+	 * Constructs a new LayeredMap instance.
+	 * @param cacheSize The maximum amount of cached misses per category.
+	 * @param layers The layers (starting with the top layer).
+	 * @since 1.0.0
+	 */
+	public LayeredMap (long cacheSize, @NonNull IMap... layers) {
+		Preconditions.checkArgument (layers.length > 0, "At least one layer is required");
+		for (IMap layer : layers) Preconditions.checkNotNull (layer, "layer");
+
+		this.cacheSize = cacheSize;
+		this.state = new State (layers.clone (), cacheSize);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Layered maps are read-only.
+	 */
+	@Override
+	public void addInstruction (IMapInstruction original, IMapInstruction replacement) {
+		throw new UnsupportedOperationException ("Layered maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		State state = this.state;
+
+		// search misses
+		Cache<MissKey, Boolean> misses = state.misses.get (MapInstructionCategory.FIELD_NAME);
+		MissKey key = new MissKey (owner, name, description);
+		if (misses.getIfPresent (key) != null) return null;
+
+		// search layers
+		for (IMap layer : state.layers) {
+			IFieldNameInstruction instruction = layer.getFieldNameInstruction (owner, name, description);
+			if (instruction != null) return instruction;
+		}
+
+		misses.put (key, Boolean.TRUE);
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		State state = this.state;
+
+		// search misses
+		Cache<MissKey, Boolean> misses = state.misses.get (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME);
+		MissKey key = new MissKey (null, name, description);
+		if (misses.getIfPresent (key) != null) return null;
+
+		// search layers
+		for (IMap layer : state.layers) {
+			IInvokeDynamicMethodNameMapInstruction instruction = layer.getInvokeDynamicMethodNameInstruction (name, description);
+			if (instruction != null) return instruction;
+		}
+
+		misses.put (key, Boolean.TRUE);
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		State state = this.state;
+
+		// search misses
+		Cache<MissKey, Boolean> misses = state.misses.get (MapInstructionCategory.METHOD_NAME);
+		MissKey key = new MissKey (owner, name, description);
+		if (misses.getIfPresent (key) != null) return null;
+
+		// search layers
+		for (IMap layer : state.layers) {
+			IMethodNameInstruction instruction = layer.getMethodNameInstruction (owner, name, description);
+			if (instruction != null) return instruction;
+		}
+
+		misses.put (key, Boolean.TRUE);
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		State state = this.state;
+
+		// search misses
+		Cache<MissKey, Boolean> misses = state.misses.get (MapInstructionCategory.TYPE_NAME);
+		MissKey key = new MissKey (null, name, null);
+		if (misses.getIfPresent (key) != null) return null;
+
+		// search layers
+		for (IMap layer : state.layers) {
+			ITypeNameMapInstruction instruction = layer.getTypeNameInstruction (name);
+			if (instruction != null) return instruction;
+		}
+
+		misses.put (key, Boolean.TRUE);
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		for (IMap layer : this.state.layers) {
+			IFieldNameInstruction instruction = layer.inverse ().getFieldNameInstruction (owner, name, description);
+			if (instruction != null) return instruction;
+		}
+
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		for (IMap layer : this.state.layers) {
+			IInvokeDynamicMethodNameMapInstruction instruction = layer.inverse ().getInvokeDynamicMethodNameInstruction (name, description);
+			if (instruction != null) return instruction;
+		}
+
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		for (IMap layer : this.state.layers) {
+			IMethodNameInstruction instruction = layer.inverse ().getMethodNameInstruction (owner, name, description);
+			if (instruction != null) return instruction;
+		}
+
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		for (IMap layer : this.state.layers) {
+			ITypeNameMapInstruction instruction = layer.inverse ().getTypeNameInstruction (name);
+			if (instruction != null) return instruction;
+		}
+
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy in which upper layers replace the instructions of lower layers.
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		IMap[] layers = this.state.layers;
+		Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
+
+		for (int i = (layers.length - 1); i >= 0; i--) map.putAll (layers[i].getInstructionMap (category));
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy.
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		Map<T, IMapInstruction> map = new HashMap<> ();
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap ((deep ? null : MapInstructionCategory.valueOf (instructionType))).entrySet ()) {
+			if (instructionType.isInstance (entry.getKey ())) map.put (instructionType.cast (entry.getKey ()), entry.getValue ());
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The registry of the top layer is returned.
+	 */
+	@Override
+	public IMapInstructionRegistry getInstructionRegistry () {
+		return this.state.layers[0].getInstructionRegistry ();
+	}
+
+	/**
+	 * Returns all layers.
+	 * @return An immutable list of layers (starting with the top layer).
+	 * @since 1.0.0
+	 */
+	public List<IMap> getLayers () {
+		return ImmutableList.copyOf (this.state.layers);
+	}
+
+	/**
+	 * Returns the top layer.
+	 * @return The layer.
+	 * @since 1.0.0
+	 */
+	public IMap getTopLayer () {
+		return this.state.layers[0];
+	}
+
+	/**
+	 * Discards all cached misses.
+	 * Has to be called once a layer is modified.
+	 * @since 1.0.0
+	 */
+	public void invalidate () {
+		this.state = new State (this.state.layers, this.cacheSize);
+		this.invalidateDescriptions ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Replacements of instructions which are shadowed by an upper layer are reported as well.
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		for (IMap layer : this.state.layers) if (layer.mappingExists (instruction)) return true;
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Layered maps are read-only.
+	 */
+	@Override
+	public void merge (IMap map, MapInstructionCategory category, MergePolicy policy) {
+		throw new UnsupportedOperationException ("Layered maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Layered maps are read-only.
+	 */
+	@Override
+	public IMapInstruction removeInstruction (IMapInstruction original) {
+		throw new UnsupportedOperationException ("Layered maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Layered maps are read-only.
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		throw new UnsupportedOperationException ("Layered maps are read-only");
+	}
+
+	/**
+	 * Replaces the top layer.
+	 * The lower layers are kept as is, thus swapping is independent of their size. All cached misses are discarded.
+	 * @param layer The new top layer.
+	 * @return The previous top layer.
+	 * @since 1.0.0
+	 */
+	public IMap setTopLayer (@NonNull IMap layer) {
+		IMap[] layers = this.state.layers.clone ();
+		IMap previous = layers[0];
+
+		layers[0] = layer;
+		this.state = new State (layers, this.cacheSize);
+		this.invalidateDescriptions ();
+
+		return previous;
+	}
+
+	/**
+	 * Stores the layers and the miss caches which belong to them.
+	 * Both are replaced at once, thus misses which are recorded for a previous set of layers are never visible to
+	 * lookups of the current layers.
+	 */
+	private static final class State {
+
+		/**
+		 * Stores all layers (starting with the top layer).
+		 */
+		private final IMap[] layers;
+
+		/**
+		 * Stores all cached misses (grouped by category).
+		 */
+		private final Map<MapInstructionCategory, Cache<MissKey, Boolean>> misses = new EnumMap<> (MapInstructionCategory.class);
+
+		/**
+		 * Constructs a new State instance.
+		 * @param layers The layers.
+		 * @param cacheSize The maximum amount of cached misses per category.
+		 */
+		public State (IMap[] layers, long cacheSize) {
+			this.layers = layers;
+
+			for (MapInstructionCategory category : MapInstructionCategory.values ()) this.misses.put (category, CacheBuilder.newBuilder ().maximumSize (cacheSize).<MissKey, Boolean>build ());
+		}
+	}
+
+	/**
+	 * Represents the components of a missed lookup.
+	 */
+	private static final class MissKey {
+
+		/**
+		 * Stores the owner (may be null).
+		 */
+		private final String owner;
+
+		/**
+		 * Stores the name (may be null).
+		 */
+		private final String name;
+
+		/**
+		 * Stores the description (may be null).
+		 */
+		private final String description;
+
+		/**
+		 * Stores the hash code.
+		 */
+		private final int hashCode;
+
+		/**
+		 * Constructs a new MissKey instance.
+		 * @param owner The owner.
+		 * @param name The name.
+		 * @param description The description.
+		 */
+		public MissKey (String owner, String name, String description) {
+			this.owner = owner;
+			this.name = name;
+			this.description = description;
+			this.hashCode = ((((owner != null ? owner.hashCode () : 0) * 31) + (name != null ? name.hashCode () : 0)) * 31) + (description != null ? description.hashCode () : 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals (Object obj) {
+			if (!(obj instanceof MissKey)) return false;
+
+			// cast
+			MissKey key = ((MissKey) obj);
+
+			// check values
+			return (this.hashCode == key.hashCode && equal (this.owner, key.owner) && equal (this.name, key.name) && equal (this.description, key.description));
+		}
+
+		/**
+		 * Compares two nullable strings.
+		 * @param first The first string.
+		 * @param second The second string.
+		 * @return True if both strings are equal.
+		 */
+		private static boolean equal (String first, String second) {
+			return (first == null ? second == null : first.equals (second));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode () {
+			return this.hashCode;
+		}
+	}
+}
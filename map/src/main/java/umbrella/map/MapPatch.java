@@ -0,0 +1,359 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import umbrella.map.instruction.IDescriptionMapInstruction;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.IMemberMapInstruction;
+import umbrella.map.instruction.INamedMapInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.instruction.utility.MapInstructionComparator;
+import umbrella.map.io.BinaryMapWriter;
+import umbrella.map.io.MapPatchReader;
+import umbrella.map.io.MapPatchWriter;
+import umbrella.utility.IOUtility;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Represents the difference between two maps.
+ * A patch stores all added, changed and removed instructions per category and may be applied to a base map in
+ * place, thus updated maps may be distributed as patch files of a fraction of the size of a full map.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class MapPatch {
+
+	/**
+	 * Stores all added instructions (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> addedMap = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores all changed instructions (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> changedMap = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores all removed instructions (grouped by category).
+	 */
+	private final Map<MapInstructionCategory, Set<IMapInstruction>> removedMap = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores the digest of the base map (or zero if the patch may be applied to any map).
+	 */
+	@Getter
+	@Setter
+	private long baseDigest = 0;
+
+	/**
+	 * Constructs a new empty MapPatch instance.
+	 * @since 1.0.0
+	 */
+	public MapPatch () {
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			this.addedMap.put (category, new HashMap<IMapInstruction, IMapInstruction> ());
+			this.changedMap.put (category, new HashMap<IMapInstruction, IMapInstruction> ());
+			this.removedMap.put (category, new HashSet<IMapInstruction> ());
+		}
+	}
+
+	/**
+	 * Computes the patch which turns a base map into a target map.
+	 * Every instruction of both maps is visited once, thus the diff is computed in linear time.
+	 * The digest of the base map is recorded, thus the patch can only be applied to an identical map.
+	 * @param base The base map.
+	 * @param target The target map.
+	 * @return The patch.
+	 * @since 1.0.0
+	 */
+	public static MapPatch diff (@NonNull IMap base, @NonNull IMap target) {
+		MapPatch patch = new MapPatch ();
+		patch.baseDigest = digest (base);
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			Map<IMapInstruction, IMapInstruction> baseSection = base.getInstructionMap (category);
+			Map<IMapInstruction, IMapInstruction> targetSection = target.getInstructionMap (category);
+
+			// search added and changed instructions
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : targetSection.entrySet ()) {
+				IMapInstruction previous = baseSection.get (entry.getKey ());
+
+				if (previous == null)
+					patch.addedMap.get (category).put (entry.getKey (), entry.getValue ());
+				else if (!MapInstructionComparator.isIdentical (previous, entry.getValue ()))
+					patch.changedMap.get (category).put (entry.getKey (), entry.getValue ());
+			}
+
+			// search removed instructions
+			for (IMapInstruction original : baseSection.keySet ()) {
+				if (!targetSection.containsKey (original)) patch.removedMap.get (category).add (original);
+			}
+		}
+
+		return patch;
+	}
+
+	/**
+	 * Computes a digest of all instructions within a map.
+	 * The digest does not depend on the iteration order, thus equal maps produce equal digests regardless of their implementation.
+	 * @param map The map.
+	 * @return The digest.
+	 * @since 1.0.0
+	 */
+	public static long digest (@NonNull IMap map) {
+		HashFunction function = Hashing.murmur3_128 ();
+		long digest = 0;
+		int size = 0;
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : map.getInstructionMap (category).entrySet ()) {
+				Hasher hasher = function.newHasher ();
+				putString (hasher, category.name ());
+				putInstruction (hasher, entry.getKey ());
+				putInstruction (hasher, entry.getValue ());
+
+				digest += hasher.hash ().asLong ();
+				size++;
+			}
+		}
+
+		return function.newHasher ().putLong (digest).putInt (size).hash ().asLong ();
+	}
+
+	/**
+	 * Appends an instruction to a digest.
+	 * @param hasher The hasher.
+	 * @param instruction The instruction.
+	 */
+	private static void putInstruction (Hasher hasher, IMapInstruction instruction) {
+		putString (hasher, (instruction instanceof IMemberMapInstruction ? ((IMemberMapInstruction) instruction).getOwner () : null));
+		putString (hasher, (instruction instanceof INamedMapInstruction ? ((INamedMapInstruction) instruction).getName () : null));
+		putString (hasher, (instruction instanceof IDescriptionMapInstruction ? ((IDescriptionMapInstruction) instruction).getDescription () : null));
+
+		// append custom instructions
+		if (!BinaryMapWriter.isComponentEncoded (instruction)) putString (hasher, instruction.serialize ());
+	}
+
+	/**
+	 * Appends a nullable string to a digest.
+	 * @param hasher The hasher.
+	 * @param value The string (or null).
+	 */
+	private static void putString (Hasher hasher, String value) {
+		if (value == null) {
+			hasher.putInt (-1);
+			return;
+		}
+
+		hasher.putInt (value.length ()).putString (value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Records an added instruction.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 * @since 1.0.0
+	 */
+	public void addInstruction (@NonNull IMapInstruction original, @NonNull IMapInstruction replacement) {
+		MapInstructionCategory category = MapInstructionCategory.valueOf (original);
+		Preconditions.checkArgument (category == MapInstructionCategory.valueOf (replacement), "Instruction categories do not match");
+
+		this.addedMap.get (category).put (original, replacement);
+	}
+
+	/**
+	 * Records a changed instruction.
+	 * @param original The original.
+	 * @param replacement The new replacement.
+	 * @since 1.0.0
+	 */
+	public void changeInstruction (@NonNull IMapInstruction original, @NonNull IMapInstruction replacement) {
+		MapInstructionCategory category = MapInstructionCategory.valueOf (original);
+		Preconditions.checkArgument (category == MapInstructionCategory.valueOf (replacement), "Instruction categories do not match");
+
+		this.changedMap.get (category).put (original, replacement);
+	}
+
+	/**
+	 * Records a removed instruction.
+	 * @param original The original.
+	 * @since 1.0.0
+	 */
+	public void removeInstruction (@NonNull IMapInstruction original) {
+		this.removedMap.get (MapInstructionCategory.valueOf (original)).add (original);
+	}
+
+	/**
+	 * Applies the patch to a map (in place).
+	 * Removals are applied first, thus replacements which are moved to another original do not collide.
+	 * @param map The map.
+	 * @throws IllegalArgumentException Occurs if the map differs from the base map of the patch.
+	 * @since 1.0.0
+	 */
+	public void apply (@NonNull IMap map) {
+		Preconditions.checkArgument ((this.baseDigest == 0 || this.baseDigest == digest (map)), "The map differs from the base map of the patch (was the patch applied already?)");
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			for (IMapInstruction original : this.removedMap.get (category)) map.removeInstruction (original);
+		}
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.changedMap.get (category).entrySet ()) map.addInstruction (entry.getKey (), entry.getValue ());
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.addedMap.get (category).entrySet ()) map.addInstruction (entry.getKey (), entry.getValue ());
+		}
+	}
+
+	/**
+	 * Returns all added instructions of a category.
+	 * @param category The category.
+	 * @return An unmodifiable map of added instructions.
+	 * @since 1.0.0
+	 */
+	public Map<IMapInstruction, IMapInstruction> getAddedInstructions (@NonNull MapInstructionCategory category) {
+		return Collections.unmodifiableMap (this.addedMap.get (category));
+	}
+
+	/**
+	 * Returns all changed instructions of a category.
+	 * @param category The category.
+	 * @return An unmodifiable map of changed instructions (original -> new replacement).
+	 * @since 1.0.0
+	 */
+	public Map<IMapInstruction, IMapInstruction> getChangedInstructions (@NonNull MapInstructionCategory category) {
+		return Collections.unmodifiableMap (this.changedMap.get (category));
+	}
+
+	/**
+	 * Returns all removed instructions of a category.
+	 * @param category The category.
+	 * @return An unmodifiable set of removed originals.
+	 * @since 1.0.0
+	 */
+	public Set<IMapInstruction> getRemovedInstructions (@NonNull MapInstructionCategory category) {
+		return Collections.unmodifiableSet (this.removedMap.get (category));
+	}
+
+	/**
+	 * Checks whether the patch is empty.
+	 * @return True if the patch does not contain any changes.
+	 * @since 1.0.0
+	 */
+	public boolean isEmpty () {
+		return (this.size () == 0);
+	}
+
+	/**
+	 * Returns the total amount of changes within the patch.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		int size = 0;
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			size += this.addedMap.get (category).size ();
+			size += this.changedMap.get (category).size ();
+			size += this.removedMap.get (category).size ();
+		}
+
+		return size;
+	}
+
+	/**
+	 * Loads a patch from a stream.
+	 * @param inputStream The input stream.
+	 * @return The patch.
+	 * @throws IOException Occurs if reading from the stream is not possible or the patch is corrupted.
+	 * @since 1.0.0
+	 */
+	public static MapPatch load (@NonNull InputStream inputStream) throws IOException {
+		return load (inputStream, IMapInstructionRegistry.DEFAULT);
+	}
+
+	/**
+	 * Loads a patch from a stream.
+	 * @param inputStream The input stream.
+	 * @param registry The instruction registry.
+	 * @return The patch.
+	 * @throws IOException Occurs if reading from the stream is not possible or the patch is corrupted.
+	 * @since 1.0.0
+	 */
+	public static MapPatch load (@NonNull InputStream inputStream, @NonNull IMapInstructionRegistry registry) throws IOException {
+		return (new MapPatchReader ()).read (inputStream, registry);
+	}
+
+	/**
+	 * Loads a patch from a file.
+	 * @param file The file.
+	 * @param registry The instruction registry.
+	 * @return The patch.
+	 * @throws IOException Occurs if reading from the file is not possible or the patch is corrupted.
+	 * @since 1.0.0
+	 */
+	public static MapPatch load (@NonNull File file, @NonNull IMapInstructionRegistry registry) throws IOException {
+		// define streams
+		InputStream inputStream = null;
+
+		// load
+		try {
+			inputStream = new BufferedInputStream (new FileInputStream (file));
+			return load (inputStream, registry);
+		} finally {
+			IOUtility.closeQuietly (inputStream);
+		}
+	}
+
+	/**
+	 * Saves the patch.
+	 * @param outputStream The output stream.
+	 * @param registry The instruction registry.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public void save (@NonNull OutputStream outputStream, @NonNull IMapInstructionRegistry registry) throws IOException {
+		(new MapPatchWriter ()).write (this, registry, outputStream);
+	}
+
+	/**
+	 * Saves the patch to a file.
+	 * @param file The file.
+	 * @param registry The instruction registry.
+	 * @throws IOException Occurs if writing to the file is not possible.
+	 * @since 1.0.0
+	 */
+	public void save (@NonNull File file, @NonNull IMapInstructionRegistry registry) throws IOException {
+		// define streams
+		FileOutputStream outputStream = null;
+
+		// save
+		try {
+			outputStream = new FileOutputStream (file);
+			this.save (outputStream, registry);
+		} finally {
+			IOUtility.closeQuietly (outputStream);
+		}
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.index.PackageTrie;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.io.IndexedMapSection;
+import umbrella.utility.IOUtility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides a read-only map which performs lookups directly within a memory mapped indexed map file.
+ * Opening a map does not load any instructions; strings are only decoded for matching lookups. Since the mapped
+ * regions are backed by the page cache, multiple processes may share a single map file.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class MappedMap extends AbstractMap {
+
+	/**
+	 * Stores the instruction registry.
+	 */
+	@Getter
+	private final IMapInstructionRegistry instructionRegistry;
+
+	/**
+	 * Stores all sections.
+	 */
+	private final Map<MapInstructionCategory, IndexedMapSection> sections;
+
+	/**
+	 * Stores a package name index (original package -> replacement package).
+	 */
+	private final PackageTrie packageNameIndex = new PackageTrie ();
+
+	/**
+	 * Stores an inverse package name index (replacement package -> original package).
+	 */
+	private final PackageTrie originalPackageNameIndex = new PackageTrie ();
+
+	/**
+	 * Constructs a new MappedMap instance.
+	 * @param file The indexed map file.
+	 * @throws IOException Occurs if mapping the file is not possible or the file is malformed.
+	 * @since 1.0.0
+	 */
+	public MappedMap (@NonNull File file) throws IOException {
+		this (IMapInstructionRegistry.DEFAULT, file);
+	}
+
+	/**
+	 * Constructs a new MappedMap instance.
+	 * @param registry The instruction registry.
+	 * @param file The indexed map file.
+	 * @throws IOException Occurs if mapping the file is not possible or the file is malformed.
+	 * @since 1.0.0
+	 */
+	public MappedMap (@NonNull IMapInstructionRegistry registry, @NonNull File file) throws IOException {
+		this.instructionRegistry = registry;
+
+		// define variables
+		RandomAccessFile accessFile = null;
+
+		// map sections (mappings stay valid after the channel has been closed)
+		try {
+			accessFile = new RandomAccessFile (file, "r");
+			this.sections = IndexedMapSection.read (accessFile.getChannel ());
+		} finally {
+			IOUtility.closeQuietly (accessFile);
+		}
+
+		// build package indexes
+		this.indexPackages ();
+	}
+
+	/**
+	 * Constructs a new MappedMap instance.
+	 * @param registry The instruction registry.
+	 * @param buffer A buffer containing an indexed map.
+	 * @throws IOException Occurs if the buffer is malformed.
+	 * @since 1.0.0
+	 */
+	public MappedMap (@NonNull IMapInstructionRegistry registry, @NonNull ByteBuffer buffer) throws IOException {
+		this.instructionRegistry = registry;
+		this.sections = IndexedMapSection.read (buffer);
+
+		// build package indexes
+		this.indexPackages ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Mapped maps are read-only.
+	 */
+	@Override
+	public void addInstruction (IMapInstruction original, IMapInstruction replacement) {
+		throw new UnsupportedOperationException ("Mapped maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		return ((IFieldNameInstruction) this.find (MapInstructionCategory.FIELD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		return ((IInvokeDynamicMethodNameMapInstruction) this.find (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, name, description, null));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		return ((IMethodNameInstruction) this.find (MapInstructionCategory.METHOD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = ((ITypeNameMapInstruction) this.find (MapInstructionCategory.TYPE_NAME, name, null, null));
+		if (instruction != null || name == null || this.packageNameIndex.isEmpty ()) return instruction;
+
+		// resolve packages
+		String mapped = this.packageNameIndex.map (name);
+		return (mapped != null ? new GenericTypeNameInstruction (mapped) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		return ((IFieldNameInstruction) this.findOriginal (MapInstructionCategory.FIELD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		return ((IInvokeDynamicMethodNameMapInstruction) this.findOriginal (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, name, description, null));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		return ((IMethodNameInstruction) this.findOriginal (MapInstructionCategory.METHOD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = ((ITypeNameMapInstruction) this.findOriginal (MapInstructionCategory.TYPE_NAME, name, null, null));
+		if (instruction != null || name == null || this.originalPackageNameIndex.isEmpty ()) return instruction;
+
+		// resolve packages
+		String original = this.originalPackageNameIndex.map (name);
+		return (original != null ? new GenericTypeNameInstruction (original) : null);
+	}
+
+	/**
+	 * Decodes all package instructions into the package indexes.
+	 * Package instructions are rare, thus they are kept on the heap to resolve types without an exact instruction.
+	 */
+	private void indexPackages () {
+		IndexedMapSection section = this.sections.get (MapInstructionCategory.PACKAGE_NAME);
+		if (section == null) return;
+
+		for (int i = 0; i < section.getSize (); i++) {
+			int record = section.getRecord (i);
+
+			String original = ((IPackageNameMapInstruction) section.getOriginal (record)).getName ();
+			String replacement = ((IPackageNameMapInstruction) section.getReplacement (record)).getName ();
+
+			this.packageNameIndex.put (original, replacement);
+			this.originalPackageNameIndex.put (replacement, original);
+		}
+	}
+
+	/**
+	 * Searches a replacement within a section.
+	 * @param category The category.
+	 * @param first The first key component.
+	 * @param second The second key component.
+	 * @param third The third key component.
+	 * @return The replacement (or null).
+	 */
+	protected IMapInstruction find (MapInstructionCategory category, String first, String second, String third) {
+		// find section
+		IndexedMapSection section = this.sections.get (category);
+		if (section == null) return null;
+
+		// find record
+		int record = section.find (first, second, third);
+		return (record != -1 ? section.getReplacement (record) : null);
+	}
+
+	/**
+	 * Searches an original within a section (using the replacement index of the file).
+	 * @param category The category.
+	 * @param first The first replacement key component.
+	 * @param second The second replacement key component.
+	 * @param third The third replacement key component.
+	 * @return The original (or null).
+	 */
+	protected IMapInstruction findOriginal (MapInstructionCategory category, String first, String second, String third) {
+		// find section
+		IndexedMapSection section = this.sections.get (category);
+		if (section == null) return null;
+
+		// find record
+		int record = section.findReplacement (first, second, third);
+		return (record != -1 ? section.getOriginal (record) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy which is decoded from the mapped file.
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
+
+		for (IndexedMapSection section : this.sections.values ()) {
+			// filter categories
+			if (category != null && section.getCategory () != category) continue;
+
+			// decode records
+			for (int i = 0; i < section.getSize (); i++) {
+				int record = section.getRecord (i);
+				map.put (section.getOriginal (record), section.getReplacement (record));
+			}
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy which is decoded from the mapped file.
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		Map<T, IMapInstruction> map = new HashMap<> ();
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap ((deep ? null : MapInstructionCategory.valueOf (instructionType))).entrySet ()) {
+			if (instructionType.isInstance (entry.getKey ())) map.put (instructionType.cast (entry.getKey ()), entry.getValue ());
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		// find section
+		MapInstructionCategory category = MapInstructionCategory.valueOf (instruction);
+		IndexedMapSection section = this.sections.get (category);
+		if (section == null && category != MapInstructionCategory.TYPE_NAME) return false;
+
+		// search replacement
+		String[] components = IndexedMapSection.getComponents (category, instruction);
+		if (section != null && section.findReplacement (components[0], (components.length > 1 ? components[1] : null), (components.length > 2 ? components[2] : null)) != -1) return true;
+
+		// search packages
+		return (category == MapInstructionCategory.TYPE_NAME && !this.originalPackageNameIndex.isEmpty () && this.originalPackageNameIndex.map (components[0]) != null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Mapped maps are read-only.
+	 */
+	@Override
+	public void merge (IMap map, MapInstructionCategory category, MergePolicy policy) {
+		throw new UnsupportedOperationException ("Mapped maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Mapped maps are read-only.
+	 */
+	@Override
+	public IMapInstruction removeInstruction (IMapInstruction original) {
+		throw new UnsupportedOperationException ("Mapped maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Mapped maps are read-only.
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		throw new UnsupportedOperationException ("Mapped maps are read-only");
+	}
+}
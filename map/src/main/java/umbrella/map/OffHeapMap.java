@@ -0,0 +1,996 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.index.OffHeapTable;
+import umbrella.map.index.PackageTrie;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.instruction.utility.MapInstructionComparator;
+import umbrella.map.io.BinaryMapWriter;
+import umbrella.map.io.IndexedMapSection;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides a mutable map which stores its instructions outside of the heap.
+ * Instructions are encoded as UTF-8 records within a direct buffer and are located through off-heap open addressing
+ * tables, thus the heap footprint of the map does not grow with its size and the garbage collector never has to
+ * trace its contents. Instructions are decoded on demand. Replaced and removed records are discarded whenever the
+ * buffer is re-allocated. Package instructions are rare and are additionally indexed on the heap.
+ * Instances are not thread safe.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class OffHeapMap extends AbstractMap {
+
+	/**
+	 * Defines the initial data buffer capacity (in bytes).
+	 */
+	public static final int INITIAL_CAPACITY = 65536;
+
+	/**
+	 * Defines the maximum data buffer capacity (in bytes).
+	 */
+	public static final int MAXIMUM_CAPACITY = (Integer.MAX_VALUE - 8);
+
+	/**
+	 * Defines the record header layout (total length, category, flags, original hash, replacement hash, original
+	 * key length, original length and replacement key length).
+	 */
+	private static final int LENGTH_OFFSET = 0;
+	private static final int CATEGORY_OFFSET = 4;
+	private static final int FLAGS_OFFSET = 5;
+	private static final int ORIGINAL_HASH_OFFSET = 6;
+	private static final int REPLACEMENT_HASH_OFFSET = 10;
+	private static final int ORIGINAL_KEY_LENGTH_OFFSET = 14;
+	private static final int ORIGINAL_LENGTH_OFFSET = 18;
+	private static final int REPLACEMENT_KEY_LENGTH_OFFSET = 22;
+	private static final int HEADER_SIZE = 26;
+
+	/**
+	 * Defines the record flags (discarded records do not carry any flags).
+	 */
+	private static final byte LIVE_FLAG = 0x01;
+	private static final byte ORIGINAL_WILDCARD_FLAG = 0x02;
+	private static final byte REPLACEMENT_WILDCARD_FLAG = 0x04;
+
+	/**
+	 * Stores the instruction categories (in the order of their ordinals).
+	 */
+	private static final MapInstructionCategory[] CATEGORIES = MapInstructionCategory.values ();
+
+	/**
+	 * Stores the instruction registry.
+	 */
+	@Getter
+	private final IMapInstructionRegistry instructionRegistry;
+
+	/**
+	 * Stores the original indexes (original key -> record).
+	 */
+	private final Map<MapInstructionCategory, OffHeapTable> originalTables = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores the replacement indexes (replacement key -> record).
+	 */
+	private final Map<MapInstructionCategory, OffHeapTable> replacementTables = new EnumMap<> (MapInstructionCategory.class);
+
+	/**
+	 * Stores the amount of originals with a wildcard owner or description (per category).
+	 */
+	private final int[] wildcards = new int[CATEGORIES.length];
+
+	/**
+	 * Stores the amount of replacements with a wildcard owner or description (per category).
+	 */
+	private final int[] inverseWildcards = new int[CATEGORIES.length];
+
+	/**
+	 * Stores a package name index (original package -> replacement package) which is built on demand.
+	 */
+	private PackageTrie packageNameIndex = null;
+
+	/**
+	 * Stores an inverse package name index (replacement package -> original package) which is built on demand.
+	 */
+	private PackageTrie originalPackageNameIndex = null;
+
+	/**
+	 * Stores the encoder used for keys and records.
+	 */
+	private final Encoder encoder = new Encoder ();
+
+	/**
+	 * Stores all records.
+	 */
+	private ByteBuffer data;
+
+	/**
+	 * Stores the end of the last record.
+	 */
+	private int position = 0;
+
+	/**
+	 * Stores the amount of bytes occupied by live records.
+	 */
+	private int liveSize = 0;
+
+	/**
+	 * Constructs a new OffHeapMap instance.
+	 * @since 1.0.0
+	 */
+	public OffHeapMap () {
+		this (IMapInstructionRegistry.DEFAULT);
+	}
+
+	/**
+	 * Constructs a new OffHeapMap instance.
+	 * @param map The map to copy.
+	 * @since 1.0.0
+	 */
+	public OffHeapMap (@NonNull IMap map) {
+		this (map.getInstructionRegistry (), map);
+	}
+
+	/**
+	 * Constructs a new OffHeapMap instance.
+	 * @param registry The instruction registry.
+	 * @since 1.0.0
+	 */
+	public OffHeapMap (@NonNull IMapInstructionRegistry registry) {
+		this.instructionRegistry = registry;
+
+		// create indexes
+		for (MapInstructionCategory category : CATEGORIES) {
+			this.originalTables.put (category, new OffHeapTable ());
+			this.replacementTables.put (category, new OffHeapTable ());
+		}
+
+		// allocate data buffer
+		this.data = ByteBuffer.allocateDirect (INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new OffHeapMap instance.
+	 * @param registry The instruction registry.
+	 * @param map The map to copy.
+	 * @since 1.0.0
+	 */
+	public OffHeapMap (@NonNull IMapInstructionRegistry registry, @NonNull IMap map) {
+		this (registry);
+
+		// merge map
+		this.merge (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addInstruction (@NonNull IMapInstruction original, @NonNull IMapInstruction replacement) {
+		// get categories
+		MapInstructionCategory category = MapInstructionCategory.valueOf (original);
+
+		// verify category
+		Preconditions.checkArgument (category == MapInstructionCategory.valueOf (replacement), "Instruction categories do not match");
+
+		// store
+		this.store (category, original, replacement);
+		if (category == MapInstructionCategory.TYPE_NAME) this.invalidateDescriptions ();
+	}
+
+	/**
+	 * Encodes and stores an instruction (replacing any previous record of its original).
+	 * @param category The category.
+	 * @param original The original.
+	 * @param replacement The replacement.
+	 */
+	private void store (MapInstructionCategory category, IMapInstruction original, IMapInstruction replacement) {
+		// encode record
+		this.encoder.reset ();
+		int originalKeyLength = this.encodeKey (category, original);
+		this.encodeTag (original);
+		int originalLength = this.encoder.size ();
+
+		int replacementKeyLength = (this.encodeKey (category, replacement) - originalLength);
+		this.encodeTag (replacement);
+		int replacementLength = (this.encoder.size () - originalLength);
+
+		int originalHash = this.encoder.hash (0, originalKeyLength);
+		int replacementHash = this.encoder.hash (originalLength, replacementKeyLength);
+
+		// discard previous record
+		int previous = this.findRecord (category, false, originalHash, 0, originalKeyLength);
+		if (previous != -1) this.discard (category, previous);
+
+		// collect flags
+		byte flags = LIVE_FLAG;
+
+		if (hasWildcards (category, original)) {
+			flags |= ORIGINAL_WILDCARD_FLAG;
+			this.wildcards[category.ordinal ()]++;
+		}
+
+		if (hasWildcards (category, replacement)) {
+			flags |= REPLACEMENT_WILDCARD_FLAG;
+			this.inverseWildcards[category.ordinal ()]++;
+		}
+
+		// allocate space
+		int length = (HEADER_SIZE + originalLength + replacementLength);
+		this.ensureCapacity (length);
+
+		// write record
+		int offset = this.position;
+
+		this.data.putInt ((offset + LENGTH_OFFSET), length);
+		this.data.put ((offset + CATEGORY_OFFSET), ((byte) category.ordinal ()));
+		this.data.put ((offset + FLAGS_OFFSET), flags);
+		this.data.putInt ((offset + ORIGINAL_HASH_OFFSET), originalHash);
+		this.data.putInt ((offset + REPLACEMENT_HASH_OFFSET), replacementHash);
+		this.data.putInt ((offset + ORIGINAL_KEY_LENGTH_OFFSET), originalKeyLength);
+		this.data.putInt ((offset + ORIGINAL_LENGTH_OFFSET), originalLength);
+		this.data.putInt ((offset + REPLACEMENT_KEY_LENGTH_OFFSET), replacementKeyLength);
+
+		ByteBuffer view = this.data.duplicate ();
+		view.position ((offset + HEADER_SIZE));
+		view.put (this.encoder.getBuffer (), 0, (originalLength + replacementLength));
+
+		this.position += length;
+		this.liveSize += length;
+
+		// update indexes
+		this.originalTables.get (category).add (originalHash, (offset + 1));
+		this.replacementTables.get (category).add (replacementHash, (offset + 1));
+		if (category == MapInstructionCategory.PACKAGE_NAME) this.invalidatePackages ();
+	}
+
+	/**
+	 * Returns the amount of bytes occupied by live records.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int getDataSize () {
+		return this.liveSize;
+	}
+
+	/**
+	 * Returns the capacity of the data buffer.
+	 * @return The capacity (in bytes).
+	 * @since 1.0.0
+	 */
+	public int getCapacity () {
+		return this.data.capacity ();
+	}
+
+	/**
+	 * Returns the amount of stored instructions.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		int size = 0;
+		for (OffHeapTable table : this.originalTables.values ()) size += table.size ();
+		return size;
+	}
+
+	/**
+	 * Re-allocates the data buffer in order to release the space of replaced and removed instructions.
+	 * @since 1.0.0
+	 */
+	public void compact () {
+		this.relocate (Math.max (INITIAL_CAPACITY, this.liveSize));
+	}
+
+	/**
+	 * Ensures that a record of a specific length fits into the data buffer.
+	 * Since all records are copied anyway, discarded records are dropped whenever the buffer is re-allocated.
+	 * @param length The record length.
+	 */
+	private void ensureCapacity (int length) {
+		if (((long) this.position + length) <= this.data.capacity ()) return;
+
+		// calculate capacity
+		long capacity = Math.max (INITIAL_CAPACITY, (((long) this.liveSize + length) * 2));
+		if (((long) this.liveSize + length) > MAXIMUM_CAPACITY) throw new IllegalStateException ("Off-heap map exceeds the maximum capacity of " + MAXIMUM_CAPACITY + " bytes");
+
+		// re-allocate
+		this.relocate (((int) Math.min (capacity, MAXIMUM_CAPACITY)));
+	}
+
+	/**
+	 * Copies all live records into a new data buffer and rebuilds all indexes.
+	 * @param capacity The new capacity.
+	 */
+	private void relocate (int capacity) {
+		ByteBuffer previous = this.data;
+		int previousPosition = this.position;
+
+		// reset storage
+		this.data = ByteBuffer.allocateDirect (capacity);
+		this.position = 0;
+
+		for (OffHeapTable table : this.originalTables.values ()) table.clear ();
+		for (OffHeapTable table : this.replacementTables.values ()) table.clear ();
+
+		// copy live records
+		for (int offset = 0; offset < previousPosition; offset += previous.getInt ((offset + LENGTH_OFFSET))) {
+			if (previous.get ((offset + FLAGS_OFFSET)) == 0) continue;
+
+			int length = previous.getInt ((offset + LENGTH_OFFSET));
+			MapInstructionCategory category = CATEGORIES[previous.get ((offset + CATEGORY_OFFSET))];
+
+			ByteBuffer record = previous.duplicate ();
+			record.limit ((offset + length)).position (offset);
+
+			this.data.position (this.position);
+			this.data.put (record);
+
+			// update indexes
+			this.originalTables.get (category).add (previous.getInt ((offset + ORIGINAL_HASH_OFFSET)), (this.position + 1));
+			this.replacementTables.get (category).add (previous.getInt ((offset + REPLACEMENT_HASH_OFFSET)), (this.position + 1));
+
+			this.position += length;
+		}
+
+		this.data.clear ();
+	}
+
+	/**
+	 * Marks a record as discarded and removes it from all indexes.
+	 * @param category The category.
+	 * @param offset The record offset.
+	 */
+	private void discard (MapInstructionCategory category, int offset) {
+		byte flags = this.data.get ((offset + FLAGS_OFFSET));
+		if ((flags & ORIGINAL_WILDCARD_FLAG) != 0) this.wildcards[category.ordinal ()]--;
+		if ((flags & REPLACEMENT_WILDCARD_FLAG) != 0) this.inverseWildcards[category.ordinal ()]--;
+
+		this.data.put ((offset + FLAGS_OFFSET), ((byte) 0));
+		this.liveSize -= this.data.getInt ((offset + LENGTH_OFFSET));
+
+		this.originalTables.get (category).remove (this.data.getInt ((offset + ORIGINAL_HASH_OFFSET)), (offset + 1));
+		this.replacementTables.get (category).remove (this.data.getInt ((offset + REPLACEMENT_HASH_OFFSET)), (offset + 1));
+		if (category == MapInstructionCategory.PACKAGE_NAME) this.invalidatePackages ();
+	}
+
+	/**
+	 * Checks whether an instruction contains a wildcard owner or description.
+	 * @param category The category.
+	 * @param instruction The instruction.
+	 * @return True if the instruction contains wildcards.
+	 */
+	private static boolean hasWildcards (MapInstructionCategory category, IMapInstruction instruction) {
+		switch (category) {
+			case FIELD_NAME:
+			case METHOD_NAME:
+				return (((IMemberMapInstruction) instruction).getOwner () == null || ((IDescriptionMapInstruction) instruction).getDescription () == null);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				return (((IDescriptionMapInstruction) instruction).getDescription () == null);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Encodes the lookup key (the components) of an instruction.
+	 * @param category The category.
+	 * @param instruction The instruction.
+	 * @return The end of the key within the encoder.
+	 */
+	private int encodeKey (MapInstructionCategory category, IMapInstruction instruction) {
+		// unknown instructions are identified by their serialized form
+		if (category == MapInstructionCategory.UNKNOWN) {
+			this.encoder.writeComponent (this.getInstructionName (instruction));
+			this.encoder.writeComponent (instruction.serialize ());
+			return this.encoder.size ();
+		}
+
+		for (String component : IndexedMapSection.getComponents (category, instruction)) this.encoder.writeComponent (component);
+		return this.encoder.size ();
+	}
+
+	/**
+	 * Encodes the type tag of an instruction (0 for generic instructions, the registered name and the serialized
+	 * form for all other instructions).
+	 * @param instruction The instruction.
+	 */
+	private void encodeTag (IMapInstruction instruction) {
+		if (BinaryMapWriter.isComponentEncoded (instruction)) {
+			this.encoder.writeVarInt (0);
+			return;
+		}
+
+		this.encoder.writeComponent (this.getInstructionName (instruction));
+		this.encoder.writeComponent (instruction.serialize ());
+	}
+
+	/**
+	 * Returns the registered name of an instruction.
+	 * @param instruction The instruction.
+	 * @return The name.
+	 * @throws IllegalArgumentException Occurs if the instruction type is not registered.
+	 */
+	private String getInstructionName (IMapInstruction instruction) {
+		String name = this.instructionRegistry.getName (instruction);
+		if (name == null) throw new IllegalArgumentException ("Instruction type " + instruction.getClass ().getName () + " is not registered");
+		return name;
+	}
+
+	/**
+	 * Searches a record by the key which is currently stored within the encoder.
+	 * @param category The category.
+	 * @param inverse True if the replacement key shall be searched.
+	 * @param hash The key hash.
+	 * @param start The key offset within the encoder.
+	 * @param length The key length.
+	 * @return The record offset (or -1).
+	 */
+	private int findRecord (MapInstructionCategory category, boolean inverse, int hash, int start, int length) {
+		OffHeapTable table = (inverse ? this.replacementTables : this.originalTables).get (category);
+
+		for (int slot = table.first (hash); slot != -1; slot = table.next (hash, slot)) {
+			int offset = (table.getReference (slot) - 1);
+
+			// locate key
+			int keyOffset = (offset + HEADER_SIZE);
+			int keyLength = this.data.getInt ((offset + ORIGINAL_KEY_LENGTH_OFFSET));
+
+			if (inverse) {
+				keyOffset += this.data.getInt ((offset + ORIGINAL_LENGTH_OFFSET));
+				keyLength = this.data.getInt ((offset + REPLACEMENT_KEY_LENGTH_OFFSET));
+			}
+
+			// compare keys
+			if (keyLength == length && this.encoder.matches (this.data, keyOffset, start, length)) return offset;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Searches a record by its components.
+	 * @param category The category.
+	 * @param inverse True if the replacement components shall be searched.
+	 * @param components The components.
+	 * @return The record offset (or -1).
+	 */
+	private int findRecord (MapInstructionCategory category, boolean inverse, String... components) {
+		this.encoder.reset ();
+		for (String component : components) this.encoder.writeComponent (component);
+
+		return this.findRecord (category, inverse, this.encoder.hash (0, this.encoder.size ()), 0, this.encoder.size ());
+	}
+
+	/**
+	 * Searches a member record (falling back to stored wildcards).
+	 * @param category The category.
+	 * @param inverse True if the replacement components shall be searched.
+	 * @param owner The owner (ignored for invoke dynamic methods).
+	 * @param name The name.
+	 * @param description The description.
+	 * @return The record offset (or -1).
+	 */
+	private int findMember (MapInstructionCategory category, boolean inverse, String owner, String name, String description) {
+		boolean invokeDynamic = (category == MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME);
+
+		int offset = (invokeDynamic ? this.findRecord (category, inverse, name, description) : this.findRecord (category, inverse, owner, name, description));
+		if (offset != -1 || (inverse ? this.inverseWildcards : this.wildcards)[category.ordinal ()] == 0) return offset;
+
+		// search stored wildcards
+		if (invokeDynamic) return (description != null ? this.findRecord (category, inverse, name, null) : -1);
+
+		if (description != null && (offset = this.findRecord (category, inverse, owner, name, null)) != -1) return offset;
+		if (owner != null && (offset = this.findRecord (category, inverse, null, name, description)) != -1) return offset;
+		return (owner != null && description != null ? this.findRecord (category, inverse, null, name, null) : -1);
+	}
+
+	/**
+	 * Searches a record by its original instruction.
+	 * @param category The category.
+	 * @param original The original.
+	 * @return The record offset (or -1).
+	 */
+	private int findRecord (MapInstructionCategory category, IMapInstruction original) {
+		this.encoder.reset ();
+		int length = this.encodeKey (category, original);
+
+		return this.findRecord (category, false, this.encoder.hash (0, length), 0, length);
+	}
+
+	/**
+	 * Decodes the original instruction of a record.
+	 * @param offset The record offset.
+	 * @return The instruction.
+	 */
+	private IMapInstruction decodeOriginal (int offset) {
+		return this.decode (CATEGORIES[this.data.get ((offset + CATEGORY_OFFSET))], (offset + HEADER_SIZE));
+	}
+
+	/**
+	 * Decodes the replacement instruction of a record.
+	 * @param offset The record offset.
+	 * @return The instruction.
+	 */
+	private IMapInstruction decodeReplacement (int offset) {
+		return this.decode (CATEGORIES[this.data.get ((offset + CATEGORY_OFFSET))], (offset + HEADER_SIZE + this.data.getInt ((offset + ORIGINAL_LENGTH_OFFSET))));
+	}
+
+	/**
+	 * Decodes an instruction.
+	 * @param category The category.
+	 * @param offset The instruction offset.
+	 * @return The instruction.
+	 */
+	private IMapInstruction decode (MapInstructionCategory category, int offset) {
+		Decoder decoder = new Decoder (this.data, offset);
+
+		// read components
+		String[] components = new String[(category == MapInstructionCategory.UNKNOWN ? 2 : IndexedMapSection.getComponentCount (category))];
+		for (int i = 0; i < components.length; i++) components[i] = decoder.readComponent ();
+
+		// restore serialized instructions
+		String name = decoder.readComponent ();
+		if (name != null) return this.instructionRegistry.getElement (name, decoder.readComponent ());
+
+		// restore generic instructions
+		switch (category) {
+			case FIELD_NAME:
+				return new GenericFieldNameInstruction (components[0], components[1], components[2]);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				return new GenericInvokeDynamicMethodNameInstruction (components[0], components[1]);
+			case METHOD_NAME:
+				return new GenericMethodNameInstruction (components[0], components[1], components[2]);
+			case PACKAGE_NAME:
+				return new GenericPackageNameInstruction (components[0]);
+			case TYPE_NAME:
+				return new GenericTypeNameInstruction (components[0]);
+			default:
+				throw new IllegalStateException ("Generic instruction encountered in category " + category);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		int offset = this.findMember (MapInstructionCategory.FIELD_NAME, false, owner, name, description);
+		return (offset != -1 ? ((IFieldNameInstruction) this.decodeReplacement (offset)) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		int offset = this.findMember (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, false, null, name, description);
+		return (offset != -1 ? ((IInvokeDynamicMethodNameMapInstruction) this.decodeReplacement (offset)) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		int offset = this.findMember (MapInstructionCategory.METHOD_NAME, false, owner, name, description);
+		return (offset != -1 ? ((IMethodNameInstruction) this.decodeReplacement (offset)) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		int offset = this.findRecord (MapInstructionCategory.TYPE_NAME, false, name);
+		if (offset != -1) return ((ITypeNameMapInstruction) this.decodeReplacement (offset));
+
+		// resolve packages
+		String mapped = (name != null && this.indexPackages () ? this.packageNameIndex.map (name) : null);
+		return (mapped != null ? new GenericTypeNameInstruction (mapped) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		int offset = this.findMember (MapInstructionCategory.FIELD_NAME, true, owner, name, description);
+		return (offset != -1 ? ((IFieldNameInstruction) this.decodeOriginal (offset)) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		int offset = this.findMember (MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, true, null, name, description);
+		return (offset != -1 ? ((IInvokeDynamicMethodNameMapInstruction) this.decodeOriginal (offset)) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		int offset = this.findMember (MapInstructionCategory.METHOD_NAME, true, owner, name, description);
+		return (offset != -1 ? ((IMethodNameInstruction) this.decodeOriginal (offset)) : null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		int offset = this.findRecord (MapInstructionCategory.TYPE_NAME, true, name);
+		if (offset != -1) return ((ITypeNameMapInstruction) this.decodeOriginal (offset));
+
+		// resolve packages
+		String original = (name != null && this.indexPackages () ? this.originalPackageNameIndex.map (name) : null);
+		return (original != null ? new GenericTypeNameInstruction (original) : null);
+	}
+
+	/**
+	 * Builds the package indexes (unless they are up to date).
+	 * @return True if at least one package instruction exists.
+	 */
+	private boolean indexPackages () {
+		if (this.originalTables.get (MapInstructionCategory.PACKAGE_NAME).size () == 0) return false;
+
+		// build indexes
+		if (this.packageNameIndex == null) {
+			PackageTrie packageNameIndex = new PackageTrie ();
+			PackageTrie originalPackageNameIndex = new PackageTrie ();
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap (MapInstructionCategory.PACKAGE_NAME).entrySet ()) {
+				String original = ((IPackageNameMapInstruction) entry.getKey ()).getName ();
+				String replacement = ((IPackageNameMapInstruction) entry.getValue ()).getName ();
+
+				packageNameIndex.put (original, replacement);
+				originalPackageNameIndex.put (replacement, original);
+			}
+
+			this.packageNameIndex = packageNameIndex;
+			this.originalPackageNameIndex = originalPackageNameIndex;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Discards the package indexes as well as all cached descriptions.
+	 */
+	private void invalidatePackages () {
+		this.packageNameIndex = null;
+		this.originalPackageNameIndex = null;
+		this.invalidateDescriptions ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is a decoded copy, thus it should be avoided for large maps.
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
+
+		for (int offset = 0; offset < this.position; offset += this.data.getInt ((offset + LENGTH_OFFSET))) {
+			// skip discarded records
+			if (this.data.get ((offset + FLAGS_OFFSET)) == 0) continue;
+
+			// filter categories
+			if (category != null && this.data.get ((offset + CATEGORY_OFFSET)) != category.ordinal ()) continue;
+
+			// decode entry
+			map.put (this.decodeOriginal (offset), this.decodeReplacement (offset));
+		}
+
+		return map;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable decoded copy.
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		Map<T, IMapInstruction> map = new HashMap<> ();
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap ((deep ? null : MapInstructionCategory.valueOf (instructionType))).entrySet ()) {
+			if (instructionType.isInstance (entry.getKey ())) map.put (instructionType.cast (entry.getKey ()), entry.getValue ());
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		MapInstructionCategory category = MapInstructionCategory.valueOf (instruction);
+
+		this.encoder.reset ();
+		int length = this.encodeKey (category, instruction);
+
+		if (this.findRecord (category, true, this.encoder.hash (0, length), 0, length) != -1) return true;
+
+		// search replacements which only match through a wildcard
+		switch (category) {
+			case FIELD_NAME:
+			case METHOD_NAME:
+				String[] components = IndexedMapSection.getComponents (category, instruction);
+				return (this.inverseWildcards[category.ordinal ()] != 0 && this.findMember (category, true, components[0], components[1], components[2]) != -1);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				IInvokeDynamicMethodNameMapInstruction invokeDynamicMethod = ((IInvokeDynamicMethodNameMapInstruction) instruction);
+				return (this.inverseWildcards[category.ordinal ()] != 0 && this.findMember (category, true, null, invokeDynamicMethod.getName (), invokeDynamicMethod.getDescription ()) != -1);
+			case TYPE_NAME:
+				return (this.indexPackages () && this.originalPackageNameIndex.map (((ITypeNameMapInstruction) instruction).getName ()) != null);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Instructions are copied one category at a time, thus only a single category of the source map is decoded at
+	 * once.
+	 */
+	@Override
+	public void merge (@NonNull IMap map, MapInstructionCategory category, @NonNull MergePolicy policy) {
+		// merging a map into itself does not change anything
+		if (map == this) return;
+
+		// verify that no instruction is replaced before anything is changed
+		if (policy == MergePolicy.FAIL) {
+			for (MapInstructionCategory current : CATEGORIES) {
+				if (category != null && current != category) continue;
+
+				for (Map.Entry<IMapInstruction, IMapInstruction> entry : map.getInstructionMap (current).entrySet ()) {
+					int offset = this.findRecord (current, entry.getKey ());
+					if (offset == -1) continue;
+
+					IMapInstruction existing = this.decodeReplacement (offset);
+					if (!MapInstructionComparator.isIdentical (existing, entry.getValue ())) throw new IllegalArgumentException ("Conflicting replacements for " + entry.getKey ().serialize () + ": " + existing.serialize () + " and " + entry.getValue ().serialize ());
+				}
+			}
+		}
+
+		// merge categories
+		boolean typesChanged = false;
+
+		for (MapInstructionCategory current : CATEGORIES) {
+			if (category != null && current != category) continue;
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : map.getInstructionMap (current).entrySet ()) {
+				Preconditions.checkArgument (current == MapInstructionCategory.valueOf (entry.getValue ()), "Instruction categories do not match");
+
+				// handle conflicts
+				if (policy == MergePolicy.KEEP && this.findRecord (current, entry.getKey ()) != -1) continue;
+
+				// store
+				this.store (current, entry.getKey (), entry.getValue ());
+				typesChanged |= (current == MapInstructionCategory.TYPE_NAME);
+			}
+		}
+
+		// discard cached descriptions
+		if (typesChanged) this.invalidateDescriptions ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstruction removeInstruction (@NonNull IMapInstruction original) {
+		// get category
+		MapInstructionCategory category = MapInstructionCategory.valueOf (original);
+
+		// find record
+		int offset = this.findRecord (category, original);
+		if (offset == -1) return null;
+
+		// remove
+		IMapInstruction replacement = this.decodeReplacement (offset);
+		this.discard (category, offset);
+
+		if (category == MapInstructionCategory.TYPE_NAME) this.invalidateDescriptions ();
+		return replacement;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		// reset all categories at once
+		if (category == null) {
+			for (OffHeapTable table : this.originalTables.values ()) table.clear ();
+			for (OffHeapTable table : this.replacementTables.values ()) table.clear ();
+			Arrays.fill (this.wildcards, 0);
+			Arrays.fill (this.inverseWildcards, 0);
+
+			// release data buffer
+			this.data = ByteBuffer.allocateDirect (INITIAL_CAPACITY);
+			this.position = 0;
+			this.liveSize = 0;
+
+			this.invalidatePackages ();
+			return;
+		}
+
+		// discard all records of a single category
+		for (int offset = 0; offset < this.position; offset += this.data.getInt ((offset + LENGTH_OFFSET))) {
+			if (this.data.get ((offset + FLAGS_OFFSET)) == 0 || this.data.get ((offset + CATEGORY_OFFSET)) != category.ordinal ()) continue;
+
+			this.data.put ((offset + FLAGS_OFFSET), ((byte) 0));
+			this.liveSize -= this.data.getInt ((offset + LENGTH_OFFSET));
+		}
+
+		this.originalTables.get (category).clear ();
+		this.replacementTables.get (category).clear ();
+		this.wildcards[category.ordinal ()] = 0;
+		this.inverseWildcards[category.ordinal ()] = 0;
+		if (category == MapInstructionCategory.TYPE_NAME) this.invalidateDescriptions ();
+		if (category == MapInstructionCategory.PACKAGE_NAME) this.invalidatePackages ();
+	}
+
+	/**
+	 * Encodes keys and records into a re-usable on-heap buffer.
+	 * Components are stored as their UTF-8 length (plus one, zero marks null components) followed by their bytes.
+	 */
+	private static final class Encoder extends ByteArrayOutputStream {
+
+		/**
+		 * Constructs a new Encoder instance.
+		 */
+		public Encoder () {
+			super (256);
+		}
+
+		/**
+		 * Returns the backing buffer.
+		 * @return The buffer.
+		 */
+		public byte[] getBuffer () {
+			return this.buf;
+		}
+
+		/**
+		 * Calculates the hash of an encoded range.
+		 * @param start The start offset.
+		 * @param length The length.
+		 * @return The hash.
+		 */
+		public int hash (int start, int length) {
+			int hash = 1;
+			for (int i = start; i < (start + length); i++) hash = ((31 * hash) + this.buf[i]);
+
+			// spread bits since tables are probed by their lower bits
+			return (hash ^ (hash >>> 16));
+		}
+
+		/**
+		 * Compares an encoded range with a range of a buffer.
+		 * @param buffer The buffer.
+		 * @param offset The buffer offset.
+		 * @param start The start offset.
+		 * @param length The length.
+		 * @return True if both ranges are equal.
+		 */
+		public boolean matches (ByteBuffer buffer, int offset, int start, int length) {
+			for (int i = 0; i < length; i++) {
+				if (buffer.get ((offset + i)) != this.buf[(start + i)]) return false;
+			}
+
+			return true;
+		}
+
+		/**
+		 * Writes a nullable component.
+		 * @param component The component.
+		 */
+		public void writeComponent (String component) {
+			if (component == null) {
+				this.writeVarInt (0);
+				return;
+			}
+
+			byte[] encoded = component.getBytes (StandardCharsets.UTF_8);
+			this.writeVarInt ((encoded.length + 1));
+			this.write (encoded, 0, encoded.length);
+		}
+
+		/**
+		 * Writes an unsigned variable length integer.
+		 * @param value The value.
+		 */
+		public void writeVarInt (int value) {
+			while ((value & ~0x7F) != 0) {
+				this.write (((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+
+			this.write (value);
+		}
+	}
+
+	/**
+	 * Decodes the components of a record.
+	 */
+	private static final class Decoder {
+
+		/**
+		 * Stores the buffer.
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Stores the current offset.
+		 */
+		private int offset;
+
+		/**
+		 * Constructs a new Decoder instance.
+		 * @param buffer The buffer.
+		 * @param offset The offset.
+		 */
+		public Decoder (ByteBuffer buffer, int offset) {
+			this.buffer = buffer;
+			this.offset = offset;
+		}
+
+		/**
+		 * Reads a nullable component.
+		 * @return The component.
+		 */
+		public String readComponent () {
+			int length = this.readVarInt ();
+			if (length == 0) return null;
+
+			byte[] encoded = new byte[(length - 1)];
+			for (int i = 0; i < encoded.length; i++) encoded[i] = this.buffer.get (this.offset++);
+
+			return new String (encoded, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Reads an unsigned variable length integer.
+		 * @return The value.
+		 */
+		public int readVarInt () {
+			int value = 0;
+
+			for (int shift = 0; ; shift += 7) {
+				int current = this.buffer.get (this.offset++);
+				value |= ((current & 0x7F) << shift);
+
+				if ((current & 0x80) == 0) return value;
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.instruction.IFieldNameInstruction;
+import umbrella.map.instruction.IMethodNameInstruction;
+
+import java.util.Map;
+
+/**
+ * Provides a handle which resolves the members of a single owner.
+ * Maps which support handles copy all members of the owner into small local tables, thus lookups do not touch the
+ * (potentially huge) indexes of the map. Lookups which cannot be answered locally (for instance since the map
+ * contains members with a wildcard owner) are passed to the map. Handles do not observe changes to their map and
+ * should be obtained again once the map is modified.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class OwnerMap {
+
+	/**
+	 * Stores the parent map.
+	 */
+	@Getter
+	private final IMap map;
+
+	/**
+	 * Stores the owner.
+	 */
+	@Getter
+	private final String owner;
+
+	/**
+	 * Stores all field replacements of the owner (name -> description -> replacement) or null if fields are
+	 * resolved by the parent map.
+	 */
+	private final Map<String, Map<String, IFieldNameInstruction>> fields;
+
+	/**
+	 * Indicates whether fields which are not found locally are passed to the parent map.
+	 */
+	private final boolean fieldFallback;
+
+	/**
+	 * Stores all method replacements of the owner (name -> description -> replacement) or null if methods are
+	 * resolved by the parent map.
+	 */
+	private final Map<String, Map<String, IMethodNameInstruction>> methods;
+
+	/**
+	 * Indicates whether methods which are not found locally are passed to the parent map.
+	 */
+	private final boolean methodFallback;
+
+	/**
+	 * Constructs a new OwnerMap instance which passes all lookups to its parent map.
+	 * @param map The parent map.
+	 * @param owner The owner.
+	 * @since 1.0.0
+	 */
+	public OwnerMap (@NonNull IMap map, @NonNull String owner) {
+		this (map, owner, null, true, null, true);
+	}
+
+	/**
+	 * Constructs a new OwnerMap instance.
+	 * @param map The parent map.
+	 * @param owner The owner.
+	 * @param fields The field replacements (name -> description -> replacement) or null.
+	 * @param fieldFallback True if unknown fields shall be passed to the parent map.
+	 * @param methods The method replacements (name -> description -> replacement) or null.
+	 * @param methodFallback True if unknown methods shall be passed to the parent map.
+	 * @since 1.0.0
+	 */
+	public OwnerMap (@NonNull IMap map, @NonNull String owner, Map<String, Map<String, IFieldNameInstruction>> fields, boolean fieldFallback, Map<String, Map<String, IMethodNameInstruction>> methods, boolean methodFallback) {
+		this.map = map;
+		this.owner = owner;
+		this.fields = fields;
+		this.fieldFallback = (fields == null || fieldFallback);
+		this.methods = methods;
+		this.methodFallback = (methods == null || methodFallback);
+	}
+
+	/**
+	 * Searches a member within a local table.
+	 * A null description is handled as a wildcard (on both sides).
+	 * @param table The table (may be null).
+	 * @param name The name.
+	 * @param description The description.
+	 * @param <V> The replacement type.
+	 * @return The replacement (or null).
+	 */
+	private static <V> V find (Map<String, Map<String, V>> table, String name, String description) {
+		if (table == null) return null;
+
+		// find name
+		Map<String, V> descriptionMap = table.get (name);
+		if (descriptionMap == null) return null;
+
+		// find description (or a stored wildcard)
+		V value = descriptionMap.get (description);
+		if (value != null || descriptionMap.isEmpty ()) return value;
+		if (description != null) return descriptionMap.get (null);
+
+		// resolve wildcard lookups
+		return descriptionMap.values ().iterator ().next ();
+	}
+
+	/**
+	 * Returns a field instruction of the owner (or null).
+	 * @param name The original name.
+	 * @param description The original description.
+	 * @return The replacement.
+	 * @since 1.0.0
+	 */
+	public IFieldNameInstruction getFieldNameInstruction (String name, String description) {
+		IFieldNameInstruction instruction = find (this.fields, name, description);
+		return (instruction != null || !this.fieldFallback ? instruction : this.map.getFieldNameInstruction (this.owner, name, description));
+	}
+
+	/**
+	 * Returns a method instruction of the owner (or null).
+	 * @param name The original name.
+	 * @param description The original description.
+	 * @return The replacement.
+	 * @since 1.0.0
+	 */
+	public IMethodNameInstruction getMethodNameInstruction (String name, String description) {
+		IMethodNameInstruction instruction = find (this.methods, name, description);
+		return (instruction != null || !this.methodFallback ? instruction : this.map.getMethodNameInstruction (this.owner, name, description));
+	}
+
+	/**
+	 * Maps a field name of the owner.
+	 * @param name The original name.
+	 * @param description The original description.
+	 * @return The mapped name.
+	 * @since 1.0.0
+	 */
+	public String mapFieldName (String name, String description) {
+		IFieldNameInstruction instruction = this.getFieldNameInstruction (name, description);
+		return (instruction != null ? instruction.getName () : name);
+	}
+
+	/**
+	 * Maps a method name of the owner.
+	 * @param name The original name.
+	 * @param description The original description.
+	 * @return The mapped name.
+	 * @since 1.0.0
+	 */
+	public String mapMethodName (String name, String description) {
+		IMethodNameInstruction instruction = this.getMethodNameInstruction (name, description);
+		return (instruction != null ? instruction.getName () : name);
+	}
+}
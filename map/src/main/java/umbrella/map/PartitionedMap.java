@@ -0,0 +1,373 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.NonNull;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.io.PartitionedMapReader;
+import umbrella.map.io.PartitionedMapWriter;
+import umbrella.utility.IOUtility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Provides a map which loads the segments of a partitioned map file on demand.
+ * Opening a map only loads its global segment (types, invoke dynamic methods and members without an owner). The
+ * segment of an owner is loaded on the first lookup or modification which references the owner. Operations which
+ * span the entire map (such as iterating instructions, searching replacements or merging) load all remaining segments
+ * first. Lookups without an owner are answered from the global segment and load all remaining segments if the global
+ * segment does not contain a match.
+ *
+ * Lookups may be performed from multiple threads at once: segments are loaded while holding an exclusive lock and
+ * lookups are performed while holding a shared lock. Like its parent, modifications are not thread safe.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class PartitionedMap extends GenericMap {
+
+	/**
+	 * Stores the segment reader.
+	 */
+	private final PartitionedMapReader reader;
+
+	/**
+	 * Stores all owners whose segments have not been loaded yet.
+	 */
+	private final Set<String> pendingOwners;
+
+	/**
+	 * Stores the lock which guards the map contents against segments which are loaded concurrently.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock ();
+
+	/**
+	 * Constructs a new PartitionedMap instance.
+	 * @param file The partitioned map file.
+	 * @throws IOException Occurs if mapping the file is not possible or the file is malformed.
+	 * @since 1.0.0
+	 */
+	public PartitionedMap (@NonNull File file) throws IOException {
+		this (IMapInstructionRegistry.DEFAULT, file);
+	}
+
+	/**
+	 * Constructs a new PartitionedMap instance.
+	 * @param registry The instruction registry.
+	 * @param file The partitioned map file.
+	 * @throws IOException Occurs if mapping the file is not possible or the file is malformed.
+	 * @since 1.0.0
+	 */
+	public PartitionedMap (@NonNull IMapInstructionRegistry registry, @NonNull File file) throws IOException {
+		this (registry, open (file));
+	}
+
+	/**
+	 * Constructs a new PartitionedMap instance.
+	 * @param registry The instruction registry.
+	 * @param buffer A buffer containing a partitioned map.
+	 * @throws IOException Occurs if the buffer is malformed.
+	 * @since 1.0.0
+	 */
+	public PartitionedMap (@NonNull IMapInstructionRegistry registry, @NonNull ByteBuffer buffer) throws IOException {
+		this (registry, PartitionedMapReader.open (buffer));
+	}
+
+	/**
+	 * Constructs a new PartitionedMap instance.
+	 * @param registry The instruction registry.
+	 * @param reader The segment reader.
+	 * @throws IOException Occurs if the global segment is corrupted.
+	 */
+	private PartitionedMap (IMapInstructionRegistry registry, PartitionedMapReader reader) throws IOException {
+		super (registry);
+
+		this.reader = reader;
+		this.pendingOwners = Collections.newSetFromMap (new ConcurrentHashMap<String, Boolean> ());
+		this.pendingOwners.addAll (reader.getOwners ());
+
+		// load global segment
+		reader.read (((String) null), this);
+	}
+
+	/**
+	 * Maps a partitioned map file into memory (mappings stay valid after the channel has been closed).
+	 * @param file The file.
+	 * @return The segment reader.
+	 * @throws IOException Occurs if mapping the file is not possible or the file is malformed.
+	 */
+	private static PartitionedMapReader open (File file) throws IOException {
+		RandomAccessFile accessFile = null;
+
+		try {
+			accessFile = new RandomAccessFile (file, "r");
+			return PartitionedMapReader.open (accessFile.getChannel ());
+		} finally {
+			IOUtility.closeQuietly (accessFile);
+		}
+	}
+
+	/**
+	 * Checks whether the segment of an owner has been loaded.
+	 * @param owner The owner.
+	 * @return True if the segment has been loaded (or does not exist).
+	 * @since 1.0.0
+	 */
+	public boolean isLoaded (String owner) {
+		return !this.pendingOwners.contains (owner);
+	}
+
+	/**
+	 * Loads the segment of an owner (if not loaded yet).
+	 * @param owner The owner.
+	 * @throws IllegalStateException Occurs if the segment is corrupted.
+	 */
+	protected void loadSegment (String owner) {
+		if (owner == null || !this.pendingOwners.contains (owner)) return;
+
+		this.lock.writeLock ().lock ();
+
+		try {
+			// the owner is released first since loading the segment adds instructions of the same owner
+			if (!this.pendingOwners.remove (owner)) return;
+
+			this.reader.read (owner, this);
+		} catch (IOException ex) {
+			throw new IllegalStateException ("Could not load map segment: " + ex.getMessage (), ex);
+		} finally {
+			this.lock.writeLock ().unlock ();
+		}
+	}
+
+	/**
+	 * Loads all remaining segments.
+	 * @throws IllegalStateException Occurs if a segment is corrupted.
+	 */
+	protected void loadSegments () {
+		if (this.pendingOwners.isEmpty ()) return;
+
+		for (String owner : new HashSet<> (this.pendingOwners)) this.loadSegment (owner);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addInstruction (@NonNull IMapInstruction original, @NonNull IMapInstruction replacement) {
+		// load segment first (thus the instruction is not replaced by the segment later on)
+		this.loadSegment (PartitionedMapWriter.getOwner (MapInstructionCategory.valueOf (original), original));
+
+		super.addInstruction (original, replacement);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public OwnerMap forOwner (@NonNull String owner) {
+		this.loadSegment (owner);
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.forOwner (owner);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		this.loadSegment (owner);
+		IFieldNameInstruction instruction = this.findFieldNameInstruction (owner, name, description);
+
+		// members without an owner may match members within segments which have not been loaded yet
+		if (instruction != null || owner != null || this.pendingOwners.isEmpty ()) return instruction;
+
+		this.loadSegments ();
+		return this.findFieldNameInstruction (owner, name, description);
+	}
+
+	/**
+	 * Searches a field within the loaded segments.
+	 * @param owner The owner.
+	 * @param name The name.
+	 * @param description The description.
+	 * @return The instruction or null.
+	 */
+	private IFieldNameInstruction findFieldNameInstruction (String owner, String name, String description) {
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.getFieldNameInstruction (owner, name, description);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		this.loadSegment (owner);
+		IMethodNameInstruction instruction = this.findMethodNameInstruction (owner, name, description);
+
+		// members without an owner may match members within segments which have not been loaded yet
+		if (instruction != null || owner != null || this.pendingOwners.isEmpty ()) return instruction;
+
+		this.loadSegments ();
+		return this.findMethodNameInstruction (owner, name, description);
+	}
+
+	/**
+	 * Searches a method within the loaded segments.
+	 * @param owner The owner.
+	 * @param name The name.
+	 * @param description The description.
+	 * @return The instruction or null.
+	 */
+	private IMethodNameInstruction findMethodNameInstruction (String owner, String name, String description) {
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.getMethodNameInstruction (owner, name, description);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		this.loadSegments ();
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.getOriginalFieldNameInstruction (owner, name, description);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		this.loadSegments ();
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.getOriginalMethodNameInstruction (owner, name, description);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		this.loadSegments ();
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.getInstructionMap (category);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (Class<T> instructionType, boolean deep) {
+		this.loadSegments ();
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.getInstructionMap (instructionType, deep);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		this.loadSegments ();
+		this.lock.readLock ().lock ();
+
+		try {
+			return super.mappingExists (instruction);
+		} finally {
+			this.lock.readLock ().unlock ();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void merge (@NonNull IMap map, MapInstructionCategory category, @NonNull MergePolicy policy) {
+		this.loadSegments ();
+		super.merge (map, category, policy);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstruction removeInstruction (@NonNull IMapInstruction original) {
+		this.loadSegment (PartitionedMapWriter.getOwner (MapInstructionCategory.valueOf (original), original));
+		return super.removeInstruction (original);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		// the parent constructor resets the map before the segments are known
+		if (this.pendingOwners != null) {
+			if (category == null)
+				this.pendingOwners.clear ();
+			else
+				this.loadSegments ();
+		}
+
+		super.reset (category);
+	}
+}
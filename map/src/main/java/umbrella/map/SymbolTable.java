@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.NonNull;
+import umbrella.map.instruction.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonicalizes the strings (owners, names and descriptions) referenced by map instructions.
+ * A single table may be shared between several maps (and threads).
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class SymbolTable {
+
+	/**
+	 * Stores all known symbols.
+	 */
+	private final ConcurrentMap<String, String> symbolMap = new ConcurrentHashMap<> ();
+
+	/**
+	 * Removes all symbols from the table.
+	 * @since 1.0.0
+	 */
+	public void clear () {
+		this.symbolMap.clear ();
+	}
+
+	/**
+	 * Returns the canonical representation of a symbol.
+	 * @param symbol The symbol (may be null).
+	 * @return The canonical symbol.
+	 * @since 1.0.0
+	 */
+	public String intern (String symbol) {
+		// skip null values
+		if (symbol == null) return null;
+
+		// search existing symbol
+		String canonical = this.symbolMap.get (symbol);
+		if (canonical != null) return canonical;
+
+		// store new symbol (unless another thread has been faster)
+		canonical = this.symbolMap.putIfAbsent (symbol, symbol);
+		return (canonical != null ? canonical : symbol);
+	}
+
+	/**
+	 * Returns an instruction which only references canonical symbols.
+	 * Unknown instruction types are returned as is.
+	 * @param instruction The instruction.
+	 * @return The canonical instruction.
+	 * @since 1.0.0
+	 */
+	public IMapInstruction intern (@NonNull IMapInstruction instruction) {
+		// canonicalize fields
+		if (instruction.getClass () == GenericFieldNameInstruction.class) {
+			GenericFieldNameInstruction field = ((GenericFieldNameInstruction) instruction);
+
+			// intern elements
+			String owner = this.intern (field.getOwner ());
+			String name = this.intern (field.getName ());
+			String description = this.intern (field.getDescription ());
+
+			// re-use canonical instructions
+			if (owner == field.getOwner () && name == field.getName () && description == field.getDescription ()) return instruction;
+			return new GenericFieldNameInstruction (owner, name, description);
+		}
+
+		// canonicalize methods
+		if (instruction.getClass () == GenericMethodNameInstruction.class) {
+			GenericMethodNameInstruction method = ((GenericMethodNameInstruction) instruction);
+
+			// intern elements
+			String owner = this.intern (method.getOwner ());
+			String name = this.intern (method.getName ());
+			String description = this.intern (method.getDescription ());
+
+			// re-use canonical instructions
+			if (owner == method.getOwner () && name == method.getName () && description == method.getDescription ()) return instruction;
+			return new GenericMethodNameInstruction (owner, name, description);
+		}
+
+		// canonicalize invoke dynamic methods
+		if (instruction.getClass () == GenericInvokeDynamicMethodNameInstruction.class) {
+			GenericInvokeDynamicMethodNameInstruction method = ((GenericInvokeDynamicMethodNameInstruction) instruction);
+
+			// intern elements
+			String name = this.intern (method.getName ());
+			String description = this.intern (method.getDescription ());
+
+			// re-use canonical instructions
+			if (name == method.getName () && description == method.getDescription ()) return instruction;
+			return new GenericInvokeDynamicMethodNameInstruction (name, description);
+		}
+
+		// canonicalize types
+		if (instruction.getClass () == GenericTypeNameInstruction.class) {
+			GenericTypeNameInstruction type = ((GenericTypeNameInstruction) instruction);
+
+			// intern elements
+			String name = this.intern (type.getName ());
+
+			// re-use canonical instructions
+			if (name == type.getName ()) return instruction;
+			return new GenericTypeNameInstruction (name);
+		}
+
+		// canonicalize packages
+		if (instruction.getClass () == GenericPackageNameInstruction.class) {
+			GenericPackageNameInstruction packageName = ((GenericPackageNameInstruction) instruction);
+
+			// intern elements
+			String name = this.intern (packageName.getName ());
+
+			// re-use canonical instructions
+			if (name == packageName.getName ()) return instruction;
+			return new GenericPackageNameInstruction (name);
+		}
+
+		// unknown instruction type
+		return instruction;
+	}
+
+	/**
+	 * Returns the amount of known symbols.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		return this.symbolMap.size ();
+	}
+}
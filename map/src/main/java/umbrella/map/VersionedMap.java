@@ -0,0 +1,560 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.index.MemberIndex;
+import umbrella.map.index.PackageTrie;
+import umbrella.map.index.PersistentHashMap;
+import umbrella.map.index.WildcardMemberIndex;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.instruction.utility.MapInstructionComparator;
+import umbrella.map.io.IndexedMapSection;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides an immutable snapshot of a single release within a {@link VersionedMapStore}.
+ * Instructions are partitioned into segments per owner (member instructions are grouped by their owner and type
+ * instructions by their name) which are stored within persistent tries. Segments which did not change between two
+ * releases are shared with the predecessor, thus every release only occupies the memory of its differences. Member
+ * lookups without an owner are answered by a name index which is built once per release when it is first needed.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class VersionedMap extends AbstractMap {
+
+	/**
+	 * Stores the version.
+	 */
+	@Getter
+	private final String version;
+
+	/**
+	 * Stores the instruction registry.
+	 */
+	private final IMapInstructionRegistry instructionRegistry;
+
+	/**
+	 * Stores all segments (original owner -> original -> replacement).
+	 */
+	private final PersistentHashMap<String, Segment> segments;
+
+	/**
+	 * Stores all inverse segments (replacement owner -> replacement -> original).
+	 */
+	private final PersistentHashMap<String, Segment> inverseSegments;
+
+	/**
+	 * Stores the member indexes for lookups without an owner (created on demand).
+	 */
+	private volatile Map<MapInstructionCategory, WildcardMemberIndex<IMapInstruction>> memberIndexes = null;
+
+	/**
+	 * Stores the inverse member indexes for lookups without an owner (created on demand).
+	 */
+	private volatile Map<MapInstructionCategory, WildcardMemberIndex<IMapInstruction>> inverseMemberIndexes = null;
+
+	/**
+	 * Constructs a new VersionedMap instance.
+	 * @param version The version.
+	 * @param instructionRegistry The instruction registry.
+	 * @param segments The segments.
+	 * @param inverseSegments The inverse segments.
+	 */
+	private VersionedMap (String version, IMapInstructionRegistry instructionRegistry, PersistentHashMap<String, Segment> segments, PersistentHashMap<String, Segment> inverseSegments) {
+		this.version = version;
+		this.instructionRegistry = instructionRegistry;
+		this.segments = segments;
+		this.inverseSegments = inverseSegments;
+	}
+
+	/**
+	 * Creates a snapshot which shares all unchanged segments with its predecessor.
+	 * @param version The version.
+	 * @param registry The instruction registry.
+	 * @param map The map to copy.
+	 * @param previous The predecessor (or null).
+	 * @return The snapshot.
+	 */
+	static VersionedMap create (@NonNull String version, @NonNull IMapInstructionRegistry registry, @NonNull IMap map, VersionedMap previous) {
+		// partition instructions
+		Map<String, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>>> partitions = new HashMap<> ();
+		Map<String, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>>> inversePartitions = new HashMap<> ();
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : map.getInstructionMap (category).entrySet ()) {
+				partition (partitions, category, entry.getKey (), entry.getValue ());
+				partition (inversePartitions, category, entry.getValue (), entry.getKey ());
+			}
+		}
+
+		// update segments
+		PersistentHashMap<String, Segment> segments = update ((previous != null ? previous.segments : PersistentHashMap.<String, Segment>empty ()), partitions);
+		PersistentHashMap<String, Segment> inverseSegments = update ((previous != null ? previous.inverseSegments : PersistentHashMap.<String, Segment>empty ()), inversePartitions);
+
+		return new VersionedMap (version, registry, segments, inverseSegments);
+	}
+
+	/**
+	 * Searches an instruction.
+	 * @param inverse True if replacements shall be searched.
+	 * @param category The category.
+	 * @param owner The owner (or null).
+	 * @param name The name.
+	 * @param description The description (or null).
+	 * @return The instruction (or null).
+	 */
+	private IMapInstruction find (boolean inverse, MapInstructionCategory category, String owner, String name, String description) {
+		PersistentHashMap<String, Segment> segments = (inverse ? this.inverseSegments : this.segments);
+
+		// search wildcard owners
+		if (owner == null && (category == MapInstructionCategory.FIELD_NAME || category == MapInstructionCategory.METHOD_NAME)) return this.getMemberIndexes (inverse).get (category).get (null, name, description);
+
+		// search segment
+		Segment segment = segments.get ((category == MapInstructionCategory.TYPE_NAME ? name : owner));
+		IMapInstruction instruction = (segment != null ? segment.find (category, owner, name, description) : null);
+		if (instruction != null || owner == null) return instruction;
+
+		// search stored wildcard owners
+		Segment global = segments.get (null);
+		return (global != null ? global.find (category, null, name, description) : null);
+	}
+
+	/**
+	 * Returns the member indexes for lookups without an owner.
+	 * @param inverse True if the inverse indexes shall be returned.
+	 * @return The indexes (grouped by category).
+	 */
+	private Map<MapInstructionCategory, WildcardMemberIndex<IMapInstruction>> getMemberIndexes (boolean inverse) {
+		Map<MapInstructionCategory, WildcardMemberIndex<IMapInstruction>> indexes = (inverse ? this.inverseMemberIndexes : this.memberIndexes);
+		if (indexes != null) return indexes;
+
+		// build indexes
+		indexes = new EnumMap<> (MapInstructionCategory.class);
+		indexes.put (MapInstructionCategory.FIELD_NAME, new WildcardMemberIndex<IMapInstruction> ());
+		indexes.put (MapInstructionCategory.METHOD_NAME, new WildcardMemberIndex<IMapInstruction> ());
+
+		for (Map.Entry<String, Segment> segment : (inverse ? this.inverseSegments : this.segments)) {
+			for (Map.Entry<MapInstructionCategory, WildcardMemberIndex<IMapInstruction>> index : indexes.entrySet ()) {
+				Map<IMapInstruction, IMapInstruction> instructions = segment.getValue ().instructions.get (index.getKey ());
+				if (instructions == null) continue;
+
+				for (Map.Entry<IMapInstruction, IMapInstruction> instruction : instructions.entrySet ()) {
+					String[] key = Segment.getKey (index.getKey (), instruction.getKey ());
+					index.getValue ().put (key[0], key[1], key[2], instruction.getValue ());
+				}
+			}
+		}
+
+		// publish indexes
+		if (inverse)
+			this.inverseMemberIndexes = indexes;
+		else
+			this.memberIndexes = indexes;
+
+		return indexes;
+	}
+
+	/**
+	 * Returns the segment owner of an instruction.
+	 * @param category The category.
+	 * @param instruction The instruction.
+	 * @return The owner (or null if the instruction belongs to the global segment).
+	 */
+	private static String getOwner (MapInstructionCategory category, IMapInstruction instruction) {
+		switch (category) {
+			case FIELD_NAME:
+			case METHOD_NAME:
+				return ((IMemberMapInstruction) instruction).getOwner ();
+			case TYPE_NAME:
+				return ((ITypeNameMapInstruction) instruction).getName ();
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Resolves a type based on the packages of the global segment.
+	 * @param segments The segments.
+	 * @param name The type name.
+	 * @return The instruction (or null).
+	 */
+	private static ITypeNameMapInstruction findPackage (PersistentHashMap<String, Segment> segments, String name) {
+		Segment global = segments.get (null);
+		if (global == null || name == null) return null;
+
+		String mapped = global.getPackages ().map (name);
+		return (mapped != null ? new GenericTypeNameInstruction (mapped) : null);
+	}
+
+	/**
+	 * Adds an instruction to its partition.
+	 * @param partitions The partitions.
+	 * @param category The category.
+	 * @param key The key.
+	 * @param value The value.
+	 */
+	private static void partition (Map<String, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>>> partitions, MapInstructionCategory category, IMapInstruction key, IMapInstruction value) {
+		String owner = getOwner (category, key);
+
+		// find partition
+		Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> partition = partitions.get (owner);
+		if (partition == null) partitions.put (owner, (partition = new EnumMap<> (MapInstructionCategory.class)));
+
+		// find category
+		Map<IMapInstruction, IMapInstruction> instructions = partition.get (category);
+		if (instructions == null) partition.put (category, (instructions = new HashMap<> ()));
+
+		instructions.put (key, value);
+	}
+
+	/**
+	 * Applies a set of partitions to the segments of a predecessor.
+	 * @param previous The segments of the predecessor.
+	 * @param partitions The partitions.
+	 * @return The segments.
+	 */
+	private static PersistentHashMap<String, Segment> update (PersistentHashMap<String, Segment> previous, Map<String, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>>> partitions) {
+		PersistentHashMap<String, Segment> segments = previous;
+
+		// remove owners which do not exist anymore
+		for (Map.Entry<String, Segment> entry : previous) {
+			if (!partitions.containsKey (entry.getKey ())) segments = segments.minus (entry.getKey ());
+		}
+
+		// replace changed segments
+		for (Map.Entry<String, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>>> entry : partitions.entrySet ()) {
+			Segment segment = previous.get (entry.getKey ());
+			if (segment == null || !segment.isIdentical (entry.getValue ())) segments = segments.plus (entry.getKey (), new Segment (entry.getValue ()));
+		}
+
+		return segments;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Versioned maps are read-only.
+	 */
+	@Override
+	public void addInstruction (IMapInstruction original, IMapInstruction replacement) {
+		throw new UnsupportedOperationException ("Versioned maps are read-only");
+	}
+
+	/**
+	 * Collects all segments of the snapshot.
+	 * @param segments The set of segments.
+	 */
+	void collectSegments (Set<Object> segments) {
+		for (Map.Entry<String, Segment> entry : this.segments) segments.add (entry.getValue ());
+		for (Map.Entry<String, Segment> entry : this.inverseSegments) segments.add (entry.getValue ());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IFieldNameInstruction getFieldNameInstruction (String owner, String name, String description) {
+		return ((IFieldNameInstruction) this.find (false, MapInstructionCategory.FIELD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IInvokeDynamicMethodNameMapInstruction getInvokeDynamicMethodNameInstruction (String name, String description) {
+		return ((IInvokeDynamicMethodNameMapInstruction) this.find (false, MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, null, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMethodNameInstruction getMethodNameInstruction (String owner, String name, String description) {
+		return ((IMethodNameInstruction) this.find (false, MapInstructionCategory.METHOD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ITypeNameMapInstruction getTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = ((ITypeNameMapInstruction) this.find (false, MapInstructionCategory.TYPE_NAME, null, name, null));
+		return (instruction != null ? instruction : findPackage (this.segments, name));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IFieldNameInstruction getOriginalFieldNameInstruction (String owner, String name, String description) {
+		return ((IFieldNameInstruction) this.find (true, MapInstructionCategory.FIELD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IInvokeDynamicMethodNameMapInstruction getOriginalInvokeDynamicMethodNameInstruction (String name, String description) {
+		return ((IInvokeDynamicMethodNameMapInstruction) this.find (true, MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, null, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected IMethodNameInstruction getOriginalMethodNameInstruction (String owner, String name, String description) {
+		return ((IMethodNameInstruction) this.find (true, MapInstructionCategory.METHOD_NAME, owner, name, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected ITypeNameMapInstruction getOriginalTypeNameInstruction (String name) {
+		ITypeNameMapInstruction instruction = ((ITypeNameMapInstruction) this.find (true, MapInstructionCategory.TYPE_NAME, null, name, null));
+		return (instruction != null ? instruction : findPackage (this.inverseSegments, name));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy.
+	 */
+	@Override
+	public Map<IMapInstruction, IMapInstruction> getInstructionMap (MapInstructionCategory category) {
+		Map<IMapInstruction, IMapInstruction> map = new HashMap<> ();
+
+		for (Map.Entry<String, Segment> segment : this.segments) {
+			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : segment.getValue ().instructions.entrySet ()) {
+				if (category == null || entry.getKey () == category) map.putAll (entry.getValue ());
+			}
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned map is an unmodifiable copy.
+	 */
+	@Override
+	public <T extends IMapInstruction> Map<T, IMapInstruction> getInstructionMap (@NonNull Class<T> instructionType, boolean deep) {
+		Map<T, IMapInstruction> map = new HashMap<> ();
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : this.getInstructionMap ((deep ? null : MapInstructionCategory.valueOf (instructionType))).entrySet ()) {
+			if (instructionType.isInstance (entry.getKey ())) map.put (instructionType.cast (entry.getKey ()), entry.getValue ());
+		}
+
+		return Collections.unmodifiableMap (map);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstructionRegistry getInstructionRegistry () {
+		return this.instructionRegistry;
+	}
+
+	/**
+	 * Returns the amount of segments within the snapshot.
+	 * @return The segment count.
+	 * @since 1.0.0
+	 */
+	public int getSegmentCount () {
+		return this.segments.size ();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean mappingExists (@NonNull IMapInstruction instruction) {
+		MapInstructionCategory category = MapInstructionCategory.valueOf (instruction);
+
+		// search unknown instructions
+		if (category == MapInstructionCategory.UNKNOWN) {
+			Segment global = this.inverseSegments.get (null);
+			Map<IMapInstruction, IMapInstruction> instructions = (global != null ? global.instructions.get (category) : null);
+
+			return (instructions != null && instructions.containsKey (instruction));
+		}
+
+		// search replacements
+		String[] key = Segment.getKey (category, instruction);
+		if (this.find (true, category, key[0], key[1], key[2]) != null) return true;
+
+		return (category == MapInstructionCategory.TYPE_NAME && findPackage (this.inverseSegments, key[1]) != null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Versioned maps are read-only.
+	 */
+	@Override
+	public void merge (IMap map, MapInstructionCategory category, MergePolicy policy) {
+		throw new UnsupportedOperationException ("Versioned maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Versioned maps are read-only.
+	 */
+	@Override
+	public IMapInstruction removeInstruction (IMapInstruction original) {
+		throw new UnsupportedOperationException ("Versioned maps are read-only");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException Versioned maps are read-only.
+	 */
+	@Override
+	public void reset (MapInstructionCategory category) {
+		throw new UnsupportedOperationException ("Versioned maps are read-only");
+	}
+
+	/**
+	 * Stores the instructions of a single owner.
+	 */
+	private static final class Segment {
+
+		/**
+		 * Stores all instructions (grouped by category).
+		 */
+		private final Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> instructions;
+
+		/**
+		 * Stores the lookup indexes (grouped by category).
+		 */
+		private final Map<MapInstructionCategory, MemberIndex<IMapInstruction>> indexes = new EnumMap<> (MapInstructionCategory.class);
+
+		/**
+		 * Stores the package index (created on demand).
+		 */
+		private volatile PackageTrie packages = null;
+
+		/**
+		 * Constructs a new Segment instance.
+		 * @param instructions The instructions (grouped by category).
+		 */
+		public Segment (Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> instructions) {
+			this.instructions = instructions;
+
+			// build indexes
+			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : instructions.entrySet ()) {
+				if (entry.getKey () == MapInstructionCategory.UNKNOWN) continue;
+
+				MemberIndex<IMapInstruction> index = new MemberIndex<> ();
+
+				for (Map.Entry<IMapInstruction, IMapInstruction> instruction : entry.getValue ().entrySet ()) {
+					String[] key = getKey (entry.getKey (), instruction.getKey ());
+					index.put (key[0], key[1], key[2], instruction.getValue ());
+				}
+
+				this.indexes.put (entry.getKey (), index);
+			}
+		}
+
+		/**
+		 * Searches an instruction.
+		 * A null description is handled as a wildcard (on both sides).
+		 * @param category The category.
+		 * @param owner The owner (or null).
+		 * @param name The name.
+		 * @param description The description (or null).
+		 * @return The instruction (or null).
+		 */
+		public IMapInstruction find (MapInstructionCategory category, String owner, String name, String description) {
+			MemberIndex<IMapInstruction> index = this.indexes.get (category);
+			if (index == null) return null;
+
+			IMapInstruction instruction = index.get (owner, name, description);
+			if (instruction != null) return instruction;
+
+			return (description != null ? index.get (owner, name, null) : index.getAny (owner, name));
+		}
+
+		/**
+		 * Returns the key components of an instruction (owner, name and description).
+		 * @param category The category.
+		 * @param instruction The instruction.
+		 * @return The components.
+		 */
+		public static String[] getKey (MapInstructionCategory category, IMapInstruction instruction) {
+			String[] components = IndexedMapSection.getComponents (category, instruction);
+
+			switch (category) {
+				case FIELD_NAME:
+				case METHOD_NAME:
+					return components;
+				case INVOKE_DYNAMIC_METHOD_NAME:
+					return new String[] { null, components[0], components[1] };
+				default:
+					return new String[] { null, components[0], null };
+			}
+		}
+
+		/**
+		 * Returns the package index of the segment.
+		 * @return The index.
+		 */
+		public PackageTrie getPackages () {
+			PackageTrie packages = this.packages;
+
+			// build index
+			if (packages == null) {
+				packages = new PackageTrie ();
+
+				Map<IMapInstruction, IMapInstruction> instructions = this.instructions.get (MapInstructionCategory.PACKAGE_NAME);
+				if (instructions != null) {
+					for (Map.Entry<IMapInstruction, IMapInstruction> entry : instructions.entrySet ()) packages.put (((IPackageNameMapInstruction) entry.getKey ()).getName (), ((IPackageNameMapInstruction) entry.getValue ()).getName ());
+				}
+
+				this.packages = packages;
+			}
+
+			return packages;
+		}
+
+		/**
+		 * Checks whether the segment contains exactly the same instructions.
+		 * @param instructions The instructions (grouped by category).
+		 * @return True if both are identical.
+		 */
+		public boolean isIdentical (Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> instructions) {
+			if (!this.instructions.keySet ().equals (instructions.keySet ())) return false;
+
+			for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> entry : instructions.entrySet ()) {
+				Map<IMapInstruction, IMapInstruction> current = this.instructions.get (entry.getKey ());
+				if (current.size () != entry.getValue ().size ()) return false;
+
+				for (Map.Entry<IMapInstruction, IMapInstruction> instruction : entry.getValue ().entrySet ()) {
+					IMapInstruction replacement = current.get (instruction.getKey ());
+					if (replacement == null || !MapInstructionComparator.isIdentical (replacement, instruction.getValue ())) return false;
+				}
+			}
+
+			return true;
+		}
+	}
+}
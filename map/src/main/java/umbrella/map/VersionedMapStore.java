@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+
+import java.util.*;
+
+/**
+ * Stores an ordered set of map releases.
+ * Every release is stored as an immutable {@link VersionedMap} snapshot which shares all unchanged owner segments with
+ * its predecessor, thus any release may be queried directly while the store only grows by the differences between
+ * two releases.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class VersionedMapStore {
+
+	/**
+	 * Stores the instruction registry.
+	 */
+	@Getter
+	private final IMapInstructionRegistry instructionRegistry;
+
+	/**
+	 * Stores all releases (in commit order).
+	 */
+	private final Map<String, VersionedMap> versionMap = new LinkedHashMap<> ();
+
+	/**
+	 * Stores the latest release (or null).
+	 */
+	private VersionedMap latest = null;
+
+	/**
+	 * Constructs a new VersionedMapStore instance.
+	 * @since 1.0.0
+	 */
+	public VersionedMapStore () {
+		this (IMapInstructionRegistry.DEFAULT);
+	}
+
+	/**
+	 * Constructs a new VersionedMapStore instance.
+	 * @param instructionRegistry The instruction registry.
+	 * @since 1.0.0
+	 */
+	public VersionedMapStore (@NonNull IMapInstructionRegistry instructionRegistry) {
+		this.instructionRegistry = instructionRegistry;
+	}
+
+	/**
+	 * Commits a new release.
+	 * The map is copied, thus later changes to it are not reflected by the release.
+	 * @param version The version.
+	 * @param map The map.
+	 * @return The release.
+	 * @throws IllegalArgumentException Occurs if the version already exists.
+	 * @since 1.0.0
+	 */
+	public synchronized VersionedMap commit (@NonNull String version, @NonNull IMap map) {
+		Preconditions.checkArgument (!this.versionMap.containsKey (version), "Version " + version + " already exists");
+
+		VersionedMap release = VersionedMap.create (version, this.instructionRegistry, map, this.latest);
+		this.versionMap.put (version, release);
+		this.latest = release;
+
+		return release;
+	}
+
+	/**
+	 * Returns the latest release.
+	 * @return The release (or null if the store is empty).
+	 * @since 1.0.0
+	 */
+	public synchronized VersionedMap getLatest () {
+		return this.latest;
+	}
+
+	/**
+	 * Returns the amount of distinct segments stored across all releases.
+	 * @return The segment count.
+	 * @since 1.0.0
+	 */
+	public synchronized int getSegmentCount () {
+		Set<Object> segments = Collections.newSetFromMap (new IdentityHashMap<Object, Boolean> ());
+		for (VersionedMap release : this.versionMap.values ()) release.collectSegments (segments);
+
+		return segments.size ();
+	}
+
+	/**
+	 * Returns a release.
+	 * @param version The version.
+	 * @return The release (or null).
+	 * @since 1.0.0
+	 */
+	public synchronized VersionedMap getVersion (@NonNull String version) {
+		return this.versionMap.get (version);
+	}
+
+	/**
+	 * Returns all versions (in commit order).
+	 * @return An unmodifiable list of versions.
+	 * @since 1.0.0
+	 */
+	public synchronized List<String> getVersions () {
+		return Collections.unmodifiableList (new ArrayList<> (this.versionMap.keySet ()));
+	}
+
+	/**
+	 * Removes a release.
+	 * Segments shared with other releases are kept alive by their remaining references.
+	 * @param version The version.
+	 * @return The removed release (or null).
+	 * @since 1.0.0
+	 */
+	public synchronized VersionedMap remove (@NonNull String version) {
+		VersionedMap release = this.versionMap.remove (version);
+
+		// find new latest release
+		if (release != null && release == this.latest) {
+			this.latest = null;
+			for (VersionedMap current : this.versionMap.values ()) this.latest = current;
+		}
+
+		return release;
+	}
+
+	/**
+	 * Returns the amount of releases.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public synchronized int size () {
+		return this.versionMap.size ();
+	}
+}
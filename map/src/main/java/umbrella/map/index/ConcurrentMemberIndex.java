@@ -0,0 +1,276 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides a thread safe nested (owner -> name -> description) index for member instructions.
+ * Lookups are performed with the raw string components and thus do not allocate any key objects. Since concurrent
+ * maps do not permit null keys, null components are replaced with a private marker.
+ * Like {@link WildcardMemberIndex} a null owner or description acts as a wildcard on either side of a lookup, thus
+ * values are additionally stored within a name-only (name -> description -> owner) tier.
+ * @param <V> The value type.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class ConcurrentMemberIndex<V> {
+
+	/**
+	 * Defines the marker which replaces null components.
+	 */
+	private static final String NULL_MARKER = new String ("\0");
+
+	/**
+	 * Stores all values grouped by owner and name.
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, V>>> ownerMap = new ConcurrentHashMap<> ();
+
+	/**
+	 * Stores all values grouped by name and description.
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, V>>> nameMap = new ConcurrentHashMap<> ();
+
+	/**
+	 * Stores the amount of values with a wildcard owner or description.
+	 */
+	private final AtomicInteger wildcards = new AtomicInteger ();
+
+	/**
+	 * Removes all values from the index.
+	 * @since 1.0.0
+	 */
+	public void clear () {
+		this.ownerMap.clear ();
+		this.nameMap.clear ();
+		this.wildcards.set (0);
+	}
+
+	/**
+	 * Returns a value whose key matches (or null).
+	 * Exact matches are preferred over stored wildcards which are preferred over matches of a wildcard lookup.
+	 * @param owner The owner (null matches any owner).
+	 * @param name The name (may be null).
+	 * @param description The description (null matches any description).
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	public V get (String owner, String name, String description) {
+		V value = get (this.ownerMap, owner, name, description);
+		if (value != null) return value;
+
+		// search stored wildcards
+		if (this.wildcards.get () != 0) {
+			if (description != null && (value = get (this.ownerMap, owner, name, null)) != null) return value;
+			if (owner != null && (value = get (this.ownerMap, null, name, description)) != null) return value;
+			if (owner != null && description != null && (value = get (this.ownerMap, null, name, null)) != null) return value;
+		}
+
+		// resolve wildcard lookups
+		if (owner == null && description == null) return getAny (this.nameMap, name, null, true);
+
+		if (owner == null) {
+			value = getAny (this.nameMap, name, description, false);
+			return (value != null ? value : getAny (this.nameMap, name, null, false));
+		}
+
+		if (description == null) {
+			value = getAny (this.ownerMap, owner, name, false);
+			return (value != null ? value : getAny (this.ownerMap, null, name, false));
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns a value from a nested map (or null).
+	 * @param map The map.
+	 * @param key1 The first key (may be null).
+	 * @param key2 The second key (may be null).
+	 * @param key3 The third key (may be null).
+	 * @param <V> The value type.
+	 * @return The value.
+	 */
+	private static <V> V get (ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, V>>> map, String key1, String key2, String key3) {
+		// find first level
+		ConcurrentMap<String, ConcurrentMap<String, V>> map1 = map.get (mask (key1));
+		if (map1 == null) return null;
+
+		// find second level
+		ConcurrentMap<String, V> map2 = map1.get (mask (key2));
+		if (map2 == null) return null;
+
+		// find value
+		return map2.get (mask (key3));
+	}
+
+	/**
+	 * Returns an arbitrary value from a nested map (or null).
+	 * Empty levels are kept, thus levels are searched until a value is found.
+	 * @param map The map.
+	 * @param key1 The first key (may be null).
+	 * @param key2 The second key (may be null).
+	 * @param anyKey2 True if the second key is ignored.
+	 * @param <V> The value type.
+	 * @return The value.
+	 */
+	private static <V> V getAny (ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, V>>> map, String key1, String key2, boolean anyKey2) {
+		// find first level
+		ConcurrentMap<String, ConcurrentMap<String, V>> map1 = map.get (mask (key1));
+		if (map1 == null) return null;
+
+		// find second level
+		if (!anyKey2) {
+			ConcurrentMap<String, V> map2 = map1.get (mask (key2));
+			return (map2 != null ? getAny (map2) : null);
+		}
+
+		for (ConcurrentMap<String, V> map2 : map1.values ()) {
+			V value = getAny (map2);
+			if (value != null) return value;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns an arbitrary value from a map (or null).
+	 * @param map The map.
+	 * @param <V> The value type.
+	 * @return The value.
+	 */
+	private static <V> V getAny (Map<String, V> map) {
+		for (V value : map.values ()) return value;
+		return null;
+	}
+
+	/**
+	 * Returns the value which is stored with exactly the same key (or null).
+	 * @param owner The owner (may be null).
+	 * @param name The name (may be null).
+	 * @param description The description (may be null).
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	public V getExact (String owner, String name, String description) {
+		return get (this.ownerMap, owner, name, description);
+	}
+
+	/**
+	 * Replaces null components with the null marker.
+	 * @param component The component.
+	 * @return The masked component.
+	 */
+	private static String mask (String component) {
+		return (component != null ? component : NULL_MARKER);
+	}
+
+	/**
+	 * Stores a value.
+	 * @param owner The owner (may be null).
+	 * @param name The name (may be null).
+	 * @param description The description (may be null).
+	 * @param value The value.
+	 * @return The previous value (or null).
+	 * @since 1.0.0
+	 */
+	public V put (String owner, String name, String description, V value) {
+		V previous = put (this.ownerMap, owner, name, description, value);
+		put (this.nameMap, name, description, owner, value);
+
+		if (previous == null && (owner == null || description == null)) this.wildcards.incrementAndGet ();
+		return previous;
+	}
+
+	/**
+	 * Stores a value within a nested map.
+	 * @param map The map.
+	 * @param key1 The first key (may be null).
+	 * @param key2 The second key (may be null).
+	 * @param key3 The third key (may be null).
+	 * @param value The value.
+	 * @param <V> The value type.
+	 * @return The previous value (or null).
+	 */
+	private static <V> V put (ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, V>>> map, String key1, String key2, String key3, V value) {
+		key1 = mask (key1);
+		key2 = mask (key2);
+
+		// find or create first level
+		ConcurrentMap<String, ConcurrentMap<String, V>> map1 = map.get (key1);
+
+		if (map1 == null) {
+			ConcurrentMap<String, ConcurrentMap<String, V>> created = new ConcurrentHashMap<> ();
+			map1 = map.putIfAbsent (key1, created);
+			if (map1 == null) map1 = created;
+		}
+
+		// find or create second level
+		ConcurrentMap<String, V> map2 = map1.get (key2);
+
+		if (map2 == null) {
+			ConcurrentMap<String, V> created = new ConcurrentHashMap<> (2);
+			map2 = map1.putIfAbsent (key2, created);
+			if (map2 == null) map2 = created;
+		}
+
+		// store value
+		return map2.put (mask (key3), value);
+	}
+
+	/**
+	 * Removes a value if it is still associated with its exact key.
+	 * Empty levels are kept since they may be populated concurrently.
+	 * @param owner The owner (may be null).
+	 * @param name The name (may be null).
+	 * @param description The description (may be null).
+	 * @param value The expected value.
+	 * @return True if the value has been removed.
+	 * @since 1.0.0
+	 */
+	public boolean remove (String owner, String name, String description, V value) {
+		if (!remove (this.ownerMap, owner, name, description, value)) return false;
+
+		remove (this.nameMap, name, description, owner, value);
+		if (owner == null || description == null) this.wildcards.decrementAndGet ();
+		return true;
+	}
+
+	/**
+	 * Removes a value from a nested map if it is still associated with its key.
+	 * @param map The map.
+	 * @param key1 The first key (may be null).
+	 * @param key2 The second key (may be null).
+	 * @param key3 The third key (may be null).
+	 * @param value The expected value.
+	 * @param <V> The value type.
+	 * @return True if the value has been removed.
+	 */
+	private static <V> boolean remove (ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, V>>> map, String key1, String key2, String key3, V value) {
+		// find first level
+		ConcurrentMap<String, ConcurrentMap<String, V>> map1 = map.get (mask (key1));
+		if (map1 == null) return false;
+
+		// find second level
+		ConcurrentMap<String, V> map2 = map1.get (mask (key2));
+		if (map2 == null) return false;
+
+		// remove value
+		return map2.remove (mask (key3), value);
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.index;
+
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
+
+/**
+ * Provides an immutable open addressing index which maps (owner, name, description) keys to entry numbers.
+ * Keys are stored in parallel arrays and slots store the key hash next to the entry number, thus a lookup usually
+ * touches a single cache line of the slot table and does not allocate any objects.
+ * Instances are immutable and may be shared between threads without synchronization.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class FrozenMemberIndex {
+
+	/**
+	 * Stores the owner of every entry.
+	 */
+	private final String[] owners;
+
+	/**
+	 * Stores the name of every entry.
+	 */
+	private final String[] names;
+
+	/**
+	 * Stores the description of every entry.
+	 */
+	private final String[] descriptions;
+
+	/**
+	 * Stores all slots (pairs of key hash and entry number + 1).
+	 */
+	private final int[] slots;
+
+	/**
+	 * Stores the slot mask.
+	 */
+	private final int mask;
+
+	/**
+	 * Constructs a new FrozenMemberIndex instance.
+	 * Later entries replace earlier entries with an equal key.
+	 * @param owners The owners (elements may be null).
+	 * @param names The names (elements may be null).
+	 * @param descriptions The descriptions (elements may be null).
+	 * @since 1.0.0
+	 */
+	public FrozenMemberIndex (@NonNull String[] owners, @NonNull String[] names, @NonNull String[] descriptions) {
+		Preconditions.checkArgument ((owners.length == names.length && names.length == descriptions.length), "Component arrays differ in length");
+
+		this.owners = owners;
+		this.names = names;
+		this.descriptions = descriptions;
+
+		// allocate slots (keep the load factor at or below 0.5)
+		int capacity = Integer.highestOneBit (Math.max (2, names.length) * 2 - 1) << 1;
+		this.slots = new int[(capacity * 2)];
+		this.mask = (capacity - 1);
+
+		// populate slots
+		for (int i = 0; i < names.length; i++) {
+			int hash = hash (owners[i], names[i], descriptions[i]);
+			int slot = this.findSlot (hash, owners[i], names[i], descriptions[i]);
+
+			this.slots[(slot * 2)] = hash;
+			this.slots[(slot * 2 + 1)] = (i + 1);
+		}
+	}
+
+	/**
+	 * Compares two components.
+	 * @param a The first component.
+	 * @param b The second component.
+	 * @return True if both components are equal.
+	 */
+	private static boolean equal (String a, String b) {
+		return (a == b || (a != null && a.equals (b)));
+	}
+
+	/**
+	 * Searches an entry.
+	 * @param owner The owner (may be null).
+	 * @param name The name (may be null).
+	 * @param description The description (may be null).
+	 * @return The entry number (or -1).
+	 * @since 1.0.0
+	 */
+	public int find (String owner, String name, String description) {
+		int hash = hash (owner, name, description);
+		int entry = this.slots[(this.findSlot (hash, owner, name, description) * 2 + 1)];
+
+		return (entry - 1);
+	}
+
+	/**
+	 * Searches the slot of a key (or the first free slot within its probe sequence).
+	 * @param hash The key hash.
+	 * @param owner The owner.
+	 * @param name The name.
+	 * @param description The description.
+	 * @return The slot.
+	 */
+	private int findSlot (int hash, String owner, String name, String description) {
+		int slot = (hash & this.mask);
+
+		while (true) {
+			int entry = this.slots[(slot * 2 + 1)];
+
+			// free slot
+			if (entry == 0) return slot;
+
+			// compare keys
+			entry--;
+			if (this.slots[(slot * 2)] == hash && equal (this.names[entry], name) && equal (this.owners[entry], owner) && equal (this.descriptions[entry], description)) return slot;
+
+			// probe next slot
+			slot = ((slot + 1) & this.mask);
+		}
+	}
+
+	/**
+	 * Calculates the hash of a key.
+	 * @param owner The owner.
+	 * @param name The name.
+	 * @param description The description.
+	 * @return The hash.
+	 */
+	private static int hash (String owner, String name, String description) {
+		int hash = (owner != null ? owner.hashCode () : 0);
+		hash = (hash * 31 + (name != null ? name.hashCode () : 0));
+		hash = (hash * 31 + (description != null ? description.hashCode () : 0));
+
+		// spread bits (the table is indexed with the lower bits only)
+		hash *= 0x9E3779B9;
+		return (hash ^ (hash >>> 16));
+	}
+
+	/**
+	 * Returns the amount of entries within the index (including replaced entries).
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		return this.names.length;
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides a nested (owner -> name -> description) index for member instructions.
+ * Lookups are performed with the raw string components and thus do not allocate any key objects.
+ * @param <V> The value type.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class MemberIndex<V> {
+
+	/**
+	 * Stores all values grouped by owner and name.
+	 */
+	private final Map<String, Map<String, Map<String, V>>> ownerMap = new HashMap<> ();
+
+	/**
+	 * Stores the amount of values within the index.
+	 */
+	private int size = 0;
+
+	/**
+	 * Removes all values from the index.
+	 * @since 1.0.0
+	 */
+	public void clear () {
+		this.ownerMap.clear ();
+		this.size = 0;
+	}
+
+	/**
+	 * Returns a value (or null).
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	public V get (String owner, String name, String description) {
+		// find owner
+		Map<String, Map<String, V>> nameMap = this.ownerMap.get (owner);
+		if (nameMap == null) return null;
+
+		// find name
+		Map<String, V> descriptionMap = nameMap.get (name);
+		if (descriptionMap == null) return null;
+
+		// find description
+		return descriptionMap.get (description);
+	}
+
+	/**
+	 * Returns an arbitrary value of an owner (or null).
+	 * @param owner The owner (may be null).
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	public V getAny (String owner) {
+		// find owner
+		Map<String, Map<String, V>> nameMap = this.ownerMap.get (owner);
+		if (nameMap == null) return null;
+
+		// empty levels are pruned, thus the first name contains at least one value
+		for (Map<String, V> descriptionMap : nameMap.values ()) return descriptionMap.values ().iterator ().next ();
+		return null;
+	}
+
+	/**
+	 * Returns an arbitrary value of an owner and name (or null).
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	public V getAny (String owner, String name) {
+		// find owner
+		Map<String, Map<String, V>> nameMap = this.ownerMap.get (owner);
+		if (nameMap == null) return null;
+
+		// find name
+		Map<String, V> descriptionMap = nameMap.get (name);
+		return (descriptionMap != null ? descriptionMap.values ().iterator ().next () : null);
+	}
+
+	/**
+	 * Checks whether an owner has any values.
+	 * @param owner The owner (may be null).
+	 * @return True if values are stored for the owner.
+	 * @since 1.0.0
+	 */
+	public boolean containsOwner (String owner) {
+		return this.ownerMap.containsKey (owner);
+	}
+
+	/**
+	 * Returns a copy of all values of an owner.
+	 * @param owner The owner (may be null).
+	 * @return The values (name -> description -> value).
+	 * @since 1.0.0
+	 */
+	public Map<String, Map<String, V>> copyOwner (String owner) {
+		Map<String, Map<String, V>> copy = new HashMap<> ();
+
+		// find owner
+		Map<String, Map<String, V>> nameMap = this.ownerMap.get (owner);
+		if (nameMap == null) return copy;
+
+		// copy names
+		for (Map.Entry<String, Map<String, V>> entry : nameMap.entrySet ()) copy.put (entry.getKey (), new HashMap<> (entry.getValue ()));
+		return copy;
+	}
+
+	/**
+	 * Checks whether the index is empty.
+	 * @return True if no values are stored.
+	 * @since 1.0.0
+	 */
+	public boolean isEmpty () {
+		return (this.size == 0);
+	}
+
+	/**
+	 * Stores a value.
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @param value The value.
+	 * @return The previous value (or null).
+	 * @since 1.0.0
+	 */
+	public V put (String owner, String name, String description, V value) {
+		// find or create owner
+		Map<String, Map<String, V>> nameMap = this.ownerMap.get (owner);
+
+		if (nameMap == null) {
+			nameMap = new HashMap<> ();
+			this.ownerMap.put (owner, nameMap);
+		}
+
+		// find or create name
+		Map<String, V> descriptionMap = nameMap.get (name);
+
+		if (descriptionMap == null) {
+			descriptionMap = new HashMap<> (2);
+			nameMap.put (name, descriptionMap);
+		}
+
+		// store value
+		V previous = descriptionMap.put (description, value);
+		if (previous == null) this.size++;
+
+		// return previous value
+		return previous;
+	}
+
+	/**
+	 * Removes a value.
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @return The removed value (or null).
+	 * @since 1.0.0
+	 */
+	public V remove (String owner, String name, String description) {
+		// find owner
+		Map<String, Map<String, V>> nameMap = this.ownerMap.get (owner);
+		if (nameMap == null) return null;
+
+		// find name
+		Map<String, V> descriptionMap = nameMap.get (name);
+		if (descriptionMap == null) return null;
+
+		// remove value
+		V previous = descriptionMap.remove (description);
+		if (previous == null) return null;
+
+		// update size
+		this.size--;
+
+		// prune empty levels
+		if (descriptionMap.isEmpty ()) nameMap.remove (name);
+		if (nameMap.isEmpty ()) this.ownerMap.remove (owner);
+
+		// return removed value
+		return previous;
+	}
+
+	/**
+	 * Removes a value if it is still associated with its key.
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @param value The expected value.
+	 * @return True if the value has been removed.
+	 * @since 1.0.0
+	 */
+	public boolean remove (String owner, String name, String description, V value) {
+		V current = this.get (owner, name, description);
+		if (current == null || !current.equals (value)) return false;
+
+		// remove value
+		this.remove (owner, name, description);
+		return true;
+	}
+
+	/**
+	 * Returns the amount of values within the index.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		return this.size;
+	}
+}
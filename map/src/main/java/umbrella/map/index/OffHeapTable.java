@@ -0,0 +1,256 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.index;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Provides a mutable open addressing hash table which is stored outside of the heap.
+ * Slots store a key hash next to a positive reference (such as a record offset). The table does not know about the
+ * keys themselves, thus callers iterate all candidates of a hash and compare their keys on their own. Multiple
+ * entries may share a hash (and even a key).
+ * Instances are not thread safe.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class OffHeapTable {
+
+	/**
+	 * Defines the minimum capacity.
+	 */
+	public static final int MINIMUM_CAPACITY = 16;
+
+	/**
+	 * Defines the reference of empty slots.
+	 */
+	private static final int EMPTY = 0;
+
+	/**
+	 * Defines the reference of removed slots.
+	 */
+	private static final int REMOVED = -1;
+
+	/**
+	 * Stores all slots (pairs of key hash and reference).
+	 */
+	private IntBuffer slots;
+
+	/**
+	 * Stores the slot mask.
+	 */
+	private int mask;
+
+	/**
+	 * Stores the amount of entries.
+	 */
+	private int size = 0;
+
+	/**
+	 * Stores the amount of occupied slots (including removed slots).
+	 */
+	private int occupied = 0;
+
+	/**
+	 * Constructs a new OffHeapTable instance.
+	 * @since 1.0.0
+	 */
+	public OffHeapTable () {
+		this (MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new OffHeapTable instance.
+	 * @param capacity The initial amount of slots (rounded up to the next power of two).
+	 * @since 1.0.0
+	 */
+	public OffHeapTable (int capacity) {
+		this.allocate (capacity);
+	}
+
+	/**
+	 * Allocates an empty slot table.
+	 * @param capacity The minimum amount of slots.
+	 */
+	private void allocate (int capacity) {
+		Preconditions.checkArgument ((capacity > 0 && capacity <= (1 << 28)), "Capacity out of bounds");
+		capacity = Math.max (MINIMUM_CAPACITY, Integer.highestOneBit ((capacity * 2) - 1));
+
+		this.slots = ByteBuffer.allocateDirect ((capacity * 8)).asIntBuffer ();
+		this.mask = (capacity - 1);
+		this.size = 0;
+		this.occupied = 0;
+	}
+
+	/**
+	 * Adds an entry.
+	 * @param hash The key hash.
+	 * @param reference The reference (needs to be positive).
+	 * @since 1.0.0
+	 */
+	public void add (int hash, int reference) {
+		Preconditions.checkArgument ((reference > 0), "References need to be positive");
+
+		// keep the load factor (including removed slots) at or below 0.5
+		if (((this.occupied + 1) * 2) > this.getCapacity ()) this.resize ();
+
+		// find a free slot
+		int slot = (hash & this.mask);
+		while (this.slots.get ((slot * 2 + 1)) > 0) slot = ((slot + 1) & this.mask);
+
+		// store entry
+		if (this.slots.get ((slot * 2 + 1)) == EMPTY) this.occupied++;
+
+		this.slots.put ((slot * 2), hash);
+		this.slots.put ((slot * 2 + 1), reference);
+		this.size++;
+	}
+
+	/**
+	 * Removes all entries.
+	 * @since 1.0.0
+	 */
+	public void clear () {
+		this.allocate (MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Returns the first slot which stores an entry with a specific hash.
+	 * @param hash The key hash.
+	 * @return The slot (or -1).
+	 * @since 1.0.0
+	 */
+	public int first (int hash) {
+		return this.search (hash, (hash & this.mask));
+	}
+
+	/**
+	 * Returns the amount of slots.
+	 * @return The capacity.
+	 * @since 1.0.0
+	 */
+	public int getCapacity () {
+		return (this.mask + 1);
+	}
+
+	/**
+	 * Returns the hash stored within a slot.
+	 * @param slot The slot.
+	 * @return The hash.
+	 * @since 1.0.0
+	 */
+	public int getHash (int slot) {
+		return this.slots.get ((slot * 2));
+	}
+
+	/**
+	 * Returns the reference stored within a slot.
+	 * @param slot The slot.
+	 * @return The reference (or a value less than one if the slot is empty).
+	 * @since 1.0.0
+	 */
+	public int getReference (int slot) {
+		return this.slots.get ((slot * 2 + 1));
+	}
+
+	/**
+	 * Returns the next slot which stores an entry with a specific hash.
+	 * @param hash The key hash.
+	 * @param slot The previous slot.
+	 * @return The slot (or -1).
+	 * @since 1.0.0
+	 */
+	public int next (int hash, int slot) {
+		return this.search (hash, ((slot + 1) & this.mask));
+	}
+
+	/**
+	 * Removes an entry.
+	 * @param hash The key hash.
+	 * @param reference The reference.
+	 * @return True if the entry has been removed.
+	 * @since 1.0.0
+	 */
+	public boolean remove (int hash, int reference) {
+		for (int slot = this.first (hash); slot != -1; slot = this.next (hash, slot)) {
+			if (this.getReference (slot) != reference) continue;
+
+			this.slots.put ((slot * 2 + 1), REMOVED);
+			this.size--;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Re-allocates the table (removed slots are discarded).
+	 */
+	private void resize () {
+		IntBuffer previous = this.slots;
+		int previousCapacity = this.getCapacity ();
+
+		// grow unless most slots have been occupied by removed entries
+		this.allocate (Math.max (MINIMUM_CAPACITY, ((this.size + 1) * 2)));
+
+		for (int slot = 0; slot < previousCapacity; slot++) {
+			int reference = previous.get ((slot * 2 + 1));
+			if (reference > 0) this.add (previous.get ((slot * 2)), reference);
+		}
+	}
+
+	/**
+	 * Searches an entry with a specific hash.
+	 * @param hash The key hash.
+	 * @param slot The first slot.
+	 * @return The slot (or -1).
+	 */
+	private int search (int hash, int slot) {
+		while (true) {
+			int reference = this.slots.get ((slot * 2 + 1));
+
+			// stop at empty slots
+			if (reference == EMPTY) return -1;
+
+			// compare hashes
+			if (reference > 0 && this.slots.get ((slot * 2)) == hash) return slot;
+
+			// probe next slot
+			slot = ((slot + 1) & this.mask);
+		}
+	}
+
+	/**
+	 * Replaces the reference stored within a slot.
+	 * @param slot The slot.
+	 * @param reference The reference (needs to be positive).
+	 * @since 1.0.0
+	 */
+	public void set (int slot, int reference) {
+		Preconditions.checkArgument ((reference > 0), "References need to be positive");
+		this.slots.put ((slot * 2 + 1), reference);
+	}
+
+	/**
+	 * Returns the amount of entries.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		return this.size;
+	}
+}
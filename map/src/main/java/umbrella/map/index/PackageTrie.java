@@ -0,0 +1,298 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.index;
+
+import lombok.NonNull;
+
+/**
+ * Provides a trie of slash separated package names.
+ * Every node represents a single package segment, thus a type name is resolved against the most specific package
+ * which contains it in O(path length). Segments are compared against regions of the type name, hence lookups do
+ * not allocate any intermediate strings. Empty nodes are kept after removals.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class PackageTrie {
+
+	/**
+	 * Stores the root node (the default package).
+	 */
+	private final Node root = new Node ();
+
+	/**
+	 * Stores the amount of stored packages.
+	 */
+	private int size = 0;
+
+	/**
+	 * Removes all packages from the trie.
+	 * @since 1.0.0
+	 */
+	public void clear () {
+		this.root.clear ();
+		this.size = 0;
+	}
+
+	/**
+	 * Searches the node of a package.
+	 * @param packageName The package name.
+	 * @param create True if missing nodes shall be created.
+	 * @return The node (or null).
+	 */
+	private Node find (String packageName, boolean create) {
+		Node node = this.root;
+		int start = 0;
+
+		while (node != null && start < packageName.length ()) {
+			int end = packageName.indexOf ('/', start);
+			if (end == -1) end = packageName.length ();
+
+			Node child = node.getChild (packageName, start, end);
+			if (child == null && create) child = node.addChild (packageName.substring (start, end));
+
+			node = child;
+			start = (end + 1);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Returns the replacement of a package (or null).
+	 * @param packageName The package name.
+	 * @return The replacement.
+	 * @since 1.0.0
+	 */
+	public String get (@NonNull String packageName) {
+		Node node = this.find (packageName, false);
+		return (node != null ? node.value : null);
+	}
+
+	/**
+	 * Checks whether the trie is empty.
+	 * @return True if no packages are stored.
+	 * @since 1.0.0
+	 */
+	public boolean isEmpty () {
+		return (this.size == 0);
+	}
+
+	/**
+	 * Maps a type name based on the most specific package which contains it.
+	 * The default package (an empty package name) only contains types without a package.
+	 * @param typeName The type name.
+	 * @return The mapped type name (or null if no package matches).
+	 * @since 1.0.0
+	 */
+	public String map (@NonNull String typeName) {
+		// search most specific package (the last segment is the simple type name)
+		Node node = this.root;
+		Node match = (this.root.value != null && typeName.indexOf ('/') == -1 ? this.root : null);
+		int matchEnd = 0;
+		int start = 0;
+
+		for (int end = typeName.indexOf ('/'); end != -1; end = typeName.indexOf ('/', start)) {
+			node = node.getChild (typeName, start, end);
+			if (node == null) break;
+
+			if (node.value != null) {
+				match = node;
+				matchEnd = end;
+			}
+
+			start = (end + 1);
+		}
+
+		if (match == null) return null;
+
+		// replace package
+		if (matchEnd == 0) return (match.value.isEmpty () ? typeName : match.value + '/' + typeName);
+		return (match.value.isEmpty () ? typeName.substring ((matchEnd + 1)) : match.value + typeName.substring (matchEnd));
+	}
+
+	/**
+	 * Stores a package replacement.
+	 * @param packageName The package name.
+	 * @param replacement The replacement package name.
+	 * @return The previous replacement (or null).
+	 * @since 1.0.0
+	 */
+	public String put (@NonNull String packageName, @NonNull String replacement) {
+		Node node = this.find (packageName, true);
+
+		String previous = node.value;
+		node.value = replacement;
+		if (previous == null) this.size++;
+
+		return previous;
+	}
+
+	/**
+	 * Removes a package replacement.
+	 * @param packageName The package name.
+	 * @return The previous replacement (or null).
+	 * @since 1.0.0
+	 */
+	public String remove (@NonNull String packageName) {
+		Node node = this.find (packageName, false);
+		if (node == null || node.value == null) return null;
+
+		String previous = node.value;
+		node.value = null;
+		this.size--;
+
+		return previous;
+	}
+
+	/**
+	 * Removes a package replacement if it is still associated with its package.
+	 * @param packageName The package name.
+	 * @param replacement The expected replacement.
+	 * @return True if the replacement has been removed.
+	 * @since 1.0.0
+	 */
+	public boolean remove (@NonNull String packageName, @NonNull String replacement) {
+		Node node = this.find (packageName, false);
+		if (node == null || !replacement.equals (node.value)) return false;
+
+		node.value = null;
+		this.size--;
+
+		return true;
+	}
+
+	/**
+	 * Returns the amount of stored packages.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		return this.size;
+	}
+
+	/**
+	 * Represents a single package segment.
+	 */
+	private static final class Node {
+
+		/**
+		 * Stores the replacement of the package (or null).
+		 */
+		private String value = null;
+
+		/**
+		 * Stores the segments of all children (open addressing).
+		 */
+		private String[] segments = new String[2];
+
+		/**
+		 * Stores all children (in the order of their segments).
+		 */
+		private Node[] children = new Node[2];
+
+		/**
+		 * Stores the amount of children.
+		 */
+		private int childCount = 0;
+
+		/**
+		 * Creates a child node.
+		 * @param segment The segment.
+		 * @return The child.
+		 */
+		public Node addChild (String segment) {
+			// grow table (the load factor is kept below 3/4)
+			if (((this.childCount + 1) * 4) > (this.segments.length * 3)) this.resize ((this.segments.length * 2));
+
+			Node child = new Node ();
+			this.insert (segment, child);
+			this.childCount++;
+
+			return child;
+		}
+
+		/**
+		 * Removes all children and the replacement.
+		 */
+		public void clear () {
+			this.value = null;
+			this.segments = new String[2];
+			this.children = new Node[2];
+			this.childCount = 0;
+		}
+
+		/**
+		 * Searches a child based on a region of a string.
+		 * @param path The path.
+		 * @param start The segment start.
+		 * @param end The segment end.
+		 * @return The child (or null).
+		 */
+		public Node getChild (String path, int start, int end) {
+			// compute hash (equal to String#hashCode)
+			int hash = 0;
+			for (int i = start; i < end; i++) hash = ((31 * hash) + path.charAt (i));
+
+			// probe table
+			int length = (end - start);
+			int mask = (this.segments.length - 1);
+
+			for (int slot = (spread (hash) & mask); this.segments[slot] != null; slot = ((slot + 1) & mask)) {
+				String segment = this.segments[slot];
+				if (segment.hashCode () == hash && segment.length () == length && path.regionMatches (start, segment, 0, length)) return this.children[slot];
+			}
+
+			return null;
+		}
+
+		/**
+		 * Inserts a child into the table.
+		 * @param segment The segment.
+		 * @param child The child.
+		 */
+		private void insert (String segment, Node child) {
+			int mask = (this.segments.length - 1);
+			int slot = (spread (segment.hashCode ()) & mask);
+
+			while (this.segments[slot] != null) slot = ((slot + 1) & mask);
+
+			this.segments[slot] = segment;
+			this.children[slot] = child;
+		}
+
+		/**
+		 * Resizes the table.
+		 * @param capacity The new capacity.
+		 */
+		private void resize (int capacity) {
+			String[] segments = this.segments;
+			Node[] children = this.children;
+
+			this.segments = new String[capacity];
+			this.children = new Node[capacity];
+
+			for (int i = 0; i < segments.length; i++) if (segments[i] != null) this.insert (segments[i], children[i]);
+		}
+
+		/**
+		 * Spreads the bits of a hash code.
+		 * @param hash The hash code.
+		 * @return The spread hash code.
+		 */
+		private static int spread (int hash) {
+			return (hash ^ (hash >>> 16));
+		}
+	}
+}
@@ -0,0 +1,647 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.index;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Provides an immutable hash array mapped trie.
+ * Every modification returns a new map which shares all untouched nodes with its predecessor, thus a modification
+ * copies at most one node per level (32-way branching) and many versions of a large map may be kept at the cost of
+ * their differences. Null keys are permitted. Iterating a map traverses its nodes directly without copying them.
+ * @param <K> The key type.
+ * @param <V> The value type.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+	/**
+	 * Defines the amount of hash bits which are consumed per level.
+	 */
+	private static final int BITS_PER_LEVEL = 5;
+
+	/**
+	 * Defines the maximum trie depth (including collision nodes).
+	 */
+	private static final int MAXIMUM_DEPTH = ((32 / BITS_PER_LEVEL) + 2);
+
+	/**
+	 * Defines the marker which replaces null keys.
+	 */
+	private static final Object NULL_KEY = new Object ();
+
+	/**
+	 * Defines the empty map.
+	 */
+	private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<> (null, 0);
+
+	/**
+	 * Stores the root node (or null if the map is empty).
+	 */
+	private final Node root;
+
+	/**
+	 * Stores the amount of entries.
+	 */
+	private final int size;
+
+	/**
+	 * Constructs a new PersistentHashMap instance.
+	 * @param root The root node.
+	 * @param size The amount of entries.
+	 */
+	private PersistentHashMap (Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the empty map.
+	 * @param <K> The key type.
+	 * @param <V> The value type.
+	 * @return The map.
+	 * @since 1.0.0
+	 */
+	@SuppressWarnings ("unchecked")
+	public static <K, V> PersistentHashMap<K, V> empty () {
+		return ((PersistentHashMap<K, V>) EMPTY);
+	}
+
+	/**
+	 * Returns a value (or null).
+	 * @param key The key (may be null).
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	@SuppressWarnings ("unchecked")
+	public V get (Object key) {
+		if (this.root == null) return null;
+
+		Object masked = mask (key);
+		return ((V) this.root.get (masked, hash (masked), 0));
+	}
+
+	/**
+	 * Checks whether the map is empty.
+	 * @return True if the map does not contain any entries.
+	 * @since 1.0.0
+	 */
+	public boolean isEmpty () {
+		return (this.size == 0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Entries are returned in an unspecified order.
+	 */
+	@Override
+	public Iterator<Map.Entry<K, V>> iterator () {
+		return new EntryIterator<> (this.root);
+	}
+
+	/**
+	 * Spreads the hash code of a key.
+	 * @param key The (masked) key.
+	 * @return The hash code.
+	 */
+	private static int hash (Object key) {
+		int hash = key.hashCode ();
+		return (hash ^ (hash >>> 16));
+	}
+
+	/**
+	 * Replaces null keys with the null marker.
+	 * @param key The key.
+	 * @return The masked key.
+	 */
+	private static Object mask (Object key) {
+		return (key != null ? key : NULL_KEY);
+	}
+
+	/**
+	 * Returns a map which does not contain a key.
+	 * @param key The key (may be null).
+	 * @return The map (or this map if the key is not present).
+	 * @since 1.0.0
+	 */
+	public PersistentHashMap<K, V> minus (Object key) {
+		if (this.root == null) return this;
+
+		Object masked = mask (key);
+		Node root = this.root.remove (masked, hash (masked), 0);
+
+		if (root == this.root) return this;
+		return (root != null ? new PersistentHashMap<K, V> (root, (this.size - 1)) : PersistentHashMap.<K, V>empty ());
+	}
+
+	/**
+	 * Returns a map which associates a key with a value.
+	 * @param key The key (may be null).
+	 * @param value The value.
+	 * @return The map (or this map if the key is already associated with the same value instance).
+	 * @since 1.0.0
+	 */
+	public PersistentHashMap<K, V> plus (K key, V value) {
+		Object masked = mask (key);
+		boolean[] added = new boolean[1];
+
+		Node root = (this.root != null ? this.root : BitmapNode.EMPTY).put (masked, hash (masked), 0, value, added);
+
+		if (root == this.root) return this;
+		return new PersistentHashMap<K, V> (root, (added[0] ? (this.size + 1) : this.size));
+	}
+
+	/**
+	 * Returns the amount of entries.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		return this.size;
+	}
+
+	/**
+	 * Copies all entries into a mutable map.
+	 * @return The map.
+	 * @since 1.0.0
+	 */
+	@SuppressWarnings ("unchecked")
+	public Map<K, V> toMap () {
+		Map<Object, Object> map = new HashMap<> (((int) (this.size / 0.75f) + 1));
+		if (this.root != null) this.root.collect (map);
+
+		return ((Map<K, V>) ((Map<?, ?>) map));
+	}
+
+	/**
+	 * Represents a single trie node.
+	 */
+	private static abstract class Node {
+
+		/**
+		 * Stores the keys (or null if the slot contains a child).
+		 */
+		protected final Object[] keys;
+
+		/**
+		 * Stores the values or children.
+		 */
+		protected final Object[] values;
+
+		/**
+		 * Constructs a new Node instance.
+		 * @param keys The keys.
+		 * @param values The values or children.
+		 */
+		protected Node (Object[] keys, Object[] values) {
+			this.keys = keys;
+			this.values = values;
+		}
+
+		/**
+		 * Copies all entries into a map.
+		 * @param map The map.
+		 */
+		public abstract void collect (Map<Object, Object> map);
+
+		/**
+		 * Returns a value (or null).
+		 * @param key The key.
+		 * @param hash The key hash.
+		 * @param shift The level shift.
+		 * @return The value.
+		 */
+		public abstract Object get (Object key, int hash, int shift);
+
+		/**
+		 * Returns a node which associates a key with a value.
+		 * @param key The key.
+		 * @param hash The key hash.
+		 * @param shift The level shift.
+		 * @param value The value.
+		 * @param added Receives whether a new key has been added.
+		 * @return The node (or this node if nothing has changed).
+		 */
+		public abstract Node put (Object key, int hash, int shift, Object value, boolean[] added);
+
+		/**
+		 * Returns a node which does not contain a key.
+		 * @param key The key.
+		 * @param hash The key hash.
+		 * @param shift The level shift.
+		 * @return The node (this node if nothing has changed or null if the node became empty).
+		 */
+		public abstract Node remove (Object key, int hash, int shift);
+
+		/**
+		 * Creates a node which contains two entries.
+		 * @param shift The level shift.
+		 * @param key1 The first key.
+		 * @param hash1 The first hash.
+		 * @param value1 The first value.
+		 * @param key2 The second key.
+		 * @param hash2 The second hash.
+		 * @param value2 The second value.
+		 * @return The node.
+		 */
+		protected static Node create (int shift, Object key1, int hash1, Object value1, Object key2, int hash2, Object value2) {
+			if (hash1 == hash2) return new CollisionNode (hash1, new Object[] { key1, key2 }, new Object[] { value1, value2 });
+
+			boolean[] added = new boolean[1];
+			return BitmapNode.EMPTY.put (key1, hash1, shift, value1, added).put (key2, hash2, shift, value2, added);
+		}
+	}
+
+	/**
+	 * Represents a node which stores up to 32 entries or children (selected by a bitmap).
+	 */
+	private static final class BitmapNode extends Node {
+
+		/**
+		 * Defines the empty node.
+		 */
+		public static final BitmapNode EMPTY = new BitmapNode (0, new Object[0], new Object[0]);
+
+		/**
+		 * Stores the occupied slots.
+		 */
+		private final int bitmap;
+
+		/**
+		 * Constructs a new BitmapNode instance.
+		 * @param bitmap The bitmap.
+		 * @param keys The keys.
+		 * @param values The values or children.
+		 */
+		public BitmapNode (int bitmap, Object[] keys, Object[] values) {
+			super (keys, values);
+			this.bitmap = bitmap;
+		}
+
+		/**
+		 * Returns the bit of a hash at a certain level.
+		 * @param hash The hash.
+		 * @param shift The level shift.
+		 * @return The bit.
+		 */
+		private static int bit (int hash, int shift) {
+			return (1 << ((hash >>> shift) & 31));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void collect (Map<Object, Object> map) {
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] == null)
+					((Node) this.values[i]).collect (map);
+				else
+					map.put ((this.keys[i] != NULL_KEY ? this.keys[i] : null), this.values[i]);
+			}
+		}
+
+		/**
+		 * Returns the array index of a bit.
+		 * @param bit The bit.
+		 * @return The index.
+		 */
+		private int index (int bit) {
+			return Integer.bitCount ((this.bitmap & (bit - 1)));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object get (Object key, int hash, int shift) {
+			int bit = bit (hash, shift);
+			if ((this.bitmap & bit) == 0) return null;
+
+			int index = this.index (bit);
+			if (this.keys[index] == null) return ((Node) this.values[index]).get (key, hash, (shift + BITS_PER_LEVEL));
+			return (key.equals (this.keys[index]) ? this.values[index] : null);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Node put (Object key, int hash, int shift, Object value, boolean[] added) {
+			int bit = bit (hash, shift);
+			int index = this.index (bit);
+
+			// insert new entries
+			if ((this.bitmap & bit) == 0) {
+				Object[] keys = new Object[(this.keys.length + 1)];
+				Object[] values = new Object[(this.values.length + 1)];
+
+				System.arraycopy (this.keys, 0, keys, 0, index);
+				System.arraycopy (this.values, 0, values, 0, index);
+				keys[index] = key;
+				values[index] = value;
+				System.arraycopy (this.keys, index, keys, (index + 1), (this.keys.length - index));
+				System.arraycopy (this.values, index, values, (index + 1), (this.values.length - index));
+
+				added[0] = true;
+				return new BitmapNode ((this.bitmap | bit), keys, values);
+			}
+
+			// update children
+			Object current = this.keys[index];
+
+			if (current == null) {
+				Node child = ((Node) this.values[index]);
+				Node updated = child.put (key, hash, (shift + BITS_PER_LEVEL), value, added);
+
+				return (updated != child ? this.replace (index, null, updated) : this);
+			}
+
+			// update values
+			if (key.equals (current)) return (this.values[index] != value ? this.replace (index, current, value) : this);
+
+			// split entries
+			added[0] = true;
+			return this.replace (index, null, create ((shift + BITS_PER_LEVEL), current, PersistentHashMap.hash (current), this.values[index], key, hash, value));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Node remove (Object key, int hash, int shift) {
+			int bit = bit (hash, shift);
+			if ((this.bitmap & bit) == 0) return this;
+
+			int index = this.index (bit);
+			Object current = this.keys[index];
+
+			// update children
+			if (current == null) {
+				Node child = ((Node) this.values[index]);
+				Node updated = child.remove (key, hash, (shift + BITS_PER_LEVEL));
+
+				if (updated == child) return this;
+				if (updated != null) return this.replace (index, null, updated);
+			} else if (!key.equals (current)) return this;
+
+			// remove slot
+			if (this.keys.length == 1) return null;
+
+			Object[] keys = new Object[(this.keys.length - 1)];
+			Object[] values = new Object[(this.values.length - 1)];
+
+			System.arraycopy (this.keys, 0, keys, 0, index);
+			System.arraycopy (this.values, 0, values, 0, index);
+			System.arraycopy (this.keys, (index + 1), keys, index, (keys.length - index));
+			System.arraycopy (this.values, (index + 1), values, index, (values.length - index));
+
+			return new BitmapNode ((this.bitmap & ~bit), keys, values);
+		}
+
+		/**
+		 * Copies the node and replaces a single slot.
+		 * @param index The slot index.
+		 * @param key The key (or null for children).
+		 * @param value The value or child.
+		 * @return The node.
+		 */
+		private BitmapNode replace (int index, Object key, Object value) {
+			Object[] keys = this.keys.clone ();
+			Object[] values = this.values.clone ();
+
+			keys[index] = key;
+			values[index] = value;
+
+			return new BitmapNode (this.bitmap, keys, values);
+		}
+	}
+
+	/**
+	 * Represents a node which stores entries with identical hash codes.
+	 */
+	private static final class CollisionNode extends Node {
+
+		/**
+		 * Stores the shared hash code.
+		 */
+		private final int hash;
+
+		/**
+		 * Constructs a new CollisionNode instance.
+		 * @param hash The shared hash code.
+		 * @param keys The keys.
+		 * @param values The values.
+		 */
+		public CollisionNode (int hash, Object[] keys, Object[] values) {
+			super (keys, values);
+			this.hash = hash;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void collect (Map<Object, Object> map) {
+			for (int i = 0; i < this.keys.length; i++) map.put ((this.keys[i] != NULL_KEY ? this.keys[i] : null), this.values[i]);
+		}
+
+		/**
+		 * Searches a key.
+		 * @param key The key.
+		 * @return The index (or -1).
+		 */
+		private int find (Object key) {
+			for (int i = 0; i < this.keys.length; i++) if (key.equals (this.keys[i])) return i;
+			return -1;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object get (Object key, int hash, int shift) {
+			int index = (hash == this.hash ? this.find (key) : -1);
+			return (index != -1 ? this.values[index] : null);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Node put (Object key, int hash, int shift, Object value, boolean[] added) {
+			// nest keys with a different hash
+			if (hash != this.hash) {
+				Node node = new BitmapNode (BitmapNode.bit (this.hash, shift), new Object[] { null }, new Object[] { this });
+
+				return node.put (key, hash, shift, value, added);
+			}
+
+			// update values
+			int index = this.find (key);
+
+			if (index != -1) {
+				if (this.values[index] == value) return this;
+
+				Object[] values = this.values.clone ();
+				values[index] = value;
+
+				return new CollisionNode (this.hash, this.keys, values);
+			}
+
+			// append entries
+			Object[] keys = new Object[(this.keys.length + 1)];
+			Object[] values = new Object[(this.values.length + 1)];
+
+			System.arraycopy (this.keys, 0, keys, 0, this.keys.length);
+			System.arraycopy (this.values, 0, values, 0, this.values.length);
+			keys[this.keys.length] = key;
+			values[this.values.length] = value;
+
+			added[0] = true;
+			return new CollisionNode (this.hash, keys, values);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Node remove (Object key, int hash, int shift) {
+			int index = (hash == this.hash ? this.find (key) : -1);
+			if (index == -1) return this;
+			if (this.keys.length == 1) return null;
+
+			Object[] keys = new Object[(this.keys.length - 1)];
+			Object[] values = new Object[(this.values.length - 1)];
+
+			System.arraycopy (this.keys, 0, keys, 0, index);
+			System.arraycopy (this.values, 0, values, 0, index);
+			System.arraycopy (this.keys, (index + 1), keys, index, (keys.length - index));
+			System.arraycopy (this.values, (index + 1), values, index, (values.length - index));
+
+			return new CollisionNode (this.hash, keys, values);
+		}
+	}
+
+	/**
+	 * Iterates the entries of a trie (depth first).
+	 * @param <K> The key type.
+	 * @param <V> The value type.
+	 */
+	private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+		/**
+		 * Stores the nodes which are currently visited (one per level).
+		 */
+		private final Node[] nodes = new Node[MAXIMUM_DEPTH];
+
+		/**
+		 * Stores the next slot of each visited node.
+		 */
+		private final int[] slots = new int[MAXIMUM_DEPTH];
+
+		/**
+		 * Stores the current level (or -1 if the iteration is complete).
+		 */
+		private int depth = -1;
+
+		/**
+		 * Stores the next entry (or null).
+		 */
+		private Map.Entry<K, V> next;
+
+		/**
+		 * Constructs a new EntryIterator instance.
+		 * @param root The root node (or null).
+		 */
+		public EntryIterator (Node root) {
+			if (root != null) this.push (root);
+			this.next = this.advance ();
+		}
+
+		/**
+		 * Searches the next entry.
+		 * @return The entry (or null).
+		 */
+		@SuppressWarnings ("unchecked")
+		private Map.Entry<K, V> advance () {
+			while (this.depth >= 0) {
+				Node node = this.nodes[this.depth];
+				int slot = this.slots[this.depth]++;
+
+				// leave exhausted nodes
+				if (slot >= node.keys.length) {
+					this.nodes[this.depth--] = null;
+					continue;
+				}
+
+				// enter children
+				if (node.keys[slot] == null) {
+					this.push (((Node) node.values[slot]));
+					continue;
+				}
+
+				return new AbstractMap.SimpleImmutableEntry<> (((K) (node.keys[slot] != NULL_KEY ? node.keys[slot] : null)), ((V) node.values[slot]));
+			}
+
+			return null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext () {
+			return (this.next != null);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Map.Entry<K, V> next () {
+			if (this.next == null) throw new NoSuchElementException ();
+
+			Map.Entry<K, V> entry = this.next;
+			this.next = this.advance ();
+
+			return entry;
+		}
+
+		/**
+		 * Enters a node.
+		 * @param node The node.
+		 */
+		private void push (Node node) {
+			this.depth++;
+			this.nodes[this.depth] = node;
+			this.slots[this.depth] = 0;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @throws UnsupportedOperationException Persistent maps are immutable.
+		 */
+		@Override
+		public void remove () {
+			throw new UnsupportedOperationException ("Persistent maps are immutable");
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.index;
+
+import java.util.Map;
+
+/**
+ * Provides a member index which resolves keys the same way member instructions compare themselves.
+ * A null owner or description acts as a wildcard on either side of a lookup. Since wildcards are not reflected by
+ * instruction hash codes, entries are stored within two tiers instead: an exact (owner -> name -> description) tier
+ * which also answers owner and name lookups with a wildcard description and a name-only (name -> description ->
+ * owner) tier which answers lookups with a wildcard owner. Every lookup performs a constant amount of probes.
+ * @param <V> The value type.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class WildcardMemberIndex<V> {
+
+	/**
+	 * Stores all values (owner -> name -> description).
+	 */
+	private final MemberIndex<V> exactIndex = new MemberIndex<> ();
+
+	/**
+	 * Stores all values (name -> description -> owner).
+	 */
+	private final MemberIndex<V> nameIndex = new MemberIndex<> ();
+
+	/**
+	 * Stores the amount of values with a wildcard owner or description.
+	 */
+	private int wildcards = 0;
+
+	/**
+	 * Removes all values from the index.
+	 * @since 1.0.0
+	 */
+	public void clear () {
+		this.exactIndex.clear ();
+		this.nameIndex.clear ();
+		this.wildcards = 0;
+	}
+
+	/**
+	 * Checks whether an owner has any values.
+	 * @param owner The owner (null checks for values with a wildcard owner).
+	 * @return True if values are stored for the owner.
+	 * @since 1.0.0
+	 */
+	public boolean containsOwner (String owner) {
+		return this.exactIndex.containsOwner (owner);
+	}
+
+	/**
+	 * Returns a copy of all values which are stored for an owner.
+	 * @param owner The owner (null returns values with a wildcard owner).
+	 * @return The values (name -> description -> value).
+	 * @since 1.0.0
+	 */
+	public Map<String, Map<String, V>> copyOwner (String owner) {
+		return this.exactIndex.copyOwner (owner);
+	}
+
+	/**
+	 * Returns the value which is stored with exactly the same key (or null).
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	public V getExact (String owner, String name, String description) {
+		return this.exactIndex.get (owner, name, description);
+	}
+
+	/**
+	 * Returns a value whose key matches (or null).
+	 * Exact matches are preferred over stored wildcards which are preferred over matches of a wildcard lookup.
+	 * @param owner The owner (null matches any owner).
+	 * @param name The name.
+	 * @param description The description (null matches any description).
+	 * @return The value.
+	 * @since 1.0.0
+	 */
+	public V get (String owner, String name, String description) {
+		V value = this.exactIndex.get (owner, name, description);
+		if (value != null) return value;
+
+		// search stored wildcards
+		if (this.wildcards != 0) {
+			if (description != null && (value = this.exactIndex.get (owner, name, null)) != null) return value;
+			if (owner != null && (value = this.exactIndex.get (null, name, description)) != null) return value;
+			if (owner != null && description != null && (value = this.exactIndex.get (null, name, null)) != null) return value;
+		}
+
+		// resolve wildcard lookups
+		if (owner == null && description == null) return this.nameIndex.getAny (name);
+
+		if (owner == null) {
+			value = this.nameIndex.getAny (name, description);
+			return (value != null ? value : this.nameIndex.getAny (name, null));
+		}
+
+		if (description == null) {
+			value = this.exactIndex.getAny (owner, name);
+			return (value != null ? value : this.exactIndex.getAny (null, name));
+		}
+
+		return null;
+	}
+
+	/**
+	 * Checks whether the index is empty.
+	 * @return True if no values are stored.
+	 * @since 1.0.0
+	 */
+	public boolean isEmpty () {
+		return this.exactIndex.isEmpty ();
+	}
+
+	/**
+	 * Stores a value.
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @param value The value.
+	 * @return The previous value (or null).
+	 * @since 1.0.0
+	 */
+	public V put (String owner, String name, String description, V value) {
+		V previous = this.exactIndex.put (owner, name, description, value);
+		this.nameIndex.put (name, description, owner, value);
+
+		if (previous == null && (owner == null || description == null)) this.wildcards++;
+		return previous;
+	}
+
+	/**
+	 * Removes a value.
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @return The removed value (or null).
+	 * @since 1.0.0
+	 */
+	public V remove (String owner, String name, String description) {
+		V previous = this.exactIndex.remove (owner, name, description);
+		if (previous == null) return null;
+
+		this.nameIndex.remove (name, description, owner);
+		if (owner == null || description == null) this.wildcards--;
+		return previous;
+	}
+
+	/**
+	 * Removes a value if it is still associated with its exact key.
+	 * @param owner The owner (may be null).
+	 * @param name The name.
+	 * @param description The description (may be null).
+	 * @param value The expected value.
+	 * @return True if the value has been removed.
+	 * @since 1.0.0
+	 */
+	public boolean remove (String owner, String name, String description, V value) {
+		V current = this.exactIndex.get (owner, name, description);
+		if (current == null || !current.equals (value)) return false;
+
+		// remove value
+		this.remove (owner, name, description);
+		return true;
+	}
+
+	/**
+	 * Returns the amount of values within the index.
+	 * @return The size.
+	 * @since 1.0.0
+	 */
+	public int size () {
+		return this.exactIndex.size ();
+	}
+}
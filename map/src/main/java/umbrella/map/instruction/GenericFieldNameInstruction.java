@@ -18,6 +18,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import umbrella.map.IMap;
+import umbrella.map.instruction.utility.AbstractMapInstructionFactory;
+import umbrella.map.instruction.utility.IMapInstructionFactory;
 
 /**
  * @author Johannes Donath <johannesd@evil-co.com>
@@ -26,6 +28,20 @@ import umbrella.map.IMap;
 @RequiredArgsConstructor
 public class GenericFieldNameInstruction implements IFieldNameInstruction {
 
+	/**
+	 * Defines the instruction factory.
+	 */
+	public static final IMapInstructionFactory<GenericFieldNameInstruction> FACTORY = new AbstractMapInstructionFactory<GenericFieldNameInstruction> (GenericFieldNameInstruction.class) {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public GenericFieldNameInstruction create (String serialized) {
+			return (new GenericFieldNameInstruction (serialized));
+		}
+	};
+
 	/**
 	 * Stores the field owner.
 	 */
@@ -53,10 +69,11 @@ public class GenericFieldNameInstruction implements IFieldNameInstruction {
 		int ownerEnd = serialized.indexOf ('#');
 		int nameEnd = serialized.indexOf (':');
 
-		// split
-		this.owner = serialized.substring (0, ownerEnd);
+		// split (empty owners and descriptions as well as the legacy "null" description are wildcards)
+		this.owner = (ownerEnd != 0 ? serialized.substring (0, ownerEnd) : null);
 		this.name = serialized.substring ((ownerEnd + 1), nameEnd);
-		this.description = serialized.substring ((nameEnd + 1));
+		String description = serialized.substring ((nameEnd + 1));
+		this.description = (description.isEmpty () || description.equals ("null") ? null : description);
 	}
 
 	/**
@@ -72,7 +89,7 @@ public class GenericFieldNameInstruction implements IFieldNameInstruction {
 	 */
 	@Override
 	public String serialize () {
-		return this.owner + "#" + this.name + ":" + this.description;
+		return (this.owner != null ? this.owner : "") + "#" + this.name + ":" + (this.description != null ? this.description : "");
 	}
 
 	/**
@@ -18,6 +18,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import umbrella.map.IMap;
+import umbrella.map.instruction.utility.AbstractMapInstructionFactory;
+import umbrella.map.instruction.utility.IMapInstructionFactory;
 
 /**
  * @author Johannes Donath <johannesd@evil-co.com>
@@ -26,6 +28,20 @@ import umbrella.map.IMap;
 @RequiredArgsConstructor
 public class GenericInvokeDynamicMethodNameInstruction implements IInvokeDynamicMethodNameMapInstruction {
 
+	/**
+	 * Defines the instruction factory.
+	 */
+	public static final IMapInstructionFactory<GenericInvokeDynamicMethodNameInstruction> FACTORY = new AbstractMapInstructionFactory<GenericInvokeDynamicMethodNameInstruction> (GenericInvokeDynamicMethodNameInstruction.class) {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public GenericInvokeDynamicMethodNameInstruction create (String serialized) {
+			return (new GenericInvokeDynamicMethodNameInstruction (serialized));
+		}
+	};
+
 	/**
 	 * Stores the method name.
 	 */
@@ -46,9 +62,10 @@ public class GenericInvokeDynamicMethodNameInstruction implements IInvokeDynamic
 	public GenericInvokeDynamicMethodNameInstruction (String serialized) {
 		int nameEnd = serialized.indexOf (':');
 
-		// split
+		// split (empty descriptions as well as the legacy "null" description are wildcards)
 		this.name = serialized.substring (0, nameEnd);
-		this.description = serialized.substring ((nameEnd + 1));
+		String description = serialized.substring ((nameEnd + 1));
+		this.description = (description.isEmpty () || description.equals ("null") ? null : description);
 	}
 
 	/**
@@ -64,7 +81,7 @@ public class GenericInvokeDynamicMethodNameInstruction implements IInvokeDynamic
 	 */
 	@Override
 	public String serialize () {
-		return this.name + ":" + this.description;
+		return this.name + ":" + (this.description != null ? this.description : "");
 	}
 
 	/**
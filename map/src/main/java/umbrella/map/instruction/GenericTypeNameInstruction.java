@@ -18,6 +18,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import umbrella.map.IMap;
+import umbrella.map.instruction.utility.AbstractMapInstructionFactory;
+import umbrella.map.instruction.utility.IMapInstructionFactory;
 
 /**
  * @author Johannes Donath <johannesd@evil-co.com>
@@ -26,6 +28,20 @@ import umbrella.map.IMap;
 @RequiredArgsConstructor
 public class GenericTypeNameInstruction implements ITypeNameMapInstruction {
 
+	/**
+	 * Defines the instruction factory.
+	 */
+	public static final IMapInstructionFactory<GenericTypeNameInstruction> FACTORY = new AbstractMapInstructionFactory<GenericTypeNameInstruction> (GenericTypeNameInstruction.class) {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public GenericTypeNameInstruction create (String serialized) {
+			return (new GenericTypeNameInstruction (serialized));
+		}
+	};
+
 	/**
 	 * Stores the type name.
 	 */
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.instruction.utility;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.instruction.IMapInstruction;
+
+/**
+ * Provides a base for instruction factories which resolves the instruction category once.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public abstract class AbstractMapInstructionFactory<T extends IMapInstruction> implements IMapInstructionFactory<T> {
+
+	/**
+	 * Stores the instruction category.
+	 */
+	@Getter
+	private final MapInstructionCategory category;
+
+	/**
+	 * Stores the instruction type.
+	 */
+	@Getter
+	private final Class<T> instructionType;
+
+	/**
+	 * Constructs a new AbstractMapInstructionFactory instance.
+	 * @param instructionType The instruction type.
+	 */
+	protected AbstractMapInstructionFactory (@NonNull Class<T> instructionType) {
+		this.instructionType = instructionType;
+		this.category = MapInstructionCategory.valueOf (instructionType);
+	}
+}
@@ -20,8 +20,8 @@ import com.google.common.collect.HashBiMap;
 import lombok.NonNull;
 import umbrella.map.instruction.IMapInstruction;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Provides a generic instruction registry implementation.
@@ -35,6 +35,11 @@ public class GenericMapInstructionRegistry implements IMapInstructionRegistry {
 	 */
 	private final BiMap<String, Class<? extends IMapInstruction>> registry = HashBiMap.create ();
 
+	/**
+	 * Stores all instruction factories.
+	 */
+	private final Map<String, IMapInstructionFactory<?>> factories = new HashMap<> ();
+
 	/**
 	 * Constructs a new GenericMapInstructionRegistry instance.
 	 */
@@ -48,22 +53,22 @@ public class GenericMapInstructionRegistry implements IMapInstructionRegistry {
 	 */
 	@Override
 	public IMapInstruction getElement (@NonNull String name, @NonNull String instruction) {
-		// get class
-		Class<? extends IMapInstruction> instructionType = this.getElementType (name);
+		// get factory
+		IMapInstructionFactory<?> factory = this.getFactory (name);
 
 		// verify
-		Preconditions.checkState (instructionType != null, "Instruction \"" + name + "\" could not be found");
-
-		// initialize new instance
-		try {
-			// find constructor
-			Constructor<? extends IMapInstruction> constructor = instructionType.getConstructor (String.class);
-
-			// create instance
-			return constructor.newInstance (instruction);
-		} catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException ex) {
-			throw new IllegalStateException ("Could not initialize instruction with name \"" + name + "\": " + ex.getMessage (), ex);
-		}
+		Preconditions.checkState (factory != null, "Instruction \"" + name + "\" could not be found");
+
+		// create instance
+		return factory.create (instruction);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMapInstructionFactory<?> getFactory (String name) {
+		return this.factories.get (name);
 	}
 
 	/**
@@ -92,11 +97,22 @@ public class GenericMapInstructionRegistry implements IMapInstructionRegistry {
 
 	/**
 	 * Registers a new instruction.
+	 * Instructions registered through this method are created reflectively through their serialization constructor.
 	 * @param name The instruction name.
 	 * @param instructionType The instruction type.
 	 */
-	public void registerInstruction (@NonNull String name, @NonNull Class<? extends IMapInstruction> instructionType) {
-		this.registry.put (name, instructionType);
+	public <T extends IMapInstruction> void registerInstruction (@NonNull String name, @NonNull Class<T> instructionType) {
+		this.registerInstruction (name, new ReflectiveMapInstructionFactory<> (instructionType));
+	}
+
+	/**
+	 * Registers a new instruction.
+	 * @param name The instruction name.
+	 * @param factory The instruction factory.
+	 */
+	public void registerInstruction (@NonNull String name, @NonNull IMapInstructionFactory<?> factory) {
+		this.registry.put (name, factory.getInstructionType ());
+		this.factories.put (name, factory);
 	}
 
 	/**
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.instruction.utility;
+
+import umbrella.map.instruction.IMapInstruction;
+
+/**
+ * Creates instructions from their serialized form.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public interface IMapInstructionFactory<T extends IMapInstruction> {
+
+	/**
+	 * Creates a new instruction.
+	 * @param serialized The serialized instruction.
+	 * @return The instruction.
+	 * @since 1.0.0
+	 */
+	public T create (String serialized);
+
+	/**
+	 * Returns the instruction category.
+	 * @return The category.
+	 * @since 1.0.0
+	 */
+	public MapInstructionCategory getCategory ();
+
+	/**
+	 * Returns the instruction type.
+	 * @return The type.
+	 * @since 1.0.0
+	 */
+	public Class<T> getInstructionType ();
+}
@@ -35,10 +35,11 @@ public interface IMapInstructionRegistry {
 		protected void registerDefaultInstructions () {
 			super.registerDefaultInstructions ();
 
-			this.registerInstruction ("FLD", GenericFieldNameInstruction.class);
-			this.registerInstruction ("IDM", GenericInvokeDynamicMethodNameInstruction.class);
-			this.registerInstruction ("MTD", GenericMethodNameInstruction.class);
-			this.registerInstruction ("TYP", GenericTypeNameInstruction.class);
+			this.registerInstruction ("FLD", GenericFieldNameInstruction.FACTORY);
+			this.registerInstruction ("IDM", GenericInvokeDynamicMethodNameInstruction.FACTORY);
+			this.registerInstruction ("MTD", GenericMethodNameInstruction.FACTORY);
+			this.registerInstruction ("PKG", GenericPackageNameInstruction.FACTORY);
+			this.registerInstruction ("TYP", GenericTypeNameInstruction.FACTORY);
 		}
 	};
 
@@ -51,6 +52,14 @@ public interface IMapInstructionRegistry {
 	 */
 	public IMapInstruction getElement (String name, String instruction);
 
+	/**
+	 * Returns an instruction factory.
+	 * @param name The type name.
+	 * @return The factory (or null if no such instruction type has been registered).
+	 * @since 1.0.0
+	 */
+	public IMapInstructionFactory<?> getFactory (String name);
+
 	/**
 	 * Returns an instruction type.
 	 * @param name The type name.
@@ -26,6 +26,7 @@ public enum MapInstructionCategory {
 	FIELD_NAME (IFieldNameInstruction.class),
 	INVOKE_DYNAMIC_METHOD_NAME (IInvokeDynamicMethodNameMapInstruction.class),
 	METHOD_NAME (IMethodNameInstruction.class),
+	PACKAGE_NAME (IPackageNameMapInstruction.class),
 	TYPE_NAME (ITypeNameMapInstruction.class),
 	UNKNOWN (null);
 
@@ -34,6 +35,20 @@ public enum MapInstructionCategory {
 	 */
 	private static final ImmutableMap<Class<? extends IMapInstruction>, MapInstructionCategory> map;
 
+	/**
+	 * Caches the resolved category of every instruction type.
+	 */
+	private static final ClassValue<MapInstructionCategory> cache = new ClassValue<MapInstructionCategory> () {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected MapInstructionCategory computeValue (Class<?> type) {
+			return resolve (type.asSubclass (IMapInstruction.class));
+		}
+	};
+
 	/**
 	 * Stores the instruction type.
 	 */
@@ -62,13 +77,31 @@ public enum MapInstructionCategory {
 		this.instructionType = instructionType;
 	}
 
+	/**
+	 * Returns the base instruction type of the category.
+	 * @return The instruction type (or null if the category is unknown).
+	 * @since 1.0.0
+	 */
+	public Class<? extends IMapInstruction> getInstructionType () {
+		return this.instructionType;
+	}
+
 	/**
 	 * Searches for a category based on an instruction type.
 	 * @param instructionType The instruction type.
 	 * @return The category.
 	 * @since 1.0.0
 	 */
-	public static MapInstructionCategory valueOf (Class<? extends IMapInstruction> instructionType) {
+	public static MapInstructionCategory valueOf (@NonNull Class<? extends IMapInstruction> instructionType) {
+		return cache.get (instructionType);
+	}
+
+	/**
+	 * Resolves the category of an instruction type.
+	 * @param instructionType The instruction type.
+	 * @return The category.
+	 */
+	private static MapInstructionCategory resolve (Class<? extends IMapInstruction> instructionType) {
 		// check for obvious elements
 		if (map.containsKey (instructionType)) return map.get (instructionType);
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.instruction.utility;
+
+import umbrella.map.instruction.IDescriptionMapInstruction;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.IMemberMapInstruction;
+import umbrella.map.instruction.INamedMapInstruction;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Orders instructions by owner, name and description (missing components are ordered first).
+ * Instructions which do not differ in any of these components are ordered by their serialized form.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class MapInstructionComparator implements Comparator<IMapInstruction> {
+
+	/**
+	 * Defines the shared comparator instance.
+	 */
+	public static final MapInstructionComparator INSTANCE = new MapInstructionComparator ();
+
+	/**
+	 * Checks whether two instructions are identical.
+	 * Unlike {@link Object#equals(Object)} missing components are not treated as wildcards.
+	 * @param instruction1 The first instruction.
+	 * @param instruction2 The second instruction.
+	 * @return True if both instructions are identical.
+	 * @since 1.0.0
+	 */
+	public static boolean isIdentical (IMapInstruction instruction1, IMapInstruction instruction2) {
+		if (instruction1 == instruction2) return true;
+		if (instruction1.getClass () != instruction2.getClass ()) return false;
+
+		// compare components
+		if (instruction1 instanceof IMemberMapInstruction && !Objects.equals (((IMemberMapInstruction) instruction1).getOwner (), ((IMemberMapInstruction) instruction2).getOwner ())) return false;
+		if (instruction1 instanceof INamedMapInstruction && !Objects.equals (((INamedMapInstruction) instruction1).getName (), ((INamedMapInstruction) instruction2).getName ())) return false;
+		if (instruction1 instanceof IDescriptionMapInstruction && !Objects.equals (((IDescriptionMapInstruction) instruction1).getDescription (), ((IDescriptionMapInstruction) instruction2).getDescription ())) return false;
+
+		// named instructions are described by their components (other instructions by their serialized form)
+		if (instruction1 instanceof INamedMapInstruction) return true;
+		return instruction1.serialize ().equals (instruction2.serialize ());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int compare (IMapInstruction instruction1, IMapInstruction instruction2) {
+		// compare owners
+		int result = compare ((instruction1 instanceof IMemberMapInstruction ? ((IMemberMapInstruction) instruction1).getOwner () : null), (instruction2 instanceof IMemberMapInstruction ? ((IMemberMapInstruction) instruction2).getOwner () : null));
+		if (result != 0) return result;
+
+		// compare names
+		result = compare ((instruction1 instanceof INamedMapInstruction ? ((INamedMapInstruction) instruction1).getName () : null), (instruction2 instanceof INamedMapInstruction ? ((INamedMapInstruction) instruction2).getName () : null));
+		if (result != 0) return result;
+
+		// compare descriptions
+		result = compare ((instruction1 instanceof IDescriptionMapInstruction ? ((IDescriptionMapInstruction) instruction1).getDescription () : null), (instruction2 instanceof IDescriptionMapInstruction ? ((IDescriptionMapInstruction) instruction2).getDescription () : null));
+		if (result != 0) return result;
+
+		// compare serialized forms
+		return compare (instruction1.serialize (), instruction2.serialize ());
+	}
+
+	/**
+	 * Compares two nullable strings.
+	 * @param string1 The first string.
+	 * @param string2 The second string.
+	 * @return The comparison result.
+	 */
+	private static int compare (String string1, String string2) {
+		if (string1 == null) return (string2 == null ? 0 : -1);
+		if (string2 == null) return 1;
+		return string1.compareTo (string2);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.instruction.utility;
+
+import lombok.NonNull;
+import umbrella.map.instruction.IMapInstruction;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Creates instructions through their serialization constructor.
+ * This factory is used for instruction types which have been registered without an explicit factory.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class ReflectiveMapInstructionFactory<T extends IMapInstruction> extends AbstractMapInstructionFactory<T> {
+
+	/**
+	 * Stores the serialization constructor.
+	 */
+	private final Constructor<T> constructor;
+
+	/**
+	 * Constructs a new ReflectiveMapInstructionFactory instance.
+	 * @param instructionType The instruction type.
+	 * @throws IllegalArgumentException Occurs if the type does not declare a public serialization constructor.
+	 */
+	public ReflectiveMapInstructionFactory (@NonNull Class<T> instructionType) {
+		super (instructionType);
+
+		// find constructor
+		try {
+			this.constructor = instructionType.getConstructor (String.class);
+		} catch (NoSuchMethodException ex) {
+			throw new IllegalArgumentException ("Instruction type " + instructionType.getName () + " does not declare a public serialization constructor", ex);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T create (String serialized) {
+		try {
+			return this.constructor.newInstance (serialized);
+		} catch (InvocationTargetException ex) {
+			// unwrap runtime exceptions
+			if (ex.getCause () instanceof RuntimeException) throw ((RuntimeException) ex.getCause ());
+
+			throw new IllegalStateException ("Could not initialize instruction of type " + this.getInstructionType ().getName () + ": " + ex.getCause ().getMessage (), ex.getCause ());
+		} catch (InstantiationException | IllegalAccessException ex) {
+			throw new IllegalStateException ("Could not initialize instruction of type " + this.getInstructionType ().getName () + ": " + ex.getMessage (), ex);
+		}
+	}
+}
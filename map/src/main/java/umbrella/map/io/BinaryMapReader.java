@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import com.google.common.io.ByteStreams;
+import lombok.NonNull;
+import umbrella.map.IMap;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.utility.IOUtility;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads maps in the binary map format.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class BinaryMapReader {
+
+	/**
+	 * Reads a map.
+	 * @param inputStream The input stream.
+	 * @param map The map to append to.
+	 * @throws IOException Occurs if reading from the stream is not possible or the map is corrupted.
+	 * @since 1.0.0
+	 */
+	public void read (@NonNull InputStream inputStream, @NonNull IMap map) throws IOException {
+		DataInputStream dataStream = new DataInputStream (inputStream);
+		IMapInstructionRegistry registry = map.getInstructionRegistry ();
+
+		// verify header
+		byte[] magic = new byte[MapFormat.MAGIC_LENGTH];
+		dataStream.readFully (magic);
+
+		if (!Arrays.equals (magic, MapFormat.BINARY.getMagic ())) throw new IOException ("Not a binary map");
+
+		int version = dataStream.readUnsignedByte ();
+		if (version != BinaryMapWriter.VERSION) throw new IOException ("Unsupported binary map version " + version);
+
+		int expectedChecksum = dataStream.readInt ();
+
+		// read payload
+		byte[] payload = ByteStreams.toByteArray (dataStream);
+
+		// verify checksum (before the map is modified)
+		CRC32 checksum = new CRC32 ();
+		checksum.update (payload);
+		if (((int) checksum.getValue ()) != expectedChecksum) throw new IOException ("Map checksum mismatch: The map is corrupted");
+
+		// decode payload
+		this.readSections (new ByteArrayInputStream (payload), registry, map);
+	}
+
+	/**
+	 * Reads a length and verifies it against the remaining payload.
+	 * Payloads are buffered entirely before they are decoded, thus the amount of available bytes equals the remaining payload size.
+	 * @param inputStream The input stream.
+	 * @return The length.
+	 * @throws IOException Occurs if reading from the stream is not possible or the length exceeds the payload.
+	 */
+	protected int readLength (InputStream inputStream) throws IOException {
+		int length = IOUtility.readVarInt (inputStream);
+		if (length < 0 || length > inputStream.available ()) throw new IOException ("Length " + length + " exceeds the remaining payload");
+		return length;
+	}
+
+	/**
+	 * Reads a string table followed by a set of sections.
+	 * @param inputStream The buffered input stream.
+	 * @param registry The instruction registry.
+	 * @param map The map to append to.
+	 * @throws IOException Occurs if reading from the stream is not possible or the sections are malformed.
+	 */
+	protected void readSections (InputStream inputStream, IMapInstructionRegistry registry, IMap map) throws IOException {
+		String[] strings = this.readStringTable (inputStream);
+		int sectionCount = IOUtility.readVarInt (inputStream);
+
+		for (int i = 0; i < sectionCount; i++) {
+			// read section header
+			MapInstructionCategory category;
+
+			try {
+				category = MapInstructionCategory.valueOf (this.readString (strings, IOUtility.readVarInt (inputStream)));
+			} catch (IllegalArgumentException ex) {
+				throw new IOException ("Unknown instruction category in section " + i, ex);
+			}
+
+			int entryCount = IOUtility.readVarInt (inputStream);
+
+			// read entries
+			for (int j = 0; j < entryCount; j++) {
+				IMapInstruction original = this.readInstruction (inputStream, registry, strings, category);
+				IMapInstruction replacement = this.readInstruction (inputStream, registry, strings, category);
+
+				map.addInstruction (original, replacement);
+			}
+		}
+	}
+
+	/**
+	 * Reads an instruction.
+	 * @param inputStream The input stream.
+	 * @param registry The instruction registry.
+	 * @param strings The string table.
+	 * @param category The section category.
+	 * @return The instruction.
+	 * @throws IOException Occurs if reading from the stream is not possible or the instruction is malformed.
+	 */
+	protected IMapInstruction readInstruction (InputStream inputStream, IMapInstructionRegistry registry, String[] strings, MapInstructionCategory category) throws IOException {
+		int tag = IOUtility.readVarInt (inputStream);
+
+		// read serialized instructions
+		if (tag != 0) {
+			String name = this.readString (strings, (tag - 1));
+			String serialized = this.readString (strings, IOUtility.readVarInt (inputStream));
+
+			return registry.getElement (name, serialized);
+		}
+
+		// read generic instructions
+		switch (category) {
+			case FIELD_NAME:
+				return new GenericFieldNameInstruction (this.readReference (inputStream, strings), this.readReference (inputStream, strings), this.readReference (inputStream, strings));
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				return new GenericInvokeDynamicMethodNameInstruction (this.readReference (inputStream, strings), this.readReference (inputStream, strings));
+			case METHOD_NAME:
+				return new GenericMethodNameInstruction (this.readReference (inputStream, strings), this.readReference (inputStream, strings), this.readReference (inputStream, strings));
+			case PACKAGE_NAME:
+				return new GenericPackageNameInstruction (this.readReference (inputStream, strings));
+			case TYPE_NAME:
+				return new GenericTypeNameInstruction (this.readReference (inputStream, strings));
+			default:
+				throw new IOException ("Generic instruction encountered in category " + category);
+		}
+	}
+
+	/**
+	 * Reads a nullable string reference.
+	 * @param inputStream The input stream.
+	 * @param strings The string table.
+	 * @return The string (or null).
+	 * @throws IOException Occurs if reading from the stream is not possible or the reference is invalid.
+	 */
+	protected String readReference (InputStream inputStream, String[] strings) throws IOException {
+		int reference = IOUtility.readVarInt (inputStream);
+		return (reference == 0 ? null : this.readString (strings, (reference - 1)));
+	}
+
+	/**
+	 * Resolves a string reference.
+	 * @param strings The string table.
+	 * @param reference The reference.
+	 * @return The string.
+	 * @throws IOException Occurs if the reference is invalid.
+	 */
+	protected String readString (String[] strings, int reference) throws IOException {
+		if (reference < 0 || reference >= strings.length) throw new IOException ("Invalid string reference " + reference);
+		return strings[reference];
+	}
+
+	/**
+	 * Reads a front-coded string table.
+	 * @param inputStream The buffered input stream.
+	 * @return The string table.
+	 * @throws IOException Occurs if reading from the stream is not possible or the table is malformed.
+	 */
+	protected String[] readStringTable (InputStream inputStream) throws IOException {
+		DataInputStream dataStream = new DataInputStream (inputStream);
+
+		// read size
+		String[] strings = new String[this.readLength (dataStream)];
+		String previous = "";
+
+		// read elements
+		for (int i = 0; i < strings.length; i++) {
+			int prefix = IOUtility.readVarInt (dataStream);
+			byte[] suffix = new byte[this.readLength (dataStream)];
+
+			// verify prefix
+			if (prefix > previous.length ()) throw new IOException ("Malformed string table entry " + i);
+
+			// decode
+			dataStream.readFully (suffix);
+			strings[i] = previous.substring (0, prefix) + new String (suffix, StandardCharsets.UTF_8);
+
+			previous = strings[i];
+		}
+
+		return strings;
+	}
+}
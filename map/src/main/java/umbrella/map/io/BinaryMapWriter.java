@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.NonNull;
+import umbrella.map.IMap;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.utility.IOUtility;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes maps in the binary map format.
+ *
+ * The format consists of a header (magic bytes, format version and a CRC32 checksum of the payload) followed by a
+ * front-coded string table and one section per instruction category. Sections reference strings by their table index
+ * using variable length integers.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class BinaryMapWriter {
+
+	/**
+	 * Defines the current format version.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Collects all strings referenced by an instruction.
+	 * @param strings The string set.
+	 * @param registry The instruction registry.
+	 * @param instruction The instruction.
+	 * @throws IOException Occurs if the instruction type is not registered.
+	 */
+	protected static void collectStrings (Set<String> strings, IMapInstructionRegistry registry, IMapInstruction instruction) throws IOException {
+		// handle generic instructions
+		if (isComponentEncoded (instruction)) {
+			if (instruction instanceof IMemberMapInstruction) addString (strings, ((IMemberMapInstruction) instruction).getOwner ());
+			if (instruction instanceof INamedMapInstruction) addString (strings, ((INamedMapInstruction) instruction).getName ());
+			if (instruction instanceof IDescriptionMapInstruction) addString (strings, ((IDescriptionMapInstruction) instruction).getDescription ());
+
+			// skip further execution
+			return;
+		}
+
+		// handle serialized instructions
+		strings.add (getInstructionName (registry, instruction));
+		strings.add (instruction.serialize ());
+	}
+
+	/**
+	 * Adds a string (if not null).
+	 * @param strings The string set.
+	 * @param string The string.
+	 */
+	private static void addString (Set<String> strings, String string) {
+		if (string != null) strings.add (string);
+	}
+
+	/**
+	 * Returns the registered name of an instruction.
+	 * @param registry The instruction registry.
+	 * @param instruction The instruction.
+	 * @return The name.
+	 * @throws IOException Occurs if the instruction type is not registered.
+	 */
+	private static String getInstructionName (IMapInstructionRegistry registry, IMapInstruction instruction) throws IOException {
+		String name = registry.getName (instruction);
+		if (name == null) throw new IOException ("Instruction type " + instruction.getClass ().getName () + " is not registered");
+		return name;
+	}
+
+	/**
+	 * Checks whether an instruction is stored by its components (instead of its serialized form).
+	 * @param instruction The instruction.
+	 * @return True if the instruction is a generic instruction.
+	 * @since 1.0.0
+	 */
+	public static boolean isComponentEncoded (IMapInstruction instruction) {
+		return (instruction.getClass () == GenericFieldNameInstruction.class || instruction.getClass () == GenericInvokeDynamicMethodNameInstruction.class || instruction.getClass () == GenericMethodNameInstruction.class || instruction.getClass () == GenericPackageNameInstruction.class || instruction.getClass () == GenericTypeNameInstruction.class);
+	}
+
+	/**
+	 * Writes a map.
+	 * @param map The map.
+	 * @param outputStream The output stream.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public void write (@NonNull IMap map, @NonNull OutputStream outputStream) throws IOException {
+		IMapInstructionRegistry registry = map.getInstructionRegistry ();
+
+		// collect sections
+		Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> sections = new EnumMap<> (MapInstructionCategory.class);
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			Map<IMapInstruction, IMapInstruction> section = map.getInstructionMap (category);
+			if (!section.isEmpty ()) sections.put (category, section);
+		}
+
+		// encode payload
+		CRC32 checksum = new CRC32 ();
+		ByteArrayOutputStream payload = new ByteArrayOutputStream ();
+		this.writeSections (new CheckedOutputStream (payload, checksum), registry, sections);
+
+		// write header
+		DataOutputStream dataStream = new DataOutputStream (outputStream);
+		dataStream.write (MapFormat.BINARY.getMagic ());
+		dataStream.writeByte (VERSION);
+		dataStream.writeInt (((int) checksum.getValue ()));
+
+		// write payload
+		payload.writeTo (dataStream);
+		dataStream.flush ();
+	}
+
+	/**
+	 * Writes a string table followed by a set of sections.
+	 * @param outputStream The output stream.
+	 * @param registry The instruction registry.
+	 * @param sections The sections (grouped by category).
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 */
+	protected void writeSections (OutputStream outputStream, IMapInstructionRegistry registry, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> sections) throws IOException {
+		// collect strings
+		Set<String> strings = new TreeSet<> ();
+
+		for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> section : sections.entrySet ()) {
+			strings.add (section.getKey ().name ());
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : section.getValue ().entrySet ()) {
+				collectStrings (strings, registry, entry.getKey ());
+				collectStrings (strings, registry, entry.getValue ());
+			}
+		}
+
+		// write strings
+		Map<String, Integer> references = this.writeStringTable (outputStream, strings);
+
+		// write sections
+		IOUtility.writeVarInt (outputStream, sections.size ());
+
+		for (Map.Entry<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> section : sections.entrySet ()) {
+			// write section header
+			IOUtility.writeVarInt (outputStream, references.get (section.getKey ().name ()));
+			IOUtility.writeVarInt (outputStream, section.getValue ().size ());
+
+			// write entries
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : section.getValue ().entrySet ()) {
+				this.writeInstruction (outputStream, registry, references, entry.getKey ());
+				this.writeInstruction (outputStream, registry, references, entry.getValue ());
+			}
+		}
+	}
+
+	/**
+	 * Writes an instruction.
+	 * @param outputStream The output stream.
+	 * @param registry The instruction registry.
+	 * @param references The string references.
+	 * @param instruction The instruction.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 */
+	protected void writeInstruction (OutputStream outputStream, IMapInstructionRegistry registry, Map<String, Integer> references, IMapInstruction instruction) throws IOException {
+		// write serialized instructions
+		if (!isComponentEncoded (instruction)) {
+			IOUtility.writeVarInt (outputStream, (references.get (getInstructionName (registry, instruction)) + 1));
+			IOUtility.writeVarInt (outputStream, references.get (instruction.serialize ()));
+
+			// skip further execution
+			return;
+		}
+
+		// write generic instruction
+		IOUtility.writeVarInt (outputStream, 0);
+
+		if (instruction instanceof IMemberMapInstruction) this.writeReference (outputStream, references, ((IMemberMapInstruction) instruction).getOwner ());
+		if (instruction instanceof INamedMapInstruction) this.writeReference (outputStream, references, ((INamedMapInstruction) instruction).getName ());
+		if (instruction instanceof IDescriptionMapInstruction) this.writeReference (outputStream, references, ((IDescriptionMapInstruction) instruction).getDescription ());
+	}
+
+	/**
+	 * Writes a nullable string reference.
+	 * @param outputStream The output stream.
+	 * @param references The string references.
+	 * @param string The string.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 */
+	protected void writeReference (OutputStream outputStream, Map<String, Integer> references, String string) throws IOException {
+		IOUtility.writeVarInt (outputStream, (string != null ? (references.get (string) + 1) : 0));
+	}
+
+	/**
+	 * Writes a front-coded string table.
+	 * @param outputStream The output stream.
+	 * @param strings The sorted strings.
+	 * @return A map of string references.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 */
+	protected Map<String, Integer> writeStringTable (OutputStream outputStream, Set<String> strings) throws IOException {
+		Map<String, Integer> references = new HashMap<> (((strings.size () * 4) / 3) + 1);
+
+		// write size
+		IOUtility.writeVarInt (outputStream, strings.size ());
+
+		// write elements
+		String previous = "";
+
+		for (String current : strings) {
+			// calculate shared prefix
+			int prefix = 0;
+			int limit = Math.min (previous.length (), current.length ());
+
+			while (prefix < limit && previous.charAt (prefix) == current.charAt (prefix)) prefix++;
+
+			// never split surrogate pairs
+			if (prefix > 0 && Character.isHighSurrogate (current.charAt ((prefix - 1)))) prefix--;
+
+			// encode suffix
+			byte[] suffix = current.substring (prefix).getBytes (StandardCharsets.UTF_8);
+
+			IOUtility.writeVarInt (outputStream, prefix);
+			IOUtility.writeVarInt (outputStream, suffix.length);
+			outputStream.write (suffix);
+
+			// store reference
+			references.put (current, references.size ());
+			previous = current;
+		}
+
+		return references;
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import com.google.common.io.ByteStreams;
+import lombok.NonNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads maps in the compressed map format.
+ * The compressed data is verified against its trailer before any of it is inflated, thus corrupted maps are rejected
+ * before parsing begins.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class CompressedMapReader {
+
+	/**
+	 * Defines the trailer size.
+	 */
+	public static final int TRAILER_SIZE = 12;
+
+	/**
+	 * Opens a compressed map.
+	 * The returned stream provides the decompressed map (in any other map format) and should be closed once it has
+	 * been read.
+	 * @param inputStream The input stream.
+	 * @return The decompressed stream.
+	 * @throws IOException Occurs if reading from the stream is not possible or the map is corrupted.
+	 * @since 1.0.0
+	 */
+	public InputStream open (@NonNull InputStream inputStream) throws IOException {
+		DataInputStream dataStream = new DataInputStream (inputStream);
+
+		// verify header
+		byte[] magic = new byte[MapFormat.MAGIC_LENGTH];
+		dataStream.readFully (magic);
+
+		if (!Arrays.equals (magic, MapFormat.COMPRESSED.getMagic ())) throw new IOException ("Not a compressed map");
+
+		int version = dataStream.readUnsignedByte ();
+		if (version != CompressedMapWriter.VERSION) throw new IOException ("Unsupported compressed map version " + version);
+
+		// read compressed data
+		byte[] data = ByteStreams.toByteArray (dataStream);
+		if (data.length < TRAILER_SIZE) throw new IOException ("Map trailer is missing: The map is corrupted");
+
+		int length = (data.length - TRAILER_SIZE);
+
+		// verify trailer
+		ByteBuffer trailer = ByteBuffer.wrap (data, length, TRAILER_SIZE);
+		int expectedChecksum = trailer.getInt ();
+		long expectedLength = trailer.getLong ();
+
+		if (expectedLength != length) throw new IOException ("Map length mismatch: The map is corrupted");
+
+		CRC32 checksum = new CRC32 ();
+		checksum.update (data, 0, length);
+
+		if (((int) checksum.getValue ()) != expectedChecksum) throw new IOException ("Map checksum mismatch: The map is corrupted");
+
+		// inflate data
+		final Inflater inflater = new Inflater ();
+
+		return new InflaterInputStream (new ByteArrayInputStream (data, 0, length), inflater, CompressedMapWriter.BUFFER_SIZE) {
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public void close () throws IOException {
+				super.close ();
+				inflater.end ();
+			}
+		};
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import com.google.common.io.CountingOutputStream;
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.IMap;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes maps in the compressed map format.
+ * A compressed map consists of the magic bytes, a version byte, a deflated map of any other format as well as a
+ * trailer containing the CRC32 checksum and length of the compressed data (which is verified before parsing begins).
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class CompressedMapWriter {
+
+	/**
+	 * Defines the current format version.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Defines the size of the compression buffer.
+	 */
+	public static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * Stores the format of the compressed map.
+	 */
+	@Getter
+	private final MapFormat format;
+
+	/**
+	 * Constructs a new CompressedMapWriter instance (compressing text maps).
+	 */
+	public CompressedMapWriter () {
+		this (MapFormat.TEXT);
+	}
+
+	/**
+	 * Constructs a new CompressedMapWriter instance.
+	 * @param format The format of the compressed map.
+	 * @throws IllegalArgumentException Occurs if the format is compressed itself.
+	 */
+	public CompressedMapWriter (@NonNull MapFormat format) {
+		if (format == MapFormat.COMPRESSED) throw new IllegalArgumentException ("Cannot nest compressed maps");
+		this.format = format;
+	}
+
+	/**
+	 * Writes a map.
+	 * The stream is flushed but not closed.
+	 * @param map The map.
+	 * @param outputStream The output stream.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public void write (@NonNull IMap map, @NonNull OutputStream outputStream) throws IOException {
+		DataOutputStream dataStream = new DataOutputStream (outputStream);
+
+		// write header
+		dataStream.write (MapFormat.COMPRESSED.getMagic ());
+		dataStream.writeByte (VERSION);
+
+		// write payload
+		CRC32 checksum = new CRC32 ();
+		CountingOutputStream countingStream = new CountingOutputStream (new CheckedOutputStream (dataStream, checksum));
+
+		Deflater deflater = new Deflater (Deflater.DEFAULT_COMPRESSION);
+
+		try {
+			DeflaterOutputStream deflaterStream = new DeflaterOutputStream (countingStream, deflater, BUFFER_SIZE);
+			map.save (deflaterStream, this.format);
+			deflaterStream.finish ();
+		} finally {
+			deflater.end ();
+		}
+
+		// write trailer
+		dataStream.writeInt (((int) checksum.getValue ()));
+		dataStream.writeLong (countingStream.getCount ());
+		dataStream.flush ();
+	}
+}
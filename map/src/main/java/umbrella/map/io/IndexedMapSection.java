@@ -0,0 +1,668 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.instruction.*;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Provides read access to a single category section of an indexed map.
+ *
+ * Indexed maps start with a header (magic bytes, format version and section count) followed by one fixed size header
+ * per section (category code, wildcard flags, entry count, absolute offset and length). The wildcard flags indicate
+ * whether any original or replacement key contains a null owner or description; files of the first format version do
+ * not carry these flags and are assumed to contain wildcards. Each section consists of two arrays of record
+ * offsets (sorted by original and replacement key respectively) followed by the records themselves. A record stores
+ * its original and replacement key (both prefixed by their varint length) where keys consist of the UTF-8 encoded
+ * instruction components separated by zero bytes (null components are encoded as a single 0xFF byte).
+ *
+ * All lookups are performed on the underlying buffer without decoding any strings; strings are only materialized for
+ * matching records.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class IndexedMapSection {
+
+	/**
+	 * Defines the current format version.
+	 */
+	public static final int VERSION = 2;
+
+	/**
+	 * Defines the section flag which indicates that original keys contain wildcards.
+	 */
+	public static final int WILDCARD_FLAG = 0x01;
+
+	/**
+	 * Defines the section flag which indicates that replacement keys contain wildcards.
+	 */
+	public static final int REPLACEMENT_WILDCARD_FLAG = 0x02;
+
+	/**
+	 * Defines the size of the file header.
+	 */
+	public static final int HEADER_SIZE = 8;
+
+	/**
+	 * Defines the size of a section header.
+	 */
+	public static final int SECTION_HEADER_SIZE = 24;
+
+	/**
+	 * Defines the byte used to encode null components.
+	 */
+	public static final int NULL_MARKER = 0xFF;
+
+	/**
+	 * Stores all supported categories (indexed by their code).
+	 */
+	private static final MapInstructionCategory[] CATEGORIES = new MapInstructionCategory[] { null, MapInstructionCategory.FIELD_NAME, MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME, MapInstructionCategory.METHOD_NAME, MapInstructionCategory.TYPE_NAME, MapInstructionCategory.PACKAGE_NAME };
+
+	/**
+	 * Stores the section category.
+	 */
+	@Getter
+	private final MapInstructionCategory category;
+
+	/**
+	 * Stores the section buffer.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Stores the amount of records within the section.
+	 */
+	@Getter
+	private final int size;
+
+	/**
+	 * Stores the amount of components per key.
+	 */
+	private final int componentCount;
+
+	/**
+	 * Stores the section flags.
+	 */
+	private final int flags;
+
+	/**
+	 * Constructs a new IndexedMapSection instance.
+	 * @param category The category.
+	 * @param buffer The section buffer.
+	 * @param size The amount of records.
+	 * @param flags The section flags.
+	 */
+	protected IndexedMapSection (@NonNull MapInstructionCategory category, @NonNull ByteBuffer buffer, int size, int flags) {
+		this.category = category;
+		this.buffer = buffer;
+		this.size = size;
+		this.componentCount = getComponentCount (category);
+		this.flags = flags;
+	}
+
+	/**
+	 * Returns a category based on its code.
+	 * @param code The code.
+	 * @return The category (or null).
+	 * @since 1.0.0
+	 */
+	public static MapInstructionCategory getCategory (int code) {
+		return (code > 0 && code < CATEGORIES.length ? CATEGORIES[code] : null);
+	}
+
+	/**
+	 * Returns the code of a category.
+	 * @param category The category.
+	 * @return The code (or -1 if the category is not supported).
+	 * @since 1.0.0
+	 */
+	public static int getCode (MapInstructionCategory category) {
+		for (int i = 1; i < CATEGORIES.length; i++) if (CATEGORIES[i] == category) return i;
+		return -1;
+	}
+
+	/**
+	 * Returns the amount of components within the keys of a category.
+	 * @param category The category.
+	 * @return The component count.
+	 * @since 1.0.0
+	 */
+	public static int getComponentCount (@NonNull MapInstructionCategory category) {
+		switch (category) {
+			case FIELD_NAME:
+			case METHOD_NAME:
+				return 3;
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				return 2;
+			case PACKAGE_NAME:
+			case TYPE_NAME:
+				return 1;
+			default:
+				throw new IllegalArgumentException ("Category " + category + " is not supported by indexed maps");
+		}
+	}
+
+	/**
+	 * Returns the key components of an instruction.
+	 * @param category The category.
+	 * @param instruction The instruction.
+	 * @return The components.
+	 * @since 1.0.0
+	 */
+	public static String[] getComponents (@NonNull MapInstructionCategory category, @NonNull IMapInstruction instruction) {
+		switch (category) {
+			case FIELD_NAME:
+			case METHOD_NAME:
+				return new String[] { ((IMemberMapInstruction) instruction).getOwner (), ((INamedMapInstruction) instruction).getName (), ((IDescriptionMapInstruction) instruction).getDescription () };
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				return new String[] { ((INamedMapInstruction) instruction).getName (), ((IDescriptionMapInstruction) instruction).getDescription () };
+			case PACKAGE_NAME:
+			case TYPE_NAME:
+				return new String[] { ((INamedMapInstruction) instruction).getName () };
+			default:
+				throw new IllegalArgumentException ("Category " + category + " is not supported by indexed maps");
+		}
+	}
+
+	/**
+	 * Calculates the wildcard flags of a set of instructions.
+	 * @param category The category.
+	 * @param instructions The instructions (original -> replacement).
+	 * @return The flags.
+	 * @since 1.0.0
+	 */
+	public static int getFlags (@NonNull MapInstructionCategory category, @NonNull Map<IMapInstruction, IMapInstruction> instructions) {
+		if (category == MapInstructionCategory.PACKAGE_NAME || category == MapInstructionCategory.TYPE_NAME) return 0;
+
+		// search wildcards
+		int flags = 0;
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : instructions.entrySet ()) {
+			if (hasWildcards (category, entry.getKey ())) flags |= WILDCARD_FLAG;
+			if (hasWildcards (category, entry.getValue ())) flags |= REPLACEMENT_WILDCARD_FLAG;
+		}
+
+		return flags;
+	}
+
+	/**
+	 * Checks whether an instruction contains a wildcard owner or description.
+	 * @param category The category.
+	 * @param instruction The instruction.
+	 * @return True if wildcards are present.
+	 */
+	private static boolean hasWildcards (MapInstructionCategory category, IMapInstruction instruction) {
+		String[] components = getComponents (category, instruction);
+		return ((category != MapInstructionCategory.INVOKE_DYNAMIC_METHOD_NAME && components[0] == null) || components[(components.length - 1)] == null);
+	}
+
+	/**
+	 * Encodes the key of an instruction.
+	 * @param category The category.
+	 * @param instruction The instruction.
+	 * @return The encoded key.
+	 * @throws IOException Occurs if the instruction cannot be encoded.
+	 * @since 1.0.0
+	 */
+	public static byte[] encode (@NonNull MapInstructionCategory category, @NonNull IMapInstruction instruction) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		String[] components = getComponents (category, instruction);
+
+		for (int i = 0; i < components.length; i++) {
+			// write separator
+			if (i > 0) outputStream.write (0x00);
+
+			// write null marker
+			if (components[i] == null) {
+				outputStream.write (NULL_MARKER);
+				continue;
+			}
+
+			// write component
+			if (components[i].indexOf ('\0') != -1) throw new IOException ("Instruction component \"" + components[i] + "\" contains a null character");
+			outputStream.write (components[i].getBytes (StandardCharsets.UTF_8));
+		}
+
+		return outputStream.toByteArray ();
+	}
+
+	/**
+	 * Reads all sections from a file channel (each section is mapped into memory separately).
+	 * @param channel The file channel.
+	 * @return A map of sections.
+	 * @throws IOException Occurs if reading from the channel is not possible or the file is malformed.
+	 * @since 1.0.0
+	 */
+	public static Map<MapInstructionCategory, IndexedMapSection> read (@NonNull FileChannel channel) throws IOException {
+		// read header
+		ByteBuffer header = ByteBuffer.allocate (HEADER_SIZE);
+		while (header.hasRemaining ()) if (channel.read (header, header.position ()) == -1) throw new IOException ("Unexpected end of indexed map header");
+		header.flip ();
+
+		int sectionCount = readHeader (header);
+		boolean legacy = isLegacy (header);
+
+		// read section headers
+		ByteBuffer sectionHeaders = ByteBuffer.allocate ((sectionCount * SECTION_HEADER_SIZE));
+		while (sectionHeaders.hasRemaining ()) if (channel.read (sectionHeaders, (HEADER_SIZE + sectionHeaders.position ())) == -1) throw new IOException ("Unexpected end of indexed map section headers");
+		sectionHeaders.flip ();
+
+		// map sections
+		Map<MapInstructionCategory, IndexedMapSection> sections = new EnumMap<> (MapInstructionCategory.class);
+
+		for (int i = 0; i < sectionCount; i++) {
+			MapInstructionCategory category = readCategory (sectionHeaders, i);
+			int entryCount = sectionHeaders.getInt ((i * SECTION_HEADER_SIZE) + 4);
+			long offset = sectionHeaders.getLong ((i * SECTION_HEADER_SIZE) + 8);
+			long length = sectionHeaders.getLong ((i * SECTION_HEADER_SIZE) + 16);
+
+			// verify bounds
+			if (offset < 0 || length < 0 || length > Integer.MAX_VALUE || (offset + length) > channel.size ()) throw new IOException ("Section " + i + " exceeds the indexed map bounds");
+
+			sections.put (category, new IndexedMapSection (category, channel.map (FileChannel.MapMode.READ_ONLY, offset, length).order (ByteOrder.BIG_ENDIAN), entryCount, readFlags (sectionHeaders, i, legacy)));
+		}
+
+		return sections;
+	}
+
+	/**
+	 * Reads all sections from a buffer.
+	 * @param buffer The buffer.
+	 * @return A map of sections.
+	 * @throws IOException Occurs if the buffer is malformed.
+	 * @since 1.0.0
+	 */
+	public static Map<MapInstructionCategory, IndexedMapSection> read (@NonNull ByteBuffer buffer) throws IOException {
+		buffer = buffer.duplicate ().order (ByteOrder.BIG_ENDIAN);
+
+		// verify size
+		if (buffer.remaining () < HEADER_SIZE) throw new IOException ("Unexpected end of indexed map header");
+
+		// read header
+		int sectionCount = readHeader (buffer);
+		boolean legacy = isLegacy (buffer);
+
+		// read sections
+		ByteBuffer sectionHeaders = buffer.duplicate ();
+		sectionHeaders.position ((sectionHeaders.position () + HEADER_SIZE));
+		sectionHeaders = sectionHeaders.slice ();
+
+		if (sectionHeaders.remaining () < (sectionCount * SECTION_HEADER_SIZE)) throw new IOException ("Unexpected end of indexed map section headers");
+
+		Map<MapInstructionCategory, IndexedMapSection> sections = new EnumMap<> (MapInstructionCategory.class);
+
+		for (int i = 0; i < sectionCount; i++) {
+			MapInstructionCategory category = readCategory (sectionHeaders, i);
+			int entryCount = sectionHeaders.getInt ((i * SECTION_HEADER_SIZE) + 4);
+			long offset = sectionHeaders.getLong ((i * SECTION_HEADER_SIZE) + 8);
+			long length = sectionHeaders.getLong ((i * SECTION_HEADER_SIZE) + 16);
+
+			// verify bounds
+			if (offset < 0 || length < 0 || (offset + length) > buffer.remaining ()) throw new IOException ("Section " + i + " exceeds the indexed map bounds");
+
+			// slice section
+			ByteBuffer section = buffer.duplicate ();
+			section.position ((int) (buffer.position () + offset));
+			section.limit ((int) (buffer.position () + offset + length));
+
+			sections.put (category, new IndexedMapSection (category, section.slice ().order (ByteOrder.BIG_ENDIAN), entryCount, readFlags (sectionHeaders, i, legacy)));
+		}
+
+		return sections;
+	}
+
+	/**
+	 * Reads a section category.
+	 * @param sectionHeaders The section headers.
+	 * @param index The section index.
+	 * @return The category.
+	 * @throws IOException Occurs if the category is unknown.
+	 */
+	private static MapInstructionCategory readCategory (ByteBuffer sectionHeaders, int index) throws IOException {
+		MapInstructionCategory category = getCategory ((sectionHeaders.get ((index * SECTION_HEADER_SIZE)) & 0xFF));
+		if (category == null) throw new IOException ("Unknown category in section " + index);
+		return category;
+	}
+
+	/**
+	 * Reads the flags of a section.
+	 * @param sectionHeaders The section headers.
+	 * @param index The section index.
+	 * @param legacy True if the file does not carry section flags.
+	 * @return The flags.
+	 */
+	private static int readFlags (ByteBuffer sectionHeaders, int index, boolean legacy) {
+		if (legacy) return (WILDCARD_FLAG | REPLACEMENT_WILDCARD_FLAG);
+		return (sectionHeaders.get (((index * SECTION_HEADER_SIZE) + 1)) & 0xFF);
+	}
+
+	/**
+	 * Checks whether a verified file header belongs to the first format version.
+	 * @param header The header buffer (positioned at the header start).
+	 * @return True if the file does not carry section flags.
+	 */
+	private static boolean isLegacy (ByteBuffer header) {
+		return ((header.get ((header.position () + 4)) & 0xFF) == 1);
+	}
+
+	/**
+	 * Verifies the file header.
+	 * @param header The header buffer (positioned at the header start).
+	 * @return The section count.
+	 * @throws IOException Occurs if the header is invalid.
+	 */
+	private static int readHeader (ByteBuffer header) throws IOException {
+		int start = header.position ();
+
+		// verify magic
+		byte[] magic = new byte[MapFormat.MAGIC_LENGTH];
+		for (int i = 0; i < magic.length; i++) magic[i] = header.get ((start + i));
+		if (!Arrays.equals (magic, MapFormat.INDEXED.getMagic ())) throw new IOException ("Not an indexed map");
+
+		// verify version
+		int version = (header.get ((start + 4)) & 0xFF);
+		if (version < 1 || version > VERSION) throw new IOException ("Unsupported indexed map version " + version);
+
+		// read section count
+		return (header.get ((start + 5)) & 0xFF);
+	}
+
+	/**
+	 * Reads a variable length integer from the buffer.
+	 * @param position The position.
+	 * @return The value.
+	 */
+	private int readVarInt (int position) {
+		int value = 0;
+
+		for (int shift = 0; ; shift += 7) {
+			int current = this.buffer.get (position++);
+			value |= ((current & 0x7F) << shift);
+			if ((current & 0x80) == 0) return value;
+		}
+	}
+
+	/**
+	 * Returns the encoded size of a variable length integer.
+	 * @param value The value.
+	 * @return The size in bytes.
+	 */
+	private static int getVarIntSize (int value) {
+		int size = 1;
+
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Compares a query against an encoded key without decoding the key.
+	 * @param offset The key offset.
+	 * @param length The key length.
+	 * @param first The first component.
+	 * @param second The second component.
+	 * @param third The third component.
+	 * @return A negative value, zero or a positive value if the query is less than, equal to or greater than the key.
+	 */
+	protected int compare (int offset, int length, String first, String second, String third) {
+		int position = offset;
+		int end = (offset + length);
+
+		for (int i = 0; i < this.componentCount; i++) {
+			String component = (i == 0 ? first : (i == 1 ? second : third));
+
+			// compare separator
+			if (i > 0) {
+				if (position >= end) return 1;
+
+				int difference = (0x00 - (this.buffer.get (position++) & 0xFF));
+				if (difference != 0) return difference;
+			}
+
+			// compare null marker
+			if (component == null) {
+				if (position >= end) return 1;
+
+				int difference = (NULL_MARKER - (this.buffer.get (position++) & 0xFF));
+				if (difference != 0) return difference;
+
+				continue;
+			}
+
+			// compare UTF-8 encoded characters
+			for (int j = 0; j < component.length (); j++) {
+				int codePoint = component.charAt (j);
+
+				// decode surrogate pairs (unpaired surrogates are replaced in the same way as String#getBytes does)
+				if (Character.isHighSurrogate (((char) codePoint)) && (j + 1) < component.length () && Character.isLowSurrogate (component.charAt ((j + 1))))
+					codePoint = Character.toCodePoint (((char) codePoint), component.charAt (++j));
+				else if (Character.isSurrogate (((char) codePoint)))
+					codePoint = '?';
+
+				// compare bytes
+				int byteCount = (codePoint < 0x80 ? 1 : (codePoint < 0x800 ? 2 : (codePoint < 0x10000 ? 3 : 4)));
+
+				for (int k = 0; k < byteCount; k++) {
+					int current;
+
+					if (byteCount == 1)
+						current = codePoint;
+					else if (k == 0)
+						current = (byteCount == 2 ? (0xC0 | (codePoint >> 6)) : (byteCount == 3 ? (0xE0 | (codePoint >> 12)) : (0xF0 | (codePoint >> 18))));
+					else
+						current = (0x80 | ((codePoint >> (6 * (byteCount - 1 - k))) & 0x3F));
+
+					if (position >= end) return 1;
+
+					int difference = (current - (this.buffer.get (position++) & 0xFF));
+					if (difference != 0) return difference;
+				}
+			}
+		}
+
+		return (position < end ? -1 : 0);
+	}
+
+	/**
+	 * Decodes an encoded key into an instruction.
+	 * @param offset The key offset.
+	 * @param length The key length.
+	 * @return The instruction.
+	 */
+	protected IMapInstruction decode (int offset, int length) {
+		String[] components = new String[this.componentCount];
+		int start = offset;
+		int end = (offset + length);
+		int index = 0;
+
+		for (int position = offset; position <= end; position++) {
+			// skip component content
+			if (position < end && this.buffer.get (position) != 0x00) continue;
+
+			// decode component
+			int componentLength = (position - start);
+
+			if (componentLength == 1 && (this.buffer.get (start) & 0xFF) == NULL_MARKER)
+				components[index] = null;
+			else {
+				byte[] data = new byte[componentLength];
+				for (int i = 0; i < componentLength; i++) data[i] = this.buffer.get ((start + i));
+				components[index] = new String (data, StandardCharsets.UTF_8);
+			}
+
+			// advance
+			index++;
+			start = (position + 1);
+		}
+
+		// create instruction
+		switch (this.category) {
+			case FIELD_NAME:
+				return new GenericFieldNameInstruction (components[0], components[1], components[2]);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				return new GenericInvokeDynamicMethodNameInstruction (components[0], components[1]);
+			case METHOD_NAME:
+				return new GenericMethodNameInstruction (components[0], components[1], components[2]);
+			case PACKAGE_NAME:
+				return new GenericPackageNameInstruction (components[0]);
+			default:
+				return new GenericTypeNameInstruction (components[0]);
+		}
+	}
+
+	/**
+	 * Searches a record by its original key (falling back to stored wildcards).
+	 * @param first The first component.
+	 * @param second The second component.
+	 * @param third The third component.
+	 * @return The record offset (or -1).
+	 * @since 1.0.0
+	 */
+	public int find (String first, String second, String third) {
+		return this.find (0, false, ((this.flags & WILDCARD_FLAG) != 0), first, second, third);
+	}
+
+	/**
+	 * Searches a record (falling back to stored wildcards).
+	 * @param base The offset array base.
+	 * @param replacement True if the replacement keys shall be compared.
+	 * @param wildcards True if the keys contain wildcards.
+	 * @param first The first component.
+	 * @param second The second component.
+	 * @param third The third component.
+	 * @return The record offset (or -1).
+	 */
+	private int find (int base, boolean replacement, boolean wildcards, String first, String second, String third) {
+		int record = this.search (base, replacement, first, second, third);
+		if (record != -1 || !wildcards) return record;
+
+		// search stored wildcards
+		switch (this.category) {
+			case FIELD_NAME:
+			case METHOD_NAME:
+				if (third != null && (record = this.search (base, replacement, first, second, null)) != -1) return record;
+				if (first != null && (record = this.search (base, replacement, null, second, third)) != -1) return record;
+				return (first != null && third != null ? this.search (base, replacement, null, second, null) : -1);
+			case INVOKE_DYNAMIC_METHOD_NAME:
+				return (second != null ? this.search (base, replacement, first, null, null) : -1);
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Searches a record by its replacement key (falling back to stored wildcards).
+	 * @param first The first component.
+	 * @param second The second component.
+	 * @param third The third component.
+	 * @return The record offset (or -1).
+	 * @since 1.0.0
+	 */
+	public int findReplacement (String first, String second, String third) {
+		return this.find ((this.size * 4), true, ((this.flags & REPLACEMENT_WILDCARD_FLAG) != 0), first, second, third);
+	}
+
+	/**
+	 * Returns the original instruction of a record.
+	 * @param record The record offset.
+	 * @return The instruction.
+	 * @since 1.0.0
+	 */
+	public IMapInstruction getOriginal (int record) {
+		int length = this.readVarInt (record);
+		return this.decode ((record + getVarIntSize (length)), length);
+	}
+
+	/**
+	 * Returns the record offset at a specific position (in original key order).
+	 * @param index The index.
+	 * @return The record offset.
+	 * @since 1.0.0
+	 */
+	public int getRecord (int index) {
+		return this.buffer.getInt ((index * 4));
+	}
+
+	/**
+	 * Returns the replacement instruction of a record.
+	 * @param record The record offset.
+	 * @return The instruction.
+	 * @since 1.0.0
+	 */
+	public IMapInstruction getReplacement (int record) {
+		int keyLength = this.readVarInt (record);
+		int valueOffset = (record + getVarIntSize (keyLength) + keyLength);
+		int valueLength = this.readVarInt (valueOffset);
+
+		return this.decode ((valueOffset + getVarIntSize (valueLength)), valueLength);
+	}
+
+	/**
+	 * Performs a binary search over one of the record offset arrays.
+	 * @param base The offset array base.
+	 * @param replacement True if the replacement keys shall be compared.
+	 * @param first The first component.
+	 * @param second The second component.
+	 * @param third The third component.
+	 * @return The record offset (or -1).
+	 */
+	protected int search (int base, boolean replacement, String first, String second, String third) {
+		int low = 0;
+		int high = (this.size - 1);
+
+		while (low <= high) {
+			int middle = ((low + high) >>> 1);
+			int record = this.buffer.getInt ((base + (middle * 4)));
+
+			// locate key
+			int keyLength = this.readVarInt (record);
+			int keyOffset = (record + getVarIntSize (keyLength));
+
+			if (replacement) {
+				int valueOffset = (keyOffset + keyLength);
+
+				keyLength = this.readVarInt (valueOffset);
+				keyOffset = (valueOffset + getVarIntSize (keyLength));
+			}
+
+			// compare
+			int result = this.compare (keyOffset, keyLength, first, second, third);
+
+			if (result < 0)
+				high = (middle - 1);
+			else if (result > 0)
+				low = (middle + 1);
+			else
+				return record;
+		}
+
+		return -1;
+	}
+}
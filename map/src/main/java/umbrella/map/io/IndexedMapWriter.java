@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import com.google.common.primitives.UnsignedBytes;
+import lombok.NonNull;
+import umbrella.map.IMap;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.utility.IOUtility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Writes maps in the indexed map format (see {@link IndexedMapSection} for a description of the layout).
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class IndexedMapWriter {
+
+	/**
+	 * Encodes a single section.
+	 * @param category The category.
+	 * @param instructions The instructions.
+	 * @return The encoded section.
+	 * @throws IOException Occurs if encoding an instruction is not possible.
+	 */
+	protected ByteArrayOutputStream encodeSection (MapInstructionCategory category, Map<IMapInstruction, IMapInstruction> instructions) throws IOException {
+		// encode records
+		final byte[][] keys = new byte[instructions.size ()][];
+		final byte[][] values = new byte[instructions.size ()][];
+		int index = 0;
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : instructions.entrySet ()) {
+			keys[index] = IndexedMapSection.encode (category, entry.getKey ());
+			values[index] = IndexedMapSection.encode (category, entry.getValue ());
+			index++;
+		}
+
+		// sort records by original key
+		Integer[] originalOrder = this.sort (keys);
+
+		// calculate record offsets (records are stored in original key order)
+		int[] offsets = new int[keys.length];
+		long position = (keys.length * 8L);
+
+		for (Integer record : originalOrder) {
+			if (position > Integer.MAX_VALUE) throw new IOException ("Section " + category + " exceeds the maximum section size");
+
+			offsets[record] = ((int) position);
+			position += (getVarIntSize (keys[record].length) + keys[record].length + getVarIntSize (values[record].length) + values[record].length);
+		}
+
+		if (position > Integer.MAX_VALUE) throw new IOException ("Section " + category + " exceeds the maximum section size");
+
+		// sort records by replacement key
+		Integer[] replacementOrder = this.sort (values);
+
+		// write section
+		ByteArrayOutputStream section = new ByteArrayOutputStream (((int) position));
+		DataOutputStream dataStream = new DataOutputStream (section);
+
+		for (Integer record : originalOrder) dataStream.writeInt (offsets[record]);
+		for (Integer record : replacementOrder) dataStream.writeInt (offsets[record]);
+
+		for (Integer record : originalOrder) {
+			IOUtility.writeVarInt (dataStream, keys[record].length);
+			dataStream.write (keys[record]);
+			IOUtility.writeVarInt (dataStream, values[record].length);
+			dataStream.write (values[record]);
+		}
+
+		dataStream.flush ();
+		return section;
+	}
+
+	/**
+	 * Returns the encoded size of a variable length integer.
+	 * @param value The value.
+	 * @return The size in bytes.
+	 */
+	private static int getVarIntSize (int value) {
+		int size = 1;
+
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Returns the indices of a set of keys in unsigned lexicographical order.
+	 * @param keys The keys.
+	 * @return The sorted indices.
+	 */
+	protected Integer[] sort (final byte[][] keys) {
+		Integer[] order = new Integer[keys.length];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+
+		final Comparator<byte[]> comparator = UnsignedBytes.lexicographicalComparator ();
+
+		Arrays.sort (order, new Comparator<Integer> () {
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public int compare (Integer o1, Integer o2) {
+				return comparator.compare (keys[o1], keys[o2]);
+			}
+		});
+
+		return order;
+	}
+
+	/**
+	 * Writes a map.
+	 * Instructions which do not belong to a known category are not written.
+	 * @param map The map.
+	 * @param outputStream The output stream.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public void write (@NonNull IMap map, @NonNull OutputStream outputStream) throws IOException {
+		// encode sections
+		Map<MapInstructionCategory, ByteArrayOutputStream> sections = new EnumMap<> (MapInstructionCategory.class);
+		Map<MapInstructionCategory, Integer> sizes = new EnumMap<> (MapInstructionCategory.class);
+		Map<MapInstructionCategory, Integer> flags = new EnumMap<> (MapInstructionCategory.class);
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			if (IndexedMapSection.getCode (category) == -1) continue;
+
+			Map<IMapInstruction, IMapInstruction> instructions = map.getInstructionMap (category);
+			if (instructions.isEmpty ()) continue;
+
+			sections.put (category, this.encodeSection (category, instructions));
+			sizes.put (category, instructions.size ());
+			flags.put (category, IndexedMapSection.getFlags (category, instructions));
+		}
+
+		// write header
+		DataOutputStream dataStream = new DataOutputStream (outputStream);
+
+		dataStream.write (MapFormat.INDEXED.getMagic ());
+		dataStream.writeByte (IndexedMapSection.VERSION);
+		dataStream.writeByte (sections.size ());
+		dataStream.writeShort (0);
+
+		// write section headers
+		long offset = (IndexedMapSection.HEADER_SIZE + (sections.size () * ((long) IndexedMapSection.SECTION_HEADER_SIZE)));
+
+		for (Map.Entry<MapInstructionCategory, ByteArrayOutputStream> section : sections.entrySet ()) {
+			dataStream.writeByte (IndexedMapSection.getCode (section.getKey ()));
+			dataStream.writeByte (flags.get (section.getKey ()));
+			dataStream.writeShort (0);
+			dataStream.writeInt (sizes.get (section.getKey ()));
+			dataStream.writeLong (offset);
+			dataStream.writeLong (section.getValue ().size ());
+
+			offset += section.getValue ().size ();
+		}
+
+		// write sections
+		for (ByteArrayOutputStream section : sections.values ()) section.writeTo (dataStream);
+		dataStream.flush ();
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.NonNull;
+
+import umbrella.utility.IOUtility;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Defines all supported map file formats.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public enum MapFormat {
+	TEXT (null),
+	BINARY (new byte[] { 'U', 'M', 'B', 'M' }),
+	INDEXED (new byte[] { 'U', 'M', 'B', 'I' }),
+	COMPRESSED (new byte[] { 'U', 'M', 'B', 'Z' }),
+	PARTITIONED (new byte[] { 'U', 'M', 'B', 'O' });
+
+	/**
+	 * Stores the maximum amount of bytes needed to detect a format.
+	 */
+	public static final int MAGIC_LENGTH = 4;
+
+	/**
+	 * Stores the magic bytes (or null if the format cannot be identified by a prefix).
+	 */
+	private final byte[] magic;
+
+	/**
+	 * Constructs a new MapFormat instance.
+	 * @param magic The magic bytes.
+	 */
+	private MapFormat (byte[] magic) {
+		this.magic = magic;
+	}
+
+	/**
+	 * Detects the format of a stream without consuming any of its data.
+	 * @param inputStream The input stream (needs to support marks).
+	 * @return The format.
+	 * @throws IOException Occurs if reading from the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public static MapFormat detect (@NonNull InputStream inputStream) throws IOException {
+		// verify stream
+		if (!inputStream.markSupported ()) throw new IOException ("Cannot detect the format of a stream without mark support");
+
+		// read prefix
+		byte[] prefix = new byte[MAGIC_LENGTH];
+		int length = 0;
+
+		inputStream.mark (MAGIC_LENGTH);
+
+		try {
+			int current;
+			while (length < prefix.length && (current = inputStream.read (prefix, length, (prefix.length - length))) != -1) length += current;
+		} finally {
+			inputStream.reset ();
+		}
+
+		// compare prefixes
+		for (MapFormat format : values ()) {
+			if (format.magic == null || length < format.magic.length) continue;
+			if (Arrays.equals (format.magic, Arrays.copyOf (prefix, format.magic.length))) return format;
+		}
+
+		// fall back to text
+		return TEXT;
+	}
+
+	/**
+	 * Detects the format of a file.
+	 * @param file The file.
+	 * @return The format.
+	 * @throws IOException Occurs if reading from the file is not possible.
+	 * @since 1.0.0
+	 */
+	public static MapFormat detect (@NonNull File file) throws IOException {
+		// define streams
+		InputStream inputStream = null;
+
+		// detect format
+		try {
+			inputStream = new BufferedInputStream (new FileInputStream (file));
+			return detect (inputStream);
+		} finally {
+			IOUtility.closeQuietly (inputStream);
+		}
+	}
+
+	/**
+	 * Returns a copy of the magic bytes.
+	 * @return The magic bytes (or null).
+	 * @since 1.0.0
+	 */
+	public byte[] getMagic () {
+		return (this.magic != null ? this.magic.clone () : null);
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Represents an error within a map file.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class MapParseException extends IOException {
+
+	/**
+	 * Stores the line number (or -1 if unknown).
+	 */
+	@Getter
+	private final long lineNumber;
+
+	/**
+	 * Stores the error description (without line information).
+	 */
+	@Getter
+	private final String reason;
+
+	/**
+	 * Constructs a new MapParseException instance.
+	 * @param lineNumber The line number.
+	 * @param message The message.
+	 */
+	public MapParseException (long lineNumber, String message) {
+		this (lineNumber, message, null);
+	}
+
+	/**
+	 * Constructs a new MapParseException instance.
+	 * @param lineNumber The line number.
+	 * @param message The message.
+	 * @param cause The cause.
+	 */
+	public MapParseException (long lineNumber, String message, Throwable cause) {
+		super ((lineNumber != -1 ? "Line " + lineNumber + ": " : "") + message, cause);
+		this.lineNumber = lineNumber;
+		this.reason = message;
+	}
+}
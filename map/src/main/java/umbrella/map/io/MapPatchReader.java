@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import com.google.common.io.ByteStreams;
+import lombok.NonNull;
+import umbrella.map.MapPatch;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.utility.IOUtility;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads map patches.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class MapPatchReader extends BinaryMapReader {
+
+	/**
+	 * Reads a patch.
+	 * @param inputStream The input stream.
+	 * @param registry The instruction registry.
+	 * @return The patch.
+	 * @throws IOException Occurs if reading from the stream is not possible or the patch is corrupted.
+	 * @since 1.0.0
+	 */
+	public MapPatch read (@NonNull InputStream inputStream, @NonNull IMapInstructionRegistry registry) throws IOException {
+		DataInputStream dataStream = new DataInputStream (inputStream);
+		MapPatch patch = new MapPatch ();
+
+		// verify header
+		byte[] magic = new byte[MapFormat.MAGIC_LENGTH];
+		dataStream.readFully (magic);
+
+		if (!Arrays.equals (magic, MapPatchWriter.MAGIC)) throw new IOException ("Not a map patch");
+
+		int version = dataStream.readUnsignedByte ();
+		if (version != MapPatchWriter.VERSION) throw new IOException ("Unsupported map patch version " + version);
+
+		patch.setBaseDigest (dataStream.readLong ());
+		int expectedChecksum = dataStream.readInt ();
+
+		// read payload
+		byte[] payload = ByteStreams.toByteArray (dataStream);
+
+		// verify checksum
+		CRC32 checksum = new CRC32 ();
+		checksum.update (payload);
+		if (((int) checksum.getValue ()) != expectedChecksum) throw new IOException ("Patch checksum mismatch: The patch is corrupted");
+
+		// decode payload
+		InputStream payloadStream = new ByteArrayInputStream (payload);
+		String[] strings = this.readStringTable (payloadStream);
+		int sectionCount = IOUtility.readVarInt (payloadStream);
+
+		for (int i = 0; i < sectionCount; i++) {
+			// read section header
+			MapInstructionCategory category;
+
+			try {
+				category = MapInstructionCategory.valueOf (this.readString (strings, IOUtility.readVarInt (payloadStream)));
+			} catch (IllegalArgumentException ex) {
+				throw new IOException ("Unknown instruction category in section " + i, ex);
+			}
+
+			// read added instructions
+			int count = IOUtility.readVarInt (payloadStream);
+			for (int j = 0; j < count; j++) patch.addInstruction (this.readInstruction (payloadStream, registry, strings, category), this.readInstruction (payloadStream, registry, strings, category));
+
+			// read changed instructions
+			count = IOUtility.readVarInt (payloadStream);
+			for (int j = 0; j < count; j++) patch.changeInstruction (this.readInstruction (payloadStream, registry, strings, category), this.readInstruction (payloadStream, registry, strings, category));
+
+			// read removed instructions
+			count = IOUtility.readVarInt (payloadStream);
+			for (int j = 0; j < count; j++) patch.removeInstruction (this.readInstruction (payloadStream, registry, strings, category));
+		}
+
+		return patch;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.NonNull;
+import umbrella.map.MapPatch;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.utility.IOUtility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes map patches.
+ *
+ * Patches use the encoding of the binary map format: A header (magic bytes, format version, a digest of the base map
+ * and a CRC32 checksum of the payload) is followed by a front-coded string table and one section per instruction category. Each section
+ * lists the added, changed and removed instructions of its category.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class MapPatchWriter extends BinaryMapWriter {
+
+	/**
+	 * Defines the magic bytes of patch files.
+	 */
+	static final byte[] MAGIC = new byte[] { 'U', 'M', 'B', 'P' };
+
+	/**
+	 * Writes a patch.
+	 * @param patch The patch.
+	 * @param registry The instruction registry.
+	 * @param outputStream The output stream.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public void write (@NonNull MapPatch patch, @NonNull IMapInstructionRegistry registry, @NonNull OutputStream outputStream) throws IOException {
+		// collect strings
+		Set<String> strings = new TreeSet<> ();
+		int sectionCount = 0;
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			if (isEmpty (patch, category)) continue;
+
+			strings.add (category.name ());
+			sectionCount++;
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : patch.getAddedInstructions (category).entrySet ()) {
+				collectStrings (strings, registry, entry.getKey ());
+				collectStrings (strings, registry, entry.getValue ());
+			}
+
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : patch.getChangedInstructions (category).entrySet ()) {
+				collectStrings (strings, registry, entry.getKey ());
+				collectStrings (strings, registry, entry.getValue ());
+			}
+
+			for (IMapInstruction original : patch.getRemovedInstructions (category)) collectStrings (strings, registry, original);
+		}
+
+		// encode payload
+		CRC32 checksum = new CRC32 ();
+		ByteArrayOutputStream payload = new ByteArrayOutputStream ();
+		OutputStream payloadStream = new CheckedOutputStream (payload, checksum);
+
+		Map<String, Integer> references = this.writeStringTable (payloadStream, strings);
+
+		IOUtility.writeVarInt (payloadStream, sectionCount);
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			if (isEmpty (patch, category)) continue;
+
+			// write section header
+			IOUtility.writeVarInt (payloadStream, references.get (category.name ()));
+
+			// write entries
+			this.writeEntries (payloadStream, registry, references, patch.getAddedInstructions (category));
+			this.writeEntries (payloadStream, registry, references, patch.getChangedInstructions (category));
+
+			IOUtility.writeVarInt (payloadStream, patch.getRemovedInstructions (category).size ());
+			for (IMapInstruction original : patch.getRemovedInstructions (category)) this.writeInstruction (payloadStream, registry, references, original);
+		}
+
+		// write header
+		DataOutputStream dataStream = new DataOutputStream (outputStream);
+		dataStream.write (MAGIC);
+		dataStream.writeByte (VERSION);
+		dataStream.writeLong (patch.getBaseDigest ());
+		dataStream.writeInt (((int) checksum.getValue ()));
+
+		// write payload
+		payload.writeTo (dataStream);
+		dataStream.flush ();
+	}
+
+	/**
+	 * Checks whether a patch contains changes within a category.
+	 * @param patch The patch.
+	 * @param category The category.
+	 * @return True if the category is unchanged.
+	 */
+	private static boolean isEmpty (MapPatch patch, MapInstructionCategory category) {
+		return (patch.getAddedInstructions (category).isEmpty () && patch.getChangedInstructions (category).isEmpty () && patch.getRemovedInstructions (category).isEmpty ());
+	}
+
+	/**
+	 * Writes a list of instruction pairs.
+	 * @param outputStream The output stream.
+	 * @param registry The instruction registry.
+	 * @param references The string references.
+	 * @param entries The instructions.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 */
+	protected void writeEntries (OutputStream outputStream, IMapInstructionRegistry registry, Map<String, Integer> references, Map<IMapInstruction, IMapInstruction> entries) throws IOException {
+		IOUtility.writeVarInt (outputStream, entries.size ());
+
+		for (Map.Entry<IMapInstruction, IMapInstruction> entry : entries.entrySet ()) {
+			this.writeInstruction (outputStream, registry, references, entry.getKey ());
+			this.writeInstruction (outputStream, registry, references, entry.getValue ());
+		}
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.Getter;
+import lombok.NonNull;
+import umbrella.map.IMap;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.utility.IOUtility;
+
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Reads large text maps in parallel.
+ * The file is split into line-aligned chunks which are parsed into separate buffers by a pool of worker threads. The
+ * buffers are merged into the target map in file order afterwards (thus later mappings still replace earlier ones).
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class ParallelTextMapReader {
+
+	/**
+	 * Defines the file size from which on parallel loading pays off.
+	 */
+	public static final long PARALLEL_THRESHOLD = (4 * 1024 * 1024);
+
+	/**
+	 * Defines the amount of chunks created per thread (smooths out uneven chunks).
+	 */
+	public static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Defines the maximum chunk size.
+	 */
+	public static final int MAXIMUM_CHUNK_SIZE = (256 * 1024 * 1024);
+
+	/**
+	 * Stores the amount of worker threads.
+	 */
+	@Getter
+	private final int threads;
+
+	/**
+	 * Constructs a new ParallelTextMapReader instance (using one thread per available processor).
+	 */
+	public ParallelTextMapReader () {
+		this (Runtime.getRuntime ().availableProcessors ());
+	}
+
+	/**
+	 * Constructs a new ParallelTextMapReader instance.
+	 * @param threads The amount of worker threads.
+	 * @throws IllegalArgumentException Occurs if less than one thread is requested.
+	 */
+	public ParallelTextMapReader (int threads) {
+		if (threads < 1) throw new IllegalArgumentException ("At least one thread is required");
+		this.threads = threads;
+	}
+
+	/**
+	 * Reads a map.
+	 * @param file The file (UTF-8 encoded).
+	 * @param map The map to append to.
+	 * @throws IOException Occurs if reading from the file is not possible or the map is malformed.
+	 * @since 1.0.0
+	 */
+	public void read (@NonNull File file, @NonNull IMap map) throws IOException {
+		// define streams
+		RandomAccessFile randomAccessFile = null;
+		ExecutorService executor = null;
+
+		try {
+			// open file
+			randomAccessFile = new RandomAccessFile (file, "r");
+			FileChannel channel = randomAccessFile.getChannel ();
+
+			// split file
+			List<Long> boundaries = this.split (channel);
+
+			// parse chunks
+			executor = Executors.newFixedThreadPool (Math.min (this.threads, (boundaries.size () - 1)));
+			List<Future<Chunk>> futures = new ArrayList<> ();
+
+			for (int i = 0; i < (boundaries.size () - 1); i++) {
+				long start = boundaries.get (i);
+				long end = boundaries.get ((i + 1));
+
+				futures.add (executor.submit (new ChunkParser (channel, start, (end - start), map.getInstructionRegistry ())));
+			}
+
+			// merge chunks in order
+			long lineNumber = 0;
+
+			for (Future<Chunk> future : futures) {
+				Chunk chunk = this.await (future, lineNumber);
+
+				// append instructions
+				for (int i = 0; i < chunk.getInstructions ().size (); i += 2)
+					map.addInstruction (chunk.getInstructions ().get (i), chunk.getInstructions ().get ((i + 1)));
+
+				// update line offset
+				lineNumber += chunk.getLineCount ();
+			}
+		} finally {
+			if (executor != null) executor.shutdownNow ();
+			IOUtility.closeQuietly (randomAccessFile);
+		}
+	}
+
+	/**
+	 * Waits for a chunk to be parsed.
+	 * @param future The future.
+	 * @param lineNumber The line number of the last line before the chunk.
+	 * @return The chunk.
+	 * @throws IOException Occurs if parsing the chunk failed.
+	 */
+	private Chunk await (Future<Chunk> future, long lineNumber) throws IOException {
+		try {
+			return future.get ();
+		} catch (InterruptedException ex) {
+			Thread.currentThread ().interrupt ();
+			throw new IOException ("Interrupted while loading map", ex);
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause ();
+
+			// translate line numbers
+			if (cause instanceof MapParseException) {
+				MapParseException parseException = ((MapParseException) cause);
+				throw new MapParseException ((lineNumber + parseException.getLineNumber ()), parseException.getReason (), parseException.getCause ());
+			}
+
+			// rethrow
+			if (cause instanceof IOException) throw ((IOException) cause);
+			if (cause instanceof RuntimeException) throw ((RuntimeException) cause);
+			if (cause instanceof Error) throw ((Error) cause);
+			throw new IOException ("Could not load map: " + cause.getMessage (), cause);
+		}
+	}
+
+	/**
+	 * Splits a file into line-aligned chunks.
+	 * @param channel The file channel.
+	 * @return The chunk boundaries (including the start and end of the file).
+	 * @throws IOException Occurs if reading from the file is not possible.
+	 */
+	private List<Long> split (FileChannel channel) throws IOException {
+		long size = channel.size ();
+
+		// calculate chunk count
+		long chunkCount = Math.max (((long) this.threads * CHUNKS_PER_THREAD), ((size / MAXIMUM_CHUNK_SIZE) + 1));
+		long chunkSize = Math.max (1, (size / chunkCount));
+
+		// find boundaries
+		List<Long> boundaries = new ArrayList<> ();
+		boundaries.add (0L);
+
+		ByteBuffer buffer = ByteBuffer.allocate (4096);
+		long position = chunkSize;
+
+		while (position < size) {
+			// search next line terminator (UTF-8 never encodes other characters with this byte)
+			long boundary = -1;
+
+			while (boundary == -1 && position < size) {
+				buffer.clear ();
+				int read = channel.read (buffer, position);
+				if (read == -1) break;
+
+				for (int i = 0; i < read; i++) {
+					if (buffer.get (i) == '\n') {
+						boundary = (position + i + 1);
+						break;
+					}
+				}
+
+				if (boundary == -1) position += read;
+			}
+
+			// append boundary
+			if (boundary == -1 || boundary >= size) break;
+			boundaries.add (boundary);
+
+			position = (boundary + chunkSize);
+		}
+
+		boundaries.add (size);
+		return boundaries;
+	}
+
+	/**
+	 * Represents a parsed chunk.
+	 */
+	private static class Chunk {
+
+		/**
+		 * Stores all original and replacement instructions (in pairs).
+		 */
+		@Getter
+		private final List<IMapInstruction> instructions;
+
+		/**
+		 * Stores the amount of lines within the chunk.
+		 */
+		@Getter
+		private final long lineCount;
+
+		/**
+		 * Constructs a new Chunk instance.
+		 * @param instructions The instructions.
+		 * @param lineCount The line count.
+		 */
+		public Chunk (List<IMapInstruction> instructions, long lineCount) {
+			this.instructions = instructions;
+			this.lineCount = lineCount;
+		}
+	}
+
+	/**
+	 * Parses a single chunk.
+	 */
+	private static class ChunkParser implements Callable<Chunk> {
+
+		/**
+		 * Stores the file channel.
+		 */
+		private final FileChannel channel;
+
+		/**
+		 * Stores the chunk offset.
+		 */
+		private final long offset;
+
+		/**
+		 * Stores the chunk length.
+		 */
+		private final long length;
+
+		/**
+		 * Stores the instruction registry.
+		 */
+		private final IMapInstructionRegistry registry;
+
+		/**
+		 * Constructs a new ChunkParser instance.
+		 * @param channel The file channel.
+		 * @param offset The chunk offset.
+		 * @param length The chunk length.
+		 * @param registry The instruction registry.
+		 */
+		public ChunkParser (FileChannel channel, long offset, long length, IMapInstructionRegistry registry) {
+			this.channel = channel;
+			this.offset = offset;
+			this.length = length;
+			this.registry = registry;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Chunk call () throws Exception {
+			// decode chunk
+			ByteBuffer buffer = this.channel.map (FileChannel.MapMode.READ_ONLY, this.offset, this.length);
+			CharBuffer characters = StandardCharsets.UTF_8.decode (buffer);
+
+			// parse chunk
+			List<IMapInstruction> instructions = new ArrayList<> ();
+			long lineCount = (new TextMapReader ()).read (new CharArrayReader (characters.array (), (characters.arrayOffset () + characters.position ()), characters.remaining ()), this.registry, instructions);
+
+			return (new Chunk (instructions, lineCount));
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.NonNull;
+import umbrella.map.IMap;
+import umbrella.utility.IOUtility;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Reads maps in the partitioned map format.
+ * Opening a map only decodes its segment index; segments are decoded individually on request.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class PartitionedMapReader extends BinaryMapReader {
+
+	/**
+	 * Stores the segment data.
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Stores all segments (the global segment is stored with a null owner).
+	 */
+	private final Map<String, Segment> segments;
+
+	/**
+	 * Constructs a new PartitionedMapReader instance.
+	 * @param buffer The segment data.
+	 * @param segments The segments.
+	 */
+	private PartitionedMapReader (ByteBuffer buffer, Map<String, Segment> segments) {
+		this.buffer = buffer;
+		this.segments = segments;
+	}
+
+	/**
+	 * Opens a partitioned map file (the file is mapped into memory).
+	 * @param channel The file channel.
+	 * @return The reader.
+	 * @throws IOException Occurs if mapping the file is not possible or the file is malformed.
+	 * @since 1.0.0
+	 */
+	public static PartitionedMapReader open (@NonNull FileChannel channel) throws IOException {
+		if (channel.size () > Integer.MAX_VALUE) throw new IOException ("Partitioned map exceeds the maximum size of " + Integer.MAX_VALUE + " bytes");
+		return open (channel.map (FileChannel.MapMode.READ_ONLY, 0, channel.size ()));
+	}
+
+	/**
+	 * Opens a partitioned map.
+	 * @param buffer The buffer.
+	 * @return The reader.
+	 * @throws IOException Occurs if the buffer is malformed.
+	 * @since 1.0.0
+	 */
+	public static PartitionedMapReader open (@NonNull ByteBuffer buffer) throws IOException {
+		buffer = buffer.slice ().order (ByteOrder.BIG_ENDIAN);
+
+		// verify header
+		if (buffer.remaining () < PartitionedMapWriter.HEADER_SIZE) throw new IOException ("Unexpected end of partitioned map header");
+
+		byte[] magic = new byte[MapFormat.MAGIC_LENGTH];
+		buffer.get (magic);
+
+		if (!Arrays.equals (magic, MapFormat.PARTITIONED.getMagic ())) throw new IOException ("Not a partitioned map");
+
+		int version = (buffer.get () & 0xFF);
+		if (version != PartitionedMapWriter.VERSION) throw new IOException ("Unsupported partitioned map version " + version);
+
+		int indexSize = buffer.getInt ();
+		int expectedChecksum = buffer.getInt ();
+
+		// read index
+		if (indexSize < 0 || indexSize > buffer.remaining ()) throw new IOException ("Unexpected end of partitioned map index");
+
+		byte[] index = new byte[indexSize];
+		buffer.get (index);
+
+		CRC32 checksum = new CRC32 ();
+		checksum.update (index);
+		if (((int) checksum.getValue ()) != expectedChecksum) throw new IOException ("Index checksum mismatch: The map is corrupted");
+
+		// decode segments
+		ByteBuffer data = buffer.slice ();
+		DataInputStream indexStream = new DataInputStream (new ByteArrayInputStream (index));
+
+		int segmentCount = IOUtility.readVarInt (indexStream);
+		Map<String, Segment> segments = new HashMap<> (((segmentCount * 4) / 3) + 1);
+
+		for (int i = 0; i < segmentCount; i++) {
+			// read owner
+			String owner = null;
+			int ownerLength = IOUtility.readVarInt (indexStream);
+
+			if (ownerLength != 0) {
+				if (ownerLength < 0 || (ownerLength - 1) > indexStream.available ()) throw new IOException ("Owner of segment " + i + " exceeds the index bounds");
+
+				byte[] encodedOwner = new byte[(ownerLength - 1)];
+				indexStream.readFully (encodedOwner);
+				owner = new String (encodedOwner, StandardCharsets.UTF_8);
+			}
+
+			// read location
+			int offset = IOUtility.readVarInt (indexStream);
+			int length = IOUtility.readVarInt (indexStream);
+			int segmentChecksum = indexStream.readInt ();
+
+			// verify bounds
+			if (offset < 0 || length < 0 || (((long) offset) + length) > data.remaining ()) throw new IOException ("Segment " + i + " exceeds the partitioned map bounds");
+
+			segments.put (owner, new Segment (offset, length, segmentChecksum));
+		}
+
+		return new PartitionedMapReader (data, segments);
+	}
+
+	/**
+	 * Returns all owners which are stored within separate segments.
+	 * @return An unmodifiable set of owners.
+	 * @since 1.0.0
+	 */
+	public Set<String> getOwners () {
+		Set<String> owners = new HashSet<> (this.segments.keySet ());
+		owners.remove (null);
+
+		return Collections.unmodifiableSet (owners);
+	}
+
+	/**
+	 * Checks whether a segment exists.
+	 * @param owner The owner (or null for the global segment).
+	 * @return True if the segment exists.
+	 * @since 1.0.0
+	 */
+	public boolean hasSegment (String owner) {
+		return this.segments.containsKey (owner);
+	}
+
+	/**
+	 * Reads a single segment.
+	 * @param owner The owner (or null for the global segment).
+	 * @param map The map to append to.
+	 * @return True if the segment exists.
+	 * @throws IOException Occurs if the segment is corrupted.
+	 * @since 1.0.0
+	 */
+	public boolean read (String owner, @NonNull IMap map) throws IOException {
+		Segment segment = this.segments.get (owner);
+		if (segment == null) return false;
+
+		// copy segment
+		byte[] data = new byte[segment.length];
+		ByteBuffer buffer = this.buffer.duplicate ();
+		buffer.position (segment.offset);
+		buffer.get (data);
+
+		// verify checksum
+		CRC32 checksum = new CRC32 ();
+		checksum.update (data);
+		if (((int) checksum.getValue ()) != segment.checksum) throw new IOException ("Segment checksum mismatch: The segment of " + (owner != null ? "owner \"" + owner + "\"" : "global instructions") + " is corrupted");
+
+		// decode segment
+		this.readSections (new ByteArrayInputStream (data), map.getInstructionRegistry (), map);
+		return true;
+	}
+
+	/**
+	 * Reads all segments.
+	 * @param map The map to append to.
+	 * @throws IOException Occurs if a segment is corrupted.
+	 * @since 1.0.0
+	 */
+	public void read (@NonNull IMap map) throws IOException {
+		for (String owner : this.segments.keySet ()) this.read (owner, map);
+	}
+
+	/**
+	 * Describes the location of a single segment.
+	 */
+	private static final class Segment {
+
+		/**
+		 * Stores the segment offset (relative to the end of the index).
+		 */
+		private final int offset;
+
+		/**
+		 * Stores the segment length.
+		 */
+		private final int length;
+
+		/**
+		 * Stores the segment checksum.
+		 */
+		private final int checksum;
+
+		/**
+		 * Constructs a new Segment instance.
+		 * @param offset The offset.
+		 * @param length The length.
+		 * @param checksum The checksum.
+		 */
+		public Segment (int offset, int length, int checksum) {
+			this.offset = offset;
+			this.length = length;
+			this.checksum = checksum;
+		}
+	}
+}
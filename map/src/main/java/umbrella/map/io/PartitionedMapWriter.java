@@ -0,0 +1,167 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.NonNull;
+import umbrella.map.IMap;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.IMemberMapInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.utility.IOUtility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes maps in the partitioned map format.
+ *
+ * The format consists of a header (magic bytes, format version, the size and CRC32 checksum of the segment index)
+ * followed by the segment index and all segments. Field and method instructions are grouped into one segment per
+ * owner while all other instructions (including members without an owner) are stored within a global segment. Every
+ * segment is encoded like the payload of a binary map and carries its own checksum, thus segments may be loaded on
+ * their own.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class PartitionedMapWriter extends BinaryMapWriter {
+
+	/**
+	 * Defines the current format version.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Defines the size of the fixed header (magic bytes, version, index size and index checksum).
+	 */
+	public static final int HEADER_SIZE = (MapFormat.MAGIC_LENGTH + 9);
+
+	/**
+	 * Returns the segment owner of an instruction.
+	 * @param category The category.
+	 * @param instruction The original instruction.
+	 * @return The owner (or null if the instruction belongs to the global segment).
+	 * @since 1.0.0
+	 */
+	public static String getOwner (@NonNull MapInstructionCategory category, @NonNull IMapInstruction instruction) {
+		if (category != MapInstructionCategory.FIELD_NAME && category != MapInstructionCategory.METHOD_NAME) return null;
+		return ((IMemberMapInstruction) instruction).getOwner ();
+	}
+
+	/**
+	 * Writes a map.
+	 * @param map The map.
+	 * @param outputStream The output stream.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	@Override
+	public void write (@NonNull IMap map, @NonNull OutputStream outputStream) throws IOException {
+		IMapInstructionRegistry registry = map.getInstructionRegistry ();
+
+		// partition instructions
+		Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> globalSegment = new EnumMap<> (MapInstructionCategory.class);
+		SortedMap<String, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>>> segments = new TreeMap<> ();
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			for (Map.Entry<IMapInstruction, IMapInstruction> entry : map.getInstructionMap (category).entrySet ()) {
+				String owner = getOwner (category, entry.getKey ());
+
+				// find segment
+				Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> segment = (owner != null ? segments.get (owner) : globalSegment);
+
+				if (segment == null) {
+					segment = new EnumMap<> (MapInstructionCategory.class);
+					segments.put (owner, segment);
+				}
+
+				// find section
+				Map<IMapInstruction, IMapInstruction> section = segment.get (category);
+
+				if (section == null) {
+					section = new HashMap<> ();
+					segment.put (category, section);
+				}
+
+				section.put (entry.getKey (), entry.getValue ());
+			}
+		}
+
+		// encode segments
+		ByteArrayOutputStream index = new ByteArrayOutputStream ();
+		ByteArrayOutputStream data = new ByteArrayOutputStream ();
+
+		IOUtility.writeVarInt (index, (segments.size () + 1));
+		this.writeSegment (index, data, registry, null, globalSegment);
+
+		for (Map.Entry<String, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>>> segment : segments.entrySet ())
+			this.writeSegment (index, data, registry, segment.getKey (), segment.getValue ());
+
+		// write header
+		CRC32 checksum = new CRC32 ();
+		checksum.update (index.toByteArray ());
+
+		DataOutputStream dataStream = new DataOutputStream (outputStream);
+		dataStream.write (MapFormat.PARTITIONED.getMagic ());
+		dataStream.writeByte (VERSION);
+		dataStream.writeInt (index.size ());
+		dataStream.writeInt (((int) checksum.getValue ()));
+
+		// write index and segments
+		index.writeTo (dataStream);
+		data.writeTo (dataStream);
+		dataStream.flush ();
+	}
+
+	/**
+	 * Writes a segment and its index entry.
+	 * @param index The index stream.
+	 * @param data The segment stream.
+	 * @param registry The instruction registry.
+	 * @param owner The owner (or null for the global segment).
+	 * @param sections The sections.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 */
+	protected void writeSegment (ByteArrayOutputStream index, ByteArrayOutputStream data, IMapInstructionRegistry registry, String owner, Map<MapInstructionCategory, Map<IMapInstruction, IMapInstruction>> sections) throws IOException {
+		int offset = data.size ();
+
+		// encode segment
+		CRC32 checksum = new CRC32 ();
+		this.writeSections (new CheckedOutputStream (data, checksum), registry, sections);
+
+		// write owner (the global segment is marked with a zero length)
+		if (owner != null) {
+			byte[] encodedOwner = owner.getBytes (StandardCharsets.UTF_8);
+
+			IOUtility.writeVarInt (index, (encodedOwner.length + 1));
+			index.write (encodedOwner);
+		} else
+			IOUtility.writeVarInt (index, 0);
+
+		// write location
+		IOUtility.writeVarInt (index, offset);
+		IOUtility.writeVarInt (index, (data.size () - offset));
+
+		DataOutputStream dataStream = new DataOutputStream (index);
+		dataStream.writeInt (((int) checksum.getValue ()));
+		dataStream.flush ();
+	}
+}
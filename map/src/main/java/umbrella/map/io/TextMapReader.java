@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.NonNull;
+import umbrella.map.IMap;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.IMapInstructionFactory;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads maps in the text map format.
+ * Lines are scanned in place within a character buffer (instead of being split by regular expressions) and only the
+ * instruction fields are copied out of the buffer.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class TextMapReader {
+
+	/**
+	 * Defines the initial buffer size.
+	 */
+	public static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * Stores the character buffer.
+	 */
+	private char[] buffer = new char[BUFFER_SIZE];
+
+	/**
+	 * Stores the position of the first unread character.
+	 */
+	private int position = 0;
+
+	/**
+	 * Stores the amount of valid characters within the buffer.
+	 */
+	private int limit = 0;
+
+	/**
+	 * Stores the line number of the last line read.
+	 */
+	private long lineNumber = 0;
+
+	/**
+	 * Stores the name of the last resolved factory.
+	 */
+	private String factoryName = null;
+
+	/**
+	 * Stores the last resolved factory.
+	 */
+	private IMapInstructionFactory<?> factory = null;
+
+	/**
+	 * Reads a map.
+	 * @param inputStream The input stream (UTF-8 encoded).
+	 * @param map The map to append to.
+	 * @throws IOException Occurs if reading from the stream is not possible or the map is malformed.
+	 * @since 1.0.0
+	 */
+	public void read (@NonNull InputStream inputStream, @NonNull IMap map) throws IOException {
+		this.read (new InputStreamReader (inputStream, StandardCharsets.UTF_8), map);
+	}
+
+	/**
+	 * Reads a map.
+	 * @param reader The reader.
+	 * @param map The map to append to.
+	 * @throws IOException Occurs if reading is not possible or the map is malformed.
+	 * @since 1.0.0
+	 */
+	public void read (@NonNull Reader reader, @NonNull IMap map) throws IOException {
+		this.read (reader, map, 0);
+	}
+
+	/**
+	 * Reads a map.
+	 * @param reader The reader.
+	 * @param map The map to append to.
+	 * @param firstLine The line number of the first line within the reader (minus one).
+	 * @throws IOException Occurs if reading is not possible or the map is malformed.
+	 * @since 1.0.0
+	 */
+	public void read (@NonNull Reader reader, @NonNull IMap map, long firstLine) throws IOException {
+		this.parse (reader, map.getInstructionRegistry (), map, null, firstLine);
+	}
+
+	/**
+	 * Reads a map into a buffer.
+	 * @param reader The reader.
+	 * @param registry The instruction registry.
+	 * @param buffer The buffer to append all original and replacement instructions to (in pairs).
+	 * @return The amount of lines read.
+	 * @throws IOException Occurs if reading is not possible or the map is malformed.
+	 * @since 1.0.0
+	 */
+	public long read (@NonNull Reader reader, @NonNull IMapInstructionRegistry registry, @NonNull List<IMapInstruction> buffer) throws IOException {
+		return this.parse (reader, registry, null, buffer, 0);
+	}
+
+	/**
+	 * Parses a map.
+	 * @param reader The reader.
+	 * @param registry The instruction registry.
+	 * @param map The map to append to (or null).
+	 * @param buffer The buffer to append to (if no map is passed).
+	 * @param firstLine The line number of the first line within the reader (minus one).
+	 * @return The line number of the last line read.
+	 * @throws IOException Occurs if reading is not possible or the map is malformed.
+	 */
+	private long parse (Reader reader, IMapInstructionRegistry registry, IMap map, List<IMapInstruction> buffer, long firstLine) throws IOException {
+		// reset state
+		this.position = 0;
+		this.limit = 0;
+		this.lineNumber = firstLine;
+		this.factoryName = null;
+		this.factory = null;
+
+		// read all lines
+		int end;
+
+		while ((end = this.nextLine (reader)) != -1) {
+			int start = this.position;
+			this.position = (end + 1);
+
+			// strip carriage returns
+			if (end > start && this.buffer[(end - 1)] == '\r') end--;
+
+			// skip empty lines and comments
+			if (end == start || ((end - start) >= 2 && this.buffer[start] == '/' && this.buffer[(start + 1)] == '/')) continue;
+
+			// locate separators (the last element may contain spaces)
+			int first = this.indexOf (' ', start, end);
+			int second = (first != -1 ? this.indexOf (' ', (first + 1), end) : -1);
+			int third = (second != -1 ? this.indexOf (' ', (second + 1), end) : -1);
+
+			if (third == -1) throw new MapParseException (this.lineNumber, "Mapping does not contain exactly 4 elements");
+
+			// parse instructions
+			IMapInstruction original;
+			IMapInstruction replacement;
+
+			try {
+				original = this.getFactory (registry, start, first).create (new String (this.buffer, (first + 1), (second - first - 1)));
+				replacement = this.getFactory (registry, (second + 1), third).create (new String (this.buffer, (third + 1), (end - third - 1)));
+			} catch (RuntimeException ex) {
+				throw new MapParseException (this.lineNumber, "Malformed instruction: " + ex.getMessage (), ex);
+			}
+
+			// add instruction
+			if (map != null)
+				map.addInstruction (original, replacement);
+			else {
+				buffer.add (original);
+				buffer.add (replacement);
+			}
+		}
+
+		return this.lineNumber;
+	}
+
+	/**
+	 * Resolves the factory for an instruction name within the buffer.
+	 * The last resolved name is cached since consecutive lines usually share their instruction types.
+	 * @param registry The instruction registry.
+	 * @param start The start offset (inclusive).
+	 * @param end The end offset (exclusive).
+	 * @return The factory.
+	 * @throws MapParseException Occurs if the instruction name is unknown.
+	 */
+	private IMapInstructionFactory<?> getFactory (IMapInstructionRegistry registry, int start, int end) throws MapParseException {
+		// check cache
+		int length = (end - start);
+
+		if (this.factory != null && this.factoryName.length () == length) {
+			boolean matches = true;
+
+			for (int i = 0; i < length && matches; i++) matches = (this.factoryName.charAt (i) == this.buffer[(start + i)]);
+
+			if (matches) return this.factory;
+		}
+
+		// look up factory
+		String name = new String (this.buffer, start, length);
+		IMapInstructionFactory<?> factory = registry.getFactory (name);
+
+		if (factory == null) throw new MapParseException (this.lineNumber, "Instruction \"" + name + "\" could not be found");
+
+		// update cache
+		this.factoryName = name;
+		this.factory = factory;
+
+		return factory;
+	}
+
+	/**
+	 * Searches a character within the buffer.
+	 * @param character The character.
+	 * @param start The start offset (inclusive).
+	 * @param end The end offset (exclusive).
+	 * @return The index (or -1).
+	 */
+	private int indexOf (char character, int start, int end) {
+		for (int i = start; i < end; i++) if (this.buffer[i] == character) return i;
+		return -1;
+	}
+
+	/**
+	 * Locates the end of the next line (refilling the buffer as needed).
+	 * @param reader The reader.
+	 * @return The index of the line terminator (or -1 if the end of the stream has been reached).
+	 * @throws IOException Occurs if reading is not possible.
+	 */
+	private int nextLine (Reader reader) throws IOException {
+		int scanned = this.position;
+
+		while (true) {
+			// search line terminator
+			for (int i = scanned; i < this.limit; i++) {
+				if (this.buffer[i] == '\n') {
+					this.lineNumber++;
+					return i;
+				}
+			}
+
+			// compact buffer
+			if (this.position > 0) {
+				System.arraycopy (this.buffer, this.position, this.buffer, 0, (this.limit - this.position));
+				this.limit -= this.position;
+				this.position = 0;
+			}
+
+			// grow buffer (lines longer than the buffer)
+			if (this.limit == this.buffer.length) {
+				char[] buffer = new char[(this.buffer.length * 2)];
+				System.arraycopy (this.buffer, 0, buffer, 0, this.limit);
+				this.buffer = buffer;
+			}
+
+			// fill buffer
+			scanned = this.limit;
+			int read = reader.read (this.buffer, this.limit, (this.buffer.length - this.limit));
+
+			// handle end of stream
+			if (read == -1) {
+				// treat the remainder as last line
+				if (this.limit > this.position) {
+					if (this.limit == this.buffer.length) {
+						char[] buffer = new char[(this.buffer.length + 1)];
+						System.arraycopy (this.buffer, 0, buffer, 0, this.limit);
+						this.buffer = buffer;
+					}
+
+					this.buffer[this.limit] = '\n';
+					this.lineNumber++;
+					return this.limit++;
+				}
+
+				return -1;
+			}
+
+			this.limit += read;
+		}
+	}
+}
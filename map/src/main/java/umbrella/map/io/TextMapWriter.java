@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import lombok.NonNull;
+import umbrella.map.GenericMap;
+import umbrella.map.IMap;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.instruction.utility.MapInstructionComparator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes maps in the text map format.
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+public class TextMapWriter {
+
+	/**
+	 * Defines the size of the character buffer.
+	 */
+	public static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * Writes a map.
+	 * Instructions are written per category and sorted by owner, name and description, thus equal maps always produce
+	 * equal files. The stream is flushed but not closed.
+	 * @param map The map.
+	 * @param outputStream The output stream.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public void write (@NonNull IMap map, @NonNull OutputStream outputStream) throws IOException {
+		// open writers
+		Writer writer = new BufferedWriter (new OutputStreamWriter (outputStream, StandardCharsets.UTF_8.newEncoder ()), BUFFER_SIZE);
+
+		// write header
+		this.writeHeader (writer, map);
+
+		// write elements
+		IMapInstructionRegistry registry = map.getInstructionRegistry ();
+
+		for (MapInstructionCategory category : MapInstructionCategory.values ()) {
+			// sort section
+			Map<IMapInstruction, IMapInstruction> section = map.getInstructionMap (category);
+			if (section.isEmpty ()) continue;
+
+			IMapInstruction[] originals = section.keySet ().toArray (new IMapInstruction[section.size ()]);
+			Arrays.sort (originals, MapInstructionComparator.INSTANCE);
+
+			// write section
+			for (IMapInstruction original : originals) {
+				IMapInstruction replacement = section.get (original);
+
+				// write key identifier
+				writer.write (registry.getName (original));
+				writer.write (' ');
+
+				// write key
+				writer.write (original.serialize ());
+				writer.write (' ');
+
+				// write value identifier
+				writer.write (registry.getName (replacement));
+				writer.write (' ');
+
+				// write value
+				writer.write (replacement.serialize ());
+
+				// write new line
+				writer.write ('\n');
+			}
+		}
+
+		// write eof comment
+		writer.write ("// EOF");
+		writer.flush ();
+	}
+
+	/**
+	 * Writes the comment header.
+	 * @param writer The writer.
+	 * @param map The map.
+	 * @throws IOException Occurs if writing is not possible.
+	 */
+	protected void writeHeader (Appendable writer, IMap map) throws IOException {
+		// create list
+		List<String> elementList = new ArrayList<> ();
+
+		// append elements
+		elementList.add ("Umbrella Map");
+		elementList.add (null);
+		elementList.add ("Generator: " + (map.getClass ().getCanonicalName ().length () % 2 > 1 ? " " : "") + map.getClass ().getCanonicalName ());
+		elementList.add ("Map Version: " + (GenericMap.VERSION != null && GenericMap.VERSION.length () % 2 > 1 ? " " : "") + (GenericMap.VERSION != null ? GenericMap.VERSION : " Development Snapshot"));
+		elementList.add (null);
+
+		// get maximum length
+		int length = 0;
+		for (String element : elementList) length = Math.max (length, (element != null ? element.length () : 0));
+
+		// write header
+		for (String element : elementList) {
+			writer.append ("// ");
+
+			if (element != null) {
+				// calculate spacer
+				int spacerWidth = ((length / 2) - (element.length () / 2));
+
+				// write spacer
+				for (int i = 0; i < spacerWidth; i++) writer.append (" ");
+
+				// write element
+				writer.append (element);
+
+				// write spacer
+				for (int i = 0; i < spacerWidth; i++) writer.append (" ");
+			} else
+				for (int i = 0; i < length; i++) writer.append ("-");
+
+			// write end
+			writer.append (" \\\\\n");
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericPackageNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class ConcurrentGenericMapTest {
+
+	/**
+	 * Tests lookups.
+	 */
+	@Test
+	public void testLookup () {
+		GenericMap map = new GenericMap ();
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		ConcurrentGenericMap map1 = new ConcurrentGenericMap (map);
+
+		// verify results
+		Assert.assertEquals ("Type did not resolve correctly", "A", map1.mapTypeName ("Test"));
+		Assert.assertEquals ("Wildcard field did not resolve correctly", "b", map1.mapFieldName ("Test", "field2", null));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map1.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map1.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+
+		// verify contents
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+	}
+
+	/**
+	 * Tests lookups and collision checks with wildcard owners and descriptions.
+	 */
+	@Test
+	public void testWildcards () {
+		GenericMap map = new GenericMap ();
+		ConcurrentGenericMap map1 = new ConcurrentGenericMap ();
+
+		for (IMap current : new IMap[] { map, map1 }) {
+			current.addInstruction (new GenericFieldNameInstruction ("Test", "f", null), new GenericFieldNameInstruction ("Test", "a", null));
+			current.addInstruction (new GenericMethodNameInstruction (null, "run", "()V"), new GenericMethodNameInstruction (null, "r", "()V"));
+		}
+
+		// verify results
+		for (IMap current : new IMap[] { map, map1 }) {
+			String name = current.getClass ().getSimpleName ();
+
+			Assert.assertEquals (name + ": Stored wildcard field did not resolve correctly", "a", current.mapFieldName ("Test", "f", "I"));
+			Assert.assertEquals (name + ": Stored wildcard method did not resolve correctly", "r", current.mapMethodName ("Other", "run", "()V"));
+			Assert.assertEquals (name + ": Wildcard lookup did not resolve correctly", "r", current.mapMethodName (null, "run", null));
+			Assert.assertTrue (name + ": Wildcard field replacement is unknown", current.mappingExists (new GenericFieldNameInstruction ("Test", "a", "I")));
+			Assert.assertTrue (name + ": Wildcard method replacement is unknown", current.mappingExists (new GenericMethodNameInstruction ("Other", "r", "()V")));
+			Assert.assertFalse (name + ": Colliding replacement has been claimed", current.addInstructionIfUnused (new GenericFieldNameInstruction ("Test", "g", "J"), new GenericFieldNameInstruction ("Test", "a", "J")));
+			Assert.assertTrue (name + ": Unused replacement has been rejected", current.addInstructionIfUnused (new GenericFieldNameInstruction ("Test", "g", "J"), new GenericFieldNameInstruction ("Test", "b", "J")));
+		}
+
+		// verify removals
+		map1.removeInstruction (new GenericMethodNameInstruction (null, "run", "()V"));
+		Assert.assertEquals ("Removed wildcard method still resolves", "run", map1.mapMethodName ("Other", "run", "()V"));
+		Assert.assertFalse ("Removed wildcard method replacement is still known", map1.mappingExists (new GenericMethodNameInstruction ("Other", "r", "()V")));
+	}
+
+	/**
+	 * Tests concurrent generation.
+	 * @throws InterruptedException Occurs if the test is interrupted.
+	 */
+	@Test
+	public void testConcurrentGeneration () throws InterruptedException {
+		final ConcurrentGenericMap map = new ConcurrentGenericMap ();
+		final CountDownLatch latch = new CountDownLatch (1);
+
+		// start threads which compete for the same replacement names
+		Thread[] threads = new Thread[4];
+
+		for (int i = 0; i < threads.length; i++) {
+			final int thread = i;
+
+			threads[i] = new Thread () {
+
+				/**
+				 * {@inheritDoc}
+				 */
+				@Override
+				public void run () {
+					try { latch.await (); } catch (InterruptedException ex) { return; }
+
+					for (int j = 0; j < 500; j++) {
+						int replacement = 0;
+						while (!map.addInstructionIfUnused (new GenericTypeNameInstruction ("test/Type" + thread + "_" + j), new GenericTypeNameInstruction ("t" + replacement))) replacement++;
+					}
+				}
+			};
+			threads[i].start ();
+		}
+
+		latch.countDown ();
+		for (Thread thread : threads) thread.join ();
+
+		// verify that every replacement has been handed out exactly once
+		Set<IMapInstruction> replacements = new HashSet<> (map.getInstructionMap (MapInstructionCategory.TYPE_NAME).values ());
+		Assert.assertEquals ("Instructions are missing", (threads.length * 500), map.getInstructionMap (MapInstructionCategory.TYPE_NAME).size ());
+		Assert.assertEquals ("Replacements have been handed out more than once", (threads.length * 500), replacements.size ());
+	}
+
+	/**
+	 * Tests concurrent modifications of the same originals.
+	 * @throws InterruptedException Occurs if the test is interrupted.
+	 */
+	@Test
+	public void testConcurrentReplacement () throws InterruptedException {
+		final ConcurrentGenericMap map = new ConcurrentGenericMap ();
+		final CountDownLatch latch = new CountDownLatch (1);
+
+		// start threads which assign different replacements to the same originals at once
+		Thread[] threads = new Thread[4];
+
+		for (int i = 0; i < threads.length; i++) {
+			final int thread = i;
+
+			threads[i] = new Thread () {
+
+				/**
+				 * {@inheritDoc}
+				 */
+				@Override
+				public void run () {
+					try { latch.await (); } catch (InterruptedException ex) { return; }
+
+					for (int j = 0; j < 20000; j++) map.addInstruction (new GenericFieldNameInstruction ("Test", "field" + j, "I"), new GenericFieldNameInstruction ("A", "f" + j + "_" + thread, "I"));
+				}
+			};
+			threads[i].start ();
+		}
+
+		latch.countDown ();
+		for (Thread thread : threads) thread.join ();
+
+		// verify that the indexes agree with the instructions
+		Map<IMapInstruction, IMapInstruction> instructions = map.getInstructionMap (MapInstructionCategory.FIELD_NAME);
+		IMap inverse = map.inverse ();
+
+		for (int j = 0; j < 20000; j++) {
+			IMapInstruction replacement = instructions.get (new GenericFieldNameInstruction ("Test", "field" + j, "I"));
+			Assert.assertEquals ("Field index differs", replacement, map.getFieldNameInstruction ("Test", "field" + j, "I"));
+
+			for (int thread = 0; thread < threads.length; thread++) {
+				GenericFieldNameInstruction candidate = new GenericFieldNameInstruction ("A", "f" + j + "_" + thread, "I");
+				boolean current = candidate.equals (replacement);
+
+				Assert.assertEquals ("Reverse index differs", current, map.mappingExists (candidate));
+				Assert.assertEquals ("Inverse index differs", (current ? ("field" + j) : candidate.getName ()), inverse.mapFieldName ("A", candidate.getName (), "I"));
+			}
+		}
+	}
+
+	/**
+	 * Tests package instructions.
+	 */
+	@Test
+	public void testPackages () {
+		ConcurrentGenericMap map = new ConcurrentGenericMap ();
+		map.addInstruction (new GenericPackageNameInstruction ("com/example"), new GenericPackageNameInstruction ("a"));
+
+		// verify results
+		Assert.assertEquals ("Package did not resolve", "a/Test", map.mapTypeName ("com/example/Test"));
+		Assert.assertEquals ("Description did not resolve", "(La/Test;)V", map.mapDescription ("(Lcom/example/Test;)V"));
+		Assert.assertEquals ("Inverse package did not resolve", "com/example/Test", map.inverse ().mapTypeName ("a/Test"));
+		Assert.assertTrue ("Package replacement is unknown", map.mappingExists (new GenericTypeNameInstruction ("a/Test")));
+
+		// remove package
+		map.removeInstruction (new GenericPackageNameInstruction ("com/example"));
+		Assert.assertEquals ("Removed package still resolves", "com/example/Test", map.mapTypeName ("com/example/Test"));
+		Assert.assertEquals ("Cached description was not discarded", "(Lcom/example/Test;)V", map.mapDescription ("(Lcom/example/Test;)V"));
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class DescriptionMapperTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	protected static GenericMap createMap () {
+		GenericMap map = new GenericMap ();
+
+		map.addInstruction (new GenericTypeNameInstruction ("test/Outer"), new GenericTypeNameInstruction ("a"));
+		map.addInstruction (new GenericTypeNameInstruction ("test/Outer$Inner"), new GenericTypeNameInstruction ("a$b"));
+		map.addInstruction (new GenericTypeNameInstruction ("test/Value"), new GenericTypeNameInstruction ("c"));
+
+		return map;
+	}
+
+	/**
+	 * Tests description mapping.
+	 */
+	@Test
+	public void testDescription () {
+		GenericMap map = createMap ();
+
+		Assert.assertEquals ("Field description did not resolve correctly", "La;", map.mapDescription ("Ltest/Outer;"));
+		Assert.assertEquals ("Array description did not resolve correctly", "[[La$b;", map.mapDescription ("[[Ltest/Outer$Inner;"));
+		Assert.assertEquals ("Method description did not resolve correctly", "(ILc;[J)La;", map.mapDescription ("(ILtest/Value;[J)Ltest/Outer;"));
+		Assert.assertEquals ("Unknown description did not resolve correctly", "(Ljava/lang/String;)V", map.mapDescription ("(Ljava/lang/String;)V"));
+		Assert.assertNull ("Wildcard description did not resolve correctly", map.mapDescription (null));
+
+		// verify that unchanged descriptions are re-used
+		String description = "(Ljava/lang/Object;)V";
+		Assert.assertSame ("Unchanged description was copied", description, map.mapDescription (description));
+	}
+
+	/**
+	 * Tests signature mapping.
+	 */
+	@Test
+	public void testSignature () {
+		GenericMap map = createMap ();
+
+		Assert.assertEquals ("Field signature did not resolve correctly", "Ljava/util/List<+La;>;", map.mapSignature ("Ljava/util/List<+Ltest/Outer;>;"));
+		Assert.assertEquals ("Inner class signature did not resolve correctly", "La<Lc;>.b;", map.mapSignature ("Ltest/Outer<Ltest/Value;>.Inner;"));
+		Assert.assertEquals ("Class signature did not resolve correctly", "<L:Lc;T::Ljava/lang/Comparable<TT;>;>La;", map.mapSignature ("<L:Ltest/Value;T::Ljava/lang/Comparable<TT;>;>Ltest/Outer;"));
+		Assert.assertEquals ("Method signature did not resolve correctly", "<T:Ljava/lang/Object;>(TT;Ljava/util/Map<*La;>;)Lc;^La;", map.mapSignature ("<T:Ljava/lang/Object;>(TT;Ljava/util/Map<*Ltest/Outer;>;)Ltest/Value;^Ltest/Outer;"));
+	}
+
+	/**
+	 * Tests cache invalidation.
+	 */
+	@Test
+	public void testInvalidation () {
+		GenericMap map = createMap ();
+		Assert.assertEquals ("Description did not resolve correctly", "Lc;", map.mapDescription ("Ltest/Value;"));
+
+		// replace type
+		map.addInstruction (new GenericTypeNameInstruction ("test/Value"), new GenericTypeNameInstruction ("d"));
+		Assert.assertEquals ("Cached description was not invalidated", "Ld;", map.mapDescription ("Ltest/Value;"));
+
+		// verify inverse instructions
+		Assert.assertEquals ("Inverse did not resolve correctly", new GenericFieldNameInstruction ("a", "field", "Ld;"), (new GenericFieldNameInstruction ("test/Outer", "field", "Ltest/Value;")).getInverse (map));
+	}
+}
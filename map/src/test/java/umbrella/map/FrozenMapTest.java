@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class FrozenMapTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// append a larger amount of types to exercise the perfect hash
+		for (int i = 0; i < 1000; i++) map.addInstruction (new GenericTypeNameInstruction ("test/Type" + i), new GenericTypeNameInstruction ("t" + i));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests lookups.
+	 */
+	@Test
+	public void testLookup () {
+		// freeze map
+		GenericMap map = createMap ();
+		IMap map1 = map.freeze ();
+
+		// verify results
+		Assert.assertEquals ("Type did not resolve correctly", "A", map1.mapTypeName ("Test"));
+		Assert.assertEquals ("Unicode type did not resolve correctly", "B", map1.mapTypeName ("Testä😀"));
+		Assert.assertEquals ("Unknown type did not resolve correctly", "Test1", map1.mapTypeName ("Test1"));
+		Assert.assertEquals ("Field did not resolve correctly", "a", map1.mapFieldName ("Test", "field1", "Ljava/lang/String;"));
+		Assert.assertEquals ("Wildcard field did not resolve correctly", "b", map1.mapFieldName ("Test", "field2", null));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map1.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Unknown method did not resolve correctly", "method1", map1.mapMethodName ("Test", "method1", "()I"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map1.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+
+		for (int i = 0; i < 1000; i++) Assert.assertEquals ("Type did not resolve correctly", ("t" + i), map1.mapTypeName (("test/Type" + i)));
+
+		// verify replacements
+		Assert.assertTrue ("Replacement is unknown", map1.mappingExists (new GenericMethodNameInstruction ("A", "a", "()V")));
+		Assert.assertFalse ("Original is reported as replacement", map1.mappingExists (new GenericMethodNameInstruction ("Test", "method1", "()V")));
+
+		// verify contents
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+		Assert.assertSame ("Frozen map was copied again", map1, map1.freeze ());
+	}
+
+	/**
+	 * Tests splitting and traversing instructions.
+	 */
+	@Test
+	public void testSpliterator () {
+		IMap map = createMap ().freeze ();
+		Map<IMapInstruction, IMapInstruction> expected = map.getInstructionMap (MapInstructionCategory.TYPE_NAME);
+
+		// split
+		InstructionSpliterator spliterator = map.spliterator (MapInstructionCategory.TYPE_NAME);
+		InstructionSpliterator prefix = spliterator.trySplit ();
+
+		Assert.assertNotNull ("Spliterator did not split", prefix);
+		Assert.assertEquals ("Split sizes differ", expected.size (), (prefix.estimateSize () + spliterator.estimateSize ()));
+
+		// traverse both halves
+		final Map<IMapInstruction, IMapInstruction> visited = new ConcurrentHashMap<> ();
+
+		InstructionSpliterator.Visitor visitor = new InstructionSpliterator.Visitor () {
+
+			/**
+			 * {@inheritDoc}
+			 */
+			@Override
+			public void visit (IMapInstruction original, IMapInstruction replacement) {
+				visited.put (original, replacement);
+			}
+		};
+
+		Assert.assertTrue ("Instruction was not visited", prefix.tryAdvance (visitor));
+		prefix.forEachRemaining (visitor);
+		spliterator.forEachRemaining (visitor);
+
+		Assert.assertEquals ("Visited instructions differ", expected, visited);
+		Assert.assertFalse ("Exhausted spliterator advanced", spliterator.tryAdvance (visitor));
+
+		// traverse in parallel
+		visited.clear ();
+		map.spliterator (null).forEachParallel (new ForkJoinPool (), visitor, 16);
+
+		Assert.assertEquals ("Visited instructions differ", map.getInstructionMap (), visited);
+	}
+
+	/**
+	 * Tests owner handles.
+	 */
+	@Test
+	public void testOwnerMap () {
+		GenericMap map = createMap ();
+		map.addInstruction (new GenericMethodNameInstruction (null, "method2", "()V"), new GenericMethodNameInstruction (null, "b", "()V"));
+
+		for (IMap map1 : new IMap[] { map, map.freeze () }) {
+			OwnerMap ownerMap = map1.forOwner ("Test");
+
+			Assert.assertEquals ("Owner differs", "Test", ownerMap.getOwner ());
+			Assert.assertEquals ("Field did not resolve correctly", "a", ownerMap.mapFieldName ("field1", "Ljava/lang/String;"));
+			Assert.assertEquals ("Wildcard field did not resolve correctly", "b", ownerMap.mapFieldName ("field2", "I"));
+			Assert.assertEquals ("Method did not resolve correctly", "a", ownerMap.mapMethodName ("method1", "()V"));
+			Assert.assertEquals ("Unknown method did not resolve correctly", "method1", ownerMap.mapMethodName ("method1", "()I"));
+			Assert.assertEquals ("Wildcard owner did not resolve correctly", "b", ownerMap.mapMethodName ("method2", "()V"));
+			Assert.assertEquals ("Unknown owner did not resolve correctly", "field1", map1.forOwner ("Other").mapFieldName ("field1", "Ljava/lang/String;"));
+		}
+	}
+
+	/**
+	 * Tests mutation.
+	 */
+	@Test (expected = UnsupportedOperationException.class)
+	public void testReadOnly () {
+		createMap ().freeze ().addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+	}
+}
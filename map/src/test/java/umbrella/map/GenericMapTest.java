@@ -20,10 +20,21 @@ import org.mockito.runners.MockitoJUnitRunner;
 import umbrella.map.instruction.GenericFieldNameInstruction;
 import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
 import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericPackageNameInstruction;
 import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.IFieldNameInstruction;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.INamedMapInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+import umbrella.map.io.MapFormat;
+import umbrella.map.io.MapParseException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 /**
  * @author Johannes Donath <johannesd@evil-co.com>
@@ -104,4 +115,475 @@ public class GenericMapTest {
 		Assert.assertEquals ("Method did not resolve correctly", "a", map.mapMethodName ("Test", "method1", "V"));
 		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map.mapInvokeDynamicMethodName ("dynamic1", "I"));
 	}
+
+	/**
+	 * Tests replacement lookups.
+	 */
+	@Test
+	public void testMappingExists () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "V"), new GenericMethodNameInstruction ("A", "a", "V"));
+
+		// verify results
+		Assert.assertTrue ("Type replacement is unknown", map.mappingExists (new GenericTypeNameInstruction ("A")));
+		Assert.assertTrue ("Method replacement is unknown", map.mappingExists (new GenericMethodNameInstruction ("A", "a", "V")));
+		Assert.assertFalse ("Original is reported as replacement", map.mappingExists (new GenericTypeNameInstruction ("Test")));
+
+		// replace an existing mapping
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("B"));
+
+		// verify results
+		Assert.assertFalse ("Replaced type replacement is still known", map.mappingExists (new GenericTypeNameInstruction ("A")));
+		Assert.assertTrue ("Type replacement is unknown", map.mappingExists (new GenericTypeNameInstruction ("B")));
+
+		// reset a single category
+		map.reset (MapInstructionCategory.TYPE_NAME);
+
+		// verify results
+		Assert.assertFalse ("Type replacement is known after reset", map.mappingExists (new GenericTypeNameInstruction ("B")));
+		Assert.assertTrue ("Method replacement is unknown", map.mappingExists (new GenericMethodNameInstruction ("A", "a", "V")));
+	}
+
+	/**
+	 * Tests string canonicalization.
+	 */
+	@Test
+	public void testSymbolTable () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements (using distinct string instances)
+		map.addInstruction (new GenericMethodNameInstruction (new String ("Test"), "method1", new String ("V")), new GenericMethodNameInstruction ("A", "a", "V"));
+		map.addInstruction (new GenericMethodNameInstruction (new String ("Test"), "method2", new String ("V")), new GenericMethodNameInstruction ("A", "b", "V"));
+
+		// collect owners
+		String owner = null;
+
+		for (IMapInstruction instruction : map.getInstructionMap (MapInstructionCategory.METHOD_NAME).keySet ()) {
+			String current = ((GenericMethodNameInstruction) instruction).getOwner ();
+
+			// verify identity
+			if (owner != null) Assert.assertSame ("Owner has not been canonicalized", owner, current);
+			owner = current;
+		}
+
+		// verify results
+		Assert.assertEquals ("Method did not resolve correctly", "b", map.mapMethodName ("Test", "method2", "V"));
+
+		// append packages (using distinct string instances)
+		map.addInstruction (new GenericPackageNameInstruction (new String ("com/example")), new GenericPackageNameInstruction ("a"));
+		map.addInstruction (new GenericPackageNameInstruction ("org/example"), new GenericPackageNameInstruction (new String ("a")));
+
+		// verify identity
+		String replacement = null;
+
+		for (IMapInstruction instruction : map.getInstructionMap (MapInstructionCategory.PACKAGE_NAME).values ()) {
+			String current = ((GenericPackageNameInstruction) instruction).getName ();
+
+			if (replacement != null) Assert.assertSame ("Package has not been canonicalized", replacement, current);
+			replacement = current;
+		}
+	}
+
+	/**
+	 * Tests resetting categories.
+	 */
+	@Test
+	public void testReset () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String"), new GenericFieldNameInstruction ("A", "a", "L/java/lang/String"));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "V"), new GenericMethodNameInstruction ("A", "a", "V"));
+
+		// reset a single category
+		map.reset (MapInstructionCategory.FIELD_NAME);
+
+		// verify results
+		Assert.assertEquals ("Type did not resolve correctly", "A", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Field did not reset correctly", "field1", map.mapFieldName ("Test", "field1", "Ljava/lang/String"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map.mapMethodName ("Test", "method1", "V"));
+
+		// reset everything
+		map.reset ();
+
+		// verify results
+		Assert.assertEquals ("Type did not reset correctly", "Test", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Method did not reset correctly", "method1", map.mapMethodName ("Test", "method1", "V"));
+		Assert.assertTrue ("Instruction map is not empty", map.getInstructionMap ().isEmpty ());
+		Assert.assertEquals ("Symbol table has not been cleared", 0, map.getSymbolTable ().size ());
+	}
+
+	/**
+	 * Tests lookups of wildcard instructions.
+	 */
+	@Test
+	public void testWildcards () {
+		GenericMap map = new GenericMap ();
+
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", null), new GenericFieldNameInstruction ("Test", "a", null));
+		map.addInstruction (new GenericMethodNameInstruction (null, "method1", "()V"), new GenericMethodNameInstruction (null, "a", "()V"));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method2", "()I"), new GenericMethodNameInstruction ("Test", "b", "()I"));
+
+		// verify stored wildcards
+		Assert.assertEquals ("Wildcard description did not resolve", "a", map.mapFieldName ("Test", "field1", "I"));
+		Assert.assertEquals ("Wildcard owner did not resolve", "a", map.mapMethodName ("Other", "method1", "()V"));
+		Assert.assertEquals ("Wildcard owner resolved with a different description", "method1", map.mapMethodName ("Other", "method1", "()I"));
+
+		// verify wildcard lookups
+		Assert.assertEquals ("Wildcard description lookup did not resolve", "b", map.mapMethodName ("Test", "method2", null));
+		Assert.assertEquals ("Wildcard owner lookup did not resolve", "b", map.mapMethodName (null, "method2", "()I"));
+		Assert.assertEquals ("Wildcard lookup did not resolve", "b", map.mapMethodName (null, "method2", null));
+
+		// verify replacements
+		Assert.assertTrue ("Wildcard replacement is unknown", map.mappingExists (new GenericFieldNameInstruction ("Test", "a", "J")));
+		Assert.assertTrue ("Replacement is unknown to wildcard lookup", map.mappingExists (new GenericMethodNameInstruction ("Test", "b", null)));
+		Assert.assertFalse ("Overloaded replacement is reported", map.mappingExists (new GenericMethodNameInstruction ("Test", "b", "()J")));
+
+		// verify removal
+		map.removeInstruction (new GenericFieldNameInstruction ("Test", "field1", null));
+		Assert.assertEquals ("Removed wildcard still resolves", "field1", map.mapFieldName ("Test", "field1", "I"));
+
+		// verify snapshots
+		IMap frozen = map.freeze ();
+		Assert.assertEquals ("Frozen wildcard owner did not resolve", "a", frozen.mapMethodName ("Other", "method1", "()V"));
+	}
+
+	/**
+	 * Tests package instructions.
+	 */
+	@Test
+	public void testPackages () throws IOException {
+		GenericMap map = new GenericMap ();
+		map.load (new ByteArrayInputStream ("PKG com/example PKG a\nPKG com/example/internal PKG b/c\nTYP com/example/Main TYP Main".getBytes (StandardCharsets.UTF_8)));
+		map.addInstruction (new GenericPackageNameInstruction ("org/legacy"), new GenericPackageNameInstruction (""));
+
+		for (IMap map1 : new IMap[] { map, map.freeze () }) {
+			// verify packages
+			Assert.assertEquals ("Package did not resolve", "a/Test", map1.mapTypeName ("com/example/Test"));
+			Assert.assertEquals ("Sub-package did not resolve", "a/util/Test$Inner", map1.mapTypeName ("com/example/util/Test$Inner"));
+			Assert.assertEquals ("Most specific package did not resolve", "b/c/Test", map1.mapTypeName ("com/example/internal/Test"));
+			Assert.assertEquals ("Default package did not resolve", "Test", map1.mapTypeName ("org/legacy/Test"));
+			Assert.assertEquals ("Exact type did not take precedence", "Main", map1.mapTypeName ("com/example/Main"));
+			Assert.assertEquals ("Unknown package resolved", "com/examples/Test", map1.mapTypeName ("com/examples/Test"));
+			Assert.assertEquals ("Package prefix resolved as type", "com/example", map1.mapTypeName ("com/example"));
+			Assert.assertEquals ("Unrelated type resolved", "java/lang/String", map1.mapTypeName ("java/lang/String"));
+			Assert.assertEquals ("Description did not resolve", "(La/Test;)Lb/c/Test;", map1.mapDescription ("(Lcom/example/Test;)Lcom/example/internal/Test;"));
+
+			// verify inverse lookups
+			Assert.assertEquals ("Inverse package did not resolve", "com/example/Test", map1.inverse ().mapTypeName ("a/Test"));
+			Assert.assertTrue ("Package replacement is unknown", map1.mappingExists (new GenericTypeNameInstruction ("b/c/Test")));
+			Assert.assertEquals ("Inverse default package did not resolve", "org/legacy/Test", map1.inverse ().mapTypeName ("Test"));
+			Assert.assertEquals ("Inverse default package resolved unrelated type", "java/lang/String", map1.inverse ().mapTypeName ("java/lang/String"));
+			Assert.assertFalse ("Unrelated type is reported as replacement", map1.mappingExists (new GenericTypeNameInstruction ("java/lang/String")));
+		}
+
+		// verify removal
+		map.removeInstruction (new GenericPackageNameInstruction ("com/example/internal"));
+		Assert.assertEquals ("Removed package still resolves", "a/internal/Test", map.mapTypeName ("com/example/internal/Test"));
+		Assert.assertEquals ("Removed package still resolves inversely", "b/c/Test", map.inverse ().mapTypeName ("b/c/Test"));
+	}
+
+	/**
+	 * Tests the inverse view of a generated map.
+	 * Generated replacements keep the owner and description of their original (see GenericMapGenerator).
+	 */
+	@Test
+	public void testGeneratedInverse () {
+		GenericMap map = new GenericMap ();
+		map.addInstruction (new GenericTypeNameInstruction ("com/example/Foo"), new GenericTypeNameInstruction ("a"));
+		map.addInstruction (new GenericMethodNameInstruction ("com/example/Foo", "bar", "(Lcom/example/Bar;)V"), new GenericMethodNameInstruction ("com/example/Foo", "a", "(Lcom/example/Bar;)V"));
+		map.addInstruction (new GenericMethodNameInstruction ("com/example/Foo", "qux", "()Lcom/example/Bar;"), new GenericMethodNameInstruction ("com/example/Foo", "b", "()"));
+		map.addInstruction (new GenericFieldNameInstruction ("com/example/Foo", "baz", "Lcom/example/Bar;"), new GenericFieldNameInstruction ("com/example/Foo", "a", null));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic", "(Lcom/example/Bar;)V"), new GenericInvokeDynamicMethodNameInstruction ("a", "(Lcom/example/Bar;)V"));
+
+		// types are mapped after their members have been generated
+		map.addInstruction (new GenericTypeNameInstruction ("com/example/Bar"), new GenericTypeNameInstruction ("b"));
+
+		for (IMap map1 : new IMap[] { map, map.freeze (), new OffHeapMap (map), new ConcurrentGenericMap (map) }) {
+			IMap inverse = map1.inverse ();
+
+			// verify obfuscated coordinates
+			Assert.assertEquals ("Type did not resolve correctly", "com/example/Foo", inverse.mapTypeName ("a"));
+			Assert.assertEquals ("Method did not resolve correctly", "bar", inverse.mapMethodName ("a", "a", "(Lb;)V"));
+			Assert.assertEquals ("Method without return type did not resolve correctly", "qux", inverse.mapMethodName ("a", "b", "()Lb;"));
+			Assert.assertEquals ("Field did not resolve correctly", "baz", inverse.mapFieldName ("a", "a", "Lb;"));
+			Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "dynamic", inverse.mapInvokeDynamicMethodName ("a", "(Lb;)V"));
+			Assert.assertEquals ("Unknown method resolved", "c", inverse.mapMethodName ("a", "c", "(Lb;)V"));
+
+			// verify stored coordinates
+			Assert.assertEquals ("Stored method did not resolve correctly", "bar", inverse.mapMethodName ("com/example/Foo", "a", "(Lcom/example/Bar;)V"));
+		}
+	}
+
+	/**
+	 * Tests the inverse view.
+	 */
+	@Test
+	public void testInverse () {
+		// create map
+		GenericMap map = new GenericMap ();
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		IMap inverse = map.inverse ();
+
+		// verify results
+		Assert.assertEquals ("Type did not resolve correctly", "Test", inverse.mapTypeName ("A"));
+		Assert.assertEquals ("Field did not resolve correctly", "field1", inverse.mapFieldName ("A", "a", "Ljava/lang/String;"));
+		Assert.assertEquals ("Method did not resolve correctly", "method1", inverse.mapMethodName ("A", "a", "()V"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "dynamic1", inverse.mapInvokeDynamicMethodName ("a", "()I"));
+		Assert.assertEquals ("Description did not resolve correctly", "(LTest;)LTest;", inverse.mapDescription ("(LA;)LA;"));
+		Assert.assertEquals ("Description did not resolve correctly", "LTest;", inverse.mapDescription ("LA;"));
+		Assert.assertTrue ("Original is missing", inverse.mappingExists (new GenericTypeNameInstruction ("Test")));
+		Assert.assertSame ("Inverse of inverse differs", map, inverse.inverse ());
+
+		// verify that changes are reflected
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+
+		Assert.assertEquals ("Replaced type still resolves", "A", inverse.mapTypeName ("A"));
+		Assert.assertEquals ("Added type did not resolve correctly", "Test", inverse.mapTypeName ("C"));
+		Assert.assertEquals ("Description cache has not been invalidated", "LA;", inverse.mapDescription ("LA;"));
+
+		map.removeInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"));
+		Assert.assertEquals ("Removed method still resolves", "a", inverse.mapMethodName ("A", "a", "()V"));
+
+		// verify snapshots
+		IMap frozen = map.freeze ().inverse ();
+		Assert.assertEquals ("Frozen type did not resolve correctly", "Test", frozen.mapTypeName ("C"));
+		Assert.assertEquals ("Frozen field did not resolve correctly", "field2", frozen.mapFieldName ("A", "b", null));
+	}
+
+	/**
+	 * Tests the combined instruction map of all categories.
+	 */
+	@Test
+	public void testCombinedInstructionMap () {
+		GenericMap map = new GenericMap ();
+		Map<IMapInstruction, IMapInstruction> instructions = map.getInstructionMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+
+		// verify results
+		Assert.assertEquals ("Instructions are missing", 2, instructions.size ());
+		Assert.assertEquals ("Type is missing", new GenericTypeNameInstruction ("A"), instructions.get (new GenericTypeNameInstruction ("Test")));
+		Assert.assertEquals ("Method is missing", new GenericMethodNameInstruction ("A", "a", "()V"), instructions.get (new GenericMethodNameInstruction ("Test", "method1", "()V")));
+		Assert.assertNull ("Unknown instruction has been found", instructions.get (new GenericTypeNameInstruction ("A")));
+
+		// verify modifications
+		try {
+			instructions.put (new GenericTypeNameInstruction ("Other"), new GenericTypeNameInstruction ("O"));
+			Assert.fail ("Combined instruction map is modifiable");
+		} catch (UnsupportedOperationException ignore) { }
+
+		map.reset ();
+		Assert.assertTrue ("Combined instruction map has not been updated", instructions.isEmpty ());
+	}
+
+	/**
+	 * Tests typed instruction views.
+	 */
+	@Test
+	public void testInstructionView () {
+		// create map
+		GenericMap map = new GenericMap ();
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+
+		// verify filtering
+		Map<IFieldNameInstruction, IMapInstruction> fields = map.getInstructionMap (IFieldNameInstruction.class);
+		Map<INamedMapInstruction, IMapInstruction> named = map.getInstructionMap (INamedMapInstruction.class, true);
+
+		Assert.assertEquals ("Field view size differs", 2, fields.size ());
+		Assert.assertEquals ("Named view size differs", map.getInstructionMap ().size (), named.size ());
+		Assert.assertEquals ("Field view contents differ", map.getInstructionMap (MapInstructionCategory.FIELD_NAME), fields);
+		Assert.assertEquals ("Field did not resolve correctly", new GenericFieldNameInstruction ("A", "b", null), fields.get (new GenericFieldNameInstruction ("Test", "field2", null)));
+		Assert.assertNull ("Type resolved within field view", fields.get (new GenericTypeNameInstruction ("Test")));
+
+		// verify that changes are reflected
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field3", null), new GenericFieldNameInstruction ("A", "c", null));
+		Assert.assertEquals ("Added field is missing", 3, fields.size ());
+
+		// verify that views are read-only
+		try {
+			fields.clear ();
+			Assert.fail ("View permits modifications");
+		} catch (UnsupportedOperationException ex) { }
+
+		try {
+			fields.entrySet ().iterator ().next ().setValue (null);
+			Assert.fail ("View entries permit modifications");
+		} catch (UnsupportedOperationException ex) { }
+	}
+
+	/**
+	 * Tests merging maps with different conflict policies.
+	 */
+	@Test
+	public void testMerge () {
+		// create maps
+		GenericMap map = new GenericMap ();
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "V"), new GenericMethodNameInstruction ("A", "a", "V"));
+
+		GenericMap map1 = new GenericMap ();
+		map1.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("B"));
+		map1.addInstruction (new GenericTypeNameInstruction ("Test2"), new GenericTypeNameInstruction ("C"));
+		map1.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "I"), new GenericFieldNameInstruction ("B", "a", "I"));
+
+		// keep existing instructions
+		GenericMap keep = new GenericMap (map);
+		keep.merge (map1, MergePolicy.KEEP);
+
+		Assert.assertEquals ("Type has been replaced", "A", keep.mapTypeName ("Test"));
+		Assert.assertEquals ("Type has not been merged", "C", keep.mapTypeName ("Test2"));
+		Assert.assertEquals ("Field has not been merged", "a", keep.mapFieldName ("Test", "field1", "I"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", keep.mapMethodName ("Test", "method1", "V"));
+		Assert.assertTrue ("Kept replacement is missing", keep.mappingExists (new GenericTypeNameInstruction ("A")));
+		Assert.assertFalse ("Skipped replacement exists", keep.mappingExists (new GenericTypeNameInstruction ("B")));
+
+		// overwrite existing instructions
+		GenericMap overwrite = new GenericMap (map);
+		overwrite.merge (map1);
+
+		Assert.assertEquals ("Type has not been replaced", "B", overwrite.mapTypeName ("Test"));
+		Assert.assertEquals ("Description has not been remapped", "LB;", overwrite.mapDescription ("LTest;"));
+		Assert.assertFalse ("Replaced replacement still exists", overwrite.mappingExists (new GenericTypeNameInstruction ("A")));
+		Assert.assertEquals ("Instruction count differs", 4, overwrite.getInstructionMap ().size ());
+
+		// merge a single category
+		GenericMap single = new GenericMap (map);
+		single.merge (map1, MapInstructionCategory.FIELD_NAME);
+
+		Assert.assertEquals ("Type has been merged", "A", single.mapTypeName ("Test"));
+		Assert.assertEquals ("Field has not been merged", "a", single.mapFieldName ("Test", "field1", "I"));
+
+		// fail on conflicts without modifying the map
+		GenericMap fail = new GenericMap (map);
+
+		try {
+			fail.merge (map1, MergePolicy.FAIL);
+			Assert.fail ("Conflict has not been detected");
+		} catch (IllegalArgumentException ex) { }
+
+		Assert.assertEquals ("Map has been modified", map.getInstructionMap (), fail.getInstructionMap ());
+
+		// identical instructions do not conflict
+		fail.merge (map, MergePolicy.FAIL);
+		Assert.assertEquals ("Map has been modified", map.getInstructionMap (), fail.getInstructionMap ());
+	}
+
+	/**
+	 * Tests merging large maps (categories are merged in parallel).
+	 */
+	@Test
+	public void testMergeParallel () {
+		GenericMap map = new GenericMap ();
+
+		for (int i = 0; i < GenericMap.PARALLEL_MERGE_THRESHOLD; i++) {
+			map.addInstruction (new GenericTypeNameInstruction ("test/Type" + i), new GenericTypeNameInstruction ("t" + i));
+			map.addInstruction (new GenericMethodNameInstruction ("test/Type" + i, "method", "()V"), new GenericMethodNameInstruction ("t" + i, "a", "()V"));
+		}
+
+		// merge
+		GenericMap map1 = new GenericMap ();
+		map1.merge (map);
+
+		// verify results
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+		Assert.assertEquals ("Type did not resolve correctly", "t42", map1.mapTypeName ("test/Type42"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map1.mapMethodName ("test/Type42", "method", "()V"));
+		Assert.assertTrue ("Replacement is missing", map1.mappingExists (new GenericTypeNameInstruction ("t42")));
+	}
+
+	/**
+	 * Tests text map parsing edge cases.
+	 * @throws IOException Occurs if reading from the stream is not possible.
+	 */
+	@Test
+	public void testLoadText () throws IOException {
+		// load map with windows line endings and without trailing line terminator
+		GenericMap map = new GenericMap ();
+		map.load (new ByteArrayInputStream ("// comment\r\n\r\nTYP Test TYP A\r\nMTD Test#method1:(Ljava/lang/String;)V MTD A#a:(Ljava/lang/String;)V".getBytes (StandardCharsets.UTF_8)));
+
+		// verify results
+		Assert.assertEquals ("Type did not resolve correctly", "A", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map.mapMethodName ("Test", "method1", "(Ljava/lang/String;)V"));
+
+		// verify wildcard round trips (including the legacy "null" description)
+		GenericMap map1 = new GenericMap ();
+		map1.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map1.addInstruction (new GenericMethodNameInstruction (null, "run", "()V"), new GenericMethodNameInstruction (null, "r", "()V"));
+		map1.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", null), new GenericInvokeDynamicMethodNameInstruction ("a", null));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		map1.save (outputStream, MapFormat.TEXT);
+
+		GenericMap map2 = new GenericMap (new ByteArrayInputStream (outputStream.toByteArray ()));
+
+		Assert.assertFalse ("Wildcards were written literally", outputStream.toString ("UTF-8").contains ("null"));
+		Assert.assertEquals ("Instruction maps differ", map1.getInstructionMap (), map2.getInstructionMap ());
+		Assert.assertNull ("Wildcard description was not restored", ((GenericFieldNameInstruction) map2.getInstructionMap (MapInstructionCategory.FIELD_NAME).get (new GenericFieldNameInstruction ("Test", "field2", null))).getDescription ());
+		Assert.assertNull ("Wildcard owner was not restored", ((GenericMethodNameInstruction) map2.getInstructionMap (MapInstructionCategory.METHOD_NAME).get (new GenericMethodNameInstruction (null, "run", "()V"))).getOwner ());
+		Assert.assertEquals ("Field did not resolve correctly", "b", map2.mapFieldName ("Test", "field2", "I"));
+		Assert.assertEquals ("Method did not resolve correctly", "r", map2.mapMethodName ("Other", "run", "()V"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map2.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+
+		map2.load (new ByteArrayInputStream ("FLD Test#field3:null FLD A#c:null".getBytes (StandardCharsets.UTF_8)));
+		Assert.assertEquals ("Legacy field did not resolve correctly", "c", map2.mapFieldName ("Test", "field3", "I"));
+
+		// verify errors
+		try {
+			map.load (new ByteArrayInputStream ("TYP Test TYP A\n\nTYP Test2\n".getBytes (StandardCharsets.UTF_8)));
+			Assert.fail ("Malformed map was accepted");
+		} catch (MapParseException ex) {
+			Assert.assertEquals ("Line number was not reported correctly", 3, ex.getLineNumber ());
+		}
+	}
+
+	/**
+	 * Tests whether saving produces sorted and reproducible output.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 */
+	@Test
+	public void testSaveDeterministic () throws IOException {
+		// create maps with equal contents
+		GenericMap map1 = new GenericMap ();
+		GenericMap map2 = new GenericMap ();
+
+		for (int i = 0; i < 100; i++) {
+			map1.addInstruction (new GenericMethodNameInstruction ("Test", "method" + i, "V"), new GenericMethodNameInstruction ("A", "m" + i, "V"));
+			map2.addInstruction (new GenericMethodNameInstruction ("Test", "method" + (99 - i), "V"), new GenericMethodNameInstruction ("A", "m" + (99 - i), "V"));
+		}
+
+		map1.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map2.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+
+		// save maps
+		ByteArrayOutputStream outputStream1 = new ByteArrayOutputStream ();
+		ByteArrayOutputStream outputStream2 = new ByteArrayOutputStream ();
+
+		map1.save (outputStream1);
+		map2.save (outputStream2);
+
+		// verify results
+		String map = outputStream1.toString ("UTF-8");
+
+		Assert.assertEquals ("Equal maps did not produce equal files", map, outputStream2.toString ("UTF-8"));
+		Assert.assertTrue ("Instructions are not sorted", map.indexOf ("Test#method10:V") < map.indexOf ("Test#method2:V"));
+		Assert.assertTrue ("Categories are not sorted", map.indexOf ("Test#method99:V") < map.indexOf ("TYP Test"));
+	}
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class InstrumentedMapTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests hit and miss counters.
+	 */
+	@Test
+	public void testCounters () {
+		InstrumentedMap map = new InstrumentedMap (createMap ());
+
+		// perform lookups
+		Assert.assertEquals ("Type did not resolve correctly", "A", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Unknown type did not resolve correctly", "Test1", map.mapTypeName ("Test1"));
+		Assert.assertEquals ("Platform type did not resolve correctly", "java/lang/Object", map.mapTypeName ("java/lang/Object"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Platform method did not resolve correctly", "toString", map.mapMethodName ("java/lang/Object", "toString", "()Ljava/lang/String;"));
+
+		// verify counters
+		Assert.assertEquals ("Type hits differ", 1, map.getHits (MapInstructionCategory.TYPE_NAME));
+		Assert.assertEquals ("Type misses differ", 2, map.getMisses (MapInstructionCategory.TYPE_NAME));
+		Assert.assertEquals ("Platform type misses differ", 1, map.getPlatformMisses (MapInstructionCategory.TYPE_NAME));
+		Assert.assertEquals ("Method hits differ", 1, map.getHits (MapInstructionCategory.METHOD_NAME));
+		Assert.assertEquals ("Platform method misses differ", 1, map.getPlatformMisses (MapInstructionCategory.METHOD_NAME));
+		Assert.assertEquals ("Field lookups recorded", 0, (map.getHits (MapInstructionCategory.FIELD_NAME) + map.getMisses (MapInstructionCategory.FIELD_NAME)));
+		Assert.assertTrue ("Report is missing a category", map.getReport ().contains ("TYPE_NAME: 3 lookups"));
+
+		// reset
+		map.resetStatistics ();
+		Assert.assertEquals ("Counters were not reset", 0, map.getHits (MapInstructionCategory.TYPE_NAME));
+	}
+
+	/**
+	 * Tests counters of type lookups within descriptions and signatures.
+	 */
+	@Test
+	public void testDescriptionCounters () {
+		InstrumentedMap map = new InstrumentedMap (createMap ());
+
+		// perform lookups (repeated descriptions are remapped again)
+		Assert.assertEquals ("Description did not resolve correctly", "(LA;)LA;", map.mapDescription ("(LTest;)LTest;"));
+		Assert.assertEquals ("Description did not resolve correctly", "(LA;)LA;", map.mapDescription ("(LTest;)LTest;"));
+		Assert.assertEquals ("Signature did not resolve correctly", "Ljava/util/List<LA;>;", map.mapSignature ("Ljava/util/List<LTest;>;"));
+
+		// verify counters
+		Assert.assertEquals ("Type hits differ", 5, map.getHits (MapInstructionCategory.TYPE_NAME));
+		Assert.assertEquals ("Platform type misses differ", 1, map.getPlatformMisses (MapInstructionCategory.TYPE_NAME));
+	}
+
+	/**
+	 * Tests counters which are updated by multiple threads at once.
+	 * @throws InterruptedException Occurs if the test is interrupted.
+	 */
+	@Test
+	public void testConcurrentCounters () throws InterruptedException {
+		final InstrumentedMap map = new InstrumentedMap (createMap (), true);
+		final CountDownLatch latch = new CountDownLatch (1);
+
+		// start threads which perform lookups at once
+		Thread[] threads = new Thread[8];
+
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread () {
+
+				/**
+				 * {@inheritDoc}
+				 */
+				@Override
+				public void run () {
+					try { latch.await (); } catch (InterruptedException ex) { return; }
+
+					for (int j = 0; j < 10000; j++) {
+						map.mapTypeName ("Test");
+						map.mapTypeName ("java/lang/Object");
+					}
+				}
+			};
+			threads[i].start ();
+		}
+
+		latch.countDown ();
+		for (Thread thread : threads) thread.join ();
+
+		// verify that no update has been lost
+		long total = 0;
+		for (long count : map.getLatencyHistogram (MapInstructionCategory.TYPE_NAME)) total += count;
+
+		Assert.assertEquals ("Type hits differ", (threads.length * 10000), map.getHits (MapInstructionCategory.TYPE_NAME));
+		Assert.assertEquals ("Type misses differ", (threads.length * 10000), map.getMisses (MapInstructionCategory.TYPE_NAME));
+		Assert.assertEquals ("Platform type misses differ", (threads.length * 10000), map.getPlatformMisses (MapInstructionCategory.TYPE_NAME));
+		Assert.assertEquals ("Histogram size differs", (threads.length * 20000), total);
+	}
+
+	/**
+	 * Tests latency histograms.
+	 */
+	@Test
+	public void testLatency () {
+		InstrumentedMap map = new InstrumentedMap (createMap (), true);
+		for (int i = 0; i < 100; i++) map.mapTypeName (("test/Type" + i));
+
+		// verify histogram
+		long total = 0;
+		for (long count : map.getLatencyHistogram (MapInstructionCategory.TYPE_NAME)) total += count;
+
+		Assert.assertEquals ("Histogram size differs", 100, total);
+		Assert.assertTrue ("Percentiles are not ordered", map.getLatencyPercentile (MapInstructionCategory.TYPE_NAME, 0.5) <= map.getLatencyPercentile (MapInstructionCategory.TYPE_NAME, 0.99));
+		Assert.assertEquals ("Empty category reports a latency", 0, map.getLatencyPercentile (MapInstructionCategory.FIELD_NAME, 0.5));
+	}
+
+	/**
+	 * Tests histograms of uninstrumented latencies.
+	 */
+	@Test (expected = IllegalStateException.class)
+	public void testLatencyDisabled () {
+		(new InstrumentedMap (createMap ())).getLatencyHistogram (MapInstructionCategory.TYPE_NAME);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class LayeredMapTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests lookups.
+	 */
+	@Test
+	public void testLookup () {
+		GenericMap base = createMap ();
+		GenericMap override = new GenericMap ();
+		override.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+
+		LayeredMap map = new LayeredMap (override, base);
+
+		// verify results
+		Assert.assertEquals ("Override did not take precedence", "C", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Base type did not resolve correctly", "B", map.mapTypeName ("Testä😀"));
+		Assert.assertEquals ("Base method did not resolve correctly", "a", map.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Unknown method did not resolve correctly", "method1", map.mapMethodName ("Test", "method1", "()I"));
+		Assert.assertEquals ("Inverse override did not resolve correctly", "Test", map.inverse ().mapTypeName ("C"));
+
+		// verify contents
+		Assert.assertEquals ("Instruction counts differ", base.getInstructionMap (MapInstructionCategory.TYPE_NAME).size (), map.getInstructionMap (MapInstructionCategory.TYPE_NAME).size ());
+		Assert.assertEquals ("Override was not merged", new GenericTypeNameInstruction ("C"), map.getInstructionMap (MapInstructionCategory.TYPE_NAME).get (new GenericTypeNameInstruction ("Test")));
+	}
+
+	/**
+	 * Tests cached misses.
+	 */
+	@Test
+	public void testMisses () {
+		GenericMap base = createMap ();
+		LayeredMap map = new LayeredMap (new GenericMap (), base);
+
+		// record miss
+		Assert.assertEquals ("Unknown method did not resolve correctly", "method1", map.mapMethodName ("Test", "method1", "()I"));
+		base.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()I"), new GenericMethodNameInstruction ("A", "b", "()I"));
+		Assert.assertEquals ("Cached miss was not used", "method1", map.mapMethodName ("Test", "method1", "()I"));
+
+		// invalidate
+		map.invalidate ();
+		Assert.assertEquals ("Cached miss was not discarded", "b", map.mapMethodName ("Test", "method1", "()I"));
+	}
+
+	/**
+	 * Tests swapping the top layer.
+	 */
+	@Test
+	public void testSetTopLayer () {
+		GenericMap base = createMap ();
+		GenericMap override = new GenericMap ();
+		override.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+
+		LayeredMap map = new LayeredMap (new GenericMap (), base);
+		Assert.assertEquals ("Base type did not resolve correctly", "A", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Unknown type did not resolve correctly", "Other", map.mapTypeName ("Other"));
+
+		// swap
+		override.addInstruction (new GenericTypeNameInstruction ("Other"), new GenericTypeNameInstruction ("D"));
+		map.setTopLayer (override);
+
+		Assert.assertSame ("Top layer was not replaced", override, map.getTopLayer ());
+		Assert.assertEquals ("Layers differ", 2, map.getLayers ().size ());
+		Assert.assertEquals ("Override did not take precedence", "C", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Cached miss survived swapping", "D", map.mapTypeName ("Other"));
+		Assert.assertEquals ("Description did not resolve correctly", "(LC;)V", map.mapDescription ("(LTest;)V"));
+	}
+
+	/**
+	 * Tests mutation.
+	 */
+	@Test (expected = UnsupportedOperationException.class)
+	public void testReadOnly () {
+		(new LayeredMap (new GenericMap ())).addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class MapPatchTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// append a few types to change and remove
+		for (int i = 0; i < 10; i++) map.addInstruction (new GenericTypeNameInstruction ("test/Type" + i), new GenericTypeNameInstruction ("t" + i));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Creates a modified copy of the test map.
+	 * @return The map.
+	 */
+	protected static GenericMap createTarget () {
+		GenericMap map = createMap ();
+
+		// add, change and remove a few instructions
+		map.addInstruction (new GenericTypeNameInstruction ("Added"), new GenericTypeNameInstruction ("C"));
+		map.addInstruction (new GenericTypeNameInstruction ("test/Type5"), new GenericTypeNameInstruction ("x5"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", "I"));
+		map.removeInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"));
+		map.removeInstruction (new GenericTypeNameInstruction ("test/Type6"));
+
+		return map;
+	}
+
+	/**
+	 * Tests diffing.
+	 */
+	@Test
+	public void testDiff () {
+		MapPatch patch = MapPatch.diff (createMap (), createTarget ());
+
+		Assert.assertEquals ("Patch size differs", 5, patch.size ());
+		Assert.assertEquals ("Added types differ", 1, patch.getAddedInstructions (MapInstructionCategory.TYPE_NAME).size ());
+		Assert.assertEquals ("Changed types differ", 1, patch.getChangedInstructions (MapInstructionCategory.TYPE_NAME).size ());
+		Assert.assertEquals ("Changed fields differ", 1, patch.getChangedInstructions (MapInstructionCategory.FIELD_NAME).size ());
+		Assert.assertEquals ("Removed methods differ", 1, patch.getRemovedInstructions (MapInstructionCategory.METHOD_NAME).size ());
+		Assert.assertEquals ("Removed types differ", 1, patch.getRemovedInstructions (MapInstructionCategory.TYPE_NAME).size ());
+		Assert.assertTrue ("Equal maps produce a patch", MapPatch.diff (createTarget (), createTarget ()).isEmpty ());
+	}
+
+	/**
+	 * Tests saving and applying patches.
+	 * @throws IOException Occurs if encoding or decoding the patch is not possible.
+	 */
+	@Test
+	public void testApply () throws IOException {
+		GenericMap target = createTarget ();
+
+		// encode patch
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		MapPatch.diff (createMap (), target).save (outputStream, IMapInstructionRegistry.DEFAULT);
+
+		// apply patch
+		GenericMap map = createMap ();
+		MapPatch.load (new ByteArrayInputStream (outputStream.toByteArray ())).apply (map);
+
+		// verify results
+		Assert.assertEquals ("Instruction maps differ", target.getInstructionMap (), map.getInstructionMap ());
+		Assert.assertEquals ("Changed type did not resolve correctly", "x5", map.mapTypeName ("test/Type5"));
+		Assert.assertEquals ("Removed type did not resolve correctly", "test/Type6", map.mapTypeName ("test/Type6"));
+		Assert.assertEquals ("Removed method did not resolve correctly", "method1", map.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertFalse ("Removed replacement still exists", map.mappingExists (new GenericTypeNameInstruction ("t6")));
+	}
+
+	/**
+	 * Tests applying patches to a different base map.
+	 * @throws IOException Occurs if encoding or decoding the patch is not possible.
+	 */
+	@Test
+	public void testBase () throws IOException {
+		// encode patch
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		MapPatch.diff (createMap (), createTarget ()).save (outputStream, IMapInstructionRegistry.DEFAULT);
+
+		MapPatch patch = MapPatch.load (new ByteArrayInputStream (outputStream.toByteArray ()));
+
+		// verify digests
+		Assert.assertEquals ("Base digest was not preserved", MapPatch.digest (createMap ()), patch.getBaseDigest ());
+		Assert.assertEquals ("Digest depends on the map implementation", MapPatch.digest (createMap ()), MapPatch.digest (new OffHeapMap (createMap ())));
+
+		// apply to a different map
+		GenericMap map = createTarget ();
+
+		try {
+			patch.apply (map);
+			Assert.fail ("Patch was applied to a different base map");
+		} catch (IllegalArgumentException ignore) { }
+
+		Assert.assertEquals ("Rejected patch modified the map", createTarget ().getInstructionMap (), map.getInstructionMap ());
+
+		// apply twice
+		map = createMap ();
+		patch.apply (map);
+
+		try {
+			patch.apply (map);
+			Assert.fail ("Patch was applied twice");
+		} catch (IllegalArgumentException ignore) { }
+
+		// apply patches without a base map
+		MapPatch anonymous = new MapPatch ();
+		anonymous.addInstruction (new GenericTypeNameInstruction ("Other"), new GenericTypeNameInstruction ("D"));
+		anonymous.apply (map);
+
+		Assert.assertEquals ("Patch without a base map was not applied", "D", map.mapTypeName ("Other"));
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericPackageNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.io.MapFormat;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class MappedMapTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	protected static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// append a larger amount of types to exercise the search
+		for (int i = 0; i < 1000; i++) map.addInstruction (new GenericTypeNameInstruction ("test/Type" + i), new GenericTypeNameInstruction ("t" + i));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests lookups.
+	 * @throws IOException Occurs if writing or mapping the file is not possible.
+	 */
+	@Test
+	public void testLookup () throws IOException {
+		// create file reference
+		File mapFile = File.createTempFile ("umbrella", ".map");
+		mapFile.deleteOnExit ();
+
+		// save map
+		GenericMap map = createMap ();
+		map.save (mapFile, MapFormat.INDEXED);
+
+		// open map
+		MappedMap map1 = new MappedMap (mapFile);
+
+		// verify results
+		Assert.assertEquals ("Type did not resolve correctly", "A", map1.mapTypeName ("Test"));
+		Assert.assertEquals ("Unicode type did not resolve correctly", "B", map1.mapTypeName ("Testä😀"));
+		Assert.assertEquals ("Unknown type did not resolve correctly", "Test1", map1.mapTypeName ("Test1"));
+		Assert.assertEquals ("Field did not resolve correctly", "a", map1.mapFieldName ("Test", "field1", "Ljava/lang/String;"));
+		Assert.assertEquals ("Wildcard field did not resolve correctly", "b", map1.mapFieldName ("Test", "field2", null));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map1.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Unknown method did not resolve correctly", "method1", map1.mapMethodName ("Test", "method1", "()I"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map1.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+
+		for (int i = 0; i < 1000; i++) Assert.assertEquals ("Type did not resolve correctly", ("t" + i), map1.mapTypeName (("test/Type" + i)));
+
+		// verify replacements
+		Assert.assertTrue ("Replacement is unknown", map1.mappingExists (new GenericMethodNameInstruction ("A", "a", "()V")));
+		Assert.assertFalse ("Original is reported as replacement", map1.mappingExists (new GenericMethodNameInstruction ("Test", "method1", "()V")));
+
+		// verify inverse lookups
+		Assert.assertEquals ("Inverse type did not resolve correctly", "Test", map1.inverse ().mapTypeName ("A"));
+		Assert.assertEquals ("Inverse method did not resolve correctly", "method1", map1.inverse ().mapMethodName ("A", "a", "()V"));
+
+		// verify contents
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+		Assert.assertEquals ("Loaded instruction maps differ", map.getInstructionMap (), (new GenericMap (mapFile)).getInstructionMap ());
+	}
+
+	/**
+	 * Tests mutation.
+	 * @throws IOException Occurs if writing or mapping the file is not possible.
+	 */
+	@Test (expected = UnsupportedOperationException.class)
+	public void testReadOnly () throws IOException {
+		// create file reference
+		File mapFile = File.createTempFile ("umbrella", ".map");
+		mapFile.deleteOnExit ();
+
+		// save map
+		createMap ().save (mapFile, MapFormat.INDEXED);
+
+		// try to modify map
+		(new MappedMap (mapFile)).addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+	}
+
+	/**
+	 * Tests package instructions.
+	 * @throws IOException Occurs if writing or mapping the file is not possible.
+	 */
+	@Test
+	public void testPackages () throws IOException {
+		// create file reference
+		File mapFile = File.createTempFile ("umbrella", ".map");
+		mapFile.deleteOnExit ();
+
+		// save map
+		GenericMap map = new GenericMap ();
+		map.addInstruction (new GenericPackageNameInstruction ("com/example"), new GenericPackageNameInstruction ("a"));
+		map.addInstruction (new GenericTypeNameInstruction ("com/example/Main"), new GenericTypeNameInstruction ("Main"));
+		map.save (mapFile, MapFormat.INDEXED);
+
+		// open map
+		MappedMap map1 = new MappedMap (mapFile);
+
+		// verify results
+		Assert.assertEquals ("Package did not resolve", "a/util/Test", map1.mapTypeName ("com/example/util/Test"));
+		Assert.assertEquals ("Exact type did not take precedence", "Main", map1.mapTypeName ("com/example/Main"));
+		Assert.assertEquals ("Unrelated type resolved", "java/lang/String", map1.mapTypeName ("java/lang/String"));
+		Assert.assertEquals ("Inverse package did not resolve", "com/example/Test", map1.inverse ().mapTypeName ("a/Test"));
+		Assert.assertTrue ("Package replacement is unknown", map1.mappingExists (new GenericTypeNameInstruction ("a/Test")));
+		Assert.assertFalse ("Unrelated type is reported as replacement", map1.mappingExists (new GenericTypeNameInstruction ("java/lang/String")));
+	}
+}
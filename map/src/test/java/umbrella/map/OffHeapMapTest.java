@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericPackageNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.IMapInstruction;
+import umbrella.map.instruction.ITypeNameMapInstruction;
+import umbrella.map.instruction.utility.GenericMapInstructionRegistry;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class OffHeapMapTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// append a larger amount of types to grow the off-heap tables
+		for (int i = 0; i < 1000; i++) map.addInstruction (new GenericTypeNameInstruction ("test/Type" + i), new GenericTypeNameInstruction ("t" + i));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests lookups.
+	 */
+	@Test
+	public void testLookup () {
+		OffHeapMap map = new OffHeapMap (createMap ());
+
+		// verify results
+		Assert.assertEquals ("Type did not resolve correctly", "A", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Field did not resolve correctly", "a", map.mapFieldName ("Test", "field1", "Ljava/lang/String;"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+		Assert.assertEquals ("Description did not resolve correctly", "(LA;)LA;", map.mapDescription ("(LTest;)LTest;"));
+		Assert.assertEquals ("Unknown type resolved", "Unknown", map.mapTypeName ("Unknown"));
+		Assert.assertTrue ("Replacement is missing", map.mappingExists (new GenericTypeNameInstruction ("A")));
+		Assert.assertFalse ("Original is reported as replacement", map.mappingExists (new GenericTypeNameInstruction ("Test")));
+		Assert.assertEquals ("Instruction maps differ", createMap ().getInstructionMap (), map.getInstructionMap ());
+
+		// verify inverse lookups
+		IMap inverse = map.inverse ();
+
+		Assert.assertEquals ("Inverse type did not resolve correctly", "Test", inverse.mapTypeName ("A"));
+		Assert.assertEquals ("Inverse method did not resolve correctly", "method1", inverse.mapMethodName ("A", "a", "()V"));
+	}
+
+	/**
+	 * Tests replacing and removing instructions.
+	 */
+	@Test
+	public void testModification () {
+		OffHeapMap map = new OffHeapMap (createMap ());
+		int size = map.size ();
+
+		// replace
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+
+		Assert.assertEquals ("Replaced type did not resolve correctly", "C", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Description cache has not been invalidated", "LC;", map.mapDescription ("LTest;"));
+		Assert.assertFalse ("Replaced replacement still exists", map.mappingExists (new GenericTypeNameInstruction ("A")));
+		Assert.assertEquals ("Size changed", size, map.size ());
+
+		// remove
+		IMapInstruction replacement = map.removeInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"));
+
+		Assert.assertEquals ("Removed replacement differs", new GenericMethodNameInstruction ("A", "a", "()V"), replacement);
+		Assert.assertEquals ("Removed method still resolves", "method1", map.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertNull ("Removed method is still returned", map.removeInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V")));
+		Assert.assertEquals ("Size did not change", (size - 1), map.size ());
+
+		// reset a single category
+		map.reset (MapInstructionCategory.TYPE_NAME);
+
+		Assert.assertEquals ("Reset type still resolves", "Test", map.mapTypeName ("Test"));
+		Assert.assertEquals ("Field did not survive reset", "a", map.mapFieldName ("Test", "field1", "Ljava/lang/String;"));
+		Assert.assertTrue ("Type instructions remain", map.getInstructionMap (MapInstructionCategory.TYPE_NAME).isEmpty ());
+
+		// reset
+		map.reset ();
+		Assert.assertEquals ("Map is not empty", 0, map.size ());
+		Assert.assertTrue ("Instruction map is not empty", map.getInstructionMap ().isEmpty ());
+	}
+
+	/**
+	 * Tests growing and compacting the data buffer.
+	 */
+	@Test
+	public void testGrowth () {
+		OffHeapMap map = new OffHeapMap ();
+
+		// fill map (every instruction is replaced once)
+		for (int i = 0; i < 20000; i++) map.addInstruction (new GenericFieldNameInstruction ("Owner" + (i % 100), "field" + i, null), new GenericFieldNameInstruction ("A" + (i % 100), "a" + i, null));
+		for (int i = 0; i < 20000; i++) map.addInstruction (new GenericFieldNameInstruction ("Owner" + (i % 100), "field" + i, null), new GenericFieldNameInstruction ("B" + (i % 100), "b" + i, null));
+		for (int i = 0; i < 20000; i += 2) map.removeInstruction (new GenericFieldNameInstruction ("Owner" + (i % 100), "field" + i, null));
+
+		// verify results
+		Assert.assertEquals ("Size differs", 10000, map.size ());
+		Assert.assertTrue ("Data buffer did not grow", map.getCapacity () > OffHeapMap.INITIAL_CAPACITY);
+
+		for (int i = 0; i < 20000; i++) Assert.assertEquals ("Field did not resolve correctly", ((i % 2) == 0 ? "field" + i : "b" + i), map.mapFieldName ("Owner" + (i % 100), "field" + i, null));
+
+		// compact
+		int dataSize = map.getDataSize ();
+		map.compact ();
+
+		Assert.assertEquals ("Data size changed", dataSize, map.getDataSize ());
+		Assert.assertTrue ("Data buffer did not shrink", map.getCapacity () <= Math.max (OffHeapMap.INITIAL_CAPACITY, dataSize));
+		Assert.assertEquals ("Field did not resolve correctly after compaction", "b1", map.mapFieldName ("Owner1", "field1", null));
+		Assert.assertEquals ("Inverse field did not resolve correctly after compaction", "field1", map.inverse ().mapFieldName ("B1", "b1", null));
+	}
+
+	/**
+	 * Tests package instructions.
+	 */
+	@Test
+	public void testPackages () {
+		OffHeapMap map = new OffHeapMap ();
+		map.addInstruction (new GenericPackageNameInstruction ("com/example"), new GenericPackageNameInstruction ("a"));
+
+		// verify results
+		Assert.assertEquals ("Package did not resolve", "a/Test", map.mapTypeName ("com/example/Test"));
+		Assert.assertEquals ("Inverse package did not resolve", "com/example/Test", map.inverse ().mapTypeName ("a/Test"));
+		Assert.assertTrue ("Package replacement is unknown", map.mappingExists (new GenericTypeNameInstruction ("a/Test")));
+
+		// replace package
+		map.addInstruction (new GenericPackageNameInstruction ("com/example"), new GenericPackageNameInstruction ("b"));
+		Assert.assertEquals ("Replaced package did not resolve", "b/Test", map.mapTypeName ("com/example/Test"));
+		Assert.assertEquals ("Replaced package still resolves inversely", "a/Test", map.inverse ().mapTypeName ("a/Test"));
+
+		// remove package
+		map.removeInstruction (new GenericPackageNameInstruction ("com/example"));
+		Assert.assertEquals ("Removed package still resolves", "com/example/Test", map.mapTypeName ("com/example/Test"));
+	}
+
+	/**
+	 * Tests copying maps with custom instruction types.
+	 */
+	@Test
+	public void testCopyRegistry () {
+		GenericMapInstructionRegistry registry = new GenericMapInstructionRegistry ();
+		registry.registerInstruction ("CTYP", CustomTypeNameInstruction.class);
+
+		GenericMap source = new GenericMap (registry);
+		source.addInstruction (new CustomTypeNameInstruction ("com/example/Test"), new CustomTypeNameInstruction ("a/Test"));
+
+		// copy map
+		OffHeapMap map = new OffHeapMap (source);
+
+		// verify results
+		Assert.assertSame ("Instruction registry was not copied", registry, map.getInstructionRegistry ());
+		Assert.assertEquals ("Custom instruction did not resolve", "a/Test", map.mapTypeName ("com/example/Test"));
+
+		IMapInstruction replacement = map.getInstructionMap (MapInstructionCategory.TYPE_NAME).values ().iterator ().next ();
+		Assert.assertTrue ("Custom instruction type was not preserved", replacement instanceof CustomTypeNameInstruction);
+		Assert.assertEquals ("Custom instruction was not preserved", "a/Test", ((CustomTypeNameInstruction) replacement).getName ());
+	}
+
+	/**
+	 * Provides a custom type name instruction.
+	 */
+	public static class CustomTypeNameInstruction extends GenericTypeNameInstruction implements ITypeNameMapInstruction {
+
+		/**
+		 * Constructs a new CustomTypeNameInstruction instance.
+		 * @param name The type name.
+		 */
+		public CustomTypeNameInstruction (String name) {
+			super (name);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.io.MapFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class PartitionedMapTest {
+
+	/**
+	 * Creates a map with multiple owners.
+	 * @return The map.
+	 */
+	protected static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// append elements of a second owner as well as an ownerless method
+		map.addInstruction (new GenericTypeNameInstruction ("Other"), new GenericTypeNameInstruction ("O"));
+		map.addInstruction (new GenericMethodNameInstruction ("Other", "method1", "()V"), new GenericMethodNameInstruction ("O", "a", "()V"));
+		map.addInstruction (new GenericMethodNameInstruction (null, "run", "()V"), new GenericMethodNameInstruction (null, "r", "()V"));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Encodes a map in the partitioned format.
+	 * @param map The map.
+	 * @return The encoded map.
+	 * @throws IOException Occurs if encoding the map fails.
+	 */
+	private static byte[] encode (IMap map) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		map.save (outputStream, MapFormat.PARTITIONED);
+
+		return outputStream.toByteArray ();
+	}
+
+	/**
+	 * Tests on demand loading.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 */
+	@Test
+	public void testLookup () throws IOException {
+		GenericMap map = createMap ();
+		PartitionedMap map1 = new PartitionedMap (IMapInstructionRegistry.DEFAULT, ByteBuffer.wrap (encode (map)));
+
+		// verify global segment
+		Assert.assertEquals ("Type did not resolve correctly", "A", map1.mapTypeName ("Test"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map1.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+		Assert.assertEquals ("Ownerless method did not resolve correctly", "r", map1.mapMethodName (null, "run", "()V"));
+		Assert.assertFalse ("Segment has been loaded early", map1.isLoaded ("Test"));
+		Assert.assertFalse ("Segment has been loaded early", map1.isLoaded ("Other"));
+
+		// verify owner segments
+		Assert.assertEquals ("Method did not resolve correctly", "a", map1.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Field did not resolve correctly", "a", map1.mapFieldName ("Test", "field1", "Ljava/lang/String;"));
+		Assert.assertTrue ("Segment has not been loaded", map1.isLoaded ("Test"));
+		Assert.assertFalse ("Unrelated segment has been loaded", map1.isLoaded ("Other"));
+
+		// verify contents
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+		Assert.assertTrue ("Segment has not been loaded", map1.isLoaded ("Other"));
+	}
+
+	/**
+	 * Tests lookups without an owner which match members of segments which have not been loaded yet.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 */
+	@Test
+	public void testWildcardLookup () throws IOException {
+		PartitionedMap map = new PartitionedMap (IMapInstructionRegistry.DEFAULT, ByteBuffer.wrap (encode (createMap ())));
+
+		// verify results
+		Assert.assertEquals ("Wildcard field did not resolve correctly", "a", map.mapFieldName (null, "field1", "Ljava/lang/String;"));
+		Assert.assertTrue ("Segment has not been loaded", map.isLoaded ("Test"));
+		Assert.assertEquals ("Wildcard method did not resolve correctly", "a", map.mapMethodName (null, "method1", null));
+		Assert.assertEquals ("Unknown method resolved", "unknown", map.mapMethodName (null, "unknown", "()V"));
+	}
+
+	/**
+	 * Tests lookups which load segments from multiple threads at once.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 * @throws InterruptedException Occurs if the test is interrupted.
+	 */
+	@Test
+	public void testConcurrentLookup () throws IOException, InterruptedException {
+		// create a map with many segments
+		GenericMap source = new GenericMap ();
+
+		for (int i = 0; i < 200; i++) {
+			for (int j = 0; j < 20; j++) source.addInstruction (new GenericMethodNameInstruction ("Test" + i, "method" + j, "()V"), new GenericMethodNameInstruction ("A" + i, "m" + j, "()V"));
+		}
+
+		final PartitionedMap map = new PartitionedMap (IMapInstructionRegistry.DEFAULT, ByteBuffer.wrap (encode (source)));
+		final CountDownLatch latch = new CountDownLatch (1);
+		final AtomicInteger failures = new AtomicInteger ();
+
+		// start threads which resolve the same segments in a different order
+		Thread[] threads = new Thread[8];
+
+		for (int i = 0; i < threads.length; i++) {
+			final int thread = i;
+
+			threads[i] = new Thread () {
+
+				/**
+				 * {@inheritDoc}
+				 */
+				@Override
+				public void run () {
+					try { latch.await (); } catch (InterruptedException ex) { return; }
+
+					for (int k = 0; k < 200; k++) {
+						int owner = ((k * (thread + 1)) % 200);
+
+						for (int j = 0; j < 20; j++) {
+							if (!("m" + j).equals (map.mapMethodName ("Test" + owner, "method" + j, "()V"))) failures.incrementAndGet ();
+						}
+					}
+				}
+			};
+			threads[i].start ();
+		}
+
+		latch.countDown ();
+		for (Thread thread : threads) thread.join ();
+
+		// verify results
+		Assert.assertEquals ("Lookups did not resolve correctly", 0, failures.get ());
+		Assert.assertEquals ("Instruction maps differ", source.getInstructionMap (), map.getInstructionMap ());
+	}
+
+	/**
+	 * Tests modifications of segments which have not been loaded yet.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 */
+	@Test
+	public void testModification () throws IOException {
+		PartitionedMap map = new PartitionedMap (IMapInstructionRegistry.DEFAULT, ByteBuffer.wrap (encode (createMap ())));
+
+		// replace and remove instructions
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "b", "()V"));
+		map.removeInstruction (new GenericMethodNameInstruction ("Other", "method1", "()V"));
+
+		// verify results
+		Assert.assertEquals ("Method has not been replaced", "b", map.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Field did not resolve correctly", "b", map.mapFieldName ("Test", "field2", null));
+		Assert.assertEquals ("Method has not been removed", "method1", map.mapMethodName ("Other", "method1", "()V"));
+	}
+
+	/**
+	 * Tests loading files (completely and on demand).
+	 * @throws IOException Occurs if writing or reading the file is not possible.
+	 */
+	@Test
+	public void testSaveLoad () throws IOException {
+		// create file reference
+		File mapFile = File.createTempFile ("umbrella", ".map");
+		mapFile.deleteOnExit ();
+
+		// save map
+		GenericMap map = createMap ();
+		map.save (mapFile, MapFormat.PARTITIONED);
+
+		// verify results
+		Assert.assertEquals ("Partitioned map was not detected", MapFormat.PARTITIONED, MapFormat.detect (mapFile));
+		Assert.assertEquals ("Loaded instruction maps differ", map.getInstructionMap (), (new GenericMap (mapFile)).getInstructionMap ());
+		Assert.assertEquals ("Mapped instruction maps differ", map.getInstructionMap (), (new PartitionedMap (mapFile)).getInstructionMap ());
+	}
+
+	/**
+	 * Tests corruption detection within a segment.
+	 * @throws IOException Occurs if encoding the map fails.
+	 */
+	@Test (expected = IllegalStateException.class)
+	public void testChecksum () throws IOException {
+		byte[] data = encode (createMap ());
+
+		// corrupt the last segment (segments are ordered by owner)
+		data[data.length - 2] ^= 0x01;
+
+		// load segment
+		new PartitionedMap (IMapInstructionRegistry.DEFAULT, ByteBuffer.wrap (data)).mapMethodName ("Test", "method1", "()V");
+	}
+
+	/**
+	 * Tests that loaded maps are identical to the streamed variant.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 */
+	@Test
+	public void testLoadStream () throws IOException {
+		GenericMap map = createMap ();
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), (new GenericMap (new ByteArrayInputStream (encode (map)))).getInstructionMap ());
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.utility.MapInstructionCategory;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class VersionedMapStoreTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", null), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// append a larger amount of types (one segment each)
+		for (int i = 0; i < 1000; i++) map.addInstruction (new GenericTypeNameInstruction ("test/Type" + i), new GenericTypeNameInstruction ("t" + i));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests lookups across releases.
+	 */
+	@Test
+	public void testLookup () {
+		VersionedMapStore store = new VersionedMapStore ();
+		GenericMap map = createMap ();
+		VersionedMap first = store.commit ("1.0", map);
+
+		// create new release
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "c", "()V"));
+		map.removeInstruction (new GenericTypeNameInstruction ("Testä😀"));
+		VersionedMap second = store.commit ("1.1", map);
+
+		// verify first release
+		Assert.assertEquals ("Type did not resolve correctly", "A", first.mapTypeName ("Test"));
+		Assert.assertEquals ("Removed type did not resolve correctly", "B", first.mapTypeName ("Testä😀"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", first.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Wildcard field did not resolve correctly", "b", first.mapFieldName ("Test", "field2", "I"));
+		Assert.assertEquals ("Invokedynamic method did not resolve correctly", "a", first.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+		Assert.assertEquals ("Inverse method did not resolve correctly", "method1", first.inverse ().mapMethodName ("A", "a", "()V"));
+		Assert.assertEquals ("Wildcard owner method did not resolve correctly", "a", first.mapMethodName (null, "method1", "()V"));
+		Assert.assertEquals ("Wildcard owner field did not resolve correctly", "b", first.mapFieldName (null, "field2", "I"));
+		Assert.assertEquals ("Inverse wildcard owner method did not resolve correctly", "method1", first.inverse ().mapMethodName (null, "a", "()V"));
+
+		// verify second release
+		Assert.assertEquals ("Type did not resolve correctly", "A", second.mapTypeName ("Test"));
+		Assert.assertEquals ("Removed type was not removed", "Testä😀", second.mapTypeName ("Testä😀"));
+		Assert.assertEquals ("Changed method did not resolve correctly", "c", second.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Changed wildcard owner method did not resolve correctly", "c", second.mapMethodName (null, "method1", null));
+		Assert.assertEquals ("Inverse method did not resolve correctly", "method1", second.inverse ().mapMethodName ("A", "c", "()V"));
+		Assert.assertEquals ("Instruction counts differ", map.getInstructionMap (MapInstructionCategory.TYPE_NAME).size (), second.getInstructionMap (MapInstructionCategory.TYPE_NAME).size ());
+
+		// verify store
+		Assert.assertEquals ("Release count differs", 2, store.size ());
+		Assert.assertSame ("Latest release differs", second, store.getLatest ());
+		Assert.assertSame ("Release differs", first, store.getVersion ("1.0"));
+	}
+
+	/**
+	 * Tests sharing of unchanged segments.
+	 */
+	@Test
+	public void testSharing () {
+		VersionedMapStore store = new VersionedMapStore ();
+		GenericMap map = createMap ();
+		store.commit ("1.0", map);
+
+		// verify initial segments
+		int segments = store.getSegmentCount ();
+		Assert.assertEquals ("Segment count differs", 2006, segments);
+
+		// change a single owner
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "c", "()V"));
+		store.commit ("1.1", map);
+		Assert.assertEquals ("Unchanged segments were not shared", (segments + 2), store.getSegmentCount ());
+
+		// commit an identical release
+		store.commit ("1.2", map);
+		Assert.assertEquals ("Identical release was not shared", (segments + 2), store.getSegmentCount ());
+
+		// remove releases
+		store.remove ("1.2");
+		Assert.assertEquals ("Latest release was not updated", "1.1", store.getLatest ().getVersion ());
+	}
+
+	/**
+	 * Tests whether releases are read-only.
+	 */
+	@Test (expected = UnsupportedOperationException.class)
+	public void testReadOnly () {
+		VersionedMapStore store = new VersionedMapStore ();
+		store.commit ("1.0", createMap ()).addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("C"));
+	}
+}
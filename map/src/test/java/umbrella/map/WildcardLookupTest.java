@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.utility.IMapInstructionRegistry;
+import umbrella.map.io.IndexedMapSection;
+import umbrella.map.io.MapFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class WildcardLookupTest {
+
+	/**
+	 * Creates a map which contains stored wildcards.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append wildcard elements
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "f", null), new GenericFieldNameInstruction ("Test", "a", null));
+		map.addInstruction (new GenericMethodNameInstruction (null, "run", "()V"), new GenericMethodNameInstruction (null, "r", "()V"));
+		map.addInstruction (new GenericMethodNameInstruction (null, "call", null), new GenericMethodNameInstruction (null, "c", null));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", null), new GenericInvokeDynamicMethodNameInstruction ("d", null));
+
+		// append exact elements which take precedence
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "g", "I"), new GenericFieldNameInstruction ("Test", "b", "I"));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "run", "()V"), new GenericMethodNameInstruction ("Test", "s", "()V"));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests stored wildcards against every map implementation.
+	 * @throws IOException Occurs if encoding the indexed map fails.
+	 */
+	@Test
+	public void testStoredWildcards () throws IOException {
+		GenericMap map = createMap ();
+
+		// encode indexed map
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		map.save (outputStream, MapFormat.INDEXED);
+
+		// verify results
+		IMap[] maps = new IMap[] { map, map.freeze (), new MappedMap (IMapInstructionRegistry.DEFAULT, ByteBuffer.wrap (outputStream.toByteArray ())), new OffHeapMap (map), new ConcurrentGenericMap (map), (new VersionedMapStore ()).commit ("1.0", map), new LayeredMap (map) };
+
+		for (IMap current : maps) {
+			String name = current.getClass ().getSimpleName ();
+
+			// (owner, name, null)
+			Assert.assertEquals (name + ": Wildcard description did not resolve correctly", "a", current.mapFieldName ("Test", "f", "I"));
+			Assert.assertEquals (name + ": Exact field did not resolve correctly", "b", current.mapFieldName ("Test", "g", "I"));
+			Assert.assertEquals (name + ": Unknown field resolved", "h", current.mapFieldName ("Test", "h", "I"));
+
+			// (null, name, description)
+			Assert.assertEquals (name + ": Wildcard owner did not resolve correctly", "r", current.mapMethodName ("Other", "run", "()V"));
+			Assert.assertEquals (name + ": Exact method did not take precedence", "s", current.mapMethodName ("Test", "run", "()V"));
+			Assert.assertEquals (name + ": Wildcard owner matched a different description", "run", current.mapMethodName ("Other", "run", "(I)V"));
+
+			// (null, name, null)
+			Assert.assertEquals (name + ": Wildcard owner and description did not resolve correctly", "c", current.mapMethodName ("Other", "call", "(I)V"));
+			Assert.assertEquals (name + ": Wildcard invoke dynamic description did not resolve correctly", "d", current.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+
+			// inverse lookups
+			IMap inverse = current.inverse ();
+			Assert.assertEquals (name + ": Inverse wildcard description did not resolve correctly", "f", inverse.mapFieldName ("Test", "a", "I"));
+			Assert.assertEquals (name + ": Inverse wildcard owner did not resolve correctly", "run", inverse.mapMethodName ("Other", "r", "()V"));
+			Assert.assertEquals (name + ": Inverse wildcard owner and description did not resolve correctly", "call", inverse.mapMethodName ("Other", "c", "(I)V"));
+
+			// replacement lookups
+			Assert.assertTrue (name + ": Wildcard field replacement is unknown", current.mappingExists (new GenericFieldNameInstruction ("Test", "a", "I")));
+			Assert.assertTrue (name + ": Wildcard method replacement is unknown", current.mappingExists (new GenericMethodNameInstruction ("Other", "r", "()V")));
+			Assert.assertTrue (name + ": Wildcard method replacement is unknown", current.mappingExists (new GenericMethodNameInstruction ("Other", "c", "(I)V")));
+			Assert.assertTrue (name + ": Wildcard invoke dynamic replacement is unknown", current.mappingExists (new GenericInvokeDynamicMethodNameInstruction ("d", "()I")));
+			Assert.assertFalse (name + ": Unknown field replacement is reported", current.mappingExists (new GenericFieldNameInstruction ("Test", "z", "I")));
+		}
+	}
+
+	/**
+	 * Tests stored wildcards within indexed maps of the first format version (which do not carry wildcard flags).
+	 * @throws IOException Occurs if encoding or decoding the indexed map fails.
+	 */
+	@Test
+	public void testLegacyIndexedMap () throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		createMap ().save (outputStream, MapFormat.INDEXED);
+
+		// downgrade the format version and clear all section flags
+		byte[] data = outputStream.toByteArray ();
+		data[4] = 1;
+		for (int i = 0; i < data[5]; i++) data[(IndexedMapSection.HEADER_SIZE + (i * IndexedMapSection.SECTION_HEADER_SIZE) + 1)] = 0;
+
+		// verify results
+		MappedMap map = new MappedMap (IMapInstructionRegistry.DEFAULT, ByteBuffer.wrap (data));
+
+		Assert.assertEquals ("Wildcard description did not resolve correctly", "a", map.mapFieldName ("Test", "f", "I"));
+		Assert.assertEquals ("Wildcard owner did not resolve correctly", "r", map.mapMethodName ("Other", "run", "()V"));
+		Assert.assertTrue ("Wildcard field replacement is unknown", map.mappingExists (new GenericFieldNameInstruction ("Test", "a", "I")));
+	}
+}
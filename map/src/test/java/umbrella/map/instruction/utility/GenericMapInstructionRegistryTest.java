@@ -0,0 +1,64 @@
+package umbrella.map.instruction.utility;/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.map.instruction.IMapInstruction;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class GenericMapInstructionRegistryTest {
+
+	/**
+	 * Tests instruction creation through explicit factories.
+	 */
+	@Test
+	public void testFactory () {
+		IMapInstructionFactory<?> factory = IMapInstructionRegistry.DEFAULT.getFactory ("MTD");
+
+		// verify factory
+		Assert.assertSame ("Explicit factory was not registered", GenericMethodNameInstruction.FACTORY, factory);
+		Assert.assertEquals ("Category was not resolved correctly", MapInstructionCategory.METHOD_NAME, factory.getCategory ());
+
+		// verify instruction
+		IMapInstruction instruction = IMapInstructionRegistry.DEFAULT.getElement ("MTD", "Test#method1:V");
+		Assert.assertEquals ("Instruction was not created correctly", new GenericMethodNameInstruction ("Test", "method1", "V"), instruction);
+		Assert.assertEquals ("Instruction name did not resolve correctly", "MTD", IMapInstructionRegistry.DEFAULT.getName (instruction));
+	}
+
+	/**
+	 * Tests the reflective fallback for instruction types without an explicit factory.
+	 */
+	@Test
+	public void testReflectiveFactory () {
+		GenericMapInstructionRegistry registry = new GenericMapInstructionRegistry ();
+		registry.registerInstruction ("TYP", GenericTypeNameInstruction.class);
+
+		// verify factory
+		IMapInstructionFactory<?> factory = registry.getFactory ("TYP");
+		Assert.assertTrue ("Reflective factory was not used", (factory instanceof ReflectiveMapInstructionFactory));
+		Assert.assertEquals ("Category was not resolved correctly", MapInstructionCategory.TYPE_NAME, factory.getCategory ());
+
+		// verify instruction
+		Assert.assertEquals ("Instruction was not created correctly", new GenericTypeNameInstruction ("Test"), registry.getElement ("TYP", "Test"));
+	}
+}
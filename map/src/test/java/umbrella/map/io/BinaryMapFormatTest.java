@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package umbrella.map.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.GenericMap;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+import umbrella.utility.IOUtility;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class BinaryMapFormatTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	protected static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", "I"), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests format detection.
+	 * @throws IOException Occurs if encoding the map fails.
+	 */
+	@Test
+	public void testDetect () throws IOException {
+		// encode map
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		createMap ().save (outputStream, MapFormat.BINARY);
+
+		// verify results
+		Assert.assertEquals ("Binary map was not detected", MapFormat.BINARY, MapFormat.detect (new ByteArrayInputStream (outputStream.toByteArray ())));
+		Assert.assertEquals ("Text map was not detected", MapFormat.TEXT, MapFormat.detect (new ByteArrayInputStream ("TYP A TYP B".getBytes ())));
+		Assert.assertEquals ("Empty map was not detected", MapFormat.TEXT, MapFormat.detect (new ByteArrayInputStream (new byte[0])));
+	}
+
+	/**
+	 * Tests saving and loading.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 */
+	@Test
+	public void testSaveLoad () throws IOException {
+		// encode map
+		GenericMap map = createMap ();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		map.save (outputStream, MapFormat.BINARY);
+
+		// decode map
+		GenericMap map1 = new GenericMap (new ByteArrayInputStream (outputStream.toByteArray ()));
+
+		// verify results
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+		Assert.assertEquals ("Type did not resolve correctly", "A", map1.mapTypeName ("Test"));
+		Assert.assertEquals ("Unicode type did not resolve correctly", "B", map1.mapTypeName ("Testä😀"));
+		Assert.assertEquals ("Field did not resolve correctly", "a", map1.mapFieldName ("Test", "field1", "Ljava/lang/String;"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map1.mapMethodName ("Test", "method1", "()V"));
+		Assert.assertEquals ("Invoke Dynamic Method did not resolve correctly", "a", map1.mapInvokeDynamicMethodName ("dynamic1", "()I"));
+	}
+
+	/**
+	 * Tests corruption detection.
+	 * @throws IOException Occurs if encoding the map fails.
+	 */
+	@Test (expected = IOException.class)
+	public void testChecksum () throws IOException {
+		// encode map
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		createMap ().save (outputStream, MapFormat.BINARY);
+
+		// corrupt a string within the string table
+		byte[] data = outputStream.toByteArray ();
+		data[data.length / 2] ^= 0x01;
+
+		// decode map
+		(new BinaryMapReader ()).read (new ByteArrayInputStream (data), new GenericMap ());
+	}
+
+	/**
+	 * Tests that corrupted maps do not modify the target map.
+	 * @throws IOException Occurs if encoding the map fails.
+	 */
+	@Test
+	public void testChecksumUnmodified () throws IOException {
+		// encode map
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		createMap ().save (outputStream, MapFormat.BINARY);
+
+		// corrupt the last instruction
+		byte[] data = outputStream.toByteArray ();
+		data[data.length - 1] ^= 0x01;
+
+		// decode map
+		GenericMap map = new GenericMap ();
+
+		try {
+			(new BinaryMapReader ()).read (new ByteArrayInputStream (data), map);
+			Assert.fail ("Corrupted map was accepted");
+		} catch (IOException ignore) { }
+
+		// verify results
+		Assert.assertTrue ("Corrupted map modified the target map", map.getInstructionMap ().isEmpty ());
+	}
+
+	/**
+	 * Tests lengths which exceed the payload.
+	 * @throws IOException Occurs if the map is malformed.
+	 */
+	@Test (expected = IOException.class)
+	public void testLength () throws IOException {
+		// encode payload (a single string which claims to be far longer than the payload)
+		ByteArrayOutputStream payload = new ByteArrayOutputStream ();
+		IOUtility.writeVarInt (payload, 1);
+		IOUtility.writeVarInt (payload, 0);
+		IOUtility.writeVarInt (payload, Integer.MAX_VALUE);
+
+		CRC32 checksum = new CRC32 ();
+		checksum.update (payload.toByteArray ());
+
+		// encode map
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		DataOutputStream dataStream = new DataOutputStream (outputStream);
+		dataStream.write (MapFormat.BINARY.getMagic ());
+		dataStream.writeByte (BinaryMapWriter.VERSION);
+		dataStream.writeInt (((int) checksum.getValue ()));
+		payload.writeTo (dataStream);
+
+		// decode map
+		(new BinaryMapReader ()).read (new ByteArrayInputStream (outputStream.toByteArray ()), new GenericMap ());
+	}
+}
@@ -0,0 +1,113 @@
+package umbrella.map.io;/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.GenericMap;
+import umbrella.map.instruction.GenericFieldNameInstruction;
+import umbrella.map.instruction.GenericInvokeDynamicMethodNameInstruction;
+import umbrella.map.instruction.GenericMethodNameInstruction;
+import umbrella.map.instruction.GenericTypeNameInstruction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class CompressedMapFormatTest {
+
+	/**
+	 * Creates a test map.
+	 * @return The map.
+	 */
+	private static GenericMap createMap () {
+		// create map
+		GenericMap map = new GenericMap ();
+
+		// append a few elements
+		map.addInstruction (new GenericTypeNameInstruction ("Test"), new GenericTypeNameInstruction ("A"));
+		map.addInstruction (new GenericTypeNameInstruction ("Testä😀"), new GenericTypeNameInstruction ("B"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field1", "Ljava/lang/String;"), new GenericFieldNameInstruction ("A", "a", "Ljava/lang/String;"));
+		map.addInstruction (new GenericFieldNameInstruction ("Test", "field2", "I"), new GenericFieldNameInstruction ("A", "b", null));
+		map.addInstruction (new GenericMethodNameInstruction ("Test", "method1", "()V"), new GenericMethodNameInstruction ("A", "a", "()V"));
+		map.addInstruction (new GenericInvokeDynamicMethodNameInstruction ("dynamic1", "()I"), new GenericInvokeDynamicMethodNameInstruction ("a", "()I"));
+
+		// return finished map
+		return map;
+	}
+
+	/**
+	 * Tests saving and loading.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 */
+	@Test
+	public void testSaveLoad () throws IOException {
+		// encode map
+		GenericMap map = createMap ();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		map.save (outputStream, MapFormat.COMPRESSED);
+
+		// decode map
+		GenericMap map1 = new GenericMap (new ByteArrayInputStream (outputStream.toByteArray ()));
+
+		// verify results
+		Assert.assertEquals ("Compressed map was not detected", MapFormat.COMPRESSED, MapFormat.detect (new ByteArrayInputStream (outputStream.toByteArray ())));
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+		Assert.assertEquals ("Unicode type did not resolve correctly", "B", map1.mapTypeName ("Testä😀"));
+		Assert.assertEquals ("Method did not resolve correctly", "a", map1.mapMethodName ("Test", "method1", "()V"));
+	}
+
+	/**
+	 * Tests compressing other map formats.
+	 * @throws IOException Occurs if encoding or decoding the map fails.
+	 */
+	@Test
+	public void testNestedFormat () throws IOException {
+		// encode map
+		GenericMap map = createMap ();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		(new CompressedMapWriter (MapFormat.BINARY)).write (map, outputStream);
+
+		// decode map
+		GenericMap map1 = new GenericMap (new ByteArrayInputStream (outputStream.toByteArray ()));
+
+		// verify results
+		Assert.assertEquals ("Instruction maps differ", map.getInstructionMap (), map1.getInstructionMap ());
+	}
+
+	/**
+	 * Tests corruption detection.
+	 * @throws IOException Occurs if encoding the map fails.
+	 */
+	@Test (expected = IOException.class)
+	public void testChecksum () throws IOException {
+		// encode map
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		createMap ().save (outputStream, MapFormat.COMPRESSED);
+
+		// corrupt compressed data
+		byte[] data = outputStream.toByteArray ();
+		data[data.length / 2] ^= 0x01;
+
+		// decode map
+		(new CompressedMapReader ()).open (new ByteArrayInputStream (data));
+	}
+}
@@ -0,0 +1,104 @@
+package umbrella.map.io;/*
+ * Copyright 2014 Johannes Donath <johannesd@evil-co.com>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import umbrella.map.GenericMap;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Johannes Donath <johannesd@evil-co.com>
+ * @copyright Copyright (C) 2014 Evil-Co <http://www.evil-co.com>
+ */
+@RunWith (MockitoJUnitRunner.class)
+public class ParallelTextMapReaderTest {
+
+	/**
+	 * Writes a test map.
+	 * @param file The file.
+	 * @param lines The amount of type mappings.
+	 * @param malformedLine The line to corrupt (or -1).
+	 * @throws IOException Occurs if writing to the file is not possible.
+	 */
+	private static void writeMap (File file, int lines, int malformedLine) throws IOException {
+		Writer writer = new OutputStreamWriter (new FileOutputStream (file), StandardCharsets.UTF_8);
+
+		try {
+			writer.write ("// Test Map\n");
+
+			for (int i = 2; i <= lines; i++) {
+				if (i == malformedLine)
+					writer.write ("TYP Malformed\n");
+				else if (i == lines)
+					writer.write ("TYP Type0 TYP Last\n");
+				else
+					writer.write ("TYP Type" + (i % 1000) + " TYP Ä" + i + "\n");
+			}
+		} finally {
+			writer.close ();
+		}
+	}
+
+	/**
+	 * Tests parallel loading.
+	 * @throws IOException Occurs if reading or writing from/to the file is not possible.
+	 */
+	@Test
+	public void testRead () throws IOException {
+		File file = File.createTempFile ("umbrella", ".map");
+
+		try {
+			writeMap (file, 50000, -1);
+
+			// load map
+			GenericMap map = new GenericMap ();
+			(new ParallelTextMapReader (4)).read (file, map);
+
+			// verify results (later lines replace earlier ones)
+			Assert.assertEquals ("Instruction count does not match", 1000, map.getInstructionMap ().size ());
+			Assert.assertEquals ("Type did not resolve correctly", "Last", map.mapTypeName ("Type0"));
+			Assert.assertEquals ("Type did not resolve correctly", "Ä49999", map.mapTypeName ("Type999"));
+		} finally {
+			file.delete ();
+		}
+	}
+
+	/**
+	 * Tests line numbers of parallel loading errors.
+	 * @throws IOException Occurs if reading or writing from/to the file is not possible.
+	 */
+	@Test
+	public void testLineNumber () throws IOException {
+		File file = File.createTempFile ("umbrella", ".map");
+
+		try {
+			writeMap (file, 50000, 37123);
+
+			// load map
+			try {
+				(new ParallelTextMapReader (4)).read (file, new GenericMap ());
+				Assert.fail ("Malformed map was accepted");
+			} catch (MapParseException ex) {
+				Assert.assertEquals ("Line number was not reported correctly", 37123, ex.getLineNumber ());
+			}
+		} finally {
+			file.delete ();
+		}
+	}
+}
@@ -15,6 +15,10 @@
 package umbrella.utility;
 
 import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * @author Johannes Donath <johannesd@evil-co.com>
@@ -35,4 +39,45 @@ public class IOUtility {
 	public static void closeQuietly (Closeable object) {
 		try { object.close (); } catch (Exception ex) { }
 	}
+
+	/**
+	 * Reads an unsigned variable length integer.
+	 * @param inputStream The input stream.
+	 * @return The value.
+	 * @throws IOException Occurs if reading from the stream is not possible or the value is malformed.
+	 * @since 1.0.0
+	 */
+	public static int readVarInt (InputStream inputStream) throws IOException {
+		int value = 0;
+
+		for (int shift = 0; shift < 35; shift += 7) {
+			// read next byte
+			int current = inputStream.read ();
+			if (current == -1) throw new EOFException ("Unexpected end of stream within variable length integer");
+
+			// append bits
+			value |= ((current & 0x7F) << shift);
+
+			// check for last byte
+			if ((current & 0x80) == 0) return value;
+		}
+
+		throw new IOException ("Malformed variable length integer");
+	}
+
+	/**
+	 * Writes an unsigned variable length integer.
+	 * @param outputStream The output stream.
+	 * @param value The value.
+	 * @throws IOException Occurs if writing to the stream is not possible.
+	 * @since 1.0.0
+	 */
+	public static void writeVarInt (OutputStream outputStream, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			outputStream.write (((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		outputStream.write (value);
+	}
 }
@@ -21,6 +21,8 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 import umbrella.utility.IOUtility;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 
@@ -55,6 +57,29 @@ public class IOUtilityTest {
 		IOUtility.closeQuietly (testClass);
 	}
 
+	/**
+	 * Tests the variable length integer methods.
+	 * @throws IOException Occurs if encoding or decoding fails.
+	 */
+	@Test
+	public void testVarInt () throws IOException {
+		// define test values
+		int[] values = new int[] { 0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, -1 };
+
+		// encode values
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream ();
+		for (int value : values) IOUtility.writeVarInt (outputStream, value);
+
+		// verify encoded size of small values
+		ByteArrayOutputStream smallStream = new ByteArrayOutputStream ();
+		IOUtility.writeVarInt (smallStream, 127);
+		Assert.assertEquals ("Small value does not use a single byte", 1, smallStream.size ());
+
+		// decode values
+		ByteArrayInputStream inputStream = new ByteArrayInputStream (outputStream.toByteArray ());
+		for (int value : values) Assert.assertEquals ("Value did not decode correctly", value, IOUtility.readVarInt (inputStream));
+	}
+
 	/**
 	 * A closable test object.
 	 */